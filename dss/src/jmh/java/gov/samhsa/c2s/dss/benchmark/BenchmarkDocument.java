@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.dss.benchmark;
+
+/**
+ * The clinical document fixtures the benchmarks run on, with the document type the stubbed document validator
+ * reports for them.
+ */
+public enum BenchmarkDocument {
+
+    C32("sampleC32/c32.xml", "HITSP_C32"),
+    CCDA_R2_0("c-cda-r2-0/C-CDA_R2_CCD.XML", "CCDA_R2_0_CCD_V2"),
+    CCDA_R2_1("c-cda-r2-1/C-CDA_R2-1_CCD.xml", "CCDA_R2_1_CCD_V3");
+
+    private final String path;
+    private final String documentType;
+
+    BenchmarkDocument(String path, String documentType) {
+        this.path = path;
+        this.documentType = documentType;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getDocumentType() {
+        return documentType;
+    }
+}
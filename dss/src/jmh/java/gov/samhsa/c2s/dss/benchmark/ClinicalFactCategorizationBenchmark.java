@@ -0,0 +1,106 @@
+package gov.samhsa.c2s.dss.benchmark;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import gov.samhsa.c2s.dss.service.valueset.ClinicalFactCategorizerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks assigning the value set service response to the clinical facts, with a hash join as in
+ * {@link ClinicalFactCategorizerImpl} against the nested scan of the response for every fact it replaced. A quarter
+ * of the facts have categories. The value set service answers from memory, so the hash join also includes building
+ * the de-duplicated lookup request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClinicalFactCategorizationBenchmark {
+
+    private static final String SNOMED_CT = "2.16.840.1.113883.6.96";
+
+    @Param({"100", "1000", "10000"})
+    private int factCount;
+
+    private List<ClinicalFact> clinicalFacts;
+    private List<ValueSetCategoryMapResponseDto> valueSetCategories;
+    private ClinicalFactCategorizerImpl clinicalFactCategorizer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        clinicalFacts = new ArrayList<>(factCount);
+        for (int i = 0; i < factCount; i++) {
+            final ClinicalFact clinicalFact = new ClinicalFact();
+            clinicalFact.setCode(String.valueOf(i));
+            clinicalFact.setCodeSystem(SNOMED_CT);
+            clinicalFacts.add(clinicalFact);
+        }
+        valueSetCategories = new ArrayList<>(factCount / 4);
+        for (int i = 0; i < factCount / 4; i++) {
+            valueSetCategories.add(new ValueSetCategoryMapResponseDto(String.valueOf(i * 4), SNOMED_CT,
+                    Collections.singleton(i % 2 == 0 ? "HIV" : "PSY")));
+        }
+        clinicalFactCategorizer = new ClinicalFactCategorizerImpl(new InMemoryValueSetService(valueSetCategories));
+    }
+
+    @Benchmark
+    public List<ClinicalFact> hashJoin() {
+        clinicalFactCategorizer.categorize(clinicalFacts);
+        return clinicalFacts;
+    }
+
+    @Benchmark
+    public List<ClinicalFact> nestedScan() {
+        clinicalFacts.forEach(fact -> valueSetCategories.stream()
+                .filter(dto -> fact.getCode().equals(dto.getCodedConceptCode()) && fact.getCodeSystem()
+                        .equals(dto.getCodeSystemOid()))
+                .map(ValueSetCategoryMapResponseDto::getValueSetCategoryCodes)
+                .filter(Objects::nonNull)
+                .findAny().ifPresent(fact::setValueSetCategories));
+        return clinicalFacts;
+    }
+
+    /**
+     * Answers every lookup with the same response instead of calling the value set service.
+     */
+    private static final class InMemoryValueSetService implements ValueSetService {
+        private final List<ValueSetCategoryMapResponseDto> valueSetCategories;
+
+        private InMemoryValueSetService(List<ValueSetCategoryMapResponseDto> valueSetCategories) {
+            this.valueSetCategories = valueSetCategories;
+        }
+
+        @Override
+        public List<ValueSetCategoryResponseDto> getAllValueSetCategories() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<ValueSetCategoryMapResponseDto> lookupValueSetCategories(
+                List<ConceptCodeAndCodeSystemOidDto> conceptCodeAndCodeSystemOidDtos) {
+            return valueSetCategories;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package gov.samhsa.c2s.dss.benchmark;
+
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
+import gov.samhsa.c2s.dss.service.document.dto.ExtractedFactModel;
+import gov.samhsa.c2s.dss.service.document.dto.RedactedDocument;
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+import gov.samhsa.c2s.dss.service.dto.DSSResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the stages of the clinical document segmentation and the whole segmentation on the sample C32 and
+ * C-CDA documents. The stages that change the document in place get a freshly parsed document for every invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentSegmentationBenchmark {
+
+    @Param({"C32", "CCDA_R2_0", "CCDA_R2_1"})
+    private BenchmarkDocument document;
+
+    private SegmentationComponents components;
+    private String originalDocument;
+    private XacmlResult xacmlResult;
+    private FactModel factModel;
+    private Document redactedDocument;
+    private String executionResponseContainer;
+    private DSSRequest dssRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        components = new SegmentationComponents(document.getDocumentType());
+        originalDocument = components.fileReader.readFile(document.getPath());
+        xacmlResult = components.xacmlResult();
+
+        final SegmentationInput input = prepare();
+        factModel = input.factModel;
+        components.documentRedactor.redactDocument(input.document, input.factModelDocument,
+                input.ruleExecutionContainer, input.factModel, document.getDocumentType(), false);
+        redactedDocument = input.document;
+        executionResponseContainer = components.marshaller.marshal(input.ruleExecutionContainer);
+
+        dssRequest = new DSSRequest();
+        dssRequest.setDocument(originalDocument.getBytes(StandardCharsets.UTF_8));
+        dssRequest.setXacmlResult(xacmlResult);
+        dssRequest.setAudited(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        components.shutdown();
+    }
+
+    @Benchmark
+    public ExtractedFactModel extractFactModel(ParsedDocument parsedDocument) {
+        return components.documentFactModelExtractor.extractFactModel(parsedDocument.document, xacmlResult);
+    }
+
+    @Benchmark
+    public AssertAndExecuteClinicalFactsResponse assertAndExecuteClinicalFacts() {
+        return components.ruleExecutionService.assertAndExecuteClinicalFacts(factModel);
+    }
+
+    @Benchmark
+    public RedactedDocument redactDocument(SegmentationInput input) {
+        return components.documentRedactor.redactDocument(input.document, input.factModelDocument,
+                input.ruleExecutionContainer, input.factModel, document.getDocumentType(), false);
+    }
+
+    @Benchmark
+    public Document tagDocument() {
+        return components.documentTagger.tagDocument(redactedDocument, executionResponseContainer);
+    }
+
+    @Benchmark
+    public DSSResponse segmentDocument() {
+        return components.documentSegmentation.segmentDocument(dssRequest);
+    }
+
+    /**
+     * Parses the document and runs the stages before the redaction on it.
+     */
+    private SegmentationInput prepare() throws Exception {
+        final SegmentationInput input = new SegmentationInput();
+        input.prepare(this);
+        return input;
+    }
+
+    /**
+     * A freshly parsed copy of the document, the fact model extraction adds the generated entry ids to it.
+     */
+    @State(Scope.Thread)
+    public static class ParsedDocument {
+        private Document document;
+
+        @Setup(Level.Invocation)
+        public void parse(DocumentSegmentationBenchmark benchmark) throws Exception {
+            document = benchmark.components.documentXmlConverter.loadDocument(benchmark.originalDocument);
+        }
+    }
+
+    /**
+     * The document with its categorized fact model and rule execution results, the redaction removes the redacted
+     * nodes from the document and sets the item actions on the rule execution container.
+     */
+    @State(Scope.Thread)
+    public static class SegmentationInput {
+        private Document document;
+        private Document factModelDocument;
+        private FactModel factModel;
+        private RuleExecutionContainer ruleExecutionContainer;
+
+        @Setup(Level.Invocation)
+        public void prepare(DocumentSegmentationBenchmark benchmark) throws Exception {
+            final SegmentationComponents components = benchmark.components;
+            document = components.documentXmlConverter.loadDocument(benchmark.originalDocument);
+            final ExtractedFactModel extractedFactModel = components.documentFactModelExtractor
+                    .extractFactModel(document, benchmark.xacmlResult);
+            factModel = extractedFactModel.getFactModel();
+            factModelDocument = extractedFactModel.getFactModelDocument();
+            components.clinicalFactCategorizer.categorize(factModel.getClinicalFactList());
+            ruleExecutionContainer = components.ruleExecutionService.executeClinicalFacts(factModel)
+                    .getRuleExecutionContainer();
+        }
+    }
+}
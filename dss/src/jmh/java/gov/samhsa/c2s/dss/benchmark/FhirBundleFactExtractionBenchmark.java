@@ -0,0 +1,102 @@
+package gov.samhsa.c2s.dss.benchmark;
+
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.service.fhir.FhirBundleFactModelExtractorImpl;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.CodeableConcept;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Condition;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.hl7.fhir.dstu3.model.Reference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the clinical fact extraction of FHIR bundles with half Observations and half Conditions, on one thread
+ * and on the FHIR fact extraction pool with the given parallelism.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FhirBundleFactExtractionBenchmark {
+
+    private static final String SYSTEM_LOINC = "http://loinc.org";
+    private static final String SYSTEM_SNOMED_CT = "http://snomed.info/sct";
+
+    @Param({"1000", "10000"})
+    private int entryCount;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private ForkJoinPool fhirFactExtractionPool;
+    private FhirBundleFactModelExtractorImpl fhirBundleFactModelExtractor;
+    private XacmlResult xacmlResult;
+    private Bundle bundle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fhirFactExtractionPool = new ForkJoinPool(parallelism);
+        final DssProperties dssProperties = new DssProperties();
+        // a single thread extracts on the calling thread, like bundles below the threshold
+        dssProperties.getFhirFactExtraction().setParallelThreshold(parallelism == 1 ? Integer.MAX_VALUE : 1);
+        fhirBundleFactModelExtractor = new FhirBundleFactModelExtractorImpl(fhirFactExtractionPool, dssProperties);
+        xacmlResult = new XacmlResult();
+        bundle = bundle(entryCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fhirFactExtractionPool.shutdown();
+    }
+
+    @Benchmark
+    public FactModel extractFactModel() {
+        return fhirBundleFactModelExtractor.extractFactModel(bundle, xacmlResult);
+    }
+
+    private static Bundle bundle(int entryCount) {
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.SEARCHSET);
+        for (int i = 0; i < entryCount; i++) {
+            if (i % 2 == 0) {
+                final Observation observation = new Observation();
+                observation.setId("Observation/" + i);
+                observation.setStatus(Observation.ObservationStatus.FINAL);
+                observation.setCode(new CodeableConcept()
+                        .addCoding(new Coding(SYSTEM_LOINC, "11450-4", "Problem list")));
+                observation.setSubject(new Reference("Patient/benchmarkPatientId"));
+                bundle.addEntry().setFullUrl("urn:uuid:observation-" + i).setResource(observation);
+            } else {
+                final Condition condition = new Condition();
+                condition.setId("Condition/" + i);
+                condition.setCode(new CodeableConcept()
+                        .addCoding(new Coding(SYSTEM_SNOMED_CT, "111880001", "Acute HIV"))
+                        .addCoding(new Coding("urn:oid:2.16.840.1.113883.6.103", "042", "HIV infection")));
+                condition.setSubject(new Reference("Patient/benchmarkPatientId"));
+                bundle.addEntry().setFullUrl("urn:uuid:condition-" + i).setResource(condition);
+            }
+        }
+        bundle.setTotal(entryCount);
+        return bundle;
+    }
+}
@@ -0,0 +1,114 @@
+package gov.samhsa.c2s.dss.benchmark;
+
+import gov.samhsa.c2s.brms.domain.SubjectPurposeOfUse;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.CodeableConcept;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the redaction of FHIR bundles by their security labels. There are no FHIR bundle fixtures, so the
+ * bundles are generated: a third of the entries only have a confidentiality label, a third are labeled with a shared
+ * category and a third are labeled with a category that is not shared and are redacted.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FhirBundleRedactionBenchmark {
+
+    private static final String SYSTEM_ACT_CODE = "http://hl7.org/fhir/v3/ActCode";
+    private static final String SYSTEM_CONFIDENTIALITY = "http://hl7.org/fhir/v3/Confidentiality";
+    private static final String SYSTEM_LOINC = "http://loinc.org";
+    private static final List<String> SHARED_CATEGORIES = Arrays.asList("ETH", "PSY", "ALC");
+    private static final List<String> REDACTED_CATEGORIES = Arrays.asList("HIV", "SEX", "COM");
+
+    @Param({"100", "1000", "10000"})
+    private int entryCount;
+
+    private SegmentationComponents components;
+    private XacmlResult xacmlResult;
+    private Bundle bundle;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        components = new SegmentationComponents(BenchmarkDocument.C32.getDocumentType());
+        xacmlResult = new XacmlResult();
+        xacmlResult.setPdpDecision("PERMIT");
+        xacmlResult.setSubjectPurposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT);
+        xacmlResult.setPdpObligations(SHARED_CATEGORIES);
+        xacmlResult.setPatientId("benchmarkPatientId");
+        xacmlResult.setMessageId("benchmarkMessageId");
+        bundle = bundle(entryCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        components.shutdown();
+    }
+
+    @Benchmark
+    public Bundle redactFhirBundle(BundleCopy bundleCopy) {
+        return components.fhirBundleSegmentation.redactFhirBundle(bundleCopy.bundle, xacmlResult);
+    }
+
+    private static Bundle bundle(int entryCount) {
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.SEARCHSET);
+        for (int i = 0; i < entryCount; i++) {
+            final Observation observation = new Observation();
+            observation.setId("Observation/" + i);
+            observation.setStatus(Observation.ObservationStatus.FINAL);
+            observation.setCode(new CodeableConcept().addCoding(new Coding(SYSTEM_LOINC, "11450-4", "Problem list")));
+            observation.getMeta().addSecurity(new Coding(SYSTEM_CONFIDENTIALITY, "N", null));
+            switch (i % 3) {
+                case 1:
+                    observation.getMeta().addSecurity(new Coding(SYSTEM_ACT_CODE,
+                            SHARED_CATEGORIES.get(i / 3 % SHARED_CATEGORIES.size()), null));
+                    break;
+                case 2:
+                    observation.getMeta().addSecurity(new Coding(SYSTEM_ACT_CODE,
+                            REDACTED_CATEGORIES.get(i / 3 % REDACTED_CATEGORIES.size()), null));
+                    break;
+                default:
+                    break;
+            }
+            bundle.addEntry().setFullUrl("urn:uuid:observation-" + i).setResource(observation);
+        }
+        bundle.setTotal(entryCount);
+        return bundle;
+    }
+
+    /**
+     * A copy of the bundle for every invocation, the redaction removes the redacted entries from the bundle.
+     */
+    @State(Scope.Thread)
+    public static class BundleCopy {
+        private Bundle bundle;
+
+        @Setup(Level.Invocation)
+        public void copy(FhirBundleRedactionBenchmark benchmark) {
+            bundle = benchmark.bundle.copy();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package gov.samhsa.c2s.dss.benchmark;
+
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.brms.service.RuleExecutionServiceImpl;
+import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeBaseCacheImpl;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeSessionPoolImpl;
+import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
+import gov.samhsa.c2s.common.document.accessor.DocumentAccessorImpl;
+import gov.samhsa.c2s.common.document.converter.DocumentXmlConverter;
+import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
+import gov.samhsa.c2s.common.filereader.FileReader;
+import gov.samhsa.c2s.common.filereader.FileReaderImpl;
+import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
+import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
+import gov.samhsa.c2s.dss.config.DocumentTaggerConfig;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.infrastructure.DocumentValidatorClient;
+import gov.samhsa.c2s.dss.infrastructure.dto.ValidationResponseDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetServiceImplMock;
+import gov.samhsa.c2s.dss.service.DocumentSegmentationImpl;
+import gov.samhsa.c2s.dss.service.FhirBundleSegmentationImpl;
+import gov.samhsa.c2s.dss.service.document.DocumentEditorImpl;
+import gov.samhsa.c2s.dss.service.document.DocumentFactModelExtractorImpl;
+import gov.samhsa.c2s.dss.service.document.DocumentRedactorImpl;
+import gov.samhsa.c2s.dss.service.document.DocumentTaggerImpl;
+import gov.samhsa.c2s.dss.service.document.redact.base.AbstractClinicalFactLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.AbstractDocumentLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.AbstractObligationLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.AbstractPostRedactionLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.DocumentationOfServiceEvent;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.Entry;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableContentElementByCode;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableContentElementByDisplayName;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableContentElementById;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableTableRowByCode;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableTableRowByDisplayName;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableTableRowById;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableTextNodeByCode;
+import gov.samhsa.c2s.dss.service.document.redact.impl.clinicalfactlevel.HumanReadableTextNodeByDisplayName;
+import gov.samhsa.c2s.dss.service.document.redact.impl.documentlevel.UnsupportedHeaderElementHandler;
+import gov.samhsa.c2s.dss.service.document.redact.impl.documentlevel.UnsupportedSectionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.impl.obligationlevel.Section;
+import gov.samhsa.c2s.dss.service.document.redact.impl.postredactionlevel.DocumentCleanupForDocumentationOfNoServiceEvent;
+import gov.samhsa.c2s.dss.service.document.redact.impl.postredactionlevel.DocumentCleanupForEmptyTablesInSectionText;
+import gov.samhsa.c2s.dss.service.document.redact.impl.postredactionlevel.DocumentCleanupForNoEntryAndNoSection;
+import gov.samhsa.c2s.dss.service.document.redact.impl.postredactionlevel.RuleExecutionResponseMarkerForRedactedEntries;
+import gov.samhsa.c2s.dss.service.fhir.FhirBundleRedactorImpl;
+import gov.samhsa.c2s.dss.service.metadata.AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl;
+import gov.samhsa.c2s.dss.service.metadata.MetadataGeneratorImpl;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationMetrics;
+import gov.samhsa.c2s.dss.service.valueset.ClinicalFactCategorizerImpl;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The segmentation components wired like the application context wires them, with in-process stubs in place of the
+ * value set service, the document validator and Guvnor, so that the benchmarks only measure the segmentation itself.
+ */
+final class SegmentationComponents {
+
+    private static final String RULES = "unitTestRules.txt";
+    private static final String XACML_RESULT = "testXacmlResult.xml";
+    private static final List<String> HEADERS_WHITE_LIST = Arrays.asList("realmCode", "typeId", "templateId", "id",
+            "code", "title", "effectiveTime", "confidentialityCode", "languageCode", "setId", "versionNumber",
+            "copyTime", "recordTarget", "author", "dataEnterer", "custodian", "legalAuthenticator",
+            "inFulfillmentOf", "documentationOf", "relatedDocument", "authorization", "componentOf", "component");
+    private static final List<String> REQUIRED_SECTIONS = Arrays.asList("11450-4", "48765-2", "10160-0", "30954-2");
+    private static final List<String> SECTION_WHITE_LIST = Arrays.asList("11450-4", "48765-2", "10160-0", "30954-2",
+            "29762-2", "8716-3", "47519-4");
+
+    final FileReader fileReader = new FileReaderImpl();
+    final SimpleMarshaller marshaller = new SimpleMarshallerImpl();
+    final DocumentXmlConverter documentXmlConverter = new DocumentXmlConverterImpl();
+    final DocumentAccessor documentAccessor = new DocumentAccessorImpl();
+    final XslTemplatesRegistry xslTemplatesRegistry = new XslTemplatesRegistryImpl(new NoOpCounterService(),
+            new NoOpGaugeService());
+    final ValueSetService valueSetService = new ValueSetServiceImplMock(fileReader);
+    final DssProperties dssProperties;
+    final DocumentFactModelExtractorImpl documentFactModelExtractor;
+    final ClinicalFactCategorizerImpl clinicalFactCategorizer;
+    final RuleExecutionServiceImpl ruleExecutionService;
+    final DocumentRedactorImpl documentRedactor;
+    final DocumentTaggerImpl documentTagger;
+    final DocumentSegmentationImpl documentSegmentation;
+    final FhirBundleSegmentationImpl fhirBundleSegmentation;
+
+    private final ExecutorService documentValidationExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Wires the components.
+     *
+     * @param documentType the document type the stubbed document validator reports for every document
+     * @throws IOException if the rules cannot be read
+     */
+    SegmentationComponents(String documentType) throws IOException {
+        dssProperties = dssProperties(documentType);
+        documentFactModelExtractor = new DocumentFactModelExtractorImpl(xslTemplatesRegistry);
+        clinicalFactCategorizer = new ClinicalFactCategorizerImpl(valueSetService);
+        ruleExecutionService = new RuleExecutionServiceImpl(new KnowledgeSessionPoolImpl(
+                new KnowledgeBaseCacheImpl(new RulesFileGuvnorService(fileReader.readFile(RULES)),
+                        new NoOpCounterService(), new NoOpGaugeService()),
+                new NoOpCounterService(), 16), marshaller);
+        documentRedactor = documentRedactor();
+
+        documentTagger = new DocumentTaggerImpl();
+        ReflectionTestUtils.setField(documentTagger, "xslTemplatesRegistry", xslTemplatesRegistry);
+        ReflectionTestUtils.setField(documentTagger, "marshaller", marshaller);
+        ReflectionTestUtils.setField(documentTagger, "documentTaggerConfig", new DocumentTaggerConfig());
+
+        documentSegmentation = new DocumentSegmentationImpl(ruleExecutionService,
+                new DocumentEditorImpl(new MetadataGeneratorImpl(xslTemplatesRegistry), fileReader,
+                        documentXmlConverter, documentAccessor),
+                marshaller, documentRedactor, documentTagger, documentFactModelExtractor, documentXmlConverter,
+                clinicalFactCategorizer,
+                new AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl(xslTemplatesRegistry),
+                new SegmentationMetrics(new NoOpCounterService(), new NoOpGaugeService()));
+        final DocumentValidatorClient documentValidatorClient = requestDto -> validDocument(documentType);
+        ReflectionTestUtils.setField(documentSegmentation, "documentValidatorClient", documentValidatorClient);
+        ReflectionTestUtils.setField(documentSegmentation, "documentValidationExecutor", documentValidationExecutor);
+        ReflectionTestUtils.setField(documentSegmentation, "dssProperties", dssProperties);
+        ReflectionTestUtils.setField(documentSegmentation, "auditClient", Optional.empty());
+
+        fhirBundleSegmentation = new FhirBundleSegmentationImpl();
+        ReflectionTestUtils.setField(fhirBundleSegmentation, "fhirBundleRedactor",
+                new FhirBundleRedactorImpl(valueSetService));
+    }
+
+    /**
+     * Reads the xacml result the documents are segmented for.
+     *
+     * @return the xacml result
+     * @throws Exception if the xacml result cannot be read
+     */
+    XacmlResult xacmlResult() throws Exception {
+        return marshaller.unmarshalFromXml(XacmlResult.class, fileReader.readFile(XACML_RESULT));
+    }
+
+    void shutdown() {
+        documentValidationExecutor.shutdown();
+    }
+
+    private DocumentRedactorImpl documentRedactor() {
+        final UnsupportedHeaderElementHandler unsupportedHeaderElementHandler =
+                new UnsupportedHeaderElementHandler(documentAccessor);
+        unsupportedHeaderElementHandler.getHeadersWhiteList().addAll(HEADERS_WHITE_LIST);
+        final Set<AbstractDocumentLevelRedactionHandler> documentLevelRedactionHandlers = new HashSet<>(Arrays.asList(
+                unsupportedHeaderElementHandler,
+                new UnsupportedSectionHandler(documentAccessor, dssProperties)));
+        final Set<AbstractObligationLevelRedactionHandler> obligationLevelRedactionHandlers =
+                Collections.singleton(new Section(documentAccessor));
+        final Set<AbstractClinicalFactLevelRedactionHandler> clinicalFactLevelRedactionHandlers = new HashSet<>(
+                Arrays.asList(
+                        new Entry(documentAccessor),
+                        new DocumentationOfServiceEvent(documentAccessor),
+                        new HumanReadableTextNodeByCode(documentAccessor),
+                        new HumanReadableTextNodeByDisplayName(documentAccessor),
+                        new HumanReadableTableRowByCode(documentAccessor),
+                        new HumanReadableTableRowByDisplayName(documentAccessor),
+                        new HumanReadableTableRowById(documentAccessor),
+                        new HumanReadableContentElementByCode(documentAccessor),
+                        new HumanReadableContentElementByDisplayName(documentAccessor),
+                        new HumanReadableContentElementById(documentAccessor)));
+        final Set<AbstractPostRedactionLevelRedactionHandler> postRedactionLevelRedactionHandlers = new HashSet<>(
+                Arrays.asList(
+                        new DocumentCleanupForNoEntryAndNoSection(documentAccessor, dssProperties),
+                        new DocumentCleanupForDocumentationOfNoServiceEvent(documentAccessor),
+                        new DocumentCleanupForEmptyTablesInSectionText(documentAccessor),
+                        new RuleExecutionResponseMarkerForRedactedEntries(documentAccessor)));
+        return new DocumentRedactorImpl(marshaller, documentXmlConverter, documentAccessor, valueSetService,
+                documentLevelRedactionHandlers, obligationLevelRedactionHandlers,
+                clinicalFactLevelRedactionHandlers, postRedactionLevelRedactionHandlers);
+    }
+
+    private static DssProperties dssProperties(String documentType) {
+        final DssProperties.DocumentTypeDetail documentTypeDetail = new DssProperties.DocumentTypeDetail();
+        documentTypeDetail.setRequiredSections(REQUIRED_SECTIONS);
+        documentTypeDetail.setSectionWhiteList(SECTION_WHITE_LIST);
+        final DssProperties.Redact redact = new DssProperties.Redact();
+        redact.getDocumentTypes().put(documentType, documentTypeDetail);
+        final DssProperties dssProperties = new DssProperties();
+        dssProperties.setRedact(redact);
+        dssProperties.setDocumentSegmentationImpl(new DssProperties.DocumentSegmentationImpl());
+        return dssProperties;
+    }
+
+    private static ValidationResponseDto validDocument(String documentType) {
+        final ValidationResponseDto validationResponseDto = new ValidationResponseDto();
+        validationResponseDto.setDocumentType(documentType);
+        validationResponseDto.setDocumentValid(true);
+        validationResponseDto.setValidationResultDetails(new LinkedList<>());
+        return validationResponseDto;
+    }
+
+    /**
+     * Serves the rules from a test resource instead of fetching them from Guvnor.
+     */
+    private static final class RulesFileGuvnorService implements GuvnorService {
+        private final String rules;
+
+        private RulesFileGuvnorService(String rules) {
+            this.rules = rules;
+        }
+
+        @Override
+        public String getVersionedRulesFromPackage() {
+            return rules;
+        }
+
+        @Override
+        public Optional<String> getRulesSnapshot() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void rulesActivated(String drl) {
+        }
+    }
+
+    /**
+     * Discards the metrics, mocks would record every invocation and distort the allocation rate.
+     */
+    private static final class NoOpCounterService implements CounterService {
+        @Override
+        public void increment(String metricName) {
+        }
+
+        @Override
+        public void decrement(String metricName) {
+        }
+
+        @Override
+        public void reset(String metricName) {
+        }
+    }
+
+    private static final class NoOpGaugeService implements GaugeService {
+        @Override
+        public void submit(String metricName, double value) {
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package gov.samhsa.c2s.loadtest;
+
+/**
+ * Simulates the response time of a remote service in the stand-ins.
+ */
+final class InjectedLatency {
+
+    private InjectedLatency() {
+    }
+
+    static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package gov.samhsa.c2s.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Posts the requests of a workload from a number of concurrent clients, each client sends its next request as soon
+ * as it has read the response to the previous one. The requests sent during the warmup are not measured.
+ */
+final class LoadDriver {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String baseUrl;
+
+    LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    LoadTestResult run(LoadTestWorkload workload, int concurrency, long warmupNanos, long durationNanos)
+            throws Exception {
+        final URL url = new URL(baseUrl + workload.getPath());
+        final AtomicLong requestNumber = new AtomicLong();
+        final CountDownLatch ready = new CountDownLatch(concurrency);
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] measurementStart = new long[1];
+        final ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            final List<Future<ClientResult>> clientResults = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                clientResults.add(clients.submit(() -> {
+                    ready.countDown();
+                    start.await();
+                    final long measured = measurementStart[0];
+                    final long end = measured + durationNanos;
+                    final ClientResult clientResult = new ClientResult();
+                    for (long sent = System.nanoTime(); sent < end; sent = System.nanoTime()) {
+                        final boolean succeeded = post(url,
+                                workload.getRequestBody(requestNumber.getAndIncrement()));
+                        if (sent >= measured) {
+                            clientResult.record(succeeded, System.nanoTime() - sent);
+                        }
+                    }
+                    return clientResult;
+                }));
+            }
+            ready.await();
+            measurementStart[0] = System.nanoTime() + warmupNanos;
+            start.countDown();
+
+            int errors = 0;
+            final List<long[]> latencies = new ArrayList<>(concurrency);
+            for (Future<ClientResult> clientResult : clientResults) {
+                errors += clientResult.get().errors;
+                latencies.add(clientResult.get().latencies());
+            }
+            return new LoadTestResult(workload.getPath(), concurrency, errors, concat(latencies), durationNanos);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static boolean post(URL url, byte[] requestBody) {
+        try {
+            final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(requestBody.length);
+            try (OutputStream outputStream = connection.getOutputStream()) {
+                outputStream.write(requestBody);
+            }
+            final int status = connection.getResponseCode();
+            // the response is read to the end, so that the connection is kept alive for the next request
+            try (InputStream inputStream = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (inputStream != null) {
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    while (inputStream.read(buffer) != -1) {
+                        // discard
+                    }
+                }
+            }
+            return status == HttpURLConnection.HTTP_OK;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    private static long[] concat(List<long[]> arrays) {
+        final long[] concatenated = new long[arrays.stream().mapToInt(array -> array.length).sum()];
+        int offset = 0;
+        for (long[] array : arrays) {
+            System.arraycopy(array, 0, concatenated, offset, array.length);
+            offset += array.length;
+        }
+        return concatenated;
+    }
+
+    /**
+     * The latencies of the successful requests and the number of failed requests of a client.
+     */
+    private static final class ClientResult {
+        private long[] latencies = new long[1024];
+        private int size;
+        private int errors;
+
+        private void record(boolean succeeded, long latencyNanos) {
+            if (!succeeded) {
+                errors++;
+                return;
+            }
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+        }
+
+        private long[] latencies() {
+            return Arrays.copyOf(latencies, size);
+        }
+    }
+}
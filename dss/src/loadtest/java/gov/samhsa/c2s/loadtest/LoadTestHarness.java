@@ -0,0 +1,95 @@
+package gov.samhsa.c2s.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.dss.DssApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots DSS on a random port with in-process stand-ins for the value set service, the document validator, Guvnor and
+ * the audit service, then drives <code>/segmentedDocument</code> and <code>/segmentedFhirBundle</code> at each of the
+ * concurrency levels and writes a throughput versus latency report.
+ * <p>
+ * The harness is configured with the <code>load-test.*</code> properties, given like any other Spring Boot property,
+ * e.g. <code>--load-test.concurrency-levels=1,8,32 --load-test.latency.document-validator-millis=100</code>.
+ */
+public class LoadTestHarness {
+
+    private static final Map<String, String> DEFAULT_PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        // set as system properties, so that the bootstrap context sees them as well
+        DEFAULT_PROPERTIES.put("spring.profiles.active", "load-test");
+        DEFAULT_PROPERTIES.put("spring.cloud.config.enabled", "false");
+        DEFAULT_PROPERTIES.put("spring.cloud.discovery.enabled", "false");
+        DEFAULT_PROPERTIES.put("eureka.client.enabled", "false");
+        DEFAULT_PROPERTIES.put("server.port", "0");
+        DEFAULT_PROPERTIES.put("logging.file", "target/load-test-dss.log");
+        DEFAULT_PROPERTIES.put("logging.level.gov.samhsa.c2s", "warn");
+    }
+
+    public static void main(String[] args) throws Exception {
+        DEFAULT_PROPERTIES.forEach((name, value) -> {
+            if (System.getProperty(name) == null) {
+                System.setProperty(name, value);
+            }
+        });
+
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(DssApplication.class,
+                RemoteServiceStubConfig.class).run(args);
+        try {
+            final Environment environment = context.getEnvironment();
+            final int[] concurrencyLevels = environment.getProperty("load-test.concurrency-levels", int[].class,
+                    new int[]{1, 2, 4, 8, 16});
+            final long warmupSeconds = environment.getProperty("load-test.warmup-seconds", Long.class, 10L);
+            final long durationSeconds = environment.getProperty("load-test.duration-seconds", Long.class, 30L);
+            final int fhirBundleEntries = environment.getProperty("load-test.fhir-bundle-entries", Integer.class,
+                    20);
+            final String reportFile = environment.getProperty("load-test.report-file",
+                    "target/load-test-report.md");
+
+            final ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            final List<LoadTestWorkload> workloads = Arrays.asList(
+                    LoadTestWorkload.segmentedDocuments(objectMapper),
+                    LoadTestWorkload.segmentedFhirBundles(objectMapper, fhirBundleEntries));
+            final LoadDriver loadDriver = new LoadDriver("http://localhost:"
+                    + environment.getProperty("local.server.port"));
+
+            final List<LoadTestResult> results = new ArrayList<>();
+            for (LoadTestWorkload workload : workloads) {
+                for (int concurrency : concurrencyLevels) {
+                    final LoadTestResult result = loadDriver.run(workload, concurrency,
+                            TimeUnit.SECONDS.toNanos(warmupSeconds), TimeUnit.SECONDS.toNanos(durationSeconds));
+                    System.out.println(String.format("%s x%d: %.1f req/s, p99 %.1f ms, %d error(s)",
+                            result.getPath(), concurrency, result.getThroughput(), result.getLatencyMillis(99),
+                            result.getErrors()));
+                    results.add(result);
+                }
+            }
+
+            final Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("Warmup", warmupSeconds + " s");
+            settings.put("Duration", durationSeconds + " s");
+            settings.put("FHIR bundle entries", fhirBundleEntries);
+            settings.put("Value set service latency",
+                    environment.getProperty("load-test.latency.value-set-millis", "20") + " ms");
+            settings.put("Document validator latency",
+                    environment.getProperty("load-test.latency.document-validator-millis", "50") + " ms");
+            settings.put("Guvnor latency", environment.getProperty("load-test.latency.guvnor-millis", "200") + " ms");
+            settings.put("Audit latency", environment.getProperty("load-test.latency.audit-millis", "10") + " ms");
+            LoadTestReport.write(Paths.get(reportFile), settings, results);
+            System.out.println("Load test report written to " + reportFile);
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package gov.samhsa.c2s.loadtest;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the throughput versus latency report as a markdown table, with the same rows as CSV next to it for plotting.
+ */
+final class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 100};
+
+    private LoadTestReport() {
+    }
+
+    /**
+     * Writes the report.
+     *
+     * @param reportFile the markdown report file, the CSV file gets the same name with the <code>.csv</code> extension
+     * @param settings   the load test settings listed above the results
+     * @param results    the results in the order they were measured
+     * @throws IOException if the report cannot be written
+     */
+    static void write(Path reportFile, Map<String, Object> settings, List<LoadTestResult> results)
+            throws IOException {
+        if (reportFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(reportFile.toAbsolutePath().getParent());
+        }
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8))) {
+            report.println("# DSS Load Test");
+            report.println();
+            settings.forEach((name, value) -> report.println("+ " + name + ": " + value));
+            report.println();
+            report.println("| Endpoint | Concurrency | Requests | Errors | Throughput (req/s) "
+                    + "| p50 (ms) | p90 (ms) | p99 (ms) | Max (ms) |");
+            report.println("|---|---:|---:|---:|---:|---:|---:|---:|---:|");
+            for (LoadTestResult result : results) {
+                report.println(String.format(Locale.ROOT, "| %s | %d | %d | %d | %.1f | %s |", result.getPath(),
+                        result.getConcurrency(), result.getRequests(), result.getErrors(), result.getThroughput(),
+                        latencies(result, " | ")));
+            }
+        }
+
+        final Path csvFile = reportFile.resolveSibling(reportFile.getFileName().toString()
+                .replaceFirst("(\\.[^.]*)?$", ".csv"));
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8))) {
+            csv.println("endpoint,concurrency,requests,errors,throughput,p50,p90,p99,max");
+            for (LoadTestResult result : results) {
+                csv.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%s", result.getPath(),
+                        result.getConcurrency(), result.getRequests(), result.getErrors(), result.getThroughput(),
+                        latencies(result, ",")));
+            }
+        }
+    }
+
+    private static String latencies(LoadTestResult result, String separator) {
+        final StringBuilder latencies = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            if (latencies.length() > 0) {
+                latencies.append(separator);
+            }
+            latencies.append(String.format(Locale.ROOT, "%.1f", result.getLatencyMillis(percentile)));
+        }
+        return latencies.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package gov.samhsa.c2s.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput and latency percentiles of an endpoint at one concurrency level.
+ */
+final class LoadTestResult {
+
+    private final String path;
+    private final int concurrency;
+    private final int requests;
+    private final int errors;
+    private final double throughput;
+    private final long[] sortedLatencyNanos;
+
+    /**
+     * Creates the result of a measurement.
+     *
+     * @param path          the path of the endpoint
+     * @param concurrency   the number of concurrent clients
+     * @param errors        the number of failed requests
+     * @param latencyNanos  the latencies of the successful requests
+     * @param durationNanos the duration of the measurement
+     */
+    LoadTestResult(String path, int concurrency, int errors, long[] latencyNanos, long durationNanos) {
+        this.path = path;
+        this.concurrency = concurrency;
+        this.requests = latencyNanos.length + errors;
+        this.errors = errors;
+        this.throughput = latencyNanos.length / (durationNanos / (double) TimeUnit.SECONDS.toNanos(1));
+        this.sortedLatencyNanos = latencyNanos.clone();
+        Arrays.sort(this.sortedLatencyNanos);
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    int getConcurrency() {
+        return concurrency;
+    }
+
+    int getRequests() {
+        return requests;
+    }
+
+    int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets the throughput of the successful requests.
+     *
+     * @return the requests per second
+     */
+    double getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Gets a latency percentile of the successful requests with the nearest rank method.
+     *
+     * @param percentile the percentile, between 0 exclusive and 100 inclusive
+     * @return the latency in milliseconds, or 0 if no request succeeded
+     */
+    double getLatencyMillis(double percentile) {
+        if (sortedLatencyNanos.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length);
+        return sortedLatencyNanos[Math.max(rank, 1) - 1] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
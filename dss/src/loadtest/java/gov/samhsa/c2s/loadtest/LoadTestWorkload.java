@@ -0,0 +1,111 @@
+package gov.samhsa.c2s.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.common.filereader.FileReader;
+import gov.samhsa.c2s.common.filereader.FileReaderImpl;
+import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+import gov.samhsa.c2s.dss.service.dto.DSSRequestForFhir;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.CodeableConcept;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.hl7.fhir.dstu3.model.Reference;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The request bodies posted to a segmentation endpoint, the load drivers take turns over them.
+ */
+final class LoadTestWorkload {
+
+    static final String SEGMENTED_DOCUMENT = "/segmentedDocument";
+    static final String SEGMENTED_FHIR_BUNDLE = "/segmentedFhirBundle";
+
+    private static final List<String> DOCUMENTS = Arrays.asList("sampleC32/c32.xml", "c-cda-r2-0/C-CDA_R2_CCD.XML",
+            "c-cda-r2-1/C-CDA_R2-1_CCD.xml");
+    private static final String XACML_RESULT = "testXacmlResult.xml";
+    private static final String SYSTEM_ICD_9 = "urn:oid:2.16.840.1.113883.6.42";
+    private static final String SYSTEM_LOINC = "http://loinc.org";
+    private static final List<String> SENSITIVE_CODES = Arrays.asList("308.3", "309.9", "309.24");
+
+    private final String path;
+    private final List<byte[]> requestBodies;
+
+    private LoadTestWorkload(String path, List<byte[]> requestBodies) {
+        this.path = path;
+        this.requestBodies = requestBodies;
+    }
+
+    /**
+     * Creates the workload of the clinical document segmentation from the sample C32 and C-CDA documents.
+     *
+     * @param objectMapper the object mapper of the application
+     * @return the workload
+     * @throws Exception if the fixtures cannot be read
+     */
+    static LoadTestWorkload segmentedDocuments(ObjectMapper objectMapper) throws Exception {
+        final FileReader fileReader = new FileReaderImpl();
+        final XacmlResult xacmlResult = xacmlResult(fileReader);
+        final List<byte[]> requestBodies = new ArrayList<>(DOCUMENTS.size());
+        for (String document : DOCUMENTS) {
+            final DSSRequest dssRequest = new DSSRequest();
+            dssRequest.setDocument(fileReader.readFile(document).getBytes(StandardCharsets.UTF_8));
+            dssRequest.setXacmlResult(xacmlResult);
+            dssRequest.setAudited(true);
+            requestBodies.add(objectMapper.writeValueAsBytes(dssRequest));
+        }
+        return new LoadTestWorkload(SEGMENTED_DOCUMENT, requestBodies);
+    }
+
+    /**
+     * Creates the workload of the FHIR bundle segmentation. There are no FHIR bundle fixtures, so the bundle is
+     * generated with every third observation coded as a psychiatric disorder.
+     *
+     * @param objectMapper the object mapper of the application
+     * @param entryCount   the number of observations in the bundle
+     * @return the workload
+     * @throws Exception if the fixtures cannot be read
+     */
+    static LoadTestWorkload segmentedFhirBundles(ObjectMapper objectMapper, int entryCount) throws Exception {
+        final DSSRequestForFhir dssRequestForFhir = new DSSRequestForFhir();
+        dssRequestForFhir.setXacmlResult(xacmlResult(new FileReaderImpl()));
+        dssRequestForFhir.setFhirStu3Bundle(bundle(entryCount));
+        return new LoadTestWorkload(SEGMENTED_FHIR_BUNDLE,
+                Arrays.asList(objectMapper.writeValueAsBytes(dssRequestForFhir)));
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    byte[] getRequestBody(long requestNumber) {
+        return requestBodies.get((int) (requestNumber % requestBodies.size()));
+    }
+
+    private static XacmlResult xacmlResult(FileReader fileReader) throws Exception {
+        return new SimpleMarshallerImpl().unmarshalFromXml(XacmlResult.class, fileReader.readFile(XACML_RESULT));
+    }
+
+    private static Bundle bundle(int entryCount) {
+        final Bundle bundle = new Bundle();
+        bundle.setType(Bundle.BundleType.SEARCHSET);
+        for (int i = 0; i < entryCount; i++) {
+            final Observation observation = new Observation();
+            observation.setId("Observation/" + i);
+            observation.setStatus(Observation.ObservationStatus.FINAL);
+            observation.setSubject(new Reference("Patient/load-test"));
+            final Coding coding = i % 3 == 0
+                    ? new Coding(SYSTEM_ICD_9, SENSITIVE_CODES.get(i / 3 % SENSITIVE_CODES.size()), null)
+                    : new Coding(SYSTEM_LOINC, "8867-4", "Heart rate");
+            observation.setCode(new CodeableConcept().addCoding(coding));
+            bundle.addEntry().setFullUrl("urn:uuid:observation-" + i).setResource(observation);
+        }
+        bundle.setTotal(entryCount);
+        return bundle;
+    }
+}
@@ -0,0 +1,63 @@
+package gov.samhsa.c2s.loadtest;
+
+import gov.samhsa.c2s.brms.service.guvnor.GuvnorServiceImpl;
+import gov.samhsa.c2s.dss.infrastructure.DocumentValidatorClient;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replaces the remote service clients of DSS with the in-process stand-ins. The bean definitions are replaced under
+ * their original names, so the qualifiers and the primary flags the application relies on still apply.
+ * <p>
+ * This package is outside of the packages DSS scans, so the stand-ins are only used when the load test harness
+ * adds this configuration.
+ */
+@Configuration
+public class RemoteServiceStubConfig {
+
+    /**
+     * The name of the audit client bean, which only exists if the audit client is enabled.
+     */
+    static final String AUDIT_CLIENT = "auditClient";
+
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor remoteServiceStubRegistrar() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                // the feign clients are registered under the names of their interfaces
+                replace(registry, ValueSetService.class.getName(), StubValueSetService.class);
+                replace(registry, DocumentValidatorClient.class.getName(), StubDocumentValidatorClient.class);
+                for (String beanName : registry.getBeanDefinitionNames()) {
+                    if (GuvnorServiceImpl.class.getName().equals(
+                            registry.getBeanDefinition(beanName).getBeanClassName())) {
+                        replace(registry, beanName, StubGuvnorService.class);
+                    }
+                }
+                // registered even if the audit client is disabled, so that audited requests reach the stand-in
+                replace(registry, AUDIT_CLIENT, StubAuditClientFactoryBean.class);
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            }
+        };
+    }
+
+    private static void replace(BeanDefinitionRegistry registry, String beanName, Class<?> stubClass) {
+        final AbstractBeanDefinition stub = BeanDefinitionBuilder.genericBeanDefinition(stubClass)
+                .getBeanDefinition();
+        if (registry.containsBeanDefinition(beanName)) {
+            stub.setPrimary(registry.getBeanDefinition(beanName).isPrimary());
+            // the aliases of the replaced bean are kept by the registry
+            registry.removeBeanDefinition(beanName);
+        }
+        registry.registerBeanDefinition(beanName, stub);
+    }
+}
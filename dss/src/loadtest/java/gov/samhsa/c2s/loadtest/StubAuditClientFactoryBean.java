@@ -0,0 +1,53 @@
+package gov.samhsa.c2s.loadtest;
+
+import gov.samhsa.c2s.common.audit.AuditClient;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+
+/**
+ * Creates the stand-in for the audit client, which discards the audit events after the configured latency. It is a
+ * proxy, so it does not depend on the methods of the audit client library besides the ones DSS calls.
+ */
+class StubAuditClientFactoryBean implements FactoryBean<AuditClient> {
+
+    @Value("${load-test.latency.audit-millis:10}")
+    private long latencyMillis;
+
+    @Override
+    public AuditClient getObject() {
+        return (AuditClient) Proxy.newProxyInstance(AuditClient.class.getClassLoader(),
+                new Class<?>[]{AuditClient.class}, (proxy, method, args) -> invoke(proxy, method, args));
+    }
+
+    @Override
+    public Class<?> getObjectType() {
+        return AuditClient.class;
+    }
+
+    @Override
+    public boolean isSingleton() {
+        return true;
+    }
+
+    private Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "createPredicateMap":
+                return new HashMap<>();
+            case "audit":
+                InjectedLatency.sleep(latencyMillis);
+                return null;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return StubAuditClientFactoryBean.class.getSimpleName();
+            default:
+                return null;
+        }
+    }
+}
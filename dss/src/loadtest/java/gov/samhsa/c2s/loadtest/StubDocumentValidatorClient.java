@@ -0,0 +1,43 @@
+package gov.samhsa.c2s.loadtest;
+
+import gov.samhsa.c2s.dss.infrastructure.DocumentValidatorClient;
+import gov.samhsa.c2s.dss.infrastructure.dto.ValidationRequestDto;
+import gov.samhsa.c2s.dss.infrastructure.dto.ValidationResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+
+/**
+ * Stands in for the document validator, reporting every document as valid after the configured latency. The document
+ * type is only told apart by the CCD template id, which is enough for the load test fixtures.
+ */
+class StubDocumentValidatorClient implements DocumentValidatorClient {
+
+    private static final String CCD_TEMPLATE_ID = "root=\"2.16.840.1.113883.10.20.22.1.2\"";
+    private static final String CCD_R2_1_TEMPLATE_ID = CCD_TEMPLATE_ID + " extension=\"2015-08-01\"";
+
+    @Value("${load-test.latency.document-validator-millis:50}")
+    private long latencyMillis;
+
+    @Override
+    public ValidationResponseDto validateClinicalDocument(ValidationRequestDto requestDto) {
+        InjectedLatency.sleep(latencyMillis);
+        final ValidationResponseDto validationResponseDto = new ValidationResponseDto();
+        validationResponseDto.setDocumentType(documentType(new String(requestDto.getDocument(),
+                StandardCharsets.UTF_8)));
+        validationResponseDto.setDocumentValid(true);
+        validationResponseDto.setValidationResultDetails(new LinkedList<>());
+        return validationResponseDto;
+    }
+
+    private static String documentType(String document) {
+        if (document.contains(CCD_R2_1_TEMPLATE_ID)) {
+            return "CCDA_R2_1_CCD_V3";
+        }
+        if (document.contains(CCD_TEMPLATE_ID)) {
+            return "CCDA_R2_0_CCD_V2";
+        }
+        return "HITSP_C32";
+    }
+}
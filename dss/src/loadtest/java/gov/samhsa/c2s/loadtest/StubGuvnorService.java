@@ -0,0 +1,35 @@
+package gov.samhsa.c2s.loadtest;
+
+import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.common.filereader.FileReaderImpl;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Stands in for Guvnor, serving the rules from a test resource after the configured latency.
+ */
+class StubGuvnorService implements GuvnorService {
+
+    @Value("${load-test.rules-file:unitTestRules.txt}")
+    private String rulesFile;
+
+    @Value("${load-test.latency.guvnor-millis:200}")
+    private long latencyMillis;
+
+    @Override
+    public String getVersionedRulesFromPackage() throws IOException {
+        InjectedLatency.sleep(latencyMillis);
+        return new FileReaderImpl().readFile(rulesFile);
+    }
+
+    @Override
+    public Optional<String> getRulesSnapshot() {
+        return Optional.empty();
+    }
+
+    @Override
+    public void rulesActivated(String drl) {
+    }
+}
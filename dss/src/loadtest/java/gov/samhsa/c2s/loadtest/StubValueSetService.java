@@ -0,0 +1,36 @@
+package gov.samhsa.c2s.loadtest;
+
+import gov.samhsa.c2s.common.filereader.FileReaderImpl;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetServiceImplMock;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.List;
+
+/**
+ * Stands in for the value set service, answering from <code>MockValueSetData.csv</code> after the configured
+ * latency. The caching value set service in front of it is kept, so only cache misses pay the latency.
+ */
+class StubValueSetService implements ValueSetService {
+
+    private final ValueSetService valueSetService = new ValueSetServiceImplMock(new FileReaderImpl());
+
+    @Value("${load-test.latency.value-set-millis:20}")
+    private long latencyMillis;
+
+    @Override
+    public List<ValueSetCategoryResponseDto> getAllValueSetCategories() {
+        InjectedLatency.sleep(latencyMillis);
+        return valueSetService.getAllValueSetCategories();
+    }
+
+    @Override
+    public List<ValueSetCategoryMapResponseDto> lookupValueSetCategories(
+            List<ConceptCodeAndCodeSystemOidDto> conceptCodeAndCodeSystemOidDtos) {
+        InjectedLatency.sleep(latencyMillis);
+        return valueSetService.lookupValueSetCategories(conceptCodeAndCodeSystemOidDtos);
+    }
+}
@@ -50,7 +50,7 @@ public enum Confidentiality {
      *
      * @return the priority
      */
-    int getPriority() {
+    public int getPriority() {
         return priority;
     }
 }
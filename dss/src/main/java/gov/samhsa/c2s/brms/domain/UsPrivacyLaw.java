@@ -45,7 +45,7 @@ public enum UsPrivacyLaw {
         privacy = p;
     }
 
-    String getPrivacy() {
+    public String getPrivacy() {
         return privacy;
     }
 
@@ -27,6 +27,7 @@
 
 import gov.samhsa.c2s.brms.domain.FactModel;
 import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
+import gov.samhsa.c2s.brms.service.dto.RuleExecutionResult;
 
 /**
  * The Interface RuleExecutionService.
@@ -50,4 +51,12 @@ AssertAndExecuteClinicalFactsResponse assertAndExecuteClinicalFacts(
      */
     AssertAndExecuteClinicalFactsResponse assertAndExecuteClinicalFacts(
             FactModel factModel);
+
+    /**
+     * Executes the rules against the clinical facts without marshalling the rule execution container.
+     *
+     * @param factModel the fact model
+     * @return the rule execution container and the names of the fired rules
+     */
+    RuleExecutionResult executeClinicalFacts(FactModel factModel);
 }
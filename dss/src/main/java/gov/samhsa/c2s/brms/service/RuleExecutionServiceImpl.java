@@ -27,19 +27,13 @@
 
 import gov.samhsa.c2s.brms.domain.ClinicalFact;
 import gov.samhsa.c2s.brms.domain.FactModel;
-import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
 import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
-import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.brms.service.dto.RuleExecutionResult;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeSessionPool;
+import gov.samhsa.c2s.brms.service.knowledgebase.PooledKnowledgeSession;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
-import org.drools.KnowledgeBase;
-import org.drools.KnowledgeBaseFactory;
-import org.drools.builder.*;
-import org.drools.definition.rule.Rule;
-import org.drools.event.rule.AfterActivationFiredEvent;
-import org.drools.event.rule.DefaultAgendaEventListener;
-import org.drools.io.ResourceFactory;
 import org.drools.runtime.StatefulKnowledgeSession;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -61,10 +55,10 @@ public class RuleExecutionServiceImpl implements RuleExecutionService {
             .getLogger(this.getClass());
 
     /**
-     * The guvnor service.
+     * The knowledge session pool.
      */
     @Autowired
-    private GuvnorService guvnorService;
+    private KnowledgeSessionPool knowledgeSessionPool;
 
     /**
      * The marshaller.
@@ -75,10 +69,10 @@ public class RuleExecutionServiceImpl implements RuleExecutionService {
     public RuleExecutionServiceImpl() {
     }
 
-    public RuleExecutionServiceImpl(GuvnorService guvnorService,
+    public RuleExecutionServiceImpl(KnowledgeSessionPool knowledgeSessionPool,
                                     SimpleMarshaller marshaller) {
         super();
-        this.guvnorService = guvnorService;
+        this.knowledgeSessionPool = knowledgeSessionPool;
         this.marshaller = marshaller;
     }
 
@@ -92,53 +86,50 @@ public RuleExecutionServiceImpl(GuvnorService guvnorService,
     @Override
     public AssertAndExecuteClinicalFactsResponse assertAndExecuteClinicalFacts(
             FactModel factModel) {
-        RuleExecutionContainer executionResponseContainer = null;
         final AssertAndExecuteClinicalFactsResponse assertAndExecuteResponse = new AssertAndExecuteClinicalFactsResponse();
-        String executionResponseContainerXMLString = null;
-        final Set<String> firedRuleNames = new HashSet<>();
+        try {
+            final RuleExecutionResult ruleExecutionResult = executeClinicalFacts(factModel);
+
+            // Marshal rule execution response
+            assertAndExecuteResponse.setRuleExecutionResponseContainer(marshaller
+                    .marshal(ruleExecutionResult.getRuleExecutionContainer()));
+            assertAndExecuteResponse.setRulesFired(ruleExecutionResult.getRulesFired());
+        } catch (final Throwable e) {
+            logger.error(e.getMessage(), e);
+        }
+        return assertAndExecuteResponse;
+    }
+
+    @Override
+    public RuleExecutionResult executeClinicalFacts(FactModel factModel) {
+        final PooledKnowledgeSession pooledSession = knowledgeSessionPool.borrowSession();
+        boolean reusable = false;
 
-        final StatefulKnowledgeSession session = createStatefulKnowledgeSession();
         try {
+            final StatefulKnowledgeSession session = pooledSession.getSession();
             session.insert(factModel.getXacmlResult());
             for (final ClinicalFact clinicalFact : factModel
                     .getClinicalFactList()) {
                 session.insert(clinicalFact);
             }
 
-            session.addEventListener(new DefaultAgendaEventListener() {
-                @Override
-                public void afterActivationFired(AfterActivationFiredEvent event) {
-                    super.afterActivationFired(event);
-                    final Rule rule = event.getActivation().getRule();
-                    firedRuleNames.add(rule.getName());
-                }
-            });
-
             session.fireAllRules();
 
+            // the pooled session clears its fired rule names before it is reused
+            final Set<String> firedRuleNames = new HashSet<>(pooledSession.getFiredRuleNames());
             logger.debug(() -> "Fired rules: " + firedRuleNames.toString());
 
-            executionResponseContainer = (RuleExecutionContainer) session
-                    .getGlobal("ruleExecutionContainer");
-
-            // Marshal rule execution response
-            executionResponseContainerXMLString = marshaller
-                    .marshal(executionResponseContainer);
-            if (firedRuleNames.size() > 0) {
-                assertAndExecuteResponse.setRulesFired(firedRuleNames
-                        .toString());
-            }
-        } catch (final Throwable e) {
-            logger.error(e.getMessage(), e);
+            final RuleExecutionResult ruleExecutionResult = new RuleExecutionResult(
+                    pooledSession.getRuleExecutionContainer(), firedRuleNames);
+            reusable = true;
+            return ruleExecutionResult;
         } finally {
-            firedRuleNames.clear();
-            if (session != null) {
-                session.dispose();
+            if (reusable) {
+                knowledgeSessionPool.returnSession(pooledSession);
+            } else {
+                knowledgeSessionPool.invalidateSession(pooledSession);
             }
         }
-        assertAndExecuteResponse
-                .setRuleExecutionResponseContainer(executionResponseContainerXMLString);
-        return assertAndExecuteResponse;
     }
 
     /*
@@ -160,42 +151,4 @@ public AssertAndExecuteClinicalFactsResponse assertAndExecuteClinicalFacts(
         }
         return assertAndExecuteClinicalFacts(factModel);
     }
-
-    /**
-     * Creates the stateful knowledge session.
-     *
-     * @return the stateful knowledge session
-     */
-    StatefulKnowledgeSession createStatefulKnowledgeSession() {
-        StatefulKnowledgeSession session = null;
-        try {
-            final KnowledgeBuilder kbuilder = KnowledgeBuilderFactory
-                    .newKnowledgeBuilder();
-
-            final String casRules = guvnorService
-                    .getVersionedRulesFromPackage();
-
-            kbuilder.add(
-                    ResourceFactory.newByteArrayResource(casRules.getBytes()),
-                    ResourceType.DRL);
-
-            final KnowledgeBuilderErrors errors = kbuilder.getErrors();
-            if (errors.size() > 0) {
-                for (final KnowledgeBuilderError error : errors) {
-                    logger.error(error.toString());
-                }
-            }
-
-            final KnowledgeBase knowledgeBase = KnowledgeBaseFactory
-                    .newKnowledgeBase();
-            knowledgeBase.addKnowledgePackages(kbuilder.getKnowledgePackages());
-
-            session = knowledgeBase.newStatefulKnowledgeSession();
-            session.setGlobal("ruleExecutionContainer",
-                    new RuleExecutionContainer());
-        } catch (final Exception e) {
-            logger.error(e.toString(), e);
-        }
-        return session;
-    }
 }
@@ -0,0 +1,27 @@
+package gov.samhsa.c2s.brms.service.dto;
+
+import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * The typed result of a rule execution. Unlike {@link AssertAndExecuteClinicalFactsResponse}, the rule execution
+ * container is not marshalled, so it is only converted to XML where a stylesheet or a response needs it.
+ */
+@Value
+public class RuleExecutionResult {
+
+    private RuleExecutionContainer ruleExecutionContainer;
+
+    private Set<String> firedRuleNames;
+
+    /**
+     * Gets the fired rule names in the format of {@link AssertAndExecuteClinicalFactsResponse#getRulesFired()}.
+     *
+     * @return the fired rule names, or null if no rule fired
+     */
+    public String getRulesFired() {
+        return firedRuleNames.isEmpty() ? null : firedRuleNames.toString();
+    }
+}
@@ -26,6 +26,7 @@
 package gov.samhsa.c2s.brms.service.guvnor;
 
 import java.io.IOException;
+import java.util.Optional;
 
 /**
  * The Interface GuvnorService.
@@ -39,4 +40,19 @@ public interface GuvnorService {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     String getVersionedRulesFromPackage() throws IOException;
+
+    /**
+     * Gets the last activated rules from the local snapshot, without contacting Guvnor.
+     *
+     * @return the snapshot rules, or empty if no snapshot is available
+     */
+    Optional<String> getRulesSnapshot();
+
+    /**
+     * Records that the given rules compiled and were activated, so that they become the snapshot and their
+     * validators are sent with the next request. Rules that were fetched but never activated are not kept.
+     *
+     * @param drl the activated rule source
+     */
+    void rulesActivated(String drl);
 }
@@ -29,24 +29,43 @@
 import gov.samhsa.c2s.common.log.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Base64;
+import java.util.Optional;
+import java.util.Properties;
 
 /**
  * The Class GuvnorServiceImpl.
+ * <p>
+ * Rules are fetched conditionally: once a package source has been read, subsequent requests send the
+ * <code>ETag</code> and <code>Last-Modified</code> validators returned by Guvnor, and a <code>304 Not Modified</code>
+ * response is answered from memory. A fetched source only replaces the cached one, and its validators, once it has
+ * been reported as activated through {@link #rulesActivated(String)}, so a source that does not compile is fetched
+ * again rather than answered with <code>304</code>. When <code>c2s.brms.guvnor.snapshotFile</code> is configured,
+ * the last activated source and its validators are also kept on disk so that they survive a restart.
  */
 @Service
 public class GuvnorServiceImpl implements GuvnorService {
 
+    static final String SNAPSHOT_METADATA_SUFFIX = ".meta";
+
     /**
      * The logger.
      */
@@ -68,13 +87,37 @@ public class GuvnorServiceImpl implements GuvnorService {
      */
     private String guvnorServicePassword;
 
+    /**
+     * The snapshot file, or null if snapshots are disabled.
+     */
+    private Path snapshotFile;
+
+    /**
+     * The last activated package source with its validators.
+     */
+    private volatile FetchedRules lastFetchedRules;
+
+    /**
+     * The last fetched package source that has not been activated yet.
+     */
+    private volatile FetchedRules pendingFetchedRules;
+
+    public GuvnorServiceImpl(String endpointAddress,
+                             String guvnorServiceUsername,
+                             String guvnorServicePassword) {
+        this(endpointAddress, guvnorServiceUsername, guvnorServicePassword, null);
+    }
+
     @Autowired
     public GuvnorServiceImpl(@Value("${c2s.brms.guvnor.endpointAddress}") String endpointAddress,
                              @Value("${c2s.brms.guvnor.serviceUsername}") String guvnorServiceUsername,
-                             @Value("${c2s.brms.guvnor.servicePassword}") String guvnorServicePassword) {
+                             @Value("${c2s.brms.guvnor.servicePassword}") String guvnorServicePassword,
+                             @Value("${c2s.brms.guvnor.snapshotFile:}") String snapshotFile) {
         this.endpointAddress = endpointAddress;
         this.guvnorServiceUsername = guvnorServiceUsername;
         this.guvnorServicePassword = guvnorServicePassword;
+        this.snapshotFile = StringUtils.hasText(snapshotFile) ? Paths.get(snapshotFile) : null;
+        this.lastFetchedRules = readSnapshot().orElse(null);
     }
 
     /*
@@ -87,6 +130,7 @@ public GuvnorServiceImpl(@Value("${c2s.brms.guvnor.endpointAddress}") String end
     @Override
     public String getVersionedRulesFromPackage() throws IOException {
         final HttpURLConnection connection = openConnection(this.endpointAddress);
+        final FetchedRules cached = this.lastFetchedRules;
 
         connection.setRequestMethod("GET");
         connection.setRequestProperty("Accept", MediaType.TEXT_PLAIN_VALUE);
@@ -101,13 +145,46 @@ public String getVersionedRulesFromPackage() throws IOException {
                 .getBytes(StandardCharsets.UTF_8)));
         connection.setRequestProperty("Authorization",
                 propertyStringBuilder.toString());
+        if (cached != null) {
+            if (StringUtils.hasText(cached.getETag())) {
+                connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, cached.getETag());
+            }
+            if (StringUtils.hasText(cached.getLastModified())) {
+                connection.setRequestProperty(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+            }
+        }
         connection.connect();
 
+        if (cached != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            logger.debug(() -> "DRL source not modified, ETag: " + cached.getETag() + ", Last-Modified: " + cached.getLastModified());
+            return cached.getSource();
+        }
+
         final String source = readAsString(connection.getInputStream());
         logger.debug(() -> "DRL source: " + source);
+        final FetchedRules fetched = new FetchedRules(source,
+                connection.getHeaderField(HttpHeaders.ETAG),
+                connection.getHeaderField(HttpHeaders.LAST_MODIFIED));
+        this.pendingFetchedRules = fetched;
         return source;
     }
 
+    @Override
+    public synchronized void rulesActivated(String drl) {
+        final FetchedRules pending = this.pendingFetchedRules;
+        if (pending == null || !pending.getSource().equals(drl)) {
+            return;
+        }
+        this.lastFetchedRules = pending;
+        this.pendingFetchedRules = null;
+        writeSnapshot(pending);
+    }
+
+    @Override
+    public Optional<String> getRulesSnapshot() {
+        return Optional.ofNullable(this.lastFetchedRules).map(FetchedRules::getSource);
+    }
+
     /**
      * Open connection.
      *
@@ -130,17 +207,88 @@ HttpURLConnection openConnection(String endpointAddress) throws IOException {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     private String readAsString(InputStream inputStream) throws IOException {
-        final StringBuffer ret = new StringBuffer();
-        final BufferedReader reader = new BufferedReader(new InputStreamReader(
-                inputStream));
-        String line;
-        while ((line = reader.readLine()) != null) {
-            final StringBuilder builder = new StringBuilder();
-            builder.append(line);
-            builder.append("\n");
-            ret.append(builder.toString());
+        final StringBuilder ret = new StringBuilder();
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(
+                inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ret.append(line).append('\n');
+            }
         }
         return ret.toString();
     }
 
+    /**
+     * Reads the snapshot file and its validators, if a snapshot is configured and present.
+     *
+     * @return the snapshot rules
+     */
+    private Optional<FetchedRules> readSnapshot() {
+        if (snapshotFile == null || !Files.isRegularFile(snapshotFile)) {
+            return Optional.empty();
+        }
+        try {
+            final String source = new String(Files.readAllBytes(snapshotFile), StandardCharsets.UTF_8);
+            final Properties metadata = new Properties();
+            final Path metadataFile = metadataFile();
+            if (Files.isRegularFile(metadataFile)) {
+                try (final Reader reader = Files.newBufferedReader(metadataFile, StandardCharsets.UTF_8)) {
+                    metadata.load(reader);
+                }
+            }
+            logger.info(() -> "Loaded DRL snapshot from " + snapshotFile);
+            return Optional.of(new FetchedRules(source,
+                    metadata.getProperty(HttpHeaders.ETAG),
+                    metadata.getProperty(HttpHeaders.LAST_MODIFIED)));
+        } catch (final IOException e) {
+            logger.error("Unable to read DRL snapshot from " + snapshotFile + ": " + e.getMessage(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces the snapshot file and its validators with the given rules. A failure to write the snapshot
+     * is logged and does not fail the fetch.
+     *
+     * @param fetched the fetched rules
+     */
+    private void writeSnapshot(FetchedRules fetched) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            final Path directory = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+
+            final Properties metadata = new Properties();
+            Optional.ofNullable(fetched.getETag()).ifPresent(eTag -> metadata.setProperty(HttpHeaders.ETAG, eTag));
+            Optional.ofNullable(fetched.getLastModified()).ifPresent(lastModified -> metadata.setProperty(HttpHeaders.LAST_MODIFIED, lastModified));
+            final Path metadataTemp = Files.createTempFile(directory, "guvnor", ".tmp");
+            try (final Writer writer = Files.newBufferedWriter(metadataTemp, StandardCharsets.UTF_8)) {
+                metadata.store(writer, null);
+            }
+
+            final Path sourceTemp = Files.createTempFile(directory, "guvnor", ".tmp");
+            Files.write(sourceTemp, fetched.getSource().getBytes(StandardCharsets.UTF_8));
+
+            Files.move(sourceTemp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(metadataTemp, metadataFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException e) {
+            logger.error("Unable to write DRL snapshot to " + snapshotFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    private Path metadataFile() {
+        return snapshotFile.resolveSibling(snapshotFile.getFileName() + SNAPSHOT_METADATA_SUFFIX);
+    }
+
+    /**
+     * A package source together with the HTTP validators it was served with.
+     */
+    @lombok.Value
+    private static class FetchedRules {
+        private String source;
+        private String eTag;
+        private String lastModified;
+    }
 }
@@ -0,0 +1,19 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+/**
+ * Holds the compiled Drools knowledge base for the currently active rule version.
+ */
+public interface KnowledgeBaseCache {
+
+    /**
+     * Gets the active knowledge base, building it on first access.
+     *
+     * @return the active versioned knowledge base
+     */
+    VersionedKnowledgeBase getKnowledgeBase();
+
+    /**
+     * Fetches the rule source and rebuilds the knowledge base if the source has changed.
+     */
+    void refresh();
+}
@@ -0,0 +1,211 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import org.drools.KnowledgeBase;
+import org.drools.KnowledgeBaseFactory;
+import org.drools.builder.KnowledgeBuilder;
+import org.drools.builder.KnowledgeBuilderError;
+import org.drools.builder.KnowledgeBuilderErrors;
+import org.drools.builder.KnowledgeBuilderFactory;
+import org.drools.builder.ResourceType;
+import org.drools.io.ResourceFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caches the compiled {@link KnowledgeBase} keyed by a SHA-256 hash of the DRL source, so rule execution only
+ * creates a session from an already built base. The rule source is polled in the background, right after startup
+ * and then on the interval configured by <code>c2s.brms.knowledge-base.refresh-interval-millis</code>, and the
+ * knowledge base is only recompiled when the source actually changes. On startup the local rule snapshot, if any,
+ * is activated before Guvnor is contacted. Rules that compile without errors are reported back to the
+ * {@link GuvnorService} so that only those become the next snapshot.
+ */
+@Service
+public class KnowledgeBaseCacheImpl implements KnowledgeBaseCache, InfoContributor {
+
+    static final String METRIC_HIT = "brms.knowledge-base.hit";
+    static final String METRIC_MISS = "brms.knowledge-base.miss";
+    static final String METRIC_REBUILD = "brms.knowledge-base.rebuild";
+    static final String METRIC_REBUILD_FAILURE = "brms.knowledge-base.rebuild.failure";
+    static final String METRIC_REBUILD_DURATION = "timer.brms.knowledge-base.rebuild";
+    static final String METRIC_ACTIVE_VERSION = "brms.knowledge-base.version";
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final GuvnorService guvnorService;
+
+    private final CounterService counterService;
+
+    private final GaugeService gaugeService;
+
+    private final AtomicReference<VersionedKnowledgeBase> active = new AtomicReference<>();
+
+    private final Object refreshLock = new Object();
+
+    /**
+     * The version of the last rule source that had compile errors, guarded by the refresh lock.
+     */
+    private String rejectedVersion;
+
+    @Autowired
+    public KnowledgeBaseCacheImpl(GuvnorService guvnorService,
+                                  CounterService counterService,
+                                  GaugeService gaugeService) {
+        this.guvnorService = guvnorService;
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+    }
+
+    @Override
+    public VersionedKnowledgeBase getKnowledgeBase() {
+        final VersionedKnowledgeBase current = active.get();
+        if (current != null) {
+            counterService.increment(METRIC_HIT);
+            return current;
+        }
+        counterService.increment(METRIC_MISS);
+        refresh();
+        return Optional.ofNullable(active.get())
+                .orElseThrow(() -> new IllegalStateException("Rule knowledge base is not available"));
+    }
+
+    /**
+     * Activates the local rule snapshot, if there is one, so that rules can be executed right after startup
+     * even when Guvnor is slow or unavailable. A snapshot with compile errors is skipped. The scheduled refresh
+     * replaces it with the current rules.
+     */
+    @PostConstruct
+    public void loadSnapshot() {
+        guvnorService.getRulesSnapshot().ifPresent(drl -> {
+            synchronized (refreshLock) {
+                if (active.get() == null) {
+                    logger.info("Activating rules from the local snapshot");
+                    activate(drl, false);
+                }
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${c2s.brms.knowledge-base.refresh-interval-millis:300000}")
+    public void refresh() {
+        synchronized (refreshLock) {
+            final String drl;
+            try {
+                drl = guvnorService.getVersionedRulesFromPackage();
+            } catch (final Exception e) {
+                counterService.increment(METRIC_REBUILD_FAILURE);
+                logger.error("Unable to fetch rules, keeping the active knowledge base: " + e.getMessage(), e);
+                return;
+            }
+            if (activate(drl, true)) {
+                guvnorService.rulesActivated(drl);
+            }
+        }
+    }
+
+    /**
+     * Compiles and activates the given rule source unless it is already the active version. A source with
+     * compile errors is never activated over an existing knowledge base, and only replaces an empty cache
+     * when <code>allowErrors</code> is set.
+     *
+     * @param drl         the rule source
+     * @param allowErrors whether a source with compile errors may replace an empty cache
+     * @return true if the source is active and compiled without errors
+     */
+    private boolean activate(String drl, boolean allowErrors) {
+        final String version = hash(drl);
+        final VersionedKnowledgeBase current = active.get();
+        if (current != null && current.getVersion().equals(version)) {
+            logger.debug(() -> "Rules are unchanged, active version: " + version);
+            return !version.equals(rejectedVersion);
+        }
+        if (current != null && version.equals(rejectedVersion)) {
+            logger.debug(() -> "Rules version " + version + " was already rejected, keeping active version " + current.getVersion());
+            return false;
+        }
+
+        final long start = System.currentTimeMillis();
+        final KnowledgeBuilder kbuilder = KnowledgeBuilderFactory
+                .newKnowledgeBuilder();
+        kbuilder.add(
+                ResourceFactory.newByteArrayResource(drl.getBytes(StandardCharsets.UTF_8)),
+                ResourceType.DRL);
+
+        final KnowledgeBuilderErrors errors = kbuilder.getErrors();
+        if (errors.size() > 0) {
+            for (final KnowledgeBuilderError error : errors) {
+                logger.error(error.toString());
+            }
+            rejectedVersion = version;
+            if (current != null) {
+                counterService.increment(METRIC_REBUILD_FAILURE);
+                logger.error(() -> "Rules version " + version + " has compile errors, keeping active version " + current.getVersion());
+                return false;
+            }
+            if (!allowErrors) {
+                counterService.increment(METRIC_REBUILD_FAILURE);
+                logger.error(() -> "Rules version " + version + " has compile errors, not activating it");
+                return false;
+            }
+        }
+
+        final KnowledgeBase knowledgeBase = KnowledgeBaseFactory
+                .newKnowledgeBase();
+        knowledgeBase.addKnowledgePackages(kbuilder.getKnowledgePackages());
+
+        final long sequence = current == null ? 1 : current.getSequence() + 1;
+        active.set(new VersionedKnowledgeBase(version, sequence, knowledgeBase));
+
+        counterService.increment(METRIC_REBUILD);
+        gaugeService.submit(METRIC_REBUILD_DURATION, System.currentTimeMillis() - start);
+        gaugeService.submit(METRIC_ACTIVE_VERSION, sequence);
+        logger.info(() -> "Activated rules version " + version + " (build " + sequence + ")");
+        return errors.size() == 0;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        Optional.ofNullable(active.get()).ifPresent(current -> {
+            final Map<String, Object> details = new HashMap<>();
+            details.put("version", current.getVersion());
+            details.put("build", current.getSequence());
+            builder.withDetail("rules", details);
+        });
+    }
+
+    static String hash(String drl) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(drl.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
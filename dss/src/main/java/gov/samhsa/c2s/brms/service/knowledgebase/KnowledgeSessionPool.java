@@ -0,0 +1,31 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+/**
+ * Hands out stateful knowledge sessions of the active rule version and takes them back for reuse.
+ */
+public interface KnowledgeSessionPool {
+
+    /**
+     * Borrows a session of the active rule version, creating one if no idle session is available. The session has
+     * an empty rule execution container global.
+     *
+     * @return the session
+     */
+    PooledKnowledgeSession borrowSession();
+
+    /**
+     * Returns a session after a successful execution. The session is reset and kept for reuse if it still belongs
+     * to the active rule version, none of its rules fire without facts and the pool is not full, otherwise it is
+     * disposed.
+     *
+     * @param session the session
+     */
+    void returnSession(PooledKnowledgeSession session);
+
+    /**
+     * Disposes a session that must not be reused, e.g. because the execution failed.
+     *
+     * @param session the session
+     */
+    void invalidateSession(PooledKnowledgeSession session);
+}
@@ -0,0 +1,149 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps up to <code>c2s.brms.session-pool.max-idle</code> idle sessions of the active rule version, so a rule
+ * execution does not have to create a session, register its listener and dispose it again. The idle sessions are
+ * disposed as soon as a new rule version is activated. Setting the maximum to <code>0</code> creates a session per
+ * execution. A session is reset by retracting its facts, which only leaves it like a new session if no rule fires
+ * without facts, so a rule version with such a rule, like a rule with an empty or a <code>not</code> condition, also
+ * gets a new session per execution.
+ */
+@Service
+public class KnowledgeSessionPoolImpl implements KnowledgeSessionPool {
+
+    static final String METRIC_HIT = "brms.session-pool.hit";
+    static final String METRIC_MISS = "brms.session-pool.miss";
+    static final String METRIC_DISCARD = "brms.session-pool.discard";
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final KnowledgeBaseCache knowledgeBaseCache;
+
+    private final CounterService counterService;
+
+    private final int maxIdle;
+
+    private final AtomicReference<IdleSessions> idleSessions = new AtomicReference<>();
+
+    @Autowired
+    public KnowledgeSessionPoolImpl(KnowledgeBaseCache knowledgeBaseCache,
+                                    CounterService counterService,
+                                    @Value("${c2s.brms.session-pool.max-idle:16}") int maxIdle) {
+        this.knowledgeBaseCache = knowledgeBaseCache;
+        this.counterService = counterService;
+        this.maxIdle = maxIdle;
+    }
+
+    @Override
+    public PooledKnowledgeSession borrowSession() {
+        final VersionedKnowledgeBase knowledgeBase = knowledgeBaseCache.getKnowledgeBase();
+        PooledKnowledgeSession session = idleSessionsOf(knowledgeBase).sessions.poll();
+        if (session != null) {
+            counterService.increment(METRIC_HIT);
+        } else {
+            counterService.increment(METRIC_MISS);
+            session = new PooledKnowledgeSession(knowledgeBase.getVersion(),
+                    knowledgeBase.getKnowledgeBase().newStatefulKnowledgeSession());
+        }
+        session.prepare();
+        return session;
+    }
+
+    @Override
+    public void returnSession(PooledKnowledgeSession session) {
+        final IdleSessions current = idleSessions.get();
+        if (current != null && current.reusable && current.version.equals(session.getVersion())) {
+            try {
+                if (session.reset() && current.sessions.offer(session)) {
+                    return;
+                }
+            } catch (final RuntimeException e) {
+                logger.error("Unable to reset knowledge session: " + e.getMessage(), e);
+            }
+        }
+        invalidateSession(session);
+    }
+
+    @Override
+    public void invalidateSession(PooledKnowledgeSession session) {
+        counterService.increment(METRIC_DISCARD);
+        session.dispose();
+    }
+
+    /**
+     * Gets the idle sessions of the rule version, disposing the idle sessions of the previous version.
+     */
+    private IdleSessions idleSessionsOf(VersionedKnowledgeBase knowledgeBase) {
+        final String version = knowledgeBase.getVersion();
+        while (true) {
+            final IdleSessions current = idleSessions.get();
+            if (current != null && current.version.equals(version)) {
+                return current;
+            }
+            final IdleSessions next = new IdleSessions(version, Math.max(maxIdle, 1),
+                    maxIdle > 0 && isReusable(knowledgeBase));
+            if (idleSessions.compareAndSet(current, next)) {
+                if (current != null) {
+                    logger.info(() -> "Rule version changed, disposing " + current.sessions.size()
+                            + " idle knowledge session(s)");
+                    PooledKnowledgeSession stale;
+                    while ((stale = current.sessions.poll()) != null) {
+                        stale.dispose();
+                    }
+                }
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Fires the rules of the rule version on an empty session. A rule that fires without facts fires again in a new
+     * session, but not in a session whose facts were retracted after it fired, so such a session is not reused.
+     */
+    private boolean isReusable(VersionedKnowledgeBase knowledgeBase) {
+        final PooledKnowledgeSession probe = new PooledKnowledgeSession(knowledgeBase.getVersion(),
+                knowledgeBase.getKnowledgeBase().newStatefulKnowledgeSession());
+        try {
+            probe.prepare();
+            probe.getSession().fireAllRules();
+            if (probe.getFiredRuleNames().isEmpty()) {
+                return true;
+            }
+            logger.info(() -> "Rules " + probe.getFiredRuleNames() + " fire without facts, knowledge sessions of rule"
+                    + " version " + knowledgeBase.getVersion() + " are not reused");
+        } catch (final RuntimeException e) {
+            logger.error("Unable to fire rules without facts, knowledge sessions of rule version "
+                    + knowledgeBase.getVersion() + " are not reused: " + e.getMessage(), e);
+        } finally {
+            probe.dispose();
+        }
+        return false;
+    }
+
+    private static final class IdleSessions {
+        private final String version;
+        private final BlockingQueue<PooledKnowledgeSession> sessions;
+        private final boolean reusable;
+
+        private IdleSessions(String version, int capacity, boolean reusable) {
+            this.version = version;
+            this.sessions = new ArrayBlockingQueue<>(capacity);
+            this.reusable = reusable;
+        }
+    }
+}
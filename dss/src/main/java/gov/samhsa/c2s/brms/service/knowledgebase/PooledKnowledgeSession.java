@@ -0,0 +1,99 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
+import org.drools.event.rule.AfterActivationFiredEvent;
+import org.drools.event.rule.DefaultAgendaEventListener;
+import org.drools.runtime.StatefulKnowledgeSession;
+import org.drools.runtime.rule.FactHandle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A stateful knowledge session that can be reused for rule executions against the rule version it was created for.
+ * The session is used by one thread at a time, so the names of the fired rules are collected by a single listener
+ * that is registered when the session is created.
+ */
+public class PooledKnowledgeSession {
+
+    public static final String GLOBAL_RULE_EXECUTION_CONTAINER = "ruleExecutionContainer";
+
+    /**
+     * The version of the knowledge base the session was created from.
+     */
+    private final String version;
+
+    private final StatefulKnowledgeSession session;
+
+    private final Set<String> firedRuleNames = new HashSet<>();
+
+    public PooledKnowledgeSession(String version, StatefulKnowledgeSession session) {
+        this.version = version;
+        this.session = session;
+        this.session.addEventListener(new DefaultAgendaEventListener() {
+            @Override
+            public void afterActivationFired(AfterActivationFiredEvent event) {
+                super.afterActivationFired(event);
+                firedRuleNames.add(event.getActivation().getRule().getName());
+            }
+        });
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public StatefulKnowledgeSession getSession() {
+        return session;
+    }
+
+    /**
+     * Gets the names of the rules fired since the session was prepared.
+     *
+     * @return the fired rule names
+     */
+    public Set<String> getFiredRuleNames() {
+        return Collections.unmodifiableSet(firedRuleNames);
+    }
+
+    /**
+     * Gets the rule execution container global of the current execution.
+     *
+     * @return the rule execution container
+     */
+    public RuleExecutionContainer getRuleExecutionContainer() {
+        return (RuleExecutionContainer) session.getGlobal(GLOBAL_RULE_EXECUTION_CONTAINER);
+    }
+
+    /**
+     * Prepares the session for an execution with a new rule execution container global.
+     */
+    void prepare() {
+        firedRuleNames.clear();
+        session.setGlobal(GLOBAL_RULE_EXECUTION_CONTAINER, new RuleExecutionContainer());
+    }
+
+    /**
+     * Retracts all facts and clears the agenda, so the session can be reused. The session is only like a new one
+     * afterwards if none of its rules fire without facts.
+     *
+     * @return true if the session is empty afterwards
+     */
+    boolean reset() {
+        // retracting the asserted facts also retracts the facts the rules inserted logically
+        for (FactHandle factHandle : new ArrayList<>(session.<FactHandle>getFactHandles())) {
+            if (session.getObject(factHandle) != null) {
+                session.retract(factHandle);
+            }
+        }
+        session.getAgenda().clear();
+        firedRuleNames.clear();
+        return session.getFactCount() == 0;
+    }
+
+    void dispose() {
+        session.dispose();
+    }
+}
@@ -0,0 +1,23 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+import lombok.Value;
+import org.drools.KnowledgeBase;
+
+/**
+ * An immutable compiled {@link KnowledgeBase} together with the version of the DRL source it was built from.
+ */
+@Value
+public class VersionedKnowledgeBase {
+
+    /**
+     * The SHA-256 hex digest of the DRL source.
+     */
+    private String version;
+
+    /**
+     * The sequence number of this build, incremented every time a new rule version is activated.
+     */
+    private long sequence;
+
+    private KnowledgeBase knowledgeBase;
+}
@@ -6,11 +6,13 @@
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.netflix.feign.EnableFeignClients;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @ComponentScan(basePackageClasses = {DssApplication.class, BrmsBasePackageMarkerInterface.class})
 @EnableDiscoveryClient
 @EnableFeignClients
+@EnableScheduling
 public class DssApplication {
 
     public static void main(String[] args) {
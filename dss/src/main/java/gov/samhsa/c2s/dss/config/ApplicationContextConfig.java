@@ -7,8 +7,6 @@
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessorImpl;
 import gov.samhsa.c2s.common.document.converter.DocumentXmlConverter;
 import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
 import gov.samhsa.c2s.common.filereader.FileReader;
 import gov.samhsa.c2s.common.filereader.FileReaderImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
@@ -19,13 +17,22 @@
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 public class ApplicationContextConfig {
 
+    public static final String DOCUMENT_VALIDATION_EXECUTOR = "documentValidationExecutor";
+    public static final String BATCH_SEGMENTATION_EXECUTOR = "batchSegmentationExecutor";
+    public static final String FHIR_FACT_EXTRACTION_POOL = "fhirFactExtractionPool";
+
     @Bean
     @ConditionalOnBean(AuditClientProperties.class)
     public AuditClient auditClient(AuditClientProperties auditClientProperties) throws AuditException {
@@ -55,10 +62,40 @@ public DocumentAccessor documentAccessor(FhirIncludedNamespaceContext fhirInclud
     }
 
 
+    @Bean(name = DOCUMENT_VALIDATION_EXECUTOR)
+    public ThreadPoolTaskExecutor documentValidationExecutor(DssProperties dssProperties) {
+        final DssProperties.DocumentSegmentationImpl documentSegmentationImpl = dssProperties.getDocumentSegmentationImpl();
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("document-validation-");
+        executor.setCorePoolSize(documentSegmentationImpl.getValidationPoolSize());
+        executor.setMaxPoolSize(documentSegmentationImpl.getValidationPoolSize());
+        executor.setQueueCapacity(documentSegmentationImpl.getValidationQueueCapacity());
+        // The request thread validates the document itself when the executor is saturated
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    @Bean(name = BATCH_SEGMENTATION_EXECUTOR)
+    public ThreadPoolTaskExecutor batchSegmentationExecutor(DssProperties dssProperties) {
+        final DssProperties.Batch batch = dssProperties.getBatch();
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("batch-segmentation-");
+        executor.setCorePoolSize(batch.getPoolSize());
+        executor.setMaxPoolSize(batch.getPoolSize());
+        executor.setQueueCapacity(batch.getQueueCapacity());
+        // The request thread segments the batch items itself when the executor is saturated
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
 
-    @Bean
-    public XmlTransformer xmlTransformer() {
-        return new XmlTransformerImpl(simpleMarshaller());
+    @Bean(name = FHIR_FACT_EXTRACTION_POOL)
+    public ForkJoinPool fhirFactExtractionPool(DssProperties dssProperties) {
+        final ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("fhir-fact-extraction-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(dssProperties.getFhirFactExtraction().getParallelism(), threadFactory, null, false);
     }
 
     @Bean
@@ -8,6 +8,7 @@
 
 import javax.annotation.PostConstruct;
 import javax.validation.Valid;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -31,6 +32,34 @@ public class DssProperties {
     @Valid
     private Redact redact;
 
+    @NotNull
+    @Valid
+    private AuditQueue auditQueue = new AuditQueue();
+
+    @NotNull
+    @Valid
+    private ValueSetCache valueSetCache = new ValueSetCache();
+
+    @NotNull
+    @Valid
+    private Batch batch = new Batch();
+
+    @NotNull
+    @Valid
+    private ResultCache resultCache = new ResultCache();
+
+    @NotNull
+    @Valid
+    private FhirValidation fhirValidation = new FhirValidation();
+
+    @NotNull
+    @Valid
+    private FhirFactExtraction fhirFactExtraction = new FhirFactExtraction();
+
+    @NotNull
+    @Valid
+    private FhirChunking fhirChunking = new FhirChunking();
+
     @PostConstruct
     public void print() {
         if (log.isInfoEnabled()) {
@@ -45,6 +74,84 @@ public static class DocumentSegmentationImpl {
 
         @NotNull
         private boolean defaultIsAuditFailureByPass;
+
+        @Min(1)
+        private int validationPoolSize = 8;
+
+        @Min(0)
+        private int validationQueueCapacity = 100;
+    }
+
+    @Data
+    public static class AuditQueue {
+        @Min(1)
+        private int capacity = 1000;
+
+        @Min(1)
+        private int batchSize = 50;
+
+        @Min(1)
+        private int workers = 1;
+
+        private String spillFile;
+    }
+
+    @Data
+    public static class ValueSetCache {
+        @Min(1)
+        private int maxSize = 10000;
+
+        @Min(0)
+        private long ttlMillis = 3600000;
+
+        @Min(1)
+        private long categoriesRefreshIntervalMillis = 300000;
+    }
+
+    @Data
+    public static class Batch {
+        @Min(1)
+        private int maxSize = 100;
+
+        @Min(1)
+        private int poolSize = 4;
+
+        @Min(0)
+        private int queueCapacity = 100;
+    }
+
+    @Data
+    public static class ResultCache {
+        private boolean enabled = false;
+
+        @Min(1)
+        private long maxBytes = 67108864;
+
+        @Min(0)
+        private long ttlMillis = 3600000;
+
+        private boolean auditHits = true;
+    }
+
+    @Data
+    public static class FhirValidation {
+        @Min(0)
+        private int resourceCacheSize = 10000;
+    }
+
+    @Data
+    public static class FhirFactExtraction {
+        @Min(1)
+        private int parallelism = 4;
+
+        @Min(1)
+        private int parallelThreshold = 500;
+    }
+
+    @Data
+    public static class FhirChunking {
+        @Min(0)
+        private int chunkSize = 0;
     }
 
     @Data
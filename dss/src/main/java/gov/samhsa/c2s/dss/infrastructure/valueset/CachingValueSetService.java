@@ -0,0 +1,208 @@
+package gov.samhsa.c2s.dss.infrastructure.valueset;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caches the value set service responses in process. The categories of a concept are kept, keyed by code and code
+ * system OID, in a size bounded LRU map for <code>c2s.dss.value-set-cache.ttl-millis</code>, and only the concepts
+ * missing from the cache are looked up remotely, in a single request. The list of all value set categories is kept
+ * as a snapshot that is refreshed in the background every
+ * <code>c2s.dss.value-set-cache.categories-refresh-interval-millis</code>, its version is incremented every time a
+ * refresh returns different categories.
+ */
+@Service
+@Primary
+public class CachingValueSetService implements ValueSetService, InfoContributor {
+
+    static final String METRIC_HIT = "dss.value-set-cache.hit";
+    static final String METRIC_MISS = "dss.value-set-cache.miss";
+    static final String METRIC_LOOKUP_DURATION = "timer.dss.value-set-service.lookup";
+    static final String METRIC_CATEGORIES_DURATION = "timer.dss.value-set-service.categories";
+    static final String METRIC_CATEGORIES_REFRESH_FAILURE = "dss.value-set-cache.categories.refresh.failure";
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final ValueSetService valueSetService;
+
+    private final CounterService counterService;
+
+    private final GaugeService gaugeService;
+
+    private final long ttlMillis;
+
+    private final Map<ConceptCodeAndCodeSystemOidDto, CachedCategories> cache;
+
+    private final AtomicReference<List<ValueSetCategoryResponseDto>> allValueSetCategories = new AtomicReference<>();
+
+    private final AtomicLong categoriesVersion = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public CachingValueSetService(@Qualifier(ValueSetService.FEIGN_CLIENT) ValueSetService valueSetService,
+                                  DssProperties dssProperties,
+                                  CounterService counterService,
+                                  GaugeService gaugeService) {
+        final DssProperties.ValueSetCache valueSetCache = dssProperties.getValueSetCache();
+        final int maxSize = valueSetCache.getMaxSize();
+        this.valueSetService = valueSetService;
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+        this.ttlMillis = valueSetCache.getTtlMillis();
+        this.cache = Collections.synchronizedMap(
+                new LinkedHashMap<ConceptCodeAndCodeSystemOidDto, CachedCategories>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<ConceptCodeAndCodeSystemOidDto, CachedCategories> eldest) {
+                        return size() > maxSize;
+                    }
+                });
+    }
+
+    @Override
+    public List<ValueSetCategoryResponseDto> getAllValueSetCategories() {
+        final List<ValueSetCategoryResponseDto> snapshot = allValueSetCategories.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return refreshAllValueSetCategories();
+    }
+
+    /**
+     * Gets the version of the value set categories snapshot, loading the snapshot if it has not been loaded yet.
+     *
+     * @return the version, incremented every time the categories change
+     */
+    public long getCategoriesVersion() {
+        getAllValueSetCategories();
+        return categoriesVersion.get();
+    }
+
+    /**
+     * Refreshes the snapshot of all value set categories, the previous snapshot is kept if the value set service
+     * cannot be reached.
+     */
+    @Scheduled(fixedDelayString = "${c2s.dss.value-set-cache.categories-refresh-interval-millis:300000}")
+    public void refresh() {
+        try {
+            refreshAllValueSetCategories();
+        } catch (final RuntimeException e) {
+            counterService.increment(METRIC_CATEGORIES_REFRESH_FAILURE);
+            logger.error("Unable to refresh value set categories, keeping the current snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<ValueSetCategoryMapResponseDto> lookupValueSetCategories(
+            List<ConceptCodeAndCodeSystemOidDto> conceptCodeAndCodeSystemOidDtos) {
+        final long now = System.currentTimeMillis();
+        final List<ValueSetCategoryMapResponseDto> responses = new ArrayList<>(conceptCodeAndCodeSystemOidDtos.size());
+        final Set<ConceptCodeAndCodeSystemOidDto> missing = new LinkedHashSet<>();
+        for (ConceptCodeAndCodeSystemOidDto concept : conceptCodeAndCodeSystemOidDtos) {
+            final CachedCategories cached = cache.get(concept);
+            if (cached != null && cached.expiresAt > now) {
+                hits.incrementAndGet();
+                counterService.increment(METRIC_HIT);
+                cached.toResponse(concept).ifPresent(responses::add);
+            } else if (missing.add(concept)) {
+                misses.incrementAndGet();
+                counterService.increment(METRIC_MISS);
+            }
+        }
+        if (missing.isEmpty()) {
+            return responses;
+        }
+
+        final long start = System.currentTimeMillis();
+        final List<ValueSetCategoryMapResponseDto> fetched = valueSetService
+                .lookupValueSetCategories(new ArrayList<>(missing));
+        gaugeService.submit(METRIC_LOOKUP_DURATION, System.currentTimeMillis() - start);
+
+        final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> categoriesByConcept = new HashMap<>();
+        fetched.forEach(dto -> categoriesByConcept.put(
+                new ConceptCodeAndCodeSystemOidDto(dto.getCodedConceptCode(), dto.getCodeSystemOid()),
+                dto.getValueSetCategoryCodes()));
+        final long expiresAt = System.currentTimeMillis() + ttlMillis;
+        // concepts without categories are cached as well, so they are not looked up again
+        missing.forEach(concept -> cache.put(concept,
+                new CachedCategories(categoriesByConcept.containsKey(concept), categoriesByConcept.get(concept), expiresAt)));
+        responses.addAll(fetched);
+        return responses;
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        final Map<String, Object> details = new HashMap<>();
+        details.put("size", cache.size());
+        details.put("hits", hitCount);
+        details.put("misses", total - hitCount);
+        details.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        details.put("categories", Optional.ofNullable(allValueSetCategories.get()).map(List::size).orElse(0));
+        details.put("categoriesVersion", categoriesVersion.get());
+        builder.withDetail("valueSetCache", details);
+    }
+
+    private List<ValueSetCategoryResponseDto> refreshAllValueSetCategories() {
+        final long start = System.currentTimeMillis();
+        final List<ValueSetCategoryResponseDto> categories = Collections.unmodifiableList(
+                new ArrayList<>(valueSetService.getAllValueSetCategories()));
+        gaugeService.submit(METRIC_CATEGORIES_DURATION, System.currentTimeMillis() - start);
+        final List<ValueSetCategoryResponseDto> previous = allValueSetCategories.getAndSet(categories);
+        if (!categories.equals(previous)) {
+            categoriesVersion.incrementAndGet();
+        }
+        return categories;
+    }
+
+    private static final class CachedCategories {
+        private final boolean found;
+        private final Set<String> valueSetCategoryCodes;
+        private final long expiresAt;
+
+        private CachedCategories(boolean found, Set<String> valueSetCategoryCodes, long expiresAt) {
+            this.found = found;
+            this.valueSetCategoryCodes = valueSetCategoryCodes;
+            this.expiresAt = expiresAt;
+        }
+
+        private Optional<ValueSetCategoryMapResponseDto> toResponse(ConceptCodeAndCodeSystemOidDto concept) {
+            return found ?
+                    Optional.of(new ValueSetCategoryMapResponseDto(concept.getCodedConceptCode(),
+                            concept.getCodeSystemOid(), valueSetCategoryCodes)) :
+                    Optional.empty();
+        }
+    }
+}
@@ -13,9 +13,14 @@
 import javax.validation.Valid;
 import java.util.List;
 
-@FeignClient("vss")
+@FeignClient(name = "vss", qualifier = ValueSetService.FEIGN_CLIENT, primary = false)
 public interface ValueSetService {
 
+    /**
+     * The qualifier of the remote client, the primary bean is the {@link CachingValueSetService} in front of it.
+     */
+    String FEIGN_CLIENT = "vssFeignClient";
+
     @RequestMapping(value = "/valueSetCategories", method = RequestMethod.GET, consumes = MediaType.APPLICATION_JSON_UTF8_VALUE)
     List<ValueSetCategoryResponseDto> getAllValueSetCategories();
 
@@ -3,6 +3,7 @@
 import ch.qos.logback.audit.AuditException;
 import gov.samhsa.c2s.brms.domain.XacmlResult;
 import gov.samhsa.c2s.common.validation.exception.XmlDocumentReadFailureException;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
 import gov.samhsa.c2s.dss.service.dto.DSSRequest;
 import gov.samhsa.c2s.dss.service.dto.DSSResponse;
 import gov.samhsa.c2s.dss.service.dto.SegmentDocumentResponse;
@@ -10,6 +11,7 @@
 import gov.samhsa.c2s.dss.service.exception.InvalidSegmentedClinicalDocumentException;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * The Interface DocumentSegmentation.
@@ -27,6 +29,15 @@ public interface DocumentSegmentation {
      */
     DSSResponse segmentDocument(DSSRequest dssRequest);
 
+    /**
+     * Segment the documents of a batch in parallel. The clinical facts of all documents are categorized with a single
+     * value set service request, and a failing document does not fail the other documents of the batch.
+     *
+     * @param dssRequests the documents
+     * @return the segment document response or the error of each document, in the order of the documents
+     */
+    DSSBatchResponse<DSSResponse> segmentDocuments(List<DSSRequest> dssRequests);
+
     /**
      * Sets the additional metadata for segmented clinical document.
      *
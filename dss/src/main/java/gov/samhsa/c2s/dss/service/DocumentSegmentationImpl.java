@@ -1,33 +1,39 @@
 package gov.samhsa.c2s.dss.service;
 
 import ch.qos.logback.audit.AuditException;
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
 import gov.samhsa.c2s.brms.domain.FactModel;
 import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
 import gov.samhsa.c2s.brms.domain.XacmlResult;
 import gov.samhsa.c2s.brms.service.RuleExecutionService;
-import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
+import gov.samhsa.c2s.brms.service.dto.RuleExecutionResult;
 import gov.samhsa.c2s.common.audit.AuditClient;
 import gov.samhsa.c2s.common.audit.PredicateKey;
+import gov.samhsa.c2s.common.document.converter.DocumentXmlConverter;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerException;
+import gov.samhsa.c2s.dss.config.ApplicationContextConfig;
 import gov.samhsa.c2s.dss.config.DssProperties;
 import gov.samhsa.c2s.dss.infrastructure.DocumentValidatorClient;
 import gov.samhsa.c2s.dss.infrastructure.dto.ValidationDiagnosticType;
 import gov.samhsa.c2s.dss.infrastructure.dto.ValidationRequestDto;
 import gov.samhsa.c2s.dss.infrastructure.dto.ValidationResponseDto;
-import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
 import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
-import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.service.audit.AuditEvent;
+import gov.samhsa.c2s.dss.service.audit.AuditQueue;
 import gov.samhsa.c2s.dss.service.audit.DssAuditVerb;
+import gov.samhsa.c2s.dss.service.cache.CachedSegmentation;
+import gov.samhsa.c2s.dss.service.cache.SegmentationResultCache;
 import gov.samhsa.c2s.dss.service.document.DocumentEditor;
 import gov.samhsa.c2s.dss.service.document.DocumentFactModelExtractor;
 import gov.samhsa.c2s.dss.service.document.DocumentRedactor;
 import gov.samhsa.c2s.dss.service.document.DocumentTagger;
-import gov.samhsa.c2s.dss.service.document.EmbeddedClinicalDocumentExtractor;
+import gov.samhsa.c2s.dss.service.document.dto.ExtractedFactModel;
 import gov.samhsa.c2s.dss.service.document.dto.RedactedDocument;
 import gov.samhsa.c2s.dss.service.dto.ClinicalDocumentValidationResult;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
 import gov.samhsa.c2s.dss.service.dto.DSSRequest;
 import gov.samhsa.c2s.dss.service.dto.DSSResponse;
 import gov.samhsa.c2s.dss.service.dto.SegmentDocumentResponse;
@@ -36,20 +42,31 @@
 import gov.samhsa.c2s.dss.service.exception.InvalidOriginalClinicalDocumentException;
 import gov.samhsa.c2s.dss.service.exception.InvalidSegmentedClinicalDocumentException;
 import gov.samhsa.c2s.dss.service.metadata.AdditionalMetadataGeneratorForSegmentedClinicalDocument;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationMetrics;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationOutcome;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationStage;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationTimer;
+import gov.samhsa.c2s.dss.service.valueset.ClinicalFactCategorizer;
 import org.apache.axiom.attachments.ByteArrayDataSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
+import org.w3c.dom.Document;
 
 import javax.activation.DataHandler;
-import javax.xml.bind.JAXBException;
+import javax.validation.Validator;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static gov.samhsa.c2s.dss.service.audit.DssPredicateKey.CATEGORY_OBLIGATIONS_APPLIED;
 import static gov.samhsa.c2s.dss.service.audit.DssPredicateKey.ORIGINAL_DOCUMENT;
@@ -58,6 +75,7 @@
 import static gov.samhsa.c2s.dss.service.audit.DssPredicateKey.SECTION_OBLIGATIONS_APPLIED;
 import static gov.samhsa.c2s.dss.service.audit.DssPredicateKey.SEGMENTED_DOCUMENT;
 import static gov.samhsa.c2s.dss.service.audit.DssPredicateKey.SEGMENTED_DOCUMENT_VALID;
+import static java.util.stream.Collectors.toList;
 
 @Service
 public class DocumentSegmentationImpl implements DocumentSegmentation {
@@ -105,16 +123,16 @@ public class DocumentSegmentationImpl implements DocumentSegmentation {
     private DocumentRedactor documentRedactor;
 
     /**
-     * The embedded clinical document extractor.
+     * The document xml converter.
      */
     @Autowired
-    private EmbeddedClinicalDocumentExtractor embeddedClinicalDocumentExtractor;
+    private DocumentXmlConverter documentXmlConverter;
 
     /**
-     * The value set service.
+     * The clinical fact categorizer.
      */
     @Autowired
-    private ValueSetService valueSetService;
+    private ClinicalFactCategorizer clinicalFactCategorizer;
 
     /**
      * The additional metadata generator for segmented clinical document.
@@ -126,12 +144,47 @@ public class DocumentSegmentationImpl implements DocumentSegmentation {
     @Autowired
     private Optional<AuditClient> auditClient;
 
+    @Autowired
+    private AuditQueue auditQueue;
+
     @Autowired
     private DssProperties dssProperties;
 
+    /**
+     * The validator the requests of a batch are validated with.
+     */
+    @Autowired
+    private Validator validator;
+
     @Autowired
     private DocumentValidatorClient documentValidatorClient;
 
+    /**
+     * The segmentation result cache, present if <code>c2s.dss.result-cache.enabled</code> is set.
+     */
+    @Autowired
+    private Optional<SegmentationResultCache> segmentationResultCache = Optional.empty();
+
+    /**
+     * The segmentation metrics.
+     */
+    @Autowired
+    private SegmentationMetrics segmentationMetrics;
+
+    /**
+     * The executor the original document is validated on while the document is segmented.
+     */
+    @Autowired
+    @Qualifier(ApplicationContextConfig.DOCUMENT_VALIDATION_EXECUTOR)
+    private Executor documentValidationExecutor;
+
+    /**
+     * The executor the documents of a batch are segmented on.
+     */
+    @Autowired
+    @Qualifier(ApplicationContextConfig.BATCH_SEGMENTATION_EXECUTOR)
+    private Executor batchSegmentationExecutor;
+
     public DocumentSegmentationImpl() {
     }
 
@@ -144,11 +197,12 @@ public DocumentSegmentationImpl() {
      * @param documentRedactor                                        the document redactor
      * @param documentTagger                                          the document tagger
      * @param documentFactModelExtractor                              the document fact model extractor
-     * @param embeddedClinicalDocumentExtractor                       the embedded clinical document extractor
-     * @param valueSetService                                         the value set service
+     * @param documentXmlConverter                                    the document xml converter
+     * @param clinicalFactCategorizer                                 the clinical fact categorizer
      * @param additionalMetadataGeneratorForSegmentedClinicalDocument the additional metadata generator for segmented
      *                                                                clinical
      *                                                                document
+     * @param segmentationMetrics                                     the segmentation metrics
      */
     @Autowired
     public DocumentSegmentationImpl(
@@ -158,100 +212,179 @@ public DocumentSegmentationImpl(
             DocumentRedactor documentRedactor,
             DocumentTagger documentTagger,
             DocumentFactModelExtractor documentFactModelExtractor,
-            EmbeddedClinicalDocumentExtractor embeddedClinicalDocumentExtractor,
-            ValueSetService valueSetService,
+            DocumentXmlConverter documentXmlConverter,
+            ClinicalFactCategorizer clinicalFactCategorizer,
             AdditionalMetadataGeneratorForSegmentedClinicalDocument
-                    additionalMetadataGeneratorForSegmentedClinicalDocument) {
+                    additionalMetadataGeneratorForSegmentedClinicalDocument,
+            SegmentationMetrics segmentationMetrics) {
         this.ruleExecutionService = ruleExecutionService;
         this.documentEditor = documentEditor;
         this.marshaller = marshaller;
         this.documentRedactor = documentRedactor;
         this.documentTagger = documentTagger;
         this.documentFactModelExtractor = documentFactModelExtractor;
-        this.embeddedClinicalDocumentExtractor = embeddedClinicalDocumentExtractor;
-        this.valueSetService = valueSetService;
+        this.documentXmlConverter = documentXmlConverter;
+        this.clinicalFactCategorizer = clinicalFactCategorizer;
         this.additionalMetadataGeneratorForSegmentedClinicalDocument =
                 additionalMetadataGeneratorForSegmentedClinicalDocument;
+        this.segmentationMetrics = segmentationMetrics;
     }
 
     @Override
     public DSSResponse segmentDocument(DSSRequest dssRequest) {
+        final SegmentationTimer timer = segmentationMetrics.startTimer(SegmentationMetrics.DOCUMENT_PIPELINE);
+        return timer.stopAfter(() -> {
+            final Optional<String> cacheKey = timer.time(SegmentationStage.RESULT_CACHE,
+                    () -> segmentationResultCache.map(cache -> cache.keyOf(dssRequest)));
+            if (cacheKey.isPresent()) {
+                final Optional<CachedSegmentation> cachedSegmentation = timer.time(SegmentationStage.RESULT_CACHE,
+                        () -> segmentationResultCache.get().get(cacheKey.get()));
+                if (cachedSegmentation.isPresent()) {
+                    return cachedDocument(dssRequest, cachedSegmentation.get(), timer);
+                }
+            }
+
+            final PreparedDocument preparedDocument = prepareDocument(dssRequest, timer);
+            try {
+                // Get and set value set categories to clinical facts
+                timer.run(SegmentationStage.VALUE_SET_LOOKUP, () -> clinicalFactCategorizer
+                        .categorize(preparedDocument.factModel.getClinicalFactList()));
+            } catch (final Throwable e) {
+                throw segmentationFailure(preparedDocument.originalClinicalDocumentValidation, e);
+            }
+            return completeDocument(preparedDocument, cacheKey);
+        });
+    }
+
+    @Override
+    public DSSBatchResponse<DSSResponse> segmentDocuments(List<DSSRequest> dssRequests) {
+        SegmentationBatch.assertBatchSize(dssRequests.size(), dssProperties.getBatch().getMaxSize());
+        final List<SegmentationTimer> timers = dssRequests.stream()
+                .map(dssRequest -> segmentationMetrics.startTimer(SegmentationMetrics.DOCUMENT_PIPELINE))
+                .collect(toList());
+        final List<CompletableFuture<PreparedDocument>> preparedDocuments = new ArrayList<>(dssRequests.size());
+        for (int i = 0; i < dssRequests.size(); i++) {
+            final DSSRequest dssRequest = dssRequests.get(i);
+            final SegmentationTimer timer = timers.get(i);
+            preparedDocuments.add(CompletableFuture.supplyAsync(
+                    () -> prepareDocument(SegmentationBatch.validated(validator, dssRequest), timer),
+                    batchSegmentationExecutor));
+        }
+
+        // the facts of all documents are categorized with a single value set service request
+        final List<PreparedDocument> completedDocuments = SegmentationBatch.completed(preparedDocuments);
+        final List<ClinicalFact> clinicalFacts = completedDocuments.stream()
+                .flatMap(preparedDocument -> preparedDocument.factModel.getClinicalFactList().stream())
+                .collect(toList());
+        Throwable categorizationFailure = null;
+        if (!clinicalFacts.isEmpty()) {
+            final long start = System.currentTimeMillis();
+            try {
+                clinicalFactCategorizer.categorize(clinicalFacts);
+            } catch (final Throwable e) {
+                categorizationFailure = e;
+            }
+            // every document of the batch waited for the shared lookup
+            final long valueSetLookupMillis = System.currentTimeMillis() - start;
+            completedDocuments.forEach(preparedDocument -> preparedDocument.timer
+                    .record(SegmentationStage.VALUE_SET_LOOKUP, valueSetLookupMillis));
+        }
+
+        final Throwable failure = categorizationFailure;
+        final List<CompletableFuture<DSSResponse>> responses = new ArrayList<>(dssRequests.size());
+        for (int i = 0; i < dssRequests.size(); i++) {
+            final SegmentationTimer timer = timers.get(i);
+            responses.add(preparedDocuments.get(i)
+                    .thenApplyAsync(prepared -> {
+                        if (failure != null) {
+                            throw segmentationFailure(prepared.originalClinicalDocumentValidation, failure);
+                        }
+                        return completeDocument(prepared, Optional.empty());
+                    }, batchSegmentationExecutor)
+                    .whenComplete((response, e) -> timer.stop(
+                            e == null ? SegmentationOutcome.SUCCESS : SegmentationOutcome.of(e))));
+        }
+        return SegmentationBatch.collect(responses);
+    }
+
+    /**
+     * Starts the validation of the original document and extracts the fact model, the stages before the value set
+     * categories are looked up.
+     */
+    private PreparedDocument prepareDocument(DSSRequest dssRequest, SegmentationTimer timer) {
         final Charset charset = getCharset(dssRequest.getDocumentEncoding());
-        String document = new String(dssRequest.getDocument(), charset);
-        final String originalDocument = document;
-        Assert.hasText(document);
+        final String originalDocument = new String(dssRequest.getDocument(), charset);
+        Assert.hasText(originalDocument);
 
-        //Validate Original Document
-        final ClinicalDocumentValidationResult originalClinicalDocumentValidationResult =
-                validateOriginalClinicalDocument(dssRequest);
-        final String documentType = originalClinicalDocumentValidationResult.getDocumentType();
+        //Validate Original Document while it is segmented, the document type is only needed for the redaction
+        final CompletableFuture<ClinicalDocumentValidationResult> originalClinicalDocumentValidation =
+                CompletableFuture.supplyAsync(() -> timer.time(SegmentationStage.ORIGINAL_VALIDATION,
+                        () -> validateOriginalClinicalDocument(dssRequest, timer)), documentValidationExecutor);
 
         Assert.notNull(dssRequest.getXacmlResult());
-        final String enforcementPolicies = marshal(dssRequest.getXacmlResult());
-        Assert.notNull(enforcementPolicies);
 
-        RuleExecutionContainer ruleExecutionContainer = null;
+        try {
+            // The document is parsed once here and only serialized again after the last stage
+            final Document document = timer.time(SegmentationStage.PARSING,
+                    () -> documentXmlConverter.loadDocument(originalDocument));
+
+            timer.run(SegmentationStage.CREATION_DATE_EDIT, () -> documentEditor.setDocumentCreationDate(document));
+
+            // extract factModel, the generatedEntryId and generatedServiceEventId elements are added to the document
+            final ExtractedFactModel extractedFactModel = timer.time(SegmentationStage.FACT_EXTRACTION,
+                    () -> documentFactModelExtractor.extractFactModel(document, dssRequest.getXacmlResult()));
+            failFastOnInvalidOriginalClinicalDocument(originalClinicalDocumentValidation);
+
+            return new PreparedDocument(dssRequest, charset, originalDocument, originalClinicalDocumentValidation,
+                    document, extractedFactModel, timer);
+        } catch (final Throwable e) {
+            throw segmentationFailure(originalClinicalDocumentValidation, e);
+        }
+    }
+
+    /**
+     * Executes the rules on the categorized fact model, then redacts, tags, validates and audits the document. The
+     * response is cached under the cache key, if any, once the segmented document is valid.
+     */
+    private DSSResponse completeDocument(PreparedDocument preparedDocument, Optional<String> cacheKey) {
+        final DSSRequest dssRequest = preparedDocument.dssRequest;
+        final FactModel factModel = preparedDocument.factModel;
+        final SegmentationTimer timer = preparedDocument.timer;
+        final boolean tryPolicyResponseEnabled = dssRequest.getEnableTryPolicyResponse().orElse(Boolean.FALSE);
+        // the categories are kept before the rules run on the facts, a cached result is only served while they last
+        final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategories = cacheKey.isPresent() ?
+                CachedSegmentation.conceptCategoriesOf(factModel.getClinicalFactList()) : Collections.emptyMap();
+        final SegmentDocumentResponse segmentDocumentResponse = new SegmentDocumentResponse();
+        ClinicalDocumentValidationResult originalClinicalDocumentValidationResult = null;
         RedactedDocument redactedDocument = null;
         String rulesFired = null;
-        final SegmentDocumentResponse segmentDocumentResponse = new SegmentDocumentResponse();
-        FactModel factModel = null;
+        String segmentedDocument = null;
 
         try {
+            failFastOnInvalidOriginalClinicalDocument(preparedDocument.originalClinicalDocumentValidation);
+
+            // get execution response container, it is only marshalled once the redactor has set the item actions
+            final RuleExecutionResult ruleExecutionResult = timer.time(SegmentationStage.RULE_EXECUTION,
+                    () -> ruleExecutionService.executeClinicalFacts(factModel));
+            final RuleExecutionContainer ruleExecutionContainer = ruleExecutionResult.getRuleExecutionContainer();
+            rulesFired = ruleExecutionResult.getRulesFired();
 
-            document = documentEditor.setDocumentCreationDate(document);
-
-            // extract factModel
-            String factModelXml = documentFactModelExtractor.extractFactModel(
-                    document, enforcementPolicies);
-            // get clinical document with generatedEntryId elements
-            document = embeddedClinicalDocumentExtractor
-                    .extractClinicalDocumentFromFactModel(factModelXml);
-            // remove the embedded c32 from factmodel before unmarshalling
-            factModelXml = documentRedactor
-                    .cleanUpEmbeddedClinicalDocumentFromFactModel(factModelXml);
-            factModel = marshaller.unmarshalFromXml(FactModel.class,
-                    factModelXml);
-
-            // Get and set value set categories to clinical facts
-            final List<ConceptCodeAndCodeSystemOidDto> conceptCodeAndCodeSystemOidDtoList =
-                    factModel.getClinicalFactList().stream()
-                            .map(fact -> new ConceptCodeAndCodeSystemOidDto(fact.getCode(), fact.getCodeSystem()))
-                            .collect(Collectors.toList());
-
-            // Get value set categories
-            final List<ValueSetCategoryMapResponseDto> valueSetCategories = valueSetService
-                    .lookupValueSetCategories(conceptCodeAndCodeSystemOidDtoList);
-            factModel.getClinicalFactList()
-                    .stream()
-                    .forEach(fact -> valueSetCategories.stream()
-                            .filter(dto -> fact.getCode().equals(dto.getCodedConceptCode()) && fact.getCodeSystem()
-                                    .equals(dto.getCodeSystemOid()))
-                            .map(ValueSetCategoryMapResponseDto::getValueSetCategoryCodes)
-                            .filter(Objects::nonNull)
-                            .findAny().ifPresent(fact::setValueSetCategories));
-
-            // get execution response container
-            final AssertAndExecuteClinicalFactsResponse brmsResponse = ruleExecutionService
-                    .assertAndExecuteClinicalFacts(factModel);
-            String executionResponseContainer = brmsResponse
-                    .getRuleExecutionResponseContainer();
-            rulesFired = brmsResponse.getRulesFired();
-
-            // unmarshall from xml to RuleExecutionContainer
-            ruleExecutionContainer = marshaller.unmarshalFromXml(
-                    RuleExecutionContainer.class, executionResponseContainer);
-
-            logger.info("Fact model: " + factModelXml);
+            logger.info("Fact model: " + factModel);
             logger.info("Rule Execution Container size: "
                     + ruleExecutionContainer.getExecutionResponseList().size());
 
-            // redact document
-            redactedDocument = documentRedactor.redactDocument(document,
-                    ruleExecutionContainer, factModel, documentType);
-            document = redactedDocument.getRedactedDocument();
+            originalClinicalDocumentValidationResult =
+                    joinOriginalClinicalDocumentValidation(preparedDocument.originalClinicalDocumentValidation);
+
+            // redact document, the fact model document has the entry references the handlers look up
+            final String documentType = originalClinicalDocumentValidationResult.getDocumentType();
+            redactedDocument = timer.time(SegmentationStage.REDACTION,
+                    () -> documentRedactor.redactDocument(preparedDocument.document,
+                            preparedDocument.factModelDocument, ruleExecutionContainer, factModel, documentType,
+                            tryPolicyResponseEnabled));
 
             // set tryPolicyDocument in the response
-            if (dssRequest.getEnableTryPolicyResponse().orElse(Boolean.FALSE)) {
+            if (tryPolicyResponseEnabled) {
                 segmentDocumentResponse
                         .setTryPolicyDocumentXml(redactedDocument
                                 .getTryPolicyDocument());
@@ -259,39 +392,40 @@ public DSSResponse segmentDocument(DSSRequest dssRequest) {
             }
 
             // to get the itemActions from documentRedactor
-            executionResponseContainer = marshaller
-                    .marshal(ruleExecutionContainer);
+            final String executionResponseContainer = timer.time(SegmentationStage.TAGGING,
+                    () -> marshal(ruleExecutionContainer));
 
             // tag document
-            document = documentTagger.tagDocument(document,
-                    executionResponseContainer);
+            final Document taggedDocument = timer.time(SegmentationStage.TAGGING,
+                    () -> documentTagger.tagDocument(preparedDocument.document, executionResponseContainer));
 
-            // clean up generatedEntryId elements from document
-            document = documentRedactor.cleanUpGeneratedEntryIds(document);
+            timer.run(SegmentationStage.CLEANUP, () -> {
+                // clean up generatedEntryId elements from document
+                documentRedactor.cleanUpGeneratedEntryIds(taggedDocument);
 
-            // clean up generatedServiceEventId elements from document
-            document = documentRedactor
-                    .cleanUpGeneratedServiceEventIds(document);
+                // clean up generatedServiceEventId elements from document
+                documentRedactor.cleanUpGeneratedServiceEventIds(taggedDocument);
+            });
+
+            segmentedDocument = timer.time(SegmentationStage.SERIALIZATION,
+                    () -> documentXmlConverter.convertXmlDocToString(taggedDocument));
+            redactedDocument.setRedactedDocument(segmentedDocument);
 
             // Set segmented document in response
-            segmentDocumentResponse.setSegmentedDocumentXml(document);
+            segmentDocumentResponse.setSegmentedDocumentXml(segmentedDocument);
             // Set execution response container in response
             segmentDocumentResponse
                     .setExecutionResponseContainerXml(executionResponseContainer);
 
-        } catch (final JAXBException e) {
-            logger.error(e.getMessage(), e);
-            throw new DocumentSegmentationException(e.toString(), e);
         } catch (final Throwable e) {
-            logger.error(e.getMessage(), e);
-            throw new DocumentSegmentationException(e.toString(), e);
+            throw segmentationFailure(preparedDocument.originalClinicalDocumentValidation, e);
         }
 
         //Validate Segmented Document
         try {
-            validateAndAuditedSegmentedClinicalDocument(originalClinicalDocumentValidationResult, charset,
-                    originalDocument, document, dssRequest,
-                    factModel, redactedDocument, rulesFired);
+            validateAndAuditedSegmentedClinicalDocument(originalClinicalDocumentValidationResult,
+                    preparedDocument.charset, preparedDocument.originalDocument, segmentedDocument, dssRequest,
+                    factModel, redactedDocument, rulesFired, timer);
         } catch (AuditException e) {
             logger.error(e.getMessage(), e);
             throw new AuditClientException(e.toString(), e);
@@ -300,14 +434,81 @@ public DSSResponse segmentDocument(DSSRequest dssRequest) {
         DSSResponse dssResponse = new DSSResponse();
         dssResponse.setSegmentedDocument(segmentDocumentResponse.getSegmentedDocumentXml().getBytes(DEFAULT_ENCODING));
         dssResponse.setEncoding(DEFAULT_ENCODING.toString());
-        dssResponse.setCCDADocument(isCCDADocument(documentType));
-        if (dssRequest.getEnableTryPolicyResponse().orElse(Boolean.FALSE)) {
+        dssResponse.setCCDADocument(isCCDADocument(originalClinicalDocumentValidationResult.getDocumentType()));
+        if (tryPolicyResponseEnabled) {
             dssResponse.setTryPolicyDocument(segmentDocumentResponse.getTryPolicyDocumentXml().getBytes
                     (DEFAULT_ENCODING));
         }
+        if (cacheKey.isPresent()) {
+            segmentationResultCache.get().put(cacheKey.get(), new CachedSegmentation(dssResponse,
+                    originalClinicalDocumentValidationResult.getDocumentType(), rulesFired,
+                    redactedDocument.getRedactedSectionSet(), redactedDocument.getRedactedCategorySet(),
+                    conceptCategories));
+        }
+        return dssResponse;
+    }
+
+    /**
+     * Returns a cached segmentation result, audited as the segmentation of the requested document unless
+     * <code>c2s.dss.result-cache.audit-hits</code> is disabled. The original and segmented documents of a cached result
+     * were both valid. The cached documents still have the creation date of the segmentation they were cached from, so
+     * the returned copies are stamped with the current date like a new segmentation; the cached result is not changed.
+     */
+    private DSSResponse cachedDocument(DSSRequest dssRequest, CachedSegmentation cachedSegmentation,
+                                       SegmentationTimer timer) {
+        timer.setDocumentType(cachedSegmentation.getDocumentType());
+        final DSSResponse cachedDssResponse = cachedSegmentation.getDssResponse();
+        final Charset charset = Charset.forName(cachedDssResponse.getEncoding());
+        final DSSResponse dssResponse = new DSSResponse();
+        try {
+            timer.run(SegmentationStage.CREATION_DATE_EDIT, () -> {
+                dssResponse.setSegmentedDocument(stampCreationDate(cachedDssResponse.getSegmentedDocument(), charset));
+                if (cachedDssResponse.getTryPolicyDocument() != null) {
+                    dssResponse.setTryPolicyDocument(stampCreationDate(cachedDssResponse.getTryPolicyDocument(),
+                            charset));
+                }
+            });
+        } catch (final Throwable e) {
+            logger.error(e.getMessage(), e);
+            throw new DocumentSegmentationException(e.toString(), e);
+        }
+        dssResponse.setEncoding(cachedDssResponse.getEncoding());
+        dssResponse.setCCDADocument(cachedDssResponse.isCCDADocument());
+        if (dssProperties.getResultCache().isAuditHits()
+                && dssRequest.getAudited().orElse(dssProperties.getDocumentSegmentationImpl().isDefaultIsAudited())) {
+            try {
+                timer.run(SegmentationStage.AUDIT, () -> auditSegmentation(
+                        new String(dssRequest.getDocument(), getCharset(dssRequest.getDocumentEncoding())),
+                        new String(dssResponse.getSegmentedDocument(), charset),
+                        dssRequest.getXacmlResult(), cachedSegmentation.getRedactedSectionSet(),
+                        cachedSegmentation.getRedactedCategorySet(), cachedSegmentation.getRulesFired(), true, true,
+                        dssRequest.getAuditFailureByPass().orElse(dssProperties.getDocumentSegmentationImpl()
+                                .isDefaultIsAuditFailureByPass())));
+            } catch (AuditException e) {
+                logger.error(e.getMessage(), e);
+                throw new AuditClientException(e.toString(), e);
+            }
+        }
         return dssResponse;
     }
 
+    private byte[] stampCreationDate(byte[] document, Charset charset) throws Exception {
+        final Document xmlDocument = documentXmlConverter.loadDocument(new String(document, charset));
+        documentEditor.setDocumentCreationDate(xmlDocument);
+        return documentXmlConverter.convertXmlDocToString(xmlDocument).getBytes(charset);
+    }
+
+    private RuntimeException segmentationFailure(
+            CompletableFuture<ClinicalDocumentValidationResult> originalClinicalDocumentValidation, Throwable e) {
+        if (e instanceof InvalidOriginalClinicalDocumentException) {
+            return (InvalidOriginalClinicalDocumentException) e;
+        }
+        // an invalid original document is reported as such, even if a stage failed on it first
+        joinOriginalClinicalDocumentValidation(originalClinicalDocumentValidation);
+        logger.error(e.getMessage(), e);
+        return new DocumentSegmentationException(e.toString(), e);
+    }
+
     @Override
     public void setAdditionalMetadataForSegmentedClinicalDocument(
             SegmentDocumentResponse segmentDocumentResponse,
@@ -343,9 +544,31 @@ public void setDocumentPayloadRawData(
                 rawData));
     }
 
-    private ClinicalDocumentValidationResult validateOriginalClinicalDocument(DSSRequest dssRequest) {
+    private void failFastOnInvalidOriginalClinicalDocument(
+            CompletableFuture<ClinicalDocumentValidationResult> originalClinicalDocumentValidation) {
+        if (originalClinicalDocumentValidation.isCompletedExceptionally()) {
+            joinOriginalClinicalDocumentValidation(originalClinicalDocumentValidation);
+        }
+    }
+
+    private ClinicalDocumentValidationResult joinOriginalClinicalDocumentValidation(
+            CompletableFuture<ClinicalDocumentValidationResult> originalClinicalDocumentValidation) {
+        try {
+            return originalClinicalDocumentValidation.join();
+        } catch (final CompletionException e) {
+            // rethrow the validation failure as if the document was validated on the calling thread
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new DocumentSegmentationException(e.getCause());
+        }
+    }
+
+    private ClinicalDocumentValidationResult validateOriginalClinicalDocument(DSSRequest dssRequest,
+                                                                             SegmentationTimer timer) {
         ValidationResponseDto responseDto = documentValidatorClient
                 .validateClinicalDocument(new ValidationRequestDto(dssRequest.getDocument()));
+        timer.setDocumentType(responseDto.getDocumentType());
         logger.info(() -> "Original Document Type: " + responseDto.getDocumentType());
         logger.info(() -> "Original Document Validation Result: " + responseDto.isDocumentValid());
 
@@ -380,19 +603,21 @@ private void validateAndAuditedSegmentedClinicalDocument(ClinicalDocumentValidat
                                                              DSSRequest dssRequest,
                                                              FactModel factModel,
                                                              RedactedDocument redactedDocument,
-                                                             String rulesFired) throws AuditException {
-        ValidationResponseDto responseDto = documentValidatorClient
-                .validateClinicalDocument(new ValidationRequestDto(segmentedDocument.getBytes(charset)));
+                                                             String rulesFired,
+                                                             SegmentationTimer timer) throws AuditException {
+        ValidationResponseDto responseDto = timer.time(SegmentationStage.SEGMENTED_VALIDATION,
+                () -> documentValidatorClient.validateClinicalDocument(
+                        new ValidationRequestDto(segmentedDocument.getBytes(charset))));
         logger.info(() -> "Segmented Document Type: " + responseDto.getDocumentType());
         logger.info(() -> "Segmented Document Validation Result: " + responseDto.isDocumentValid());
 
         if (dssRequest.getAudited().orElse(dssProperties.getDocumentSegmentationImpl().isDefaultIsAudited())) {
-            auditSegmentation(originalDocument, segmentedDocument,
-                    factModel.getXacmlResult(), redactedDocument,
-                    rulesFired, originalClinicalDocumentValidationResult.isValidDocument(),
-                    responseDto.isDocumentValid(),
+            timer.run(SegmentationStage.AUDIT, () -> auditSegmentation(originalDocument, segmentedDocument,
+                    factModel.getXacmlResult(), redactedDocument.getRedactedSectionSet(),
+                    redactedDocument.getRedactedCategorySet(), rulesFired,
+                    originalClinicalDocumentValidationResult.isValidDocument(), responseDto.isDocumentValid(),
                     dssRequest.getAuditFailureByPass().orElse(dssProperties.getDocumentSegmentationImpl()
-                            .isDefaultIsAuditFailureByPass()));
+                            .isDefaultIsAuditFailureByPass())));
         }
 
         if (!responseDto.isDocumentValid()) {
@@ -416,7 +641,8 @@ private void validateAndAuditedSegmentedClinicalDocument(ClinicalDocumentValidat
     private void auditSegmentation(String originalDocument,
                                    String segmentedDocument,
                                    XacmlResult xacmlResult,
-                                   RedactedDocument redactedDocument,
+                                   Set<String> redactedSectionSet,
+                                   Set<String> redactedCategorySet,
                                    String rulesFired,
                                    boolean originalDocumentValid,
                                    boolean segmentedDocumentValid,
@@ -425,13 +651,11 @@ private void auditSegmentation(String originalDocument,
         Map<PredicateKey, String> predicateMap = null;
         if (auditClient.isPresent()) {
             predicateMap = auditClient.get().createPredicateMap();
-            if (redactedDocument.getRedactedSectionSet().size() > 0) {
-                predicateMap.put(SECTION_OBLIGATIONS_APPLIED, redactedDocument
-                        .getRedactedSectionSet().toString());
+            if (redactedSectionSet.size() > 0) {
+                predicateMap.put(SECTION_OBLIGATIONS_APPLIED, redactedSectionSet.toString());
             }
-            if (redactedDocument.getRedactedCategorySet().size() > 0) {
-                predicateMap.put(CATEGORY_OBLIGATIONS_APPLIED, redactedDocument
-                        .getRedactedCategorySet().toString());
+            if (redactedCategorySet.size() > 0) {
+                predicateMap.put(CATEGORY_OBLIGATIONS_APPLIED, redactedCategorySet.toString());
             }
             if (rulesFired != null) {
                 predicateMap.put(RULES_FIRED, rulesFired);
@@ -442,24 +666,11 @@ private void auditSegmentation(String originalDocument,
                     .toString(originalDocumentValid));
             predicateMap.put(SEGMENTED_DOCUMENT_VALID, Boolean
                     .toString(segmentedDocumentValid));
-            try {
-                auditClient.get().audit(this, xacmlResult.getMessageId(),
-                        DssAuditVerb.SEGMENT_DOCUMENT, xacmlResult.getPatientId(), predicateMap);
-            } catch (final AuditException e) {
-                if (isAuditFailureByPass) {
-                    // main flow should work though the audit service has some
-                    // issues
-                    logger.error("Audit Service is Down");
-                    logger.debug(() -> "patient id" + xacmlResult.getPatientId());
-                    logger.debug(() -> "original document" + originalDocument);
-                    logger.debug(() -> "segmented document" + segmentedDocument);
-                    // TODO send the email notification to core team
-                    // Or send a notification using rabbitmq
-                } else {
-                    // main flow shouldn't work if audit service has some issues
-                    throw e;
-                }
-            }
+            // submitted in the background, the bypass flag only applies if the event cannot be queued or spilled
+            auditQueue.offer(new AuditEvent(this, xacmlResult.getMessageId(),
+                            DssAuditVerb.SEGMENT_DOCUMENT, xacmlResult.getPatientId(), predicateMap,
+                            System.currentTimeMillis()),
+                    isAuditFailureByPass);
         }
     }
 
@@ -478,4 +689,31 @@ private String marshal(Object o) {
     private boolean isCCDADocument(String documentType) {
         return documentType.contains(CCDA_PREFIX);
     }
+
+    /**
+     * The state of a document between the fact model extraction and the rule execution.
+     */
+    private static final class PreparedDocument {
+        private final DSSRequest dssRequest;
+        private final Charset charset;
+        private final String originalDocument;
+        private final CompletableFuture<ClinicalDocumentValidationResult> originalClinicalDocumentValidation;
+        private final Document document;
+        private final FactModel factModel;
+        private final Document factModelDocument;
+        private final SegmentationTimer timer;
+
+        private PreparedDocument(DSSRequest dssRequest, Charset charset, String originalDocument,
+                                 CompletableFuture<ClinicalDocumentValidationResult> originalClinicalDocumentValidation,
+                                 Document document, ExtractedFactModel extractedFactModel, SegmentationTimer timer) {
+            this.dssRequest = dssRequest;
+            this.charset = charset;
+            this.originalDocument = originalDocument;
+            this.originalClinicalDocumentValidation = originalClinicalDocumentValidation;
+            this.document = document;
+            this.factModel = extractedFactModel.getFactModel();
+            this.factModelDocument = extractedFactModel.getFactModelDocument();
+            this.timer = timer;
+        }
+    }
 }
@@ -39,4 +39,29 @@ default String extractEmbeddedElement(String sourceXml, String xPathExprEmbedded
             throw new DocumentSegmentationException(e);
         }
     }
+
+    /**
+     * Moves an embedded element out of the {@code sourceDocument} into a new standalone document. The element is
+     * adopted rather than copied, so it is no longer part of the {@code sourceDocument} afterwards.
+     *
+     * @return the document that has the extracted element as its root
+     */
+    default Document extractEmbeddedElement(Document sourceDocument, String xPathExprEmbeddedElement) {
+        try {
+            final Node embeddedElement = getDocumentAccessor().getNode(sourceDocument, xPathExprEmbeddedElement)
+                    .orElseThrow(() -> new DocumentSegmentationException("Embedded Element does not exist in the Source XML"));
+
+            final Document newXmlDocument = DocumentBuilderFactory.newInstance()
+                    .newDocumentBuilder().newDocument();
+            // Adopt the node if both documents share the same DOM implementation, fall back to a deep copy otherwise
+            Node movedNode = newXmlDocument.adoptNode(embeddedElement);
+            if (movedNode == null) {
+                movedNode = newXmlDocument.importNode(embeddedElement, true);
+            }
+            newXmlDocument.appendChild(movedNode);
+            return newXmlDocument;
+        } catch (XPathExpressionException | ParserConfigurationException e) {
+            throw new DocumentSegmentationException(e);
+        }
+    }
 }
@@ -1,14 +1,26 @@
 package gov.samhsa.c2s.dss.service;
 
 import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
 import gov.samhsa.c2s.dss.service.dto.DSSRequestForFhir;
 import gov.samhsa.c2s.dss.service.dto.DSSResponseForFhir;
 import org.hl7.fhir.dstu3.model.Bundle;
 
+import java.util.List;
+
 public interface FhirBundleSegmentation {
 
     DSSResponseForFhir segmentFhirBundle(DSSRequestForFhir dssRequestForFhir);
 
+    /**
+     * Segments the bundles of a batch in parallel. The clinical facts of all bundles are categorized with a single
+     * value set service request, and a failing bundle does not fail the other bundles of the batch.
+     *
+     * @param dssRequestsForFhir the bundles
+     * @return the segmented bundle or the error of each bundle, in the order of the bundles
+     */
+    DSSBatchResponse<DSSResponseForFhir> segmentFhirBundles(List<DSSRequestForFhir> dssRequestsForFhir);
+
     Bundle redactFhirBundle(Bundle fhirbundle,XacmlResult xacmlResult);
 
     DSSResponseForFhir redactAndUpdateFhirBundle(DSSRequestForFhir dssRequestForFhir);
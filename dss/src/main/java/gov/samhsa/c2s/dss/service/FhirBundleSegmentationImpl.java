@@ -1,36 +1,36 @@
 package gov.samhsa.c2s.dss.service;
 
-import ca.uhn.fhir.parser.XmlParser;
-import ca.uhn.fhir.validation.FhirValidator;
-import ca.uhn.fhir.validation.ValidationResult;
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.Confidentiality;
 import gov.samhsa.c2s.brms.domain.FactModel;
 import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
 import gov.samhsa.c2s.brms.domain.XacmlResult;
 import gov.samhsa.c2s.brms.service.RuleExecutionService;
-import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
+import gov.samhsa.c2s.brms.service.dto.RuleExecutionResult;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
-import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
-import gov.samhsa.c2s.common.marshaller.SimpleMarshallerException;
-import gov.samhsa.c2s.common.util.StringURIResolver;
-import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
-import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
-import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
-import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import gov.samhsa.c2s.dss.config.ApplicationContextConfig;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
 import gov.samhsa.c2s.dss.service.dto.DSSRequestForFhir;
 import gov.samhsa.c2s.dss.service.dto.DSSResponseForFhir;
-import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
-import gov.samhsa.c2s.dss.service.fhir.EmbeddedFhirBundleExtractor;
+import gov.samhsa.c2s.dss.service.fhir.FhirBundleFactModelExtractor;
 import gov.samhsa.c2s.dss.service.fhir.FhirBundleRedactor;
+import gov.samhsa.c2s.dss.service.fhir.FhirBundleTagger;
+import gov.samhsa.c2s.dss.service.fhir.FhirBundleValidator;
+import gov.samhsa.c2s.dss.service.fhir.ValidatedFhirBundle;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationMetrics;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationOutcome;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationStage;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationTimer;
+import gov.samhsa.c2s.dss.service.valueset.ClinicalFactCategorizer;
 
-import java.util.Optional;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.ArrayList;
-import java.util.Objects;
 import org.hl7.fhir.dstu3.model.Bundle;
 import org.hl7.fhir.dstu3.model.Base;
 import org.hl7.fhir.dstu3.model.InstantType;
@@ -39,181 +39,288 @@
 import org.hl7.fhir.dstu3.model.Resource;
 import org.hl7.fhir.exceptions.FHIRException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
-import javax.xml.transform.URIResolver;
-import java.io.IOException;
-
+import javax.validation.Validator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
 public class FhirBundleSegmentationImpl implements FhirBundleSegmentation {
 
-    private static final String EXTRACT_CLINICAL_FACTS_FOR_FHIR_BUNDLE_XSL = "extractClinicalFactsForFHIRBundle.xsl";
-    private static final String TAG_FOR_FHIR_BUNDLE_XSL = "tagForFHIRBundle.xsl";
-
-    private static final String PARAM_XACML_RESULT = "xacmlResult";
     private static final String FHIR_SEARCHSET_TYPE = "searchset";
     private static final String FHIR_REFERENCE = "reference";
     private static final String FHIR_SUBJECT = "subject";
+    private static final String FHIR_STU3_BUNDLE_TYPE = "FHIR_STU3_BUNDLE";
 
     private static final String FHIR_CONFIDENTIALITY_CODE_V = "V";
     private static final String FHIR_CONFIDENTIALITY_CODE_R = "R";
     private static final String FHIR_CONFIDENTIALITY_CODE_N = "N";
     private static final String FHIR_SYSTEM_CONFIDENTIALITY = "http://hl7.org/fhir/v3/Confidentiality";
+    private static final String MORE_THAN_ONE_PATIENT = "Bundle contains resources for more than one patient.";
 
     private final Logger logger = LoggerFactory.getLogger(this);
 
     @Autowired
-    private XmlParser fhirXmlParser;
+    private ClinicalFactCategorizer clinicalFactCategorizer;
 
     @Autowired
-    private SimpleMarshaller marshaller;
+    private RuleExecutionService ruleExecutionService;
 
     @Autowired
-    private XmlTransformer xmlTransformer;
+    private FhirBundleFactModelExtractor fhirBundleFactModelExtractor;
 
     @Autowired
-    private ValueSetService valueSetService;
+    private FhirBundleTagger fhirBundleTagger;
 
     @Autowired
-    private RuleExecutionService ruleExecutionService;
+    private FhirBundleRedactor fhirBundleRedactor;
 
     @Autowired
-    private EmbeddedFhirBundleExtractor embeddedFhirBundleExtractor;
+    private FhirBundleValidator fhirBundleValidator;
 
     @Autowired
-    private FhirBundleRedactor fhirBundleRedactor;
+    private DssProperties dssProperties;
 
+    /**
+     * The validator the requests of a batch are validated with.
+     */
     @Autowired
-    private FhirValidator fhirValidator;
+    private Validator validator;
+
+    @Autowired
+    private SegmentationMetrics segmentationMetrics;
+
+    /**
+     * The executor the bundles of a batch are segmented on.
+     */
+    @Autowired
+    @Qualifier(ApplicationContextConfig.BATCH_SEGMENTATION_EXECUTOR)
+    private Executor batchSegmentationExecutor;
 
     @Override
     public DSSResponseForFhir segmentFhirBundle(DSSRequestForFhir dssRequestForFhir) {
-        try {
-            final XacmlResult xacmlResult = dssRequestForFhir.getXacmlResult();
-            final String xacmlResultXml = marshal(xacmlResult);
-            final Optional<URIResolver> uriResolver = Optional
-                    .of(new StringURIResolver()
-                            .put(PARAM_XACML_RESULT, xacmlResultXml));
+        final SegmentationTimer timer = startTimer();
+        return timer.stopAfter(() -> {
+            if (isChunked(dssRequestForFhir.getFhirStu3Bundle())) {
+                return segmentFhirBundleInChunks(dssRequestForFhir, timer);
+            }
+            final PreparedFhirBundle preparedFhirBundle = prepareFhirBundle(dssRequestForFhir, timer);
+
+            // Get and set value set categories to clinical facts
+            timer.run(SegmentationStage.VALUE_SET_LOOKUP, () -> clinicalFactCategorizer
+                    .categorize(preparedFhirBundle.factModel.getClinicalFactList()));
+            logger.debug(preparedFhirBundle.factModel::toString);
+            return completeFhirBundle(preparedFhirBundle);
+        });
+    }
 
-            final Bundle fhirBundle = dssRequestForFhir.getFhirStu3Bundle();
+    @Override
+    public DSSBatchResponse<DSSResponseForFhir> segmentFhirBundles(List<DSSRequestForFhir> dssRequestsForFhir) {
+        SegmentationBatch.assertBatchSize(dssRequestsForFhir.size(), dssProperties.getBatch().getMaxSize());
+        final List<SegmentationTimer> timers = dssRequestsForFhir.stream()
+                .map(dssRequestForFhir -> startTimer())
+                .collect(Collectors.toList());
+        final List<CompletableFuture<PreparedFhirBundle>> preparedFhirBundles = new ArrayList<>();
+        for (int i = 0; i < dssRequestsForFhir.size(); i++) {
+            final DSSRequestForFhir dssRequestForFhir = dssRequestsForFhir.get(i);
+            final SegmentationTimer timer = timers.get(i);
+            preparedFhirBundles.add(CompletableFuture.supplyAsync(
+                    () -> prepareFhirBundle(SegmentationBatch.validated(validator, dssRequestForFhir), timer),
+                    batchSegmentationExecutor));
+        }
 
-            // Assumption: Ensure bundle type is SearchSet
-            assertIsSearchSetBundle(fhirBundle);
+        // the facts of all bundles are categorized with a single value set service request
+        final List<PreparedFhirBundle> completedFhirBundles = SegmentationBatch.completed(preparedFhirBundles);
+        final List<ClinicalFact> clinicalFacts = completedFhirBundles.stream()
+                .flatMap(preparedFhirBundle -> preparedFhirBundle.factModel.getClinicalFactList().stream())
+                .collect(Collectors.toList());
+        RuntimeException categorizationFailure = null;
+        if (!clinicalFacts.isEmpty()) {
+            final long start = System.currentTimeMillis();
+            try {
+                clinicalFactCategorizer.categorize(clinicalFacts);
+            } catch (final RuntimeException e) {
+                logger.error(e.getMessage(), e);
+                categorizationFailure = e;
+            }
+            // every bundle of the batch waited for the shared lookup
+            final long valueSetLookupMillis = System.currentTimeMillis() - start;
+            completedFhirBundles.forEach(preparedFhirBundle -> preparedFhirBundle.timer
+                    .record(SegmentationStage.VALUE_SET_LOOKUP, valueSetLookupMillis));
+        }
 
-            //Assumption: Ensure bundle contains resources for one patient
-            assertIsSinglePatientPerBundle(fhirBundle);
+        final RuntimeException failure = categorizationFailure;
+        final List<CompletableFuture<DSSResponseForFhir>> responses = new ArrayList<>();
+        for (int i = 0; i < dssRequestsForFhir.size(); i++) {
+            final SegmentationTimer timer = timers.get(i);
+            responses.add(preparedFhirBundles.get(i)
+                    .thenApplyAsync(prepared -> {
+                        if (failure != null) {
+                            throw failure;
+                        }
+                        return completeFhirBundle(prepared);
+                    }, batchSegmentationExecutor)
+                    .whenComplete((response, e) -> timer.stop(
+                            e == null ? SegmentationOutcome.SUCCESS : SegmentationOutcome.of(e))));
+        }
+        return SegmentationBatch.collect(responses);
+    }
 
-            // Validate bundle
-            validateBundleIfEnabled(dssRequestForFhir.getEnableBundleValidation().orElse(false), fhirBundle);
+    /**
+     * Validates the bundle and extracts the fact model, the stages before the value set categories are looked up.
+     */
+    private PreparedFhirBundle prepareFhirBundle(DSSRequestForFhir dssRequestForFhir, SegmentationTimer timer) {
+        final Bundle fhirBundle = dssRequestForFhir.getFhirStu3Bundle();
 
-            // Convert FHIR Bundle to XML
-            final String originalFhirBundleXml = fhirXmlParser.encodeResourceToString(fhirBundle);
-            logger.debug(() -> "originalFhirBundleXml: " + originalFhirBundleXml);
+        final Optional<ValidatedFhirBundle> validatedFhirBundle = timer.time(SegmentationStage.ORIGINAL_VALIDATION,
+                () -> {
+                    // Assumption: Ensure bundle type is SearchSet
+                    assertIsSearchSetBundle(fhirBundle);
 
-            final String factModelXml = xmlTransformer.transform(
-                    originalFhirBundleXml, new ClassPathResource(EXTRACT_CLINICAL_FACTS_FOR_FHIR_BUNDLE_XSL).getURI().toString(),
-                    Optional.empty(), uriResolver);
+                    //Assumption: Ensure bundle contains resources for one patient
+                    assertIsSinglePatientPerBundle(fhirBundle);
 
-            logger.debug(() -> "factModelXml: " + factModelXml);
+                    // Validate bundle
+                    return validateBundleIfEnabled(dssRequestForFhir.getEnableBundleValidation().orElse(false),
+                            fhirBundle);
+                });
 
-            // Get clinical bundleWithGeneratedIds with generatedEntryId elements
-            final String bundleWithGeneratedIds = embeddedFhirBundleExtractor.extractFhirBundleFromFactModel(factModelXml);
-            logger.debug(() -> "bundleWithGeneratedIds: " + bundleWithGeneratedIds);
+        // The bundle is kept in memory, the clinical facts refer to its entries by index
+        final FactModel factModel = timer.time(SegmentationStage.FACT_EXTRACTION,
+                () -> fhirBundleFactModelExtractor.extractFactModel(fhirBundle, dssRequestForFhir.getXacmlResult()));
+        logger.debug(factModel::toString);
 
-            final String cleanFactModel = fhirBundleRedactor.cleanUpEmbeddedFhirBundleFromFactModel(factModelXml);
-            logger.debug(() -> "cleanFactModel: " + cleanFactModel);
+        return new PreparedFhirBundle(dssRequestForFhir, fhirBundle, validatedFhirBundle, factModel, timer);
+    }
 
-            final FactModel factModel = marshaller.unmarshalFromXml(FactModel.class, cleanFactModel);
-            logger.debug(factModel::toString);
+    /**
+     * Executes the rules on the categorized fact model, then tags and optionally redacts the bundle.
+     */
+    private DSSResponseForFhir completeFhirBundle(PreparedFhirBundle preparedFhirBundle) {
+        final DSSRequestForFhir dssRequestForFhir = preparedFhirBundle.dssRequestForFhir;
+        final FactModel factModel = preparedFhirBundle.factModel;
+        final SegmentationTimer timer = preparedFhirBundle.timer;
 
-            // Get and set value set categories to clinical facts
-            final List<ConceptCodeAndCodeSystemOidDto> conceptCodeAndCodeSystemOidDtoList =
-                    factModel.getClinicalFactList().stream()
-                            .map(fact -> new ConceptCodeAndCodeSystemOidDto(fact.getCode(), fact.getCodeSystem()))
-                            .collect(Collectors.toList());
-
-            // Get value set categories
-            final List<ValueSetCategoryMapResponseDto> valueSetCategories = valueSetService
-                    .lookupValueSetCategories(conceptCodeAndCodeSystemOidDtoList);
-            factModel.getClinicalFactList()
-                    .stream()
-                    .forEach(fact -> valueSetCategories.stream()
-                            .filter(dto -> fact.getCode().equals(dto.getCodedConceptCode()) && fact.getCodeSystem().equals(dto.getCodeSystemOid()))
-                            //TODO: this should also return system as well as the code for the value set categories
-                            .map(ValueSetCategoryMapResponseDto::getValueSetCategoryCodes)
-                            .filter(Objects::nonNull)
-                            .findAny().ifPresent(fact::setValueSetCategories));
-            logger.debug(factModel::toString);
-            // get execution response container
-            final AssertAndExecuteClinicalFactsResponse brmsResponse = ruleExecutionService
-                    .assertAndExecuteClinicalFacts(factModel);
-            String executionResponseContainer = brmsResponse
-                    .getRuleExecutionResponseContainer();
-            final String rulesFired = brmsResponse.getRulesFired();
-
-            logger.debug(() -> "rulesFired: " + rulesFired);
-
-            // unmarshall from originalFhirBundleXml to RuleExecutionContainer
-            final RuleExecutionContainer ruleExecutionContainer = marshaller.unmarshalFromXml(
-                    RuleExecutionContainer.class, executionResponseContainer);
-
-            logger.debug(() -> "Fact model: " + factModelXml);
-            logger.debug(() -> "Rule Execution Container size: " + ruleExecutionContainer.getExecutionResponseList().size());
-            logger.debug(() -> "ruleExecutionContainer: " + ruleExecutionContainer);
-
-            // start tagging the bundle with sensitivity categories
-            final String finalFactModelXml = marshal(factModel);
-
-            logger.debug(() -> "finalFactModelXml: " + finalFactModelXml);
-            final String ruleExecutionContainerXml = marshal(ruleExecutionContainer);
-
-            logger.debug(() -> "ruleExecutionContainerXml: " + ruleExecutionContainerXml);
-            final Optional<URIResolver> uriResolverForTagging = Optional
-                    .of(new StringURIResolver()
-                            .put("factModel", finalFactModelXml.replace(
-                                    "<FactModel>", "<FactModel xmlns=\"http://hl7.org/fhir\">"))
-                            .put("ruleExecutionResponseContainer", ruleExecutionContainerXml.replace(
-                                    "<ruleExecutionContainer>", "<ruleExecutionContainer xmlns=\"http://hl7.org/fhir\">")));
-            final String taggedBundleXml = xmlTransformer.transform(bundleWithGeneratedIds,
-                    new ClassPathResource(TAG_FOR_FHIR_BUNDLE_XSL).getURI().toString(), Optional.empty(), uriResolverForTagging);
-
-            logger.debug(() -> "taggedBundleXml: " + taggedBundleXml);
-
-            final String cleanedUpTaggedBundleXml = fhirBundleRedactor.cleanUpGeneratedEntryIds(taggedBundleXml);
-
-            logger.debug(() -> "cleanedUpTaggedBundleXml: " + cleanedUpTaggedBundleXml);
-
-            // Update `Bundle.meta.lastUpdated` and `Bundle.id`
-            final Bundle taggedBundle = recreateBundle(cleanedUpTaggedBundleXml);
-
-            // Validate bundle after tagging
-            validateBundleIfEnabled(dssRequestForFhir.getEnableBundleValidation().orElse(false), taggedBundle);
-
-            if (isRedactionEnabled(dssRequestForFhir)) {
-                dssRequestForFhir.setFhirStu3Bundle(taggedBundle);
-                Bundle redactedFhirBundle = redactFhirBundle(taggedBundle, dssRequestForFhir.getXacmlResult());
-                updateBundleMetaInformation(redactedFhirBundle);
-                updateConfidentiality(redactedFhirBundle);
-               return  DSSResponseForFhir.of(redactedFhirBundle);
-            }else{
-                updateBundleMetaInformation(taggedBundle);
-                return DSSResponseForFhir.of(taggedBundle);
+        // get execution response container
+        final RuleExecutionResult ruleExecutionResult = timer.time(SegmentationStage.RULE_EXECUTION,
+                () -> ruleExecutionService.executeClinicalFacts(factModel));
+        final String rulesFired = ruleExecutionResult.getRulesFired();
+
+        logger.debug(() -> "rulesFired: " + rulesFired);
+
+        final RuleExecutionContainer ruleExecutionContainer = ruleExecutionResult.getRuleExecutionContainer();
+
+        logger.debug(() -> "Fact model: " + factModel);
+        logger.debug(() -> "Rule Execution Container size: " + ruleExecutionContainer.getExecutionResponseList().size());
+        logger.debug(() -> "ruleExecutionContainer: " + ruleExecutionContainer);
+
+        // tag the bundle with sensitivity categories, the security labels are added to the bundle in place
+        final Bundle taggedBundle = preparedFhirBundle.fhirBundle;
+        timer.run(SegmentationStage.TAGGING,
+                () -> fhirBundleTagger.tagFhirBundle(taggedBundle, factModel, ruleExecutionContainer));
+
+        return finishFhirBundle(dssRequestForFhir, taggedBundle, preparedFhirBundle.validatedFhirBundle, timer);
+    }
+
+    private boolean isChunked(Bundle fhirBundle) {
+        final int chunkSize = dssProperties.getFhirChunking().getChunkSize();
+        return chunkSize > 0 && fhirBundle.getEntry().size() > chunkSize;
+    }
+
+    /**
+     * Extracts, categorizes, executes the rules on and tags the entries of a large bundle in chunks of
+     * <code>c2s.dss.fhir-chunking.chunk-size</code> entries, so that only the clinical facts and the rule execution
+     * responses of one chunk are held at a time. The rules only look at one clinical fact at a time, so the entries
+     * are tagged as if the bundle was segmented as a whole. The patient of the entries and the confidentiality of the
+     * bundle are accumulated over the chunks.
+     */
+    private DSSResponseForFhir segmentFhirBundleInChunks(DSSRequestForFhir dssRequestForFhir,
+                                                         SegmentationTimer timer) {
+        final Bundle fhirBundle = dssRequestForFhir.getFhirStu3Bundle();
+        final int chunkSize = dssProperties.getFhirChunking().getChunkSize();
+
+        final Optional<ValidatedFhirBundle> validatedFhirBundle = timer.time(SegmentationStage.ORIGINAL_VALIDATION,
+                () -> {
+                    // Assumption: Ensure bundle type is SearchSet
+                    assertIsSearchSetBundle(fhirBundle);
+
+                    // Validate bundle
+                    return validateBundleIfEnabled(dssRequestForFhir.getEnableBundleValidation().orElse(false),
+                            fhirBundle);
+                });
+
+        final Set<String> patientIds = new HashSet<>();
+        Confidentiality bundleConfidentiality = Confidentiality.N;
+        final List<Bundle.BundleEntryComponent> entries = fhirBundle.getEntry();
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            // the entries of the chunk are the entries of the bundle, they are tagged in place
+            final Bundle chunk = new Bundle().setType(fhirBundle.getType());
+            chunk.setEntry(new ArrayList<>(entries.subList(from, Math.min(from + chunkSize, entries.size()))));
+
+            //Assumption: Ensure bundle contains resources for one patient
+            timer.run(SegmentationStage.ORIGINAL_VALIDATION, () -> {
+                addPatientIds(chunk, patientIds);
+                Assert.isTrue(patientIds.size() <= 1, MORE_THAN_ONE_PATIENT);
+            });
+
+            final FactModel factModel = timer.time(SegmentationStage.FACT_EXTRACTION,
+                    () -> fhirBundleFactModelExtractor.extractFactModel(chunk, dssRequestForFhir.getXacmlResult()));
+            timer.run(SegmentationStage.VALUE_SET_LOOKUP,
+                    () -> clinicalFactCategorizer.categorize(factModel.getClinicalFactList()));
+            final RuleExecutionContainer ruleExecutionContainer = timer.time(SegmentationStage.RULE_EXECUTION,
+                    () -> ruleExecutionService.executeClinicalFacts(factModel)).getRuleExecutionContainer();
+            final Confidentiality chunkConfidentiality = timer.time(SegmentationStage.TAGGING,
+                    () -> fhirBundleTagger.tagEntries(chunk, factModel, ruleExecutionContainer));
+            if (chunkConfidentiality.getPriority() > bundleConfidentiality.getPriority()) {
+                bundleConfidentiality = chunkConfidentiality;
             }
-        } catch (IOException | SimpleMarshallerException e) {
-            throw new DocumentSegmentationException(e.getMessage(), e);
+            final int chunkEnd = from + chunk.getEntry().size();
+            logger.debug(() -> "Tagged the entries up to " + chunkEnd + " of " + entries.size());
+        }
+        Assert.isTrue(patientIds.size() == 1, MORE_THAN_ONE_PATIENT);
+
+        final Confidentiality taggedConfidentiality = bundleConfidentiality;
+        timer.run(SegmentationStage.TAGGING,
+                () -> fhirBundleTagger.tagBundleConfidentiality(fhirBundle, taggedConfidentiality));
+        return finishFhirBundle(dssRequestForFhir, fhirBundle, validatedFhirBundle, timer);
+    }
+
+    /**
+     * Validates the tagged resources, then optionally redacts the bundle, the stages that only need the security
+     * labels of the tagged bundle.
+     */
+    private DSSResponseForFhir finishFhirBundle(DSSRequestForFhir dssRequestForFhir, Bundle taggedBundle,
+                                                Optional<ValidatedFhirBundle> validatedFhirBundle,
+                                                SegmentationTimer timer) {
+        // Validate the resources that were tagged, the bundle level rules already ran before tagging
+        timer.run(SegmentationStage.SEGMENTED_VALIDATION,
+                () -> validatedFhirBundle.ifPresent(fhirBundleValidator::validateChangedResources));
+
+        if (isRedactionEnabled(dssRequestForFhir)) {
+            dssRequestForFhir.setFhirStu3Bundle(taggedBundle);
+            Bundle redactedFhirBundle = timer.time(SegmentationStage.REDACTION,
+                    () -> redactFhirBundle(taggedBundle, dssRequestForFhir.getXacmlResult()));
+            updateBundleMetaInformation(redactedFhirBundle);
+            updateConfidentiality(redactedFhirBundle);
+           return  DSSResponseForFhir.of(redactedFhirBundle);
+        }else{
+            updateBundleMetaInformation(taggedBundle);
+            return DSSResponseForFhir.of(taggedBundle);
         }
     }
 
-    boolean isRedactionEnabled(DSSRequestForFhir dssRequestForFhir){
-        return dssRequestForFhir.getEnableRedact().orElse(false);
+    private SegmentationTimer startTimer() {
+        final SegmentationTimer timer = segmentationMetrics.startTimer(SegmentationMetrics.FHIR_BUNDLE_PIPELINE);
+        timer.setDocumentType(FHIR_STU3_BUNDLE_TYPE);
+        return timer;
     }
 
-    private Bundle recreateBundle(final String cleanedUpTaggedBundleXml ){
-        return (Bundle) fhirXmlParser.parseResource(cleanedUpTaggedBundleXml);
+    boolean isRedactionEnabled(DSSRequestForFhir dssRequestForFhir){
+        return dssRequestForFhir.getEnableRedact().orElse(false);
     }
 
     private void updateBundleMetaInformation(Bundle fhirStu3Bundle){
@@ -223,79 +330,30 @@ private void updateBundleMetaInformation(Bundle fhirStu3Bundle){
     }
     @Override
     public Bundle redactFhirBundle(Bundle fhirbundle,XacmlResult xacmlResult) {
-
-        List<ValueSetCategoryResponseDto> valueSetCategories = valueSetService.getAllValueSetCategories();
-        logger.debug(() -> "Entry Size before redaction: " + fhirbundle.getEntry().size());
-        List<Bundle.BundleEntryComponent> entriesToBeRedacted = new ArrayList<>();
-        fhirbundle.getEntry().stream()
-                     .forEach(entry ->{
-                         // Determine which security labels are Sensitive
-                         List<Coding> securityLabels = entry.getResource().getMeta().getSecurity();
-                         // If resource is tagged otherwise ignore
-                         if(securityLabels.size() > 0 ){
-                             List<Coding> sensitiveSecurityLabels = getSensitiveSecurityLabels(securityLabels, valueSetCategories);
-                             // If security label is not sensitive ignore resource
-                             if(sensitiveSecurityLabels.size() > 0){
-                                 // Create a list of all the codings that do match the PDP obligations
-                                     List<String> pdpObligations = xacmlResult.getPdpObligations();
-                                 List<Coding> selectCodingForSharing = createListOfCodingsForSharing(sensitiveSecurityLabels,pdpObligations);
-
-                                 // Add entry to list of entries to be redacted if at least one coding does not match the PDP obligation
-                                 if(selectCodingForSharing.size() == 0 ){
-                                     entriesToBeRedacted.add(entry);
-                                 }
-                             }
-                         }
-                     });
-
-        fhirbundle.getEntry().removeAll(entriesToBeRedacted);
-        logger.debug(() -> "Entry Size after redaction: " + fhirbundle.getEntry().size());
-        return fhirbundle;
-    }
-
-    private List<Coding> getSensitiveSecurityLabels(List<Coding> securityLables, List<ValueSetCategoryResponseDto> valueSetCategories){
-        List<Coding> sensitiveSecurityLabels = new ArrayList<>();
-        securityLables.stream().forEach( coding -> {
-            boolean codingIsSensitive = valueSetCategories.stream().anyMatch(valueSetCategory -> (valueSetCategory.getCode().equals(coding.getCode())
-                    && valueSetCategory.getSystem().equals(coding.getSystem())));
-            if(codingIsSensitive){
-                sensitiveSecurityLabels.add(coding);
-            }
-        });
-
-        return sensitiveSecurityLabels;
-    }
-
-    private List<Coding> createListOfCodingsForSharing(List<Coding> sensitiveSecurityLabels, List<String> pdpObligations){
-        List<Coding> selectCodingForSharing = new ArrayList<>();
-        sensitiveSecurityLabels.stream().forEach(coding -> {
-            if(pdpObligations.contains(coding.getCode())){
-                selectCodingForSharing.add(coding);
-            }
-        });
-
-        return selectCodingForSharing;
+        return fhirBundleRedactor.redactFhirBundle(fhirbundle, xacmlResult);
     }
 
     @Override
     public DSSResponseForFhir redactAndUpdateFhirBundle(DSSRequestForFhir dssRequestForFhir) {
         // Validate bundle before redaction
-        validateBundleIfEnabled(dssRequestForFhir.getEnableBundleValidation().orElse(false), dssRequestForFhir.getFhirStu3Bundle());
+        final Optional<ValidatedFhirBundle> validatedFhirBundle = validateBundleIfEnabled(
+                dssRequestForFhir.getEnableBundleValidation().orElse(false), dssRequestForFhir.getFhirStu3Bundle());
 
         Bundle redactedFhirBundle = redactFhirBundle(dssRequestForFhir.getFhirStu3Bundle(), dssRequestForFhir.getXacmlResult());
         updateBundleMetaInformation(redactedFhirBundle);
         updateConfidentiality(redactedFhirBundle);
 
-        // Validate bundle after redaction
-        validateBundleIfEnabled(dssRequestForFhir.getEnableBundleValidation().orElse(false), dssRequestForFhir.getFhirStu3Bundle());
+        // Validate the resources that changed after redaction, the redaction only removes entries
+        validatedFhirBundle.ifPresent(fhirBundleValidator::validateChangedResources);
 
         return  DSSResponseForFhir.of(redactedFhirBundle);
     }
 
-    private void validateBundleIfEnabled(boolean shouldValidate, Bundle fhirStu3Bundle){
+    private Optional<ValidatedFhirBundle> validateBundleIfEnabled(boolean shouldValidate, Bundle fhirStu3Bundle){
         if(shouldValidate){
-            assertIsValidateBundle(fhirStu3Bundle);
+            return Optional.of(fhirBundleValidator.validateBundle(fhirStu3Bundle));
         }
+        return Optional.empty();
     }
 
     private void updateConfidentiality(Bundle fhirStu3Bundle){
@@ -337,18 +395,17 @@ private boolean containsCondifidentialityCode(String code,Bundle fhirbundle  ){
         );
     }
 
-    private void assertIsValidateBundle(Bundle fhirbundle){
-        final ValidationResult taggedBundleValidationResult = fhirValidator.validateWithResult(fhirbundle);
-        taggedBundleValidationResult.getMessages().stream().forEach(error ->logger.debug(() -> "Error: " + error.getMessage()));
-        Assert.isTrue(taggedBundleValidationResult.isSuccessful(), "FHIR validation is failed for the segmented bundle with " + taggedBundleValidationResult.getMessages().size() + " messages");
-    }
-
     private void assertIsSearchSetBundle(Bundle fhirbundle){
         Assert.isTrue(fhirbundle.getType().toCode().equalsIgnoreCase(FHIR_SEARCHSET_TYPE), "Unsupported FHIR bundle type");
     }
 
     private void assertIsSinglePatientPerBundle(Bundle fhirbundle){
         Set<String> setOfPatientIds = new HashSet<>();
+        addPatientIds(fhirbundle, setOfPatientIds);
+        Assert.isTrue(setOfPatientIds.size() == 1, MORE_THAN_ONE_PATIENT);
+    }
+
+    private void addPatientIds(Bundle fhirbundle, Set<String> setOfPatientIds){
         fhirbundle.getEntry().stream().forEach(entry ->{
                 Resource resource = entry.getResource();
                 try {
@@ -358,14 +415,26 @@ private void assertIsSinglePatientPerBundle(Bundle fhirbundle){
                     logger.warn(() -> e.getMessage());
                 }
         });
-        Assert.isTrue(setOfPatientIds.size() == 1, "Bundle contains resources for more than one patient.");
     }
 
-    private String marshal(Object o) {
-        try {
-            return marshaller.marshal(o);
-        } catch (SimpleMarshallerException e) {
-            throw new DocumentSegmentationException(e);
+    /**
+     * The state of a bundle between the fact model extraction and the rule execution.
+     */
+    private static final class PreparedFhirBundle {
+        private final DSSRequestForFhir dssRequestForFhir;
+        private final Bundle fhirBundle;
+        private final Optional<ValidatedFhirBundle> validatedFhirBundle;
+        private final FactModel factModel;
+        private final SegmentationTimer timer;
+
+        private PreparedFhirBundle(DSSRequestForFhir dssRequestForFhir, Bundle fhirBundle,
+                                   Optional<ValidatedFhirBundle> validatedFhirBundle, FactModel factModel,
+                                   SegmentationTimer timer) {
+            this.dssRequestForFhir = dssRequestForFhir;
+            this.fhirBundle = fhirBundle;
+            this.validatedFhirBundle = validatedFhirBundle;
+            this.factModel = factModel;
+            this.timer = timer;
         }
     }
 }
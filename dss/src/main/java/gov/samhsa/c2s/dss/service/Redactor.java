@@ -45,11 +45,28 @@ default void redactNodeIfNotNull(Node nodeToBeRedacted) {
     default String cleanUpElements(String document, String xPathExpr) {
         try {
             final DocumentXmlConverter documentXmlConverter = getDocumentXmlConverter();
-            final DocumentAccessor documentAccessor = getDocumentAccessor();
             final Document xmlDocument = documentXmlConverter.loadDocument(document);
-            final List<Node> nodes = documentAccessor.getNodeListAsStream(xmlDocument, xPathExpr).collect(toList());
-            redactNodesIfNotNull(nodes);
+            cleanUpElements(xmlDocument, xPathExpr);
             return documentXmlConverter.convertXmlDocToString(xmlDocument);
+        } catch (final DocumentSegmentationException e) {
+            throw e;
+        } catch (final Exception e) {
+            LoggerFactory.getLogger(this).error(e.getMessage(), e);
+            throw new DocumentSegmentationException(e.toString(), e);
+        }
+    }
+
+    /**
+     * Removes all nodes matching the {@code xPathExpr} from the document in place.
+     *
+     * @param document  the document
+     * @param xPathExpr the x path expr
+     */
+    default void cleanUpElements(Document document, String xPathExpr) {
+        try {
+            final DocumentAccessor documentAccessor = getDocumentAccessor();
+            final List<Node> nodes = documentAccessor.getNodeListAsStream(document, xPathExpr).collect(toList());
+            redactNodesIfNotNull(nodes);
         } catch (final Exception e) {
             LoggerFactory.getLogger(this).error(e.getMessage(), e);
             throw new DocumentSegmentationException(e.toString(), e);
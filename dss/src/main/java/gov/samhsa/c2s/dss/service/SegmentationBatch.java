@@ -0,0 +1,106 @@
+package gov.samhsa.c2s.dss.service;
+
+import gov.samhsa.c2s.dss.service.dto.BatchItemResponse;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
+import gov.samhsa.c2s.dss.service.exception.BatchTooLargeException;
+import gov.samhsa.c2s.dss.service.exception.InvalidSegmentationRequestException;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Helpers for the batch segmentation requests, the items of a batch are segmented in parallel and fail on their own.
+ */
+final class SegmentationBatch {
+
+    private SegmentationBatch() {
+    }
+
+    static void assertBatchSize(int size, int maxSize) {
+        if (size > maxSize) {
+            throw new BatchTooLargeException("The batch has " + size + " requests, at most " + maxSize
+                    + " are allowed");
+        }
+    }
+
+    /**
+     * Validates one request of a batch. The requests are validated one by one, so that an invalid request only
+     * fails its own item.
+     *
+     * @param validator the validator
+     * @param request   the request
+     * @param <T>       the type of the request
+     * @return the valid request
+     * @throws InvalidSegmentationRequestException if the request is missing or invalid
+     */
+    static <T> T validated(Validator validator, T request) {
+        if (request == null) {
+            throw new InvalidSegmentationRequestException("The request is missing");
+        }
+        final Set<ConstraintViolation<T>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new InvalidSegmentationRequestException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(joining(", ")));
+        }
+        return request;
+    }
+
+    /**
+     * Waits for all items and gets the results of the items that completed normally.
+     *
+     * @param items the batch items
+     * @param <T>   the type of the item results
+     * @return the results of the items that did not fail, in the order of the items
+     */
+    static <T> List<T> completed(List<CompletableFuture<T>> items) {
+        final List<T> completed = new ArrayList<>(items.size());
+        for (CompletableFuture<T> item : items) {
+            try {
+                completed.add(item.join());
+            } catch (final CompletionException e) {
+                // reported with the batch response
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Waits for all items and collects their responses or errors.
+     *
+     * @param items the batch items
+     * @param <T>   the type of the segmentation response
+     * @return the batch response
+     */
+    static <T> DSSBatchResponse<T> collect(List<CompletableFuture<T>> items) {
+        final List<BatchItemResponse<T>> responses = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            try {
+                responses.add(BatchItemResponse.succeeded(index, items.get(index).join()));
+            } catch (final CompletionException e) {
+                final Throwable cause = e.getCause() == null ? e : e.getCause();
+                responses.add(BatchItemResponse.failed(index, statusOf(cause), cause.getMessage()));
+            }
+        }
+        return DSSBatchResponse.of(responses);
+    }
+
+    /**
+     * Gets the HTTP status the error would have been answered with for a single request.
+     */
+    static int statusOf(Throwable e) {
+        final ResponseStatus responseStatus = AnnotationUtils.findAnnotation(e.getClass(), ResponseStatus.class);
+        return responseStatus == null ? HttpStatus.INTERNAL_SERVER_ERROR.value() : responseStatus.value().value();
+    }
+}
@@ -0,0 +1,30 @@
+package gov.samhsa.c2s.dss.service.audit;
+
+import gov.samhsa.c2s.common.audit.AuditVerb;
+import gov.samhsa.c2s.common.audit.PredicateKey;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * An audit event waiting to be submitted to the audit service, with the arguments of
+ * {@link gov.samhsa.c2s.common.audit.AuditClient#audit(Object, String, AuditVerb, String, Map)}.
+ */
+@Value
+public class AuditEvent {
+
+    private Object auditingObject;
+
+    private String auditMessage;
+
+    private AuditVerb auditVerb;
+
+    private String participantObjectId;
+
+    private Map<PredicateKey, String> predicateMap;
+
+    /**
+     * The time the event was created, in milliseconds since the epoch.
+     */
+    private long timestamp;
+}
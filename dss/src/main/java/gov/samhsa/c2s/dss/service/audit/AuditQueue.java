@@ -0,0 +1,19 @@
+package gov.samhsa.c2s.dss.service.audit;
+
+import ch.qos.logback.audit.AuditException;
+
+/**
+ * Submits audit events to the audit service in the background, so the request thread does not wait for the audit
+ * service.
+ */
+public interface AuditQueue {
+
+    /**
+     * Queues the audit event. If the queue is full, the event is appended to the local spill file instead.
+     *
+     * @param auditEvent           the audit event
+     * @param isAuditFailureByPass true if the request should proceed even if the event could not be recorded
+     * @throws AuditException if the event could neither be queued nor spilled and the failure is not bypassed
+     */
+    void offer(AuditEvent auditEvent, boolean isAuditFailureByPass) throws AuditException;
+}
@@ -0,0 +1,252 @@
+package gov.samhsa.c2s.dss.service.audit;
+
+import ch.qos.logback.audit.AuditException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.common.audit.AuditClient;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues audit events in a bounded in-memory queue that background workers drain in batches of up to
+ * <code>c2s.dss.audit-queue.batch-size</code> events. Events that do not fit into the queue, and events the audit
+ * service rejects, are appended as JSON lines to the file configured by <code>c2s.dss.audit-queue.spill-file</code>,
+ * so the request thread only pays for one enqueue.
+ * <p>
+ * The audit failure bypass flag of the request decides what happens when an event can neither be queued nor
+ * spilled: the failure is logged if it is bypassed, otherwise {@link AuditException} is thrown to the caller.
+ */
+@Service
+public class AuditQueueImpl implements AuditQueue {
+
+    static final String METRIC_QUEUED = "dss.audit-queue.queued";
+    static final String METRIC_SUBMITTED = "dss.audit-queue.submitted";
+    static final String METRIC_SPILLED = "dss.audit-queue.spilled";
+    static final String METRIC_LOST = "dss.audit-queue.lost";
+    static final String METRIC_SIZE = "dss.audit-queue.size";
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final Optional<AuditClient> auditClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final CounterService counterService;
+
+    private final GaugeService gaugeService;
+
+    private final BlockingQueue<AuditEvent> queue;
+
+    private final int batchSize;
+
+    private final int workers;
+
+    /**
+     * The spill file, or null if spilling is disabled.
+     */
+    private final Path spillFile;
+
+    private final Object spillLock = new Object();
+
+    private ExecutorService executorService;
+
+    private volatile boolean running;
+
+    @Autowired
+    public AuditQueueImpl(Optional<AuditClient> auditClient,
+                          DssProperties dssProperties,
+                          ObjectMapper objectMapper,
+                          CounterService counterService,
+                          GaugeService gaugeService) {
+        final DssProperties.AuditQueue auditQueue = dssProperties.getAuditQueue();
+        this.auditClient = auditClient;
+        this.objectMapper = objectMapper;
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+        this.queue = new ArrayBlockingQueue<>(auditQueue.getCapacity());
+        this.batchSize = auditQueue.getBatchSize();
+        this.workers = auditQueue.getWorkers();
+        this.spillFile = StringUtils.hasText(auditQueue.getSpillFile()) ? Paths.get(auditQueue.getSpillFile()) : null;
+    }
+
+    /**
+     * Starts the background workers if an audit client is configured.
+     */
+    @PostConstruct
+    public void start() {
+        if (!auditClient.isPresent()) {
+            return;
+        }
+        running = true;
+        executorService = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("audit-queue-"));
+        for (int i = 0; i < workers; i++) {
+            executorService.execute(this::drain);
+        }
+        logger.info(() -> "Started " + workers + " audit queue worker(s), spill file: " + spillFile);
+    }
+
+    /**
+     * Stops the background workers after the queued events have been submitted, and spills whatever is left.
+     */
+    @PreDestroy
+    public void stop() {
+        if (executorService == null) {
+            return;
+        }
+        running = false;
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executorService.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            executorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        final List<AuditEvent> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            logger.info(() -> "Spilling " + remaining.size() + " audit event(s) that were not submitted");
+            spillOrLog(remaining);
+        }
+    }
+
+    @Override
+    public void offer(AuditEvent auditEvent, boolean isAuditFailureByPass) throws AuditException {
+        if (running && queue.offer(auditEvent)) {
+            counterService.increment(METRIC_QUEUED);
+            gaugeService.submit(METRIC_SIZE, queue.size());
+            return;
+        }
+        try {
+            spill(Collections.singletonList(auditEvent));
+        } catch (final IOException e) {
+            counterService.increment(METRIC_LOST);
+            if (isAuditFailureByPass) {
+                // main flow should work though the audit event could not be recorded
+                logger.error("Audit queue is full and the audit event could not be spilled: " + e.getMessage(), e);
+                logger.debug(() -> "patient id" + auditEvent.getParticipantObjectId());
+            } else {
+                // main flow shouldn't work if the audit event could not be recorded
+                throw new AuditException("Audit queue is full and the audit event could not be spilled", e);
+            }
+        }
+    }
+
+    private void drain() {
+        final List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final AuditEvent first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                gaugeService.submit(METRIC_SIZE, queue.size());
+                submit(batch);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                spillOrLog(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void submit(List<AuditEvent> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            final AuditEvent auditEvent = batch.get(i);
+            try {
+                auditClient.get().audit(auditEvent.getAuditingObject(), auditEvent.getAuditMessage(),
+                        auditEvent.getAuditVerb(), auditEvent.getParticipantObjectId(),
+                        auditEvent.getPredicateMap());
+                counterService.increment(METRIC_SUBMITTED);
+            } catch (final AuditException | RuntimeException e) {
+                // the rest of the batch would most likely fail the same way
+                logger.error("Audit Service is Down, spilling " + (batch.size() - i) + " audit event(s): "
+                        + e.getMessage(), e);
+                spillOrLog(batch.subList(i, batch.size()));
+                return;
+            }
+        }
+    }
+
+    private void spillOrLog(List<AuditEvent> auditEvents) {
+        try {
+            spill(auditEvents);
+        } catch (final IOException e) {
+            counterService.increment(METRIC_LOST);
+            logger.error("Unable to spill " + auditEvents.size() + " audit event(s): " + e.getMessage(), e);
+        }
+    }
+
+    private void spill(List<AuditEvent> auditEvents) throws IOException {
+        if (spillFile == null) {
+            throw new IOException("Audit spill file is not configured");
+        }
+        final StringBuilder lines = new StringBuilder();
+        for (AuditEvent auditEvent : auditEvents) {
+            lines.append(objectMapper.writeValueAsString(toSpillRecord(auditEvent))).append('\n');
+        }
+        final byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        synchronized (spillLock) {
+            final Path parent = spillFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(spillFile, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    StandardOpenOption.WRITE);
+        }
+        for (int i = 0; i < auditEvents.size(); i++) {
+            counterService.increment(METRIC_SPILLED);
+        }
+    }
+
+    private Map<String, Object> toSpillRecord(AuditEvent auditEvent) {
+        final Map<String, String> predicates = new LinkedHashMap<>();
+        auditEvent.getPredicateMap().forEach((key, value) -> predicates.put(key.getPredicateKey(), value));
+        final Map<String, Object> record = new LinkedHashMap<>();
+        record.put("timestamp", auditEvent.getTimestamp());
+        record.put("auditingObject", auditEvent.getAuditingObject().getClass().getName());
+        record.put("auditMessage", auditEvent.getAuditMessage());
+        record.put("auditVerb", auditEvent.getAuditVerb().getAuditVerb());
+        record.put("participantObjectId", auditEvent.getParticipantObjectId());
+        record.put("predicates", predicates);
+        return record;
+    }
+}
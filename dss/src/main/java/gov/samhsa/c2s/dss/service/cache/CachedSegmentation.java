@@ -0,0 +1,77 @@
+package gov.samhsa.c2s.dss.service.cache;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.service.dto.DSSResponse;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cached segmentation result, with the rule execution details that are needed to audit the result again. The
+ * creation date of the cached documents is replaced with the current date on every hit.
+ */
+@Value
+public class CachedSegmentation {
+
+    private DSSResponse dssResponse;
+
+    /**
+     * The document type reported by the document validator.
+     */
+    private String documentType;
+
+    private String rulesFired;
+
+    private Set<String> redactedSectionSet;
+
+    private Set<String> redactedCategorySet;
+
+    /**
+     * The value set categories of the concepts of the document when it was segmented, keyed by concept.
+     */
+    private Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategories;
+
+    /**
+     * Gets the value set categories of the concepts of categorized clinical facts.
+     *
+     * @param clinicalFacts the categorized clinical facts
+     * @return the categories keyed by concept, empty for the concepts without categories
+     */
+    public static Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategoriesOf(
+            List<ClinicalFact> clinicalFacts) {
+        final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategories = new HashMap<>();
+        clinicalFacts.forEach(fact -> conceptCategories.put(
+                new ConceptCodeAndCodeSystemOidDto(fact.getCode(), fact.getCodeSystem()),
+                fact.getValueSetCategories() == null ? Collections.emptySet() : fact.getValueSetCategories()));
+        return conceptCategories;
+    }
+
+    /**
+     * Gets the value set categories of concepts from a value set service response, the first response with
+     * categories for a concept wins as it does when the clinical facts are categorized.
+     *
+     * @param concepts           the concepts
+     * @param valueSetCategories the value set service response for the concepts
+     * @return the categories keyed by concept, empty for the concepts without categories
+     */
+    public static Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategoriesOf(
+            Collection<ConceptCodeAndCodeSystemOidDto> concepts,
+            List<ValueSetCategoryMapResponseDto> valueSetCategories) {
+        final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategories = new HashMap<>();
+        valueSetCategories.stream()
+                .filter(dto -> dto.getValueSetCategoryCodes() != null)
+                .forEach(dto -> conceptCategories.putIfAbsent(
+                        new ConceptCodeAndCodeSystemOidDto(dto.getCodedConceptCode(), dto.getCodeSystemOid()),
+                        dto.getValueSetCategoryCodes()));
+        concepts.forEach(concept -> conceptCategories.putIfAbsent(concept, Collections.emptySet()));
+        conceptCategories.keySet().retainAll(concepts);
+        return conceptCategories;
+    }
+}
@@ -0,0 +1,39 @@
+package gov.samhsa.c2s.dss.service.cache;
+
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+
+import java.util.Optional;
+
+/**
+ * Caches the segmentation results of clinical documents, so that a document that is requested again for the same
+ * consent decision is not segmented again.
+ */
+public interface SegmentationResultCache {
+
+    /**
+     * Gets the cache key of a request. The key is a hash of the document, the pdp obligations and purpose of use of the
+     * xacml result, the active rule version and the value set categories version, so a new rule or value set version
+     * never hits a result segmented with the previous one.
+     *
+     * @param dssRequest the request
+     * @return the cache key
+     */
+    String keyOf(DSSRequest dssRequest);
+
+    /**
+     * Gets a cached segmentation result.
+     *
+     * @param key the cache key
+     * @return the cached result, or empty if the result is not cached, has expired or the concepts of its document no
+     * longer have the value set categories it was segmented with
+     */
+    Optional<CachedSegmentation> get(String key);
+
+    /**
+     * Caches a segmentation result, evicting the least recently used results if the cache exceeds its size.
+     *
+     * @param key                the cache key
+     * @param cachedSegmentation the segmentation result
+     */
+    void put(String key, CachedSegmentation cachedSegmentation);
+}
@@ -0,0 +1,363 @@
+package gov.samhsa.c2s.dss.service.cache;
+
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeBaseCache;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.infrastructure.valueset.CachingValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+import gov.samhsa.c2s.dss.service.dto.DSSResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the segmentation results GZIP compressed in an LRU map that is bounded by the compressed size of the results,
+ * <code>c2s.dss.result-cache.max-bytes</code>. Results expire after <code>c2s.dss.result-cache.ttl-millis</code>. The
+ * key includes the rules version and the value set categories version, and a result is only served while the concepts
+ * of its document still have the value set categories it was segmented with. The cache is only created if
+ * <code>c2s.dss.result-cache.enabled</code> is set.
+ */
+@Service
+@ConditionalOnProperty(prefix = "c2s.dss.result-cache", name = "enabled", havingValue = "true")
+public class SegmentationResultCacheImpl implements SegmentationResultCache, InfoContributor {
+
+    static final String METRIC_HIT = "dss.result-cache.hit";
+    static final String METRIC_MISS = "dss.result-cache.miss";
+    static final String METRIC_EVICTION = "dss.result-cache.eviction";
+    static final String METRIC_BYTES = "dss.result-cache.bytes";
+
+    private static final int NULL_LENGTH = -1;
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final KnowledgeBaseCache knowledgeBaseCache;
+
+    private final CachingValueSetService cachingValueSetService;
+
+    private final CounterService counterService;
+
+    private final GaugeService gaugeService;
+
+    private final long maxBytes;
+
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, CompressedSegmentation> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The compressed size of the cached results, guarded by the cache.
+     */
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public SegmentationResultCacheImpl(KnowledgeBaseCache knowledgeBaseCache,
+                                       CachingValueSetService cachingValueSetService,
+                                       DssProperties dssProperties,
+                                       CounterService counterService,
+                                       GaugeService gaugeService) {
+        final DssProperties.ResultCache resultCache = dssProperties.getResultCache();
+        this.knowledgeBaseCache = knowledgeBaseCache;
+        this.cachingValueSetService = cachingValueSetService;
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+        this.maxBytes = resultCache.getMaxBytes();
+        this.ttlMillis = resultCache.getTtlMillis();
+    }
+
+    @Override
+    public String keyOf(DSSRequest dssRequest) {
+        final XacmlResult xacmlResult = dssRequest.getXacmlResult();
+        // the obligations are a set, their order does not change the segmentation
+        final List<String> pdpObligations = new ArrayList<>(Optional.ofNullable(xacmlResult.getPdpObligations())
+                .orElse(Collections.emptyList()));
+        Collections.sort(pdpObligations);
+
+        final MessageDigest digest = sha256();
+        update(digest, dssRequest.getDocument());
+        update(digest, dssRequest.getDocumentEncoding().orElse(null));
+        update(digest, String.valueOf(dssRequest.getEnableTryPolicyResponse().orElse(Boolean.FALSE)));
+        update(digest, String.valueOf(xacmlResult.getSubjectPurposeOfUse()));
+        update(digest, String.join("\n", pdpObligations));
+        update(digest, knowledgeBaseCache.getKnowledgeBase().getVersion());
+        update(digest, Long.toString(cachingValueSetService.getCategoriesVersion()));
+        return toHex(digest.digest());
+    }
+
+    @Override
+    public Optional<CachedSegmentation> get(String key) {
+        final CompressedSegmentation compressed;
+        synchronized (cache) {
+            compressed = cache.get(key);
+            if (compressed != null && compressed.expiresAt <= System.currentTimeMillis()) {
+                remove(key);
+            }
+        }
+        if (compressed == null || compressed.expiresAt <= System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            counterService.increment(METRIC_MISS);
+            return Optional.empty();
+        }
+        final CachedSegmentation cachedSegmentation = decompress(compressed.bytes);
+        if (!hasCurrentConceptCategories(cachedSegmentation)) {
+            synchronized (cache) {
+                if (cache.get(key) == compressed) {
+                    remove(key);
+                }
+            }
+            misses.incrementAndGet();
+            counterService.increment(METRIC_MISS);
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        counterService.increment(METRIC_HIT);
+        return Optional.of(cachedSegmentation);
+    }
+
+    @Override
+    public void put(String key, CachedSegmentation cachedSegmentation) {
+        final byte[] compressed = compress(cachedSegmentation);
+        if (compressed.length > maxBytes) {
+            logger.debug(() -> "Segmentation result of " + compressed.length + " bytes is larger than the cache");
+            return;
+        }
+        final long currentBytes;
+        synchronized (cache) {
+            remove(key);
+            cache.put(key, new CompressedSegmentation(compressed, System.currentTimeMillis() + ttlMillis));
+            bytes += compressed.length;
+            final Iterator<Map.Entry<String, CompressedSegmentation>> eldest = cache.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().bytes.length;
+                eldest.remove();
+                counterService.increment(METRIC_EVICTION);
+            }
+            currentBytes = bytes;
+        }
+        gaugeService.submit(METRIC_BYTES, currentBytes);
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        final Map<String, Object> details = new HashMap<>();
+        synchronized (cache) {
+            details.put("size", cache.size());
+            details.put("bytes", bytes);
+        }
+        details.put("hits", hitCount);
+        details.put("misses", total - hitCount);
+        details.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        builder.withDetail("resultCache", details);
+    }
+
+    /**
+     * Looks up the concepts of a cached result again, mostly from the value set cache, and compares their categories
+     * with the categories the result was segmented with.
+     */
+    private boolean hasCurrentConceptCategories(CachedSegmentation cachedSegmentation) {
+        final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategories =
+                cachedSegmentation.getConceptCategories();
+        if (conceptCategories.isEmpty()) {
+            return true;
+        }
+        final List<ValueSetCategoryMapResponseDto> valueSetCategories;
+        try {
+            valueSetCategories = cachingValueSetService.lookupValueSetCategories(
+                    new ArrayList<>(conceptCategories.keySet()));
+        } catch (final RuntimeException e) {
+            logger.error("Unable to look up the value set categories of a cached segmentation result: "
+                    + e.getMessage(), e);
+            return false;
+        }
+        return conceptCategories.equals(CachedSegmentation.conceptCategoriesOf(conceptCategories.keySet(),
+                valueSetCategories));
+    }
+
+    private void remove(String key) {
+        final CompressedSegmentation removed = cache.remove(key);
+        if (removed != null) {
+            bytes -= removed.bytes.length;
+        }
+    }
+
+    static byte[] compress(CachedSegmentation cachedSegmentation) {
+        final DSSResponse dssResponse = cachedSegmentation.getDssResponse();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(compressed))) {
+            writeBytes(out, dssResponse.getSegmentedDocument());
+            writeBytes(out, dssResponse.getTryPolicyDocument());
+            writeString(out, dssResponse.getEncoding());
+            out.writeBoolean(dssResponse.isCCDADocument());
+            writeString(out, cachedSegmentation.getDocumentType());
+            writeString(out, cachedSegmentation.getRulesFired());
+            writeStrings(out, cachedSegmentation.getRedactedSectionSet());
+            writeStrings(out, cachedSegmentation.getRedactedCategorySet());
+            out.writeInt(cachedSegmentation.getConceptCategories().size());
+            for (Map.Entry<ConceptCodeAndCodeSystemOidDto, Set<String>> concept
+                    : cachedSegmentation.getConceptCategories().entrySet()) {
+                writeString(out, concept.getKey().getCodedConceptCode());
+                writeString(out, concept.getKey().getCodeSystemOid());
+                writeStrings(out, concept.getValue());
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    static CachedSegmentation decompress(byte[] compressed) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(compressed)))) {
+            final DSSResponse dssResponse = new DSSResponse();
+            dssResponse.setSegmentedDocument(readBytes(in));
+            dssResponse.setTryPolicyDocument(readBytes(in));
+            dssResponse.setEncoding(readString(in));
+            dssResponse.setCCDADocument(in.readBoolean());
+            final String documentType = readString(in);
+            final String rulesFired = readString(in);
+            final Set<String> redactedSectionSet = readStrings(in);
+            final Set<String> redactedCategorySet = readStrings(in);
+            final int conceptCount = in.readInt();
+            final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> conceptCategories = new HashMap<>(conceptCount);
+            for (int i = 0; i < conceptCount; i++) {
+                conceptCategories.put(new ConceptCodeAndCodeSystemOidDto(readString(in), readString(in)),
+                        readStrings(in));
+            }
+            return new CachedSegmentation(dssResponse, documentType, rulesFired, redactedSectionSet,
+                    redactedCategorySet, conceptCategories);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final byte[] value = readBytes(in);
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(DataOutputStream out, Set<String> values) throws IOException {
+        if (values == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size == NULL_LENGTH) {
+            return null;
+        }
+        final Set<String> values = new LinkedHashSet<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a length prefixed value to the digest, so that the boundaries of the values are part of the hash.
+     */
+    private static void update(MessageDigest digest, byte[] value) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value == null ? NULL_LENGTH : value.length).array());
+        if (value != null) {
+            digest.update(value);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        update(digest, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toHex(byte[] digest) {
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (final byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static final class CompressedSegmentation {
+        private final byte[] bytes;
+        private final long expiresAt;
+
+        private CompressedSegmentation(byte[] bytes, long expiresAt) {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
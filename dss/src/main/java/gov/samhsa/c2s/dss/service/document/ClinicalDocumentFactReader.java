@@ -0,0 +1,270 @@
+package gov.samhsa.c2s.dss.service.document;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.EntryReference;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Reads the clinical facts and entry references of a clinical document in a single pass over the document, with the
+ * same selection and values as <code>extractClinicalFacts.xsl</code>. The <code>generatedEntryId</code> and
+ * <code>generatedServiceEventId</code> elements the facts refer to are appended to the document in the same pass,
+ * instead of embedding a copy of the document into the fact model.
+ */
+final class ClinicalDocumentFactReader {
+
+    static final String HL7_NAMESPACE = "urn:hl7-org:v3";
+    static final String GENERATED_ENTRY_ID = "generatedEntryId";
+    static final String GENERATED_SERVICE_EVENT_ID = "generatedServiceEventId";
+
+    private static final String EMPTY = "";
+
+    private final List<ClinicalFact> serviceEventFacts = new ArrayList<>();
+
+    private final List<ClinicalFact> entryFacts = new ArrayList<>();
+
+    private final List<EntryReference> entryReferences = new ArrayList<>();
+
+    private int generatedIdCount;
+
+    private ClinicalDocumentFactReader() {
+    }
+
+    /**
+     * Reads the clinical facts and entry references, and adds the generated entry and service event ids to the
+     * document.
+     *
+     * @param document the clinical document
+     * @return the reader holding the clinical facts and entry references
+     */
+    static ClinicalDocumentFactReader read(Document document) {
+        final ClinicalDocumentFactReader reader = new ClinicalDocumentFactReader();
+        final Element clinicalDocument = document.getDocumentElement();
+        if (clinicalDocument != null) {
+            reader.visit(clinicalDocument, Context.ROOT);
+        }
+        return reader;
+    }
+
+    /**
+     * Gets the clinical facts, the facts of the documented service events come before the facts of the entries.
+     *
+     * @return the clinical facts in document order
+     */
+    List<ClinicalFact> getClinicalFacts() {
+        final List<ClinicalFact> clinicalFacts = new ArrayList<>(serviceEventFacts.size() + entryFacts.size());
+        clinicalFacts.addAll(serviceEventFacts);
+        clinicalFacts.addAll(entryFacts);
+        return clinicalFacts;
+    }
+
+    List<EntryReference> getEntryReferences() {
+        return entryReferences;
+    }
+
+    private void visit(Element element, Context context) {
+        final Scope scope = context.scope == Scope.NONE ? scopeOf(element) : context.scope;
+        if (isClinicalFact(element)) {
+            if (scope == Scope.SERVICE_EVENT) {
+                serviceEventFacts.add(serviceEventFact(element, context));
+            } else if (scope == Scope.ENTRY) {
+                entryFacts.add(entryFact(element, context));
+            }
+        }
+        if (context.scope == Scope.ENTRY && isHl7Element(element, "reference")) {
+            entryReferences.add(new EntryReference(nullToEmpty(context.entryId),
+                    element.getAttribute("value").replace("#", EMPTY)));
+        }
+
+        Context childContext = new Context(scope, context.section, context.entryId, context.serviceEventId);
+        String generatedIdElementName = null;
+        String generatedId = null;
+        if (isHl7Element(element, "section")) {
+            childContext = new Context(scope, element, context.entryId, context.serviceEventId);
+        } else if (isHl7Element(element, "entry")) {
+            generatedIdElementName = GENERATED_ENTRY_ID;
+            generatedId = nextGeneratedId();
+            childContext = new Context(scope, context.section, generatedId, context.serviceEventId);
+        } else if (isHl7Element(element, "serviceEvent") && isHl7Element(element.getParentNode(), "documentationOf")) {
+            generatedIdElementName = GENERATED_SERVICE_EVENT_ID;
+            generatedId = nextGeneratedId();
+            childContext = new Context(scope, context.section, context.entryId, generatedId);
+        }
+
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                visit((Element) child, childContext);
+            }
+        }
+
+        if (generatedId != null) {
+            final String prefix = element.getPrefix();
+            final Element generatedIdElement = element.getOwnerDocument().createElementNS(HL7_NAMESPACE,
+                    prefix == null ? generatedIdElementName : prefix + ":" + generatedIdElementName);
+            generatedIdElement.setTextContent(generatedId);
+            element.appendChild(generatedIdElement);
+        }
+    }
+
+    private ClinicalFact serviceEventFact(Element element, Context context) {
+        final ClinicalFact clinicalFact = new ClinicalFact();
+        clinicalFact.setCode(element.getAttribute("code"));
+        clinicalFact.setDisplayName(element.getAttribute("displayName"));
+        clinicalFact.setCodeSystem(element.getAttribute("codeSystem"));
+        clinicalFact.setCodeSystemName(element.getAttribute("codeSystemName"));
+        clinicalFact.setEntry(nullToEmpty(context.serviceEventId));
+        return clinicalFact;
+    }
+
+    private ClinicalFact entryFact(Element element, Context context) {
+        final ClinicalFact clinicalFact = new ClinicalFact();
+        clinicalFact.setCode(element.getAttribute("code"));
+        clinicalFact.setDisplayName(element.getAttribute("displayName"));
+        clinicalFact.setCodeSystem(element.getAttribute("codeSystem"));
+        clinicalFact.setCodeSystemName(element.getAttribute("codeSystemName"));
+        clinicalFact.setC32SectionTitle(sectionTitle(context.section));
+        clinicalFact.setC32SectionLoincCode(sectionCode(context.section));
+        clinicalFact.setObservationId(observationId(element));
+        clinicalFact.setEntry(nullToEmpty(context.entryId));
+        return clinicalFact;
+    }
+
+    private String nextGeneratedId() {
+        return "d" + (++generatedIdCount);
+    }
+
+    /**
+     * Gets the scope of the facts in and below the element, facts are only read from the documented service events
+     * and from the entries of the top level sections.
+     */
+    private static Scope scopeOf(Element element) {
+        if (isHl7Element(element, "serviceEvent")
+                && isHl7Element(element.getParentNode(), "documentationOf")
+                && isClinicalDocument(element.getParentNode().getParentNode())) {
+            return Scope.SERVICE_EVENT;
+        }
+        if (isHl7Element(element, "entry")) {
+            Node ancestor = element.getParentNode();
+            for (String name : new String[]{"section", "component", "structuredBody", "component"}) {
+                if (!isHl7Element(ancestor, name)) {
+                    return Scope.NONE;
+                }
+                ancestor = ancestor.getParentNode();
+            }
+            if (isClinicalDocument(ancestor)) {
+                return Scope.ENTRY;
+            }
+        }
+        return Scope.NONE;
+    }
+
+    private static boolean isClinicalDocument(Node node) {
+        return isHl7Element(node, "ClinicalDocument") && node.getParentNode() != null
+                && node.getParentNode().getNodeType() == Node.DOCUMENT_NODE;
+    }
+
+    private static boolean isClinicalFact(Element element) {
+        return element.hasAttribute("code") && element.hasAttribute("codeSystem");
+    }
+
+    private static boolean isHl7Element(Node node, String localName) {
+        return node != null && node.getNodeType() == Node.ELEMENT_NODE
+                && HL7_NAMESPACE.equals(node.getNamespaceURI()) && localName.equals(node.getLocalName());
+    }
+
+    private static String sectionTitle(Element section) {
+        final StringJoiner title = new StringJoiner(" ");
+        childElements(section, "title").forEach(element -> title.add(stringValue(element)));
+        return title.toString();
+    }
+
+    private static String sectionCode(Element section) {
+        final StringJoiner code = new StringJoiner(" ");
+        childElements(section, "code").stream()
+                .filter(element -> element.hasAttribute("code"))
+                .forEach(element -> code.add(element.getAttribute("code")));
+        return code.toString();
+    }
+
+    private static String observationId(Element element) {
+        final StringJoiner observationId = new StringJoiner(" ");
+        if (element.getParentNode() instanceof Element) {
+            childElements((Element) element.getParentNode(), "id").stream()
+                    .filter(id -> id.hasAttribute("root"))
+                    .forEach(id -> observationId.add(id.getAttribute("root")));
+        }
+        return observationId.toString();
+    }
+
+    private static List<Element> childElements(Element parent, String localName) {
+        final List<Element> children = new ArrayList<>();
+        if (parent != null) {
+            for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (isHl7Element(child, localName)) {
+                    children.add((Element) child);
+                }
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Gets the string value of the node, ignoring whitespace-only text nodes like the stylesheet's
+     * <code>xsl:strip-space</code>.
+     */
+    private static String stringValue(Node node) {
+        final StringBuilder value = new StringBuilder();
+        appendStringValue(node, value);
+        return value.toString();
+    }
+
+    private static void appendStringValue(Node node, StringBuilder value) {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.TEXT_NODE:
+                case Node.CDATA_SECTION_NODE:
+                    if (!child.getNodeValue().trim().isEmpty()) {
+                        value.append(child.getNodeValue());
+                    }
+                    break;
+                case Node.ELEMENT_NODE:
+                    appendStringValue(child, value);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? EMPTY : value;
+    }
+
+    private enum Scope {
+        NONE, SERVICE_EVENT, ENTRY
+    }
+
+    /**
+     * The nearest section, entry and service event ancestors of the visited element.
+     */
+    private static final class Context {
+        private static final Context ROOT = new Context(Scope.NONE, null, null, null);
+
+        private final Scope scope;
+        private final Element section;
+        private final String entryId;
+        private final String serviceEventId;
+
+        private Context(Scope scope, Element section, String entryId, String serviceEventId) {
+            this.scope = scope;
+            this.section = section;
+            this.entryId = entryId;
+            this.serviceEventId = serviceEventId;
+        }
+    }
+}
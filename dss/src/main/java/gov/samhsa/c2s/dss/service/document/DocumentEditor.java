@@ -28,6 +28,7 @@
 import gov.samhsa.c2s.brms.domain.XacmlResult;
 import org.apache.axiom.attachments.ByteArrayDataSource;
 import org.apache.xml.security.encryption.XMLEncryptionException;
+import org.w3c.dom.Document;
 
 import javax.xml.xpath.XPathExpressionException;
 import java.io.IOException;
@@ -48,6 +49,15 @@ public interface DocumentEditor {
     String setDocumentCreationDate(String document)
             throws Exception;
 
+    /**
+     * Sets the document creation date on the given document in place.
+     *
+     * @param document the document
+     * @throws Exception the exception
+     */
+    void setDocumentCreationDate(Document document)
+            throws Exception;
+
     /**
      * Sets the document payload raw data.
      *
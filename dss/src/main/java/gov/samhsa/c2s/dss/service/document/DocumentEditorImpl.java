@@ -104,17 +104,28 @@ public String setDocumentCreationDate(String document) throws Exception {
         Document xmlDocument;
         xmlDocument = documentXmlConverter.loadDocument(document);
 
+        setDocumentCreationDate(xmlDocument);
+
+        document = documentXmlConverter.convertXmlDocToString(xmlDocument);
+        return document;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see gov.samhsa.c2s.dss.service.document
+     * .DocumentEditor#setDocumentCreationDate(org.w3c.dom.Document)
+     */
+    @Override
+    public void setDocumentCreationDate(Document document) throws Exception {
         // current date
         final DateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmm");
         final Date date = new Date();
         final String xPathExprEffectiveDate = "//hl7:effectiveTime";
 
-        final Element dateElement = documentAccessor.getElement(xmlDocument,
+        final Element dateElement = documentAccessor.getElement(document,
                 xPathExprEffectiveDate).get();
         dateElement.setAttribute("value", dateFormat.format(date));
-
-        document = documentXmlConverter.convertXmlDocToString(xmlDocument);
-        return document;
     }
 
     /*
@@ -25,6 +25,10 @@
  ******************************************************************************/
 package gov.samhsa.c2s.dss.service.document;
 
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.service.document.dto.ExtractedFactModel;
+import org.w3c.dom.Document;
+
 public interface DocumentFactModelExtractor {
 
     /**
@@ -36,4 +40,25 @@ public interface DocumentFactModelExtractor {
      */
     String extractFactModel(String document,
                             String enforcementPolicies);
+
+    /**
+     * Extract clinical facts and xacml result without serializing the document
+     *
+     * @param document            the document
+     * @param enforcementPolicies the enforcement policies
+     * @return the fact model document
+     */
+    Document extractFactModel(Document document,
+                              String enforcementPolicies);
+
+    /**
+     * Extract clinical facts and entry references in a single pass over the document, the generated entry and
+     * service event ids are added to the document in place
+     *
+     * @param document    the document
+     * @param xacmlResult the xacml result
+     * @return the fact model and the fact model document
+     */
+    ExtractedFactModel extractFactModel(Document document,
+                                        XacmlResult xacmlResult);
 }
@@ -25,15 +25,26 @@
  ******************************************************************************/
 package gov.samhsa.c2s.dss.service.document;
 
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
+import gov.samhsa.c2s.brms.domain.EntryReference;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
 import gov.samhsa.c2s.common.util.StringURIResolver;
+import gov.samhsa.c2s.dss.service.document.dto.ExtractedFactModel;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
+import gov.samhsa.c2s.dss.service.xslt.Stylesheet;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 
 import javax.xml.transform.URIResolver;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -43,16 +54,17 @@
 public class DocumentFactModelExtractorImpl implements
         DocumentFactModelExtractor {
 
-    /**
-     * The Constant EXTRACT_CLINICAL_FACTS_XSL.
-     */
-    private static final String EXTRACT_CLINICAL_FACTS_XSL = "extractClinicalFacts.xsl";
-
     /**
      * The Constant PARAM_XACML_RESULT.
      */
     private static final String PARAM_XACML_RESULT = "xacmlResult";
 
+    private static final String ELEMENT_FACT_MODEL = "FactModel";
+    private static final String ELEMENT_ENTRY_REFERENCES = "EntryReferences";
+    private static final String ELEMENT_ENTRY_REFERENCE = "EntryReference";
+    private static final String ELEMENT_ENTRY = "entry";
+    private static final String ELEMENT_REFERENCE = "reference";
+
     /**
      * The logger.
      */
@@ -60,10 +72,10 @@ public class DocumentFactModelExtractorImpl implements
             .getLogger(this.getClass());
 
     /**
-     * The xml transformer.
+     * The xsl templates registry.
      */
     @Autowired
-    private XmlTransformer xmlTransformer;
+    private XslTemplatesRegistry xslTemplatesRegistry;
 
     public DocumentFactModelExtractorImpl() {
     }
@@ -71,13 +83,13 @@ public DocumentFactModelExtractorImpl() {
     /**
      * Instantiates a new document fact model extractor impl.
      *
-     * @param xmlTransformer
-     *            the xml transformer
+     * @param xslTemplatesRegistry
+     *            the xsl templates registry
      */
     @Autowired
-    public DocumentFactModelExtractorImpl(XmlTransformer xmlTransformer) {
+    public DocumentFactModelExtractorImpl(XslTemplatesRegistry xslTemplatesRegistry) {
         super();
-        this.xmlTransformer = xmlTransformer;
+        this.xslTemplatesRegistry = xslTemplatesRegistry;
     }
 
     /*
@@ -91,15 +103,8 @@ public DocumentFactModelExtractorImpl(XmlTransformer xmlTransformer) {
     public String extractFactModel(String document, String enforcementPolicies) {
 
         try {
-            final String xslUrl = Thread.currentThread().getContextClassLoader()
-                    .getResource(EXTRACT_CLINICAL_FACTS_XSL).toString();
-            final String xacmlResult = enforcementPolicies.replace("<xacmlReslt>",
-                    "<xacmlReslt xmlns:\"urn:hl7-org:v3\">");
-            final Optional<URIResolver> uriResolver = Optional
-                    .of(new StringURIResolver()
-                            .put(PARAM_XACML_RESULT, xacmlResult));
-            String factModel = xmlTransformer.transform(document, xslUrl,
-                    Optional.empty(), uriResolver);
+            String factModel = xslTemplatesRegistry.transform(Stylesheet.EXTRACT_CLINICAL_FACTS,
+                    document, Collections.emptyMap(), xacmlResultResolver(enforcementPolicies));
 
             factModel = factModel
                     .replace(
@@ -112,4 +117,72 @@ public String extractFactModel(String document, String enforcementPolicies) {
             throw new DocumentSegmentationException(e.getMessage(), e);
         }
     }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see gov.samhsa.c2s.dss.service.document
+     * .DocumentFactModelExtractor#extractFactModel(org.w3c.dom.Document,
+     * java.lang.String)
+     */
+    @Override
+    public Document extractFactModel(Document document, String enforcementPolicies) {
+        try {
+            final DOMResult factModel = new DOMResult();
+            xslTemplatesRegistry.transform(Stylesheet.EXTRACT_CLINICAL_FACTS, new DOMSource(document),
+                    factModel, Collections.emptyMap(), xacmlResultResolver(enforcementPolicies));
+            return (Document) factModel.getNode();
+        } catch (final Exception e) {
+            throw new DocumentSegmentationException(e.getMessage(), e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see gov.samhsa.c2s.dss.service.document
+     * .DocumentFactModelExtractor#extractFactModel(org.w3c.dom.Document,
+     * gov.samhsa.c2s.brms.domain.XacmlResult)
+     */
+    @Override
+    public ExtractedFactModel extractFactModel(Document document, XacmlResult xacmlResult) {
+        try {
+            final ClinicalDocumentFactReader reader = ClinicalDocumentFactReader.read(document);
+            final FactModel factModel = new FactModel();
+            factModel.setXacmlResult(xacmlResult);
+            factModel.getClinicalFactList().addAll(reader.getClinicalFacts());
+            factModel.getEntryReferences().addAll(reader.getEntryReferences());
+            return new ExtractedFactModel(factModel,
+                    createFactModelDocument(document, factModel.getEntryReferences()));
+        } catch (final Exception e) {
+            throw new DocumentSegmentationException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a fact model document with the entry references only, in the format of the stylesheet output.
+     */
+    private Document createFactModelDocument(Document document, List<EntryReference> entryReferences) {
+        final Document factModelDocument = document.getImplementation().createDocument(null, ELEMENT_FACT_MODEL, null);
+        final Element entryReferencesElement = factModelDocument.createElement(ELEMENT_ENTRY_REFERENCES);
+        for (EntryReference entryReference : entryReferences) {
+            final Element entryReferenceElement = factModelDocument.createElement(ELEMENT_ENTRY_REFERENCE);
+            final Element entry = factModelDocument.createElement(ELEMENT_ENTRY);
+            entry.setTextContent(entryReference.getEntry());
+            final Element reference = factModelDocument.createElement(ELEMENT_REFERENCE);
+            reference.setTextContent(entryReference.getReference());
+            entryReferenceElement.appendChild(entry);
+            entryReferenceElement.appendChild(reference);
+            entryReferencesElement.appendChild(entryReferenceElement);
+        }
+        factModelDocument.getDocumentElement().appendChild(entryReferencesElement);
+        return factModelDocument;
+    }
+
+    private Optional<URIResolver> xacmlResultResolver(String enforcementPolicies) {
+        final String xacmlResult = enforcementPolicies.replace("<xacmlReslt>",
+                "<xacmlReslt xmlns:\"urn:hl7-org:v3\">");
+        return Optional.of(new StringURIResolver()
+                .put(PARAM_XACML_RESULT, xacmlResult));
+    }
 }
@@ -29,6 +29,7 @@
 import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
 import gov.samhsa.c2s.dss.service.Redactor;
 import gov.samhsa.c2s.dss.service.document.dto.RedactedDocument;
+import org.w3c.dom.Document;
 
 /**
  * The Interface DocumentRedactor.
@@ -49,6 +50,25 @@ RedactedDocument redactDocument(String document,
                                     FactModel factModel,
                                     String documentType);
 
+    /**
+     * Redact document in place. The returned {@link RedactedDocument} carries the redaction results only; the
+     * redacted document is the given {@code document} itself.
+     *
+     * @param document                the document
+     * @param factModelDocument       the fact model document
+     * @param ruleExecutionContainer  the rule execution container
+     * @param factModel               the fact model
+     * @param documentType            the document type
+     * @param createTryPolicyDocument whether to serialize the try policy document before the redaction
+     * @return the redaction results
+     */
+    RedactedDocument redactDocument(Document document,
+                                    Document factModelDocument,
+                                    RuleExecutionContainer ruleExecutionContainer,
+                                    FactModel factModel,
+                                    String documentType,
+                                    boolean createTryPolicyDocument);
+
     /**
      * Clean up generated entry ids.
      *
@@ -57,6 +77,13 @@ RedactedDocument redactDocument(String document,
      */
     String cleanUpGeneratedEntryIds(String document);
 
+    /**
+     * Clean up generated entry ids in place.
+     *
+     * @param document the document
+     */
+    void cleanUpGeneratedEntryIds(Document document);
+
     /**
      * Clean up generated service event ids.
      *
@@ -65,6 +92,13 @@ RedactedDocument redactDocument(String document,
      */
     String cleanUpGeneratedServiceEventIds(String document);
 
+    /**
+     * Clean up generated service event ids in place.
+     *
+     * @param document the document
+     */
+    void cleanUpGeneratedServiceEventIds(Document document);
+
     /**
      * Clean up embedded clinical document from fact model.
      *
@@ -73,4 +107,12 @@ RedactedDocument redactDocument(String document,
      */
     String cleanUpEmbeddedClinicalDocumentFromFactModel(
             String factModelXml);
+
+    /**
+     * Clean up embedded clinical document from fact model in place.
+     *
+     * @param factModelDocument the fact model document
+     */
+    void cleanUpEmbeddedClinicalDocumentFromFactModel(
+            Document factModelDocument);
 }
@@ -19,6 +19,7 @@
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractObligationLevelRedactionHandler;
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractPostRedactionLevelRedactionHandler;
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.DocumentNodeIndex;
 import gov.samhsa.c2s.dss.service.document.redact.dto.PdpObligationsComplementSetDto;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
 import gov.samhsa.c2s.dss.service.exception.VssServiceUnreachableException;
@@ -35,6 +36,10 @@
 @Service
 public class DocumentRedactorImpl implements DocumentRedactor {
 
+    private static final String XPATH_EMBEDDED_CLINICAL_DOCUMENT = "//hl7:EmbeddedClinicalDocument";
+    private static final String XPATH_GENERATED_ENTRY_ID = "//hl7:generatedEntryId";
+    private static final String XPATH_GENERATED_SERVICE_EVENT_ID = "//hl7:generatedServiceEventId";
+
     /**
      * The logger.
      */
@@ -151,22 +156,35 @@ public void afterPropertiesSet() {
     @Override
     public String cleanUpEmbeddedClinicalDocumentFromFactModel(
             String factModelXml) {
-        final String xPathExprEmbeddedClinicalDocument = "//hl7:EmbeddedClinicalDocument";
-        return cleanUpElements(factModelXml, xPathExprEmbeddedClinicalDocument);
+        return cleanUpElements(factModelXml, XPATH_EMBEDDED_CLINICAL_DOCUMENT);
+    }
+
+    @Override
+    public void cleanUpEmbeddedClinicalDocumentFromFactModel(
+            Document factModelDocument) {
+        cleanUpElements(factModelDocument, XPATH_EMBEDDED_CLINICAL_DOCUMENT);
     }
 
     @Override
     public String cleanUpGeneratedEntryIds(String document) {
         // Remove all generatedEntryId elements to clean up the clinical document
-        final String xPathExprGeneratedEntryId = "//hl7:generatedEntryId";
-        return cleanUpElements(document, xPathExprGeneratedEntryId);
+        return cleanUpElements(document, XPATH_GENERATED_ENTRY_ID);
+    }
+
+    @Override
+    public void cleanUpGeneratedEntryIds(Document document) {
+        cleanUpElements(document, XPATH_GENERATED_ENTRY_ID);
     }
 
     @Override
     public String cleanUpGeneratedServiceEventIds(String document) {
         // Remove all generatedServiceEventId elements to clean up the clinical document
-        final String xPathExprGeneratedEntryId = "//hl7:generatedServiceEventId";
-        return cleanUpElements(document, xPathExprGeneratedEntryId);
+        return cleanUpElements(document, XPATH_GENERATED_SERVICE_EVENT_ID);
+    }
+
+    @Override
+    public void cleanUpGeneratedServiceEventIds(Document document) {
+        cleanUpElements(document, XPATH_GENERATED_SERVICE_EVENT_ID);
     }
 
     @Override
@@ -174,6 +192,37 @@ public RedactedDocument redactDocument(String document,
                                            RuleExecutionContainer ruleExecutionContainer,
                                            FactModel factModel,
                                            String documentType) {
+        final Document xmlDocument;
+        final Document factModelDocument;
+        try {
+            xmlDocument = documentXmlConverter.loadDocument(document);
+            factModelDocument = documentXmlConverter
+                    .loadDocument(marshaller.marshal(factModel));
+        } catch (final Exception e) {
+            logger.error(e.getMessage(), e);
+            throw new DocumentSegmentationException(e.toString(), e);
+        }
+
+        final RedactedDocument redactedDocument = redactDocument(xmlDocument, factModelDocument,
+                ruleExecutionContainer, factModel, documentType, true);
+
+        try {
+            // Convert redacted document to xml string
+            redactedDocument.setRedactedDocument(documentXmlConverter.convertXmlDocToString(xmlDocument));
+        } catch (final Exception e) {
+            logger.error(e.getMessage(), e);
+            throw new DocumentSegmentationException(e.toString(), e);
+        }
+        return redactedDocument;
+    }
+
+    @Override
+    public RedactedDocument redactDocument(Document xmlDocument,
+                                           Document factModelDocument,
+                                           RuleExecutionContainer ruleExecutionContainer,
+                                           FactModel factModel,
+                                           String documentType,
+                                           boolean createTryPolicyDocument) {
         String tryPolicyDocument = null;
         RedactionHandlerResult combinedResults;
         final XacmlResult xacmlResult = factModel.getXacmlResult();
@@ -203,36 +252,41 @@ public RedactedDocument redactDocument(String document,
         PdpObligationsComplementSetDto pdpObligationsComplementSetDto = new PdpObligationsComplementSetDto(pdpObligationsComplementSet);
 
         try {
-            final Document xmlDocument = documentXmlConverter.loadDocument(document);
-            final Document factModelDocument = documentXmlConverter
-                    .loadDocument(marshaller.marshal(factModel));
-
-            // DOCUMENT LEVEL REDACTION HANDLERS
-            final RedactionHandlerResult documentLevelResults = documentLevelRedactionHandlers
-                    .stream()
-                    .map(handler -> handler.execute(xmlDocument, documentType))
-                    .reduce(RedactionHandlerResult::concat)
-                    .orElseGet(RedactionHandlerResult::new);
-
-            // OBLIGATION LEVEL REDACTION HANDLERS
-            final RedactionHandlerResult obligationLevelResults = xacmlResult.getPdpObligations().stream()
-                    .flatMap(obligation -> obligationLevelRedactionHandlers
-                            .stream()
-                            .map(handler -> handler.execute(xmlDocument, xacmlResult, factModel,
-                                    factModelDocument, ruleExecutionContainer, obligation,
-                                    pdpObligationsComplementSetDto)))
-                    .reduce(RedactionHandlerResult::concat)
-                    .orElseGet(RedactionHandlerResult::new);
-
-            // CLINICAL FACT LEVEL REDACTION HANDLERS
-            final RedactionHandlerResult clinicalFactLevelResults = factModel.getClinicalFactList().stream()
-                    .flatMap(fact -> clinicalFactLevelRedactionHandlers
-                            .stream()
-                            .map(handler -> handler.execute(xmlDocument, xacmlResult, factModel,
-                                    factModelDocument, fact, ruleExecutionContainer,
-                                    pdpObligationsComplementSetDto)))
-                    .reduce(RedactionHandlerResult::concat)
-                    .orElseGet(RedactionHandlerResult::new);
+            final RedactionHandlerResult documentLevelResults;
+            final RedactionHandlerResult obligationLevelResults;
+            final RedactionHandlerResult clinicalFactLevelResults;
+            // Index the nodes that the handlers look up, and detach the index before any node is removed
+            DocumentNodeIndex.attachTo(xmlDocument);
+            try {
+                // DOCUMENT LEVEL REDACTION HANDLERS
+                documentLevelResults = documentLevelRedactionHandlers
+                        .stream()
+                        .map(handler -> handler.execute(xmlDocument, documentType))
+                        .reduce(RedactionHandlerResult::concat)
+                        .orElseGet(RedactionHandlerResult::new);
+
+                // OBLIGATION LEVEL REDACTION HANDLERS
+                obligationLevelResults = xacmlResult.getPdpObligations().stream()
+                        .flatMap(obligation -> obligationLevelRedactionHandlers
+                                .stream()
+                                .map(handler -> handler.execute(xmlDocument, xacmlResult, factModel,
+                                        factModelDocument, ruleExecutionContainer, obligation,
+                                        pdpObligationsComplementSetDto)))
+                        .reduce(RedactionHandlerResult::concat)
+                        .orElseGet(RedactionHandlerResult::new);
+
+                // CLINICAL FACT LEVEL REDACTION HANDLERS
+                clinicalFactLevelResults = factModel.getClinicalFactList().stream()
+                        .flatMap(fact -> clinicalFactLevelRedactionHandlers
+                                .stream()
+                                .map(handler -> handler.execute(xmlDocument, xacmlResult, factModel,
+                                        factModelDocument, fact, ruleExecutionContainer,
+                                        pdpObligationsComplementSetDto)))
+                        .reduce(RedactionHandlerResult::concat)
+                        .orElseGet(RedactionHandlerResult::new);
+            } finally {
+                DocumentNodeIndex.detachFrom(xmlDocument);
+            }
 
             combinedResults = RedactionHandlerResult.empty()
                     .concat(documentLevelResults)
@@ -240,8 +294,10 @@ public RedactedDocument redactDocument(String document,
                     .concat(clinicalFactLevelResults);
 
             // Create tryPolicyDocument before the actual redacting
-            tryPolicyDocument = documentXmlConverter
-                    .convertXmlDocToString(xmlDocument);
+            if (createTryPolicyDocument) {
+                tryPolicyDocument = documentXmlConverter
+                        .convertXmlDocToString(xmlDocument);
+            }
 
             // REDACTION
             // Redact all nodes in redactNodeList
@@ -253,14 +309,11 @@ public RedactedDocument redactDocument(String document,
                     handler.execute(xmlDocument, xacmlResult, factModel, factModelDocument,
                             ruleExecutionContainer, combinedResults,
                             pdpObligationsComplementSetDto, documentType));
-
-            // Convert redacted document to xml string
-            document = documentXmlConverter.convertXmlDocToString(xmlDocument);
         } catch (final Exception e) {
             logger.error(e.getMessage(), e);
             throw new DocumentSegmentationException(e.toString(), e);
         }
-        return new RedactedDocument(document, tryPolicyDocument,
+        return new RedactedDocument(null, tryPolicyDocument,
                 combinedResults.getRedactSectionSet(), combinedResults.getRedactCategorySet());
     }
 
@@ -25,6 +25,8 @@
  ******************************************************************************/
 package gov.samhsa.c2s.dss.service.document;
 
+import org.w3c.dom.Document;
+
 /**
  * The Interface DocumentTagger.
  */
@@ -39,4 +41,14 @@ public interface DocumentTagger {
      */
     String tagDocument(String document,
                        String executionResponseContainer);
+
+    /**
+     * Tag document without serializing it.
+     *
+     * @param document                   the document
+     * @param executionResponseContainer the execution response container
+     * @return the tagged document
+     */
+    Document tagDocument(Document document,
+                         String executionResponseContainer);
 }
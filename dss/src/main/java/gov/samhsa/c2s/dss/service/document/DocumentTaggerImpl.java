@@ -25,17 +25,23 @@
  ******************************************************************************/
 package gov.samhsa.c2s.dss.service.document;
 
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
+import gov.samhsa.c2s.common.marshaller.SimpleMarshallerException;
 import gov.samhsa.c2s.common.util.StringURIResolver;
 import gov.samhsa.c2s.dss.config.DocumentTaggerConfig;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
+import gov.samhsa.c2s.dss.service.xslt.Stylesheet;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
 
 import javax.xml.transform.URIResolver;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import java.util.Collections;
 import java.util.Optional;
 
 /**
@@ -49,11 +55,6 @@ public class DocumentTaggerImpl implements DocumentTagger {
      */
     private static final String URI_RESOLVER_HREF_RULE_EXECUTION_RESPONSE_CONTAINER = "ruleExecutionResponseContainer";
 
-    /**
-     * The Constant TAG_XSL.
-     */
-    private static final String TAG_XSL = "tag.xsl";
-
     /**
      * The logger.
      */
@@ -61,10 +62,10 @@ public class DocumentTaggerImpl implements DocumentTagger {
             .getLogger(this.getClass());
 
     /**
-     * The xml transformer.
+     * The xsl templates registry.
      */
     @Autowired
-    private XmlTransformer xmlTransformer;
+    private XslTemplatesRegistry xslTemplatesRegistry;
 
     @Autowired
     private SimpleMarshaller marshaller;
@@ -75,21 +76,8 @@ public class DocumentTaggerImpl implements DocumentTagger {
     @Override
     public String tagDocument(String document, String executionResponseContainer) {
         try {
-            executionResponseContainer = executionResponseContainer.replace(
-                    "<ruleExecutionContainer>",
-                    "<ruleExecutionContainer xmlns=\"urn:hl7-org:v3\">");
-            final String xslUrl = Thread.currentThread().getContextClassLoader()
-                    .getResource(TAG_XSL).toString();
-            final StringURIResolver stringURIResolver = new StringURIResolver();
-            stringURIResolver.put(
-                    URI_RESOLVER_HREF_RULE_EXECUTION_RESPONSE_CONTAINER,
-                    executionResponseContainer);
-            final String additionalCustomSections = marshaller.marshal(documentTaggerConfig.getAdditionalSectionsAsCustomSectionList());
-            stringURIResolver.put("customSectionList", additionalCustomSections);
-            final Optional<URIResolver> uriResolver = Optional
-                    .of(stringURIResolver);
-            final String taggedDocument = xmlTransformer.transform(document,
-                    xslUrl, Optional.empty(), uriResolver);
+            final String taggedDocument = xslTemplatesRegistry.transform(Stylesheet.TAG,
+                    document, Collections.emptyMap(), uriResolver(executionResponseContainer));
             logger.debug("Tagged Document:");
             logger.debug(taggedDocument);
             return taggedDocument;
@@ -97,4 +85,29 @@ public String tagDocument(String document, String executionResponseContainer) {
             throw new DocumentSegmentationException(e.getMessage(), e);
         }
     }
+
+    @Override
+    public Document tagDocument(Document document, String executionResponseContainer) {
+        try {
+            final DOMResult taggedDocument = new DOMResult();
+            xslTemplatesRegistry.transform(Stylesheet.TAG, new DOMSource(document), taggedDocument,
+                    Collections.emptyMap(), uriResolver(executionResponseContainer));
+            return (Document) taggedDocument.getNode();
+        } catch (final Exception e) {
+            throw new DocumentSegmentationException(e.getMessage(), e);
+        }
+    }
+
+    private Optional<URIResolver> uriResolver(String executionResponseContainer) throws SimpleMarshallerException {
+        executionResponseContainer = executionResponseContainer.replace(
+                "<ruleExecutionContainer>",
+                "<ruleExecutionContainer xmlns=\"urn:hl7-org:v3\">");
+        final StringURIResolver stringURIResolver = new StringURIResolver();
+        stringURIResolver.put(
+                URI_RESOLVER_HREF_RULE_EXECUTION_RESPONSE_CONTAINER,
+                executionResponseContainer);
+        final String additionalCustomSections = marshaller.marshal(documentTaggerConfig.getAdditionalSectionsAsCustomSectionList());
+        stringURIResolver.put("customSectionList", additionalCustomSections);
+        return Optional.of(stringURIResolver);
+    }
 }
@@ -27,6 +27,7 @@
 
 import gov.samhsa.c2s.dss.service.EmbeddedElementExtractor;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
+import org.w3c.dom.Document;
 
 /**
  * The Interface EmbeddedClinicalDocumentExtractor.
@@ -43,4 +44,14 @@ public interface EmbeddedClinicalDocumentExtractor extends EmbeddedElementExtrac
     String extractClinicalDocumentFromFactModel(String factModel)
             throws DocumentSegmentationException;
 
+    /**
+     * Moves the clinical document out of the fact model into a new document.
+     *
+     * @param factModel the fact model
+     * @return the clinical document
+     * @throws DocumentSegmentationException the document segmentation exception
+     */
+    Document extractClinicalDocumentFromFactModel(Document factModel)
+            throws DocumentSegmentationException;
+
 }
@@ -30,6 +30,7 @@
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
 
 /**
  * The Class EmbeddedClinicalDocumentExtractorImpl.
@@ -61,6 +62,12 @@ public String extractClinicalDocumentFromFactModel(String factModel)
         return extractEmbeddedElement(factModel, XPATH_CLINICALDOCUMENT);
     }
 
+    @Override
+    public Document extractClinicalDocumentFromFactModel(Document factModel)
+            throws DocumentSegmentationException {
+        return extractEmbeddedElement(factModel, XPATH_CLINICALDOCUMENT);
+    }
+
     @Override
     public DocumentXmlConverter getDocumentXmlConverter() {
         return this.documentXmlConverter;
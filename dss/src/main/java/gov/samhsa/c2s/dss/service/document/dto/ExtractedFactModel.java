@@ -0,0 +1,16 @@
+package gov.samhsa.c2s.dss.service.document.dto;
+
+import gov.samhsa.c2s.brms.domain.FactModel;
+import lombok.Value;
+import org.w3c.dom.Document;
+
+@Value
+public class ExtractedFactModel {
+
+    private FactModel factModel;
+
+    /**
+     * The fact model document with the entry references the redaction handlers look up.
+     */
+    private Document factModelDocument;
+}
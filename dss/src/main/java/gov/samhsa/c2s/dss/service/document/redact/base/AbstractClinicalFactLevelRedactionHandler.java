@@ -14,7 +14,10 @@
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.xml.xpath.XPathExpressionException;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public abstract class AbstractClinicalFactLevelRedactionHandler extends AbstractRedactionHandler {
@@ -70,10 +73,10 @@ protected final NodeList getEntryReferenceIdNodeList(
     protected final Stream<Node> getEntryReferenceIdNodeListAsStream(
             Document factModelDocument, ClinicalFact fact) {
         try {
-            Stream<Node> references = documentAccessor.getNodeListAsStream(factModelDocument,
+            Stream<Node> references = getNodeListAsStream(factModelDocument,
                     XPATH_REFERENCES_BY_ENTRY, fact.getEntry());
             return references;
-        } catch (DocumentAccessorException e) {
+        } catch (XPathExpressionException e) {
             throw new RedactionHandlerException(e);
         }
     }
@@ -89,4 +92,16 @@ protected RedactionHandlerResult addNodesToListForSensitiveCategory(Set<String>
 
         return redactionHandlerResult;
     }
+
+    protected RedactionHandlerResult addNodesToListForSensitiveCategory(Set<String> categoriesTriggeringRedaction,
+                                                                        Supplier<List<? extends Node>> nodes, String... values) {
+        RedactionHandlerResult redactionHandlerResult = new RedactionHandlerResult();
+
+        if (categoriesTriggeringRedaction.size() > 0) {
+            redactionHandlerResult = addNodesToList(nodes.get(), values);
+            redactionHandlerResult.getRedactCategorySet().addAll(categoriesTriggeringRedaction);
+        }
+
+        return redactionHandlerResult;
+    }
 }
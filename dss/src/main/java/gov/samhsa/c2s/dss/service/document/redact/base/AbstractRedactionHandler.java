@@ -9,6 +9,7 @@
 import gov.samhsa.c2s.dss.service.document.redact.RedactionHandlerException;
 
 import gov.samhsa.c2s.dss.service.document.redact.dto.PdpObligationsComplementSetDto;
+import gov.samhsa.c2s.dss.service.xpath.XPathExpressionRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -29,6 +30,13 @@ public abstract class AbstractRedactionHandler {
     @Autowired
     protected DocumentAccessor documentAccessor;
 
+    /**
+     * The compiled XPath expressions. Handlers that are created outside of the application context fall back to the
+     * document accessor.
+     */
+    @Autowired(required = false)
+    protected XPathExpressionRegistry xPathExpressionRegistry;
+
     private Logger logger = LoggerFactory.getLogger(this);
 
     /**
@@ -54,22 +62,50 @@ protected AbstractRedactionHandler() {
      */
     protected final RedactionHandlerResult addNodesToList(Document xmlDocument, String xPathExpr, String... values) {
         try {
-            Stream<Node> nodeStream = documentAccessor
-                    .getNodeListAsStream(xmlDocument, xPathExpr, values);
-            final List<Node> listOfNodes = nodeStream
-                    .map(this::markRedactForTryPolicyIfElement)
-                    .collect(toList());
-            RedactionHandlerResult redactionHandlerResult = new RedactionHandlerResult();
-            redactionHandlerResult.setRedactNodeList(listOfNodes);
-            if (!listOfNodes.isEmpty() && values != null && values.length > 0) {
-                redactionHandlerResult.getRedactSectionCodesAndGeneratedEntryIds().add(values[0]);
-            }
-            return redactionHandlerResult;
+            Stream<Node> nodeStream = getNodeListAsStream(xmlDocument, xPathExpr, values);
+            return addNodesToList(nodeStream.collect(toList()), values);
         } catch (XPathExpressionException e) {
             throw new RedactionHandlerException(e);
         }
     }
 
+    /**
+     * Adds the nodes that were already looked up, for example from the {@link DocumentNodeIndex}, to list.
+     *
+     * @param nodes  the nodes
+     * @param values the values that identify the nodes, the first one is recorded as the redacted section code or
+     *               generated entry id
+     * @return the RedactionHandlerResult
+     */
+    protected final RedactionHandlerResult addNodesToList(List<? extends Node> nodes, String... values) {
+        final List<Node> listOfNodes = nodes.stream()
+                .map(this::markRedactForTryPolicyIfElement)
+                .collect(toList());
+        RedactionHandlerResult redactionHandlerResult = new RedactionHandlerResult();
+        redactionHandlerResult.setRedactNodeList(listOfNodes);
+        if (!listOfNodes.isEmpty() && values != null && values.length > 0) {
+            redactionHandlerResult.getRedactSectionCodesAndGeneratedEntryIds().add(values[0]);
+        }
+        return redactionHandlerResult;
+    }
+
+    /**
+     * Gets the nodes matching the x path expr with its placeholders bound to the values.
+     *
+     * @param xmlDocument the xml document
+     * @param xPathExpr   the x path expr
+     * @param values      the values
+     * @return the matching nodes
+     * @throws XPathExpressionException the x path expression exception
+     */
+    protected final Stream<Node> getNodeListAsStream(Document xmlDocument, String xPathExpr, String... values)
+            throws XPathExpressionException {
+        if (xPathExpressionRegistry == null) {
+            return documentAccessor.getNodeListAsStream(xmlDocument, xPathExpr, values);
+        }
+        return xPathExpressionRegistry.getNodeListAsStream(xmlDocument, xPathExpr, values);
+    }
+
     protected Optional<Node> nullSafeRemove(Node node) {
         Optional<Node> response = Optional.empty();
         if (Objects.nonNull(node)) {
@@ -0,0 +1,230 @@
+package gov.samhsa.c2s.dss.service.document.redact.base;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Indexes the nodes of a clinical document that the redaction handlers look up once per clinical fact, so the
+ * handlers do not have to search the whole document for every fact.
+ * <p>
+ * The index is built in a single pass over the document and attached to the document for the duration of the
+ * redaction handler calls of one request. It reflects the document at the time it was built, so it must be detached
+ * before any node is removed.
+ */
+public final class DocumentNodeIndex {
+
+    public static final String HL7_NAMESPACE = "urn:hl7-org:v3";
+
+    private static final String USER_DATA_KEY = DocumentNodeIndex.class.getName();
+    private static final String ATTRIBUTE_ID = "ID";
+    private static final String ATTRIBUTE_CODE = "code";
+
+    private final Map<String, List<Element>> entriesByGeneratedEntryId = new HashMap<>();
+    private final Map<String, List<Element>> sectionsByGeneratedEntryId = new HashMap<>();
+    private final Map<String, List<Element>> elementsById = new HashMap<>();
+    private final Map<String, List<Element>> sectionComponentsByCode = new HashMap<>();
+    private final Map<String, List<Element>> serviceEventsByGeneratedServiceEventId = new HashMap<>();
+
+    private DocumentNodeIndex(Document document) {
+        final Element root = document.getDocumentElement();
+        Node current = root;
+        while (current != null) {
+            if (Node.ELEMENT_NODE == current.getNodeType()) {
+                index(root, (Element) current);
+            }
+            current = nextInDocumentOrder(current, root);
+        }
+    }
+
+    /**
+     * Builds the index of the document and attaches it to the document.
+     *
+     * @param document the document
+     * @return the index
+     */
+    public static DocumentNodeIndex attachTo(Document document) {
+        final DocumentNodeIndex index = new DocumentNodeIndex(document);
+        document.setUserData(USER_DATA_KEY, index, null);
+        return index;
+    }
+
+    /**
+     * Detaches the index from the document.
+     *
+     * @param document the document
+     */
+    public static void detachFrom(Document document) {
+        document.setUserData(USER_DATA_KEY, null, null);
+    }
+
+    /**
+     * Gets the index that is attached to the document.
+     *
+     * @param document the document
+     * @return the index, or empty if no index is attached to the document
+     */
+    public static Optional<DocumentNodeIndex> of(Document document) {
+        return Optional.ofNullable(document)
+                .map(doc -> doc.getUserData(USER_DATA_KEY))
+                .filter(DocumentNodeIndex.class::isInstance)
+                .map(DocumentNodeIndex.class::cast);
+    }
+
+    /**
+     * Checks whether the node is an element in the HL7 namespace with the local name.
+     *
+     * @param node      the node
+     * @param localName the local name
+     * @return true if the node is an HL7 element with the local name
+     */
+    public static boolean isHl7Element(Node node, String localName) {
+        return node != null
+                && Node.ELEMENT_NODE == node.getNodeType()
+                && HL7_NAMESPACE.equals(node.getNamespaceURI())
+                && localName.equals(node.getLocalName());
+    }
+
+    /**
+     * Checks whether the section is a <code>/ClinicalDocument/component/structuredBody/component/section</code>.
+     *
+     * @param section the section
+     * @return true if the section is a structured body section
+     */
+    public static boolean isStructuredBodySection(Node section) {
+        final Node component = section.getParentNode();
+        final Node structuredBody = component == null ? null : component.getParentNode();
+        final Node documentComponent = structuredBody == null ? null : structuredBody.getParentNode();
+        final Node clinicalDocument = documentComponent == null ? null : documentComponent.getParentNode();
+        return isHl7Element(section, "section")
+                && isHl7Element(component, "component")
+                && isHl7Element(structuredBody, "structuredBody")
+                && isHl7Element(documentComponent, "component")
+                && isHl7Element(clinicalDocument, "ClinicalDocument")
+                && clinicalDocument.getParentNode() != null
+                && Node.DOCUMENT_NODE == clinicalDocument.getParentNode().getNodeType();
+    }
+
+    /**
+     * Gets the entries with the generated entry id, as <code>//hl7:entry[hl7:generatedEntryId='id']</code>.
+     */
+    public List<Element> getEntries(String generatedEntryId) {
+        return get(entriesByGeneratedEntryId, generatedEntryId);
+    }
+
+    /**
+     * Gets the sections containing an entry with the generated entry id, as
+     * <code>//hl7:section[hl7:entry/hl7:generatedEntryId='id']</code>.
+     */
+    public List<Element> getSections(String generatedEntryId) {
+        return get(sectionsByGeneratedEntryId, generatedEntryId);
+    }
+
+    /**
+     * Checks whether the node is a structured body section that contains an entry with the generated entry id, as
+     * <code>/hl7:ClinicalDocument/hl7:component/hl7:structuredBody/hl7:component/hl7:section[hl7:entry/hl7:generatedEntryId='id']</code>.
+     */
+    public boolean isStructuredBodySectionOf(Node node, String generatedEntryId) {
+        return node != null && getSections(generatedEntryId).contains(node) && isStructuredBodySection(node);
+    }
+
+    /**
+     * Gets the elements with the <code>ID</code> attribute, as <code>//*[@ID='id']</code>.
+     */
+    public List<Element> getElementsById(String id) {
+        return get(elementsById, id);
+    }
+
+    /**
+     * Gets the structured body components of the sections with the code, as
+     * <code>//hl7:structuredBody/hl7:component[hl7:section/hl7:code/@code='code']</code>.
+     */
+    public List<Element> getSectionComponents(String sectionCode) {
+        return get(sectionComponentsByCode, sectionCode);
+    }
+
+    /**
+     * Gets the codes of all structured body sections.
+     */
+    public Set<String> getSectionCodes() {
+        return Collections.unmodifiableSet(sectionComponentsByCode.keySet());
+    }
+
+    /**
+     * Gets the service events with the generated service event id, as
+     * <code>/hl7:ClinicalDocument/hl7:documentationOf/hl7:serviceEvent[hl7:generatedServiceEventId='id']</code>.
+     */
+    public List<Element> getServiceEvents(String generatedServiceEventId) {
+        return get(serviceEventsByGeneratedServiceEventId, generatedServiceEventId);
+    }
+
+    private void index(Element root, Element element) {
+        if (element.hasAttribute(ATTRIBUTE_ID)) {
+            put(elementsById, element.getAttribute(ATTRIBUTE_ID), element);
+        }
+        if (!HL7_NAMESPACE.equals(element.getNamespaceURI())) {
+            return;
+        }
+        final Node parent = element.getParentNode();
+        final Node grandParent = parent == null ? null : parent.getParentNode();
+        switch (element.getLocalName()) {
+            case "generatedEntryId":
+                if (isHl7Element(parent, "entry")) {
+                    put(entriesByGeneratedEntryId, element.getTextContent(), (Element) parent);
+                    if (isHl7Element(grandParent, "section")) {
+                        put(sectionsByGeneratedEntryId, element.getTextContent(), (Element) grandParent);
+                    }
+                }
+                break;
+            case "generatedServiceEventId":
+                if (isHl7Element(parent, "serviceEvent") && isHl7Element(grandParent, "documentationOf")
+                        && root == grandParent.getParentNode() && isHl7Element(root, "ClinicalDocument")) {
+                    put(serviceEventsByGeneratedServiceEventId, element.getTextContent(), (Element) parent);
+                }
+                break;
+            case "code":
+                if (element.hasAttribute(ATTRIBUTE_CODE) && isHl7Element(parent, "section")
+                        && isHl7Element(grandParent, "component")
+                        && isHl7Element(grandParent.getParentNode(), "structuredBody")) {
+                    put(sectionComponentsByCode, element.getAttribute(ATTRIBUTE_CODE), (Element) grandParent);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void put(Map<String, List<Element>> index, String key, Element element) {
+        final List<Element> elements = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+        // a node-set contains every node only once
+        if (elements.isEmpty() || elements.get(elements.size() - 1) != element) {
+            elements.add(element);
+        }
+    }
+
+    private static List<Element> get(Map<String, List<Element>> index, String key) {
+        return key == null ? Collections.emptyList() : index.getOrDefault(key, Collections.emptyList());
+    }
+
+    private static Node nextInDocumentOrder(Node node, Node root) {
+        if (node.getFirstChild() != null) {
+            return node.getFirstChild();
+        }
+        Node current = node;
+        while (current != null && current != root) {
+            if (current.getNextSibling() != null) {
+                return current.getNextSibling();
+            }
+            current = current.getParentNode();
+        }
+        return null;
+    }
+}
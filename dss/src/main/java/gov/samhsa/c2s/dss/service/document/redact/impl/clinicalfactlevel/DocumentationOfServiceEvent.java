@@ -7,6 +7,7 @@
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
 import gov.samhsa.c2s.dss.service.document.dto.RedactionHandlerResult;
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractClinicalFactLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.DocumentNodeIndex;
 import gov.samhsa.c2s.dss.service.document.redact.dto.PdpObligationsComplementSetDto;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,6 +38,10 @@ public DocumentationOfServiceEvent(DocumentAccessor documentAccessor) {
     public RedactionHandlerResult execute(Document xmlDocument, XacmlResult xacmlResult, FactModel factModel, Document factModelDocument,
                                           ClinicalFact fact, RuleExecutionContainer ruleExecutionContainer, PdpObligationsComplementSetDto pdpObligationsComplementSetDto) {
         Set<String> categoriesTriggeringRedaction = findMatchingCategories(pdpObligationsComplementSetDto, fact);
-        return addNodesToListForSensitiveCategory(categoriesTriggeringRedaction, xmlDocument, XPATH_SERVICE_EVENT, fact.getEntry());
+        return DocumentNodeIndex.of(xmlDocument)
+                .map(index -> addNodesToListForSensitiveCategory(categoriesTriggeringRedaction,
+                        () -> index.getServiceEvents(fact.getEntry()), fact.getEntry()))
+                .orElseGet(() -> addNodesToListForSensitiveCategory(categoriesTriggeringRedaction, xmlDocument,
+                        XPATH_SERVICE_EVENT, fact.getEntry()));
     }
 }
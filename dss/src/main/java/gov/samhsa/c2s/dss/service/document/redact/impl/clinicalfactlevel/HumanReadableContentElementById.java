@@ -7,18 +7,23 @@
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
 import gov.samhsa.c2s.dss.service.document.dto.RedactionHandlerResult;
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractClinicalFactLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.DocumentNodeIndex;
 import gov.samhsa.c2s.dss.service.document.redact.dto.PdpObligationsComplementSetDto;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+
 @Service
 public class HumanReadableContentElementById extends AbstractClinicalFactLevelRedactionHandler {
 
@@ -58,12 +63,33 @@ private Optional<RedactionHandlerResult> collectingContentRedactionResults(Set<S
                 .filter(Objects::nonNull)
                 .map(Node::getNodeValue)
                 .filter(StringUtils::hasText)
-                .map(nodeValue -> addNodesToListForSensitiveCategory(categoriesTriggeringRedaction, xmlDocument,
-                        XPATH_HUMAN_READABLE_CONTENT_ELEMENT_BY_REFERENCE, fact.getEntry(), nodeValue)
-                        .concat(addNodesToListForSensitiveCategory(
-                                categoriesTriggeringRedaction, xmlDocument,
-                                XPATH_HUMAN_READABLE_CONTENT_ELEMENT_NEXT_TEXT_NODE,
-                                fact.getEntry(), nodeValue)))
+                .map(nodeValue -> DocumentNodeIndex.of(xmlDocument)
+                        .map(index -> addNodesToListForSensitiveCategory(categoriesTriggeringRedaction,
+                                () -> findContentElements(index, fact.getEntry(), nodeValue), fact.getEntry(), nodeValue)
+                                .concat(addNodesToListForSensitiveCategory(categoriesTriggeringRedaction,
+                                        () -> findNextTextNodes(index, fact.getEntry(), nodeValue), fact.getEntry(), nodeValue)))
+                        .orElseGet(() -> addNodesToListForSensitiveCategory(categoriesTriggeringRedaction, xmlDocument,
+                                XPATH_HUMAN_READABLE_CONTENT_ELEMENT_BY_REFERENCE, fact.getEntry(), nodeValue)
+                                .concat(addNodesToListForSensitiveCategory(
+                                        categoriesTriggeringRedaction, xmlDocument,
+                                        XPATH_HUMAN_READABLE_CONTENT_ELEMENT_NEXT_TEXT_NODE,
+                                        fact.getEntry(), nodeValue))))
                 .reduce(RedactionHandlerResult::concat);
     }
+
+    private List<Element> findContentElements(DocumentNodeIndex index, String generatedEntryId, String id) {
+        return index.getElementsById(id).stream()
+                .filter(element -> DocumentNodeIndex.isHl7Element(element, "content"))
+                .filter(element -> DocumentNodeIndex.isHl7Element(element.getParentNode(), "text"))
+                .filter(element -> index.isStructuredBodySectionOf(element.getParentNode().getParentNode(), generatedEntryId))
+                .collect(toList());
+    }
+
+    private List<Node> findNextTextNodes(DocumentNodeIndex index, String generatedEntryId, String id) {
+        return findContentElements(index, generatedEntryId, id).stream()
+                .map(Node::getNextSibling)
+                .filter(Objects::nonNull)
+                .filter(node -> Node.TEXT_NODE == node.getNodeType() || Node.CDATA_SECTION_NODE == node.getNodeType())
+                .collect(toList());
+    }
 }
@@ -7,6 +7,7 @@
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
 import gov.samhsa.c2s.dss.service.document.dto.RedactionHandlerResult;
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractClinicalFactLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.DocumentNodeIndex;
 import gov.samhsa.c2s.dss.service.document.redact.dto.PdpObligationsComplementSetDto;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,8 +16,12 @@
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
+import static java.util.stream.Collectors.toList;
+
 @Service
 public class HumanReadableTableRowById extends AbstractClinicalFactLevelRedactionHandler {
 
@@ -44,11 +49,40 @@ public RedactionHandlerResult execute(Document xmlDocument, XacmlResult xacmlRes
         return getEntryReferenceIdNodeListAsStream(factModelDocument, fact)
                 .map(Node::getNodeValue)
                 .filter(StringUtils::hasText)
-                .map(reference -> addNodesToListForSensitiveCategory(
-                        categoriesTriggeringRedaction, xmlDocument,
-                        XPATH_HUMAN_READABLE_TABLE_ROW_BY_REFERENCE,
-                        fact.getEntry(), reference))
+                .map(reference -> DocumentNodeIndex.of(xmlDocument)
+                        .map(index -> addNodesToListForSensitiveCategory(
+                                categoriesTriggeringRedaction,
+                                () -> findTableRows(index, fact.getEntry(), reference),
+                                fact.getEntry(), reference))
+                        .orElseGet(() -> addNodesToListForSensitiveCategory(
+                                categoriesTriggeringRedaction, xmlDocument,
+                                XPATH_HUMAN_READABLE_TABLE_ROW_BY_REFERENCE,
+                                fact.getEntry(), reference)))
                 .reduce(RedactionHandlerResult::concat)
                 .orElseGet(RedactionHandlerResult::new);
     }
+
+    private List<Node> findTableRows(DocumentNodeIndex index, String generatedEntryId, String id) {
+        return index.getElementsById(id).stream()
+                .map(element -> findTableRow(index, generatedEntryId, element))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(toList());
+    }
+
+    private Node findTableRow(DocumentNodeIndex index, String generatedEntryId, Node node) {
+        for (Node row = node; row != null; row = row.getParentNode()) {
+            final Node tbody = row.getParentNode();
+            final Node table = tbody == null ? null : tbody.getParentNode();
+            final Node text = table == null ? null : table.getParentNode();
+            if (DocumentNodeIndex.isHl7Element(row, "tr")
+                    && DocumentNodeIndex.isHl7Element(tbody, "tbody")
+                    && DocumentNodeIndex.isHl7Element(table, "table")
+                    && DocumentNodeIndex.isHl7Element(text, "text")
+                    && index.isStructuredBodySectionOf(text.getParentNode(), generatedEntryId)) {
+                return row;
+            }
+        }
+        return null;
+    }
 }
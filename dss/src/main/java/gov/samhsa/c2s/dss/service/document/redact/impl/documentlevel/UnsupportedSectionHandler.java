@@ -6,12 +6,14 @@
 import gov.samhsa.c2s.dss.service.document.dto.RedactionHandlerResult;
 import gov.samhsa.c2s.dss.service.document.redact.RedactionHandlerException;
 import gov.samhsa.c2s.dss.service.document.redact.base.AbstractDocumentLevelRedactionHandler;
+import gov.samhsa.c2s.dss.service.document.redact.base.DocumentNodeIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -38,22 +40,25 @@ public UnsupportedSectionHandler(DocumentAccessor documentAccessor, DssPropertie
 
     @Override
     public RedactionHandlerResult execute(Document xmlDocument, String documentType) {
+        final Optional<DocumentNodeIndex> documentNodeIndex = DocumentNodeIndex.of(xmlDocument);
         try {
             // Get complete section list
-            final Stream<Node> sectionList = documentAccessor.getNodeListAsStream(xmlDocument,
-                    XPATH_ALL_SECTION_CODES);
+            final Stream<String> sectionCodes = documentNodeIndex.isPresent() ?
+                    documentNodeIndex.get().getSectionCodes().stream() :
+                    documentAccessor.getNodeListAsStream(xmlDocument, XPATH_ALL_SECTION_CODES).map(Node::getNodeValue);
 
             // Check if every section code is in the white list. If not add it to
             // redaction list.
-            final Set<String> sectionRedactionList = sectionList
-                    .map(Node::getNodeValue)
+            final Set<String> sectionRedactionList = sectionCodes
                     .filter(StringUtils::hasText)
                     .filter(nodeValue -> !dssProperties.getRedact().getDocumentTypes().get(documentType).getSectionWhiteList().contains(nodeValue))
                     .collect(toSet());
 
             // Add redaction list to the global list.
             return sectionRedactionList.stream()
-                    .map(sectionCode -> addNodesToList(xmlDocument, XPATH_SECTION, sectionCode))
+                    .map(sectionCode -> documentNodeIndex
+                            .map(index -> addNodesToList(index.getSectionComponents(sectionCode), sectionCode))
+                            .orElseGet(() -> addNodesToList(xmlDocument, XPATH_SECTION, sectionCode)))
                     .reduce(RedactionHandlerResult::concat)
                     .orElseGet(RedactionHandlerResult::new);
         } catch (DocumentAccessorException e) {
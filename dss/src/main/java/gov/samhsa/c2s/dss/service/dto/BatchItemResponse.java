@@ -0,0 +1,31 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+
+/**
+ * The outcome of one request of a batch, either the segmentation response or the HTTP status and message of the
+ * error the request failed with.
+ *
+ * @param <T> the type of the segmentation response
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemResponse<T> {
+
+    private int index;
+    private int status;
+    private T response;
+    private String error;
+
+    public static <T> BatchItemResponse<T> succeeded(int index, T response) {
+        return new BatchItemResponse<>(index, HttpStatus.OK.value(), response, null);
+    }
+
+    public static <T> BatchItemResponse<T> failed(int index, int status, String error) {
+        return new BatchItemResponse<>(index, status, null, error);
+    }
+}
@@ -0,0 +1,61 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.service.exception.BatchTooLargeException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the requests of a batch one by one, and stops reading as soon as the batch has more requests than
+ * <code>c2s.dss.batch.max-size</code> allows.
+ */
+@Component
+public class BatchRequestsDeserializer extends JsonDeserializer<List<?>> implements ContextualDeserializer {
+    @Autowired
+    private DssProperties dssProperties;
+
+    private JavaType requestType;
+
+    public BatchRequestsDeserializer() {
+    }
+
+    private BatchRequestsDeserializer(DssProperties dssProperties, JavaType requestType) {
+        this.dssProperties = dssProperties;
+        this.requestType = requestType;
+    }
+
+    @Override
+    public JsonDeserializer<?> createContextual(DeserializationContext deserializationContext, BeanProperty property) {
+        return new BatchRequestsDeserializer(dssProperties, property.getType().getContentType());
+    }
+
+    @Override
+    public List<?> deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
+        if (!jsonParser.isExpectedStartArrayToken()) {
+            return (List<?>) deserializationContext.handleUnexpectedToken(List.class, jsonParser);
+        }
+        final int maxSize = dssProperties.getBatch().getMaxSize();
+        final JsonDeserializer<Object> requestDeserializer = deserializationContext.findRootValueDeserializer(requestType);
+        final List<Object> requests = new ArrayList<>();
+        JsonToken token;
+        while ((token = jsonParser.nextToken()) != JsonToken.END_ARRAY) {
+            if (requests.size() == maxSize) {
+                throw new BatchTooLargeException("The batch has more than " + maxSize + " requests");
+            }
+            requests.add(token == JsonToken.VALUE_NULL ? null
+                    : requestDeserializer.deserialize(jsonParser, deserializationContext));
+        }
+        return requests;
+    }
+}
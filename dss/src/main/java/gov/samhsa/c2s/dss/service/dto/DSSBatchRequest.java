@@ -0,0 +1,14 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class DSSBatchRequest {
+
+    @JsonDeserialize(using = BatchRequestsDeserializer.class)
+    private List<DSSRequest> requests = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The responses of a batch segmentation request, in the order of the requests.
+ *
+ * @param <T> the type of the segmentation response
+ */
+@Data
+@AllArgsConstructor(staticName = "of")
+@NoArgsConstructor
+public class DSSBatchResponse<T> {
+
+    private List<BatchItemResponse<T>> items = new ArrayList<>();
+}
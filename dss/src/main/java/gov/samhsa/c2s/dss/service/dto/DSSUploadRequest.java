@@ -0,0 +1,30 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * The request part of a multipart document segmentation request, the clinical document is uploaded as a separate
+ * part.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DSSUploadRequest extends AbstractDSSRequest {
+
+    /**
+     * Creates the document segmentation request for the uploaded document.
+     *
+     * @param document the uploaded clinical document
+     * @return the document segmentation request
+     */
+    public DSSRequest toDSSRequest(byte[] document) {
+        final DSSRequest dssRequest = new DSSRequest();
+        dssRequest.setXacmlResult(getXacmlResult());
+        getAudited().ifPresent(dssRequest::setAudited);
+        getAuditFailureByPass().ifPresent(dssRequest::setAuditFailureByPass);
+        getEnableTryPolicyResponse().ifPresent(dssRequest::setEnableTryPolicyResponse);
+        getDocumentEncoding().ifPresent(dssRequest::setDocumentEncoding);
+        dssRequest.setDocument(document);
+        return dssRequest;
+    }
+}
@@ -4,7 +4,6 @@
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import org.hl7.fhir.dstu3.model.Bundle;
-import org.hl7.fhir.instance.model.api.IBaseResource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -17,8 +16,9 @@ public class FhirStu3BundleDeserializer extends JsonDeserializer<Bundle> {
 
     @Override
     public Bundle deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
-        final String jsonAsString = jsonParser.readValueAsTree().toString();
-        final IBaseResource iBaseResource = fhirJsonParser.parseResource(jsonAsString);
-        return (Bundle) iBaseResource;
+        // HAPI reads the bundle as it is read from the request
+        try (JsonValueReader bundleReader = new JsonValueReader(jsonParser)) {
+            return fhirJsonParser.parseResource(Bundle.class, bundleReader);
+        }
     }
 }
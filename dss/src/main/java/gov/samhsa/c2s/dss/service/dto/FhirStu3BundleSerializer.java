@@ -8,6 +8,10 @@
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 @Component
 public class FhirStu3BundleSerializer extends JsonSerializer<Bundle> {
@@ -16,7 +20,20 @@ public class FhirStu3BundleSerializer extends JsonSerializer<Bundle> {
 
     @Override
     public void serialize(Bundle bundle, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
-        final String json = fhirJsonParser.encodeResourceToString(bundle);
-        jsonGenerator.writeRawValue(json);
+        final Object outputTarget = jsonGenerator.getOutputTarget();
+        if (!(outputTarget instanceof OutputStream) && !(outputTarget instanceof Writer)) {
+            // e.g. a token buffer, that only takes the bundle as a value
+            jsonGenerator.writeRawValue(fhirJsonParser.encodeResourceToString(bundle));
+            return;
+        }
+
+        // Write the separator of the value, then let HAPI encode the bundle straight to the response after what the
+        // generator has buffered. A generator that writes to an output stream always writes UTF-8.
+        jsonGenerator.writeRawValue("");
+        jsonGenerator.flush();
+        final Writer writer = outputTarget instanceof Writer ? (Writer) outputTarget
+                : new OutputStreamWriter((OutputStream) outputTarget, StandardCharsets.UTF_8);
+        fhirJsonParser.encodeResourceToWriter(bundle, writer);
+        writer.flush();
     }
 }
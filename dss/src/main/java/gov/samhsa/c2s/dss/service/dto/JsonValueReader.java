@@ -0,0 +1,96 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+/**
+ * Reads the JSON value at the current token of a Jackson parser as JSON text, so that a parser that only accepts a
+ * {@link Reader} can consume the value while it is read from the request, without the value being read into a tree
+ * or a string first. Only about {@link #BATCH_SIZE} characters of the value are buffered at a time.
+ * <p>
+ * When the reader is closed the Jackson parser is left at the last token of the value, as deserializers are expected
+ * to leave it.
+ */
+final class JsonValueReader extends Reader {
+
+    private static final int BATCH_SIZE = 8192;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser jsonParser;
+
+    private final StringWriter buffer = new StringWriter(BATCH_SIZE + BATCH_SIZE / 4);
+
+    private final JsonGenerator jsonGenerator;
+
+    private int position;
+
+    private int depth;
+
+    private boolean started;
+
+    private boolean done;
+
+    JsonValueReader(JsonParser jsonParser) throws IOException {
+        this.jsonParser = jsonParser;
+        this.jsonGenerator = JSON_FACTORY.createGenerator(buffer);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        final StringBuffer chars = buffer.getBuffer();
+        while (position == chars.length()) {
+            if (done) {
+                return -1;
+            }
+            chars.setLength(0);
+            position = 0;
+            copyBatch();
+        }
+        final int count = Math.min(len, chars.length() - position);
+        chars.getChars(position, position + count, cbuf, off);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Copies the tokens of the value that have not been read, and leaves the Jackson parser at the last token of the
+     * value.
+     */
+    @Override
+    public void close() throws IOException {
+        while (!done) {
+            buffer.getBuffer().setLength(0);
+            copyBatch();
+        }
+        jsonGenerator.close();
+    }
+
+    private void copyBatch() throws IOException {
+        while (!done && buffer.getBuffer().length() < BATCH_SIZE) {
+            final JsonToken token = started ? jsonParser.nextToken() : jsonParser.getCurrentToken();
+            started = true;
+            if (token == null) {
+                throw JsonMappingException.from(jsonParser, "Unexpected end of input in FHIR resource");
+            }
+            jsonGenerator.copyCurrentEvent(jsonParser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+            done = depth == 0;
+            jsonGenerator.flush();
+        }
+    }
+}
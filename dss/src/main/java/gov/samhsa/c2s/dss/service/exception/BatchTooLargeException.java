@@ -0,0 +1,17 @@
+package gov.samhsa.c2s.dss.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class BatchTooLargeException extends RuntimeException {
+
+    /**
+     * Instantiates a new BatchTooLarge exception.
+     *
+     * @param arg0 the arg0
+     */
+    public BatchTooLargeException(String arg0) {
+        super(arg0);
+    }
+}
@@ -0,0 +1,17 @@
+package gov.samhsa.c2s.dss.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidSegmentationRequestException extends RuntimeException {
+
+    /**
+     * Instantiates a new InvalidSegmentationRequest exception.
+     *
+     * @param arg0 the arg0
+     */
+    public InvalidSegmentationRequestException(String arg0) {
+        super(arg0);
+    }
+}
@@ -0,0 +1,43 @@
+package gov.samhsa.c2s.dss.service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+public class XslTransformationException extends RuntimeException {
+
+    /**
+     * Instantiates a new XslTransformation exception.
+     */
+    public XslTransformationException() {
+        super();
+    }
+
+    /**
+     * Instantiates a new XslTransformation exception.
+     *
+     * @param arg0 the arg0
+     * @param arg1 the arg1
+     */
+    public XslTransformationException(String arg0, Throwable arg1) {
+        super(arg0, arg1);
+    }
+
+    /**
+     * Instantiates a new XslTransformation exception.
+     *
+     * @param arg0 the arg0
+     */
+    public XslTransformationException(String arg0) {
+        super(arg0);
+    }
+
+    /**
+     * Instantiates a new XslTransformation exception.
+     *
+     * @param arg0 the arg0
+     */
+    public XslTransformationException(Throwable arg0) {
+        super(arg0);
+    }
+}
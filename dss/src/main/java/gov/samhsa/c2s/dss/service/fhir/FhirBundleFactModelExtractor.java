@@ -0,0 +1,31 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import org.hl7.fhir.dstu3.model.Bundle;
+
+/**
+ * Extracts the fact model of a FHIR bundle from the HAPI object model.
+ */
+public interface FhirBundleFactModelExtractor {
+
+    /**
+     * Gets the id the clinical facts and entry references of a bundle entry refer to the entry with.
+     *
+     * @param entryIndex the index of the entry in the bundle
+     * @return the entry id
+     */
+    static String entryId(int entryIndex) {
+        return "entry" + entryIndex;
+    }
+
+    /**
+     * Extracts a clinical fact from every coding with a code and a system, and an entry reference from every
+     * reference, of the bundle entries. The bundle is not changed.
+     *
+     * @param fhirBundle  the bundle
+     * @param xacmlResult the xacml result
+     * @return the fact model
+     */
+    FactModel extractFactModel(Bundle fhirBundle, XacmlResult xacmlResult);
+}
@@ -0,0 +1,149 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.EntryReference;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.config.ApplicationContextConfig;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import org.hl7.fhir.dstu3.model.Base;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.PrimitiveType;
+import org.hl7.fhir.dstu3.model.Property;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks the elements of every bundle entry, including contained resources and extensions, in a single pass. The
+ * codings are the <code>coding</code> elements of codeable concepts, the codings of other elements, such as the
+ * security labels in <code>meta</code>, are not clinical facts.
+ * <p>
+ * Bundles with at least <code>c2s.dss.fhir-fact-extraction.parallel-threshold</code> entries are split into ranges of
+ * entries that are extracted on the FHIR fact extraction pool. The facts of the ranges are merged in entry order, so
+ * the fact model is the same as if it was extracted on one thread.
+ */
+@Service
+public class FhirBundleFactModelExtractorImpl implements FhirBundleFactModelExtractor {
+
+    private static final String ELEMENT_CODING = "coding";
+    private static final String ELEMENT_REFERENCE = "reference";
+    private static final String OID_PREFIX = "urn:oid:";
+    private static final String LOCAL_REFERENCE_PREFIX = "#";
+
+    /**
+     * The number of entries that are extracted by one task.
+     */
+    private static final int ENTRIES_PER_TASK = 64;
+
+    private final ForkJoinPool fhirFactExtractionPool;
+
+    private final int parallelThreshold;
+
+    @Autowired
+    public FhirBundleFactModelExtractorImpl(
+            @Qualifier(ApplicationContextConfig.FHIR_FACT_EXTRACTION_POOL) ForkJoinPool fhirFactExtractionPool,
+            DssProperties dssProperties) {
+        this.fhirFactExtractionPool = fhirFactExtractionPool;
+        this.parallelThreshold = dssProperties.getFhirFactExtraction().getParallelThreshold();
+    }
+
+    @Override
+    public FactModel extractFactModel(Bundle fhirBundle, XacmlResult xacmlResult) {
+        final List<Bundle.BundleEntryComponent> entries = fhirBundle.getEntry();
+        final ExtractedFacts extractedFacts = entries.size() < parallelThreshold
+                ? extract(entries, 0, entries.size())
+                : fhirFactExtractionPool.invoke(new ExtractionTask(entries, 0, entries.size()));
+
+        final FactModel factModel = new FactModel();
+        factModel.setXacmlResult(xacmlResult);
+        factModel.getClinicalFactList().addAll(extractedFacts.clinicalFacts);
+        factModel.getEntryReferences().addAll(extractedFacts.entryReferences);
+        return factModel;
+    }
+
+    private static ExtractedFacts extract(List<Bundle.BundleEntryComponent> entries, int from, int to) {
+        final ExtractedFacts extractedFacts = new ExtractedFacts();
+        for (int i = from; i < to; i++) {
+            extract(entries.get(i), FhirBundleFactModelExtractor.entryId(i), extractedFacts);
+        }
+        return extractedFacts;
+    }
+
+    private static void extract(Base element, String entryId, ExtractedFacts extractedFacts) {
+        for (Property property : element.children()) {
+            for (Base value : property.getValues()) {
+                if (ELEMENT_CODING.equals(property.getName()) && value instanceof Coding) {
+                    addClinicalFact((Coding) value, entryId, extractedFacts);
+                } else if (ELEMENT_REFERENCE.equals(property.getName()) && value instanceof PrimitiveType) {
+                    final String reference = Optional.ofNullable(((PrimitiveType<?>) value).getValueAsString())
+                            .orElse("");
+                    extractedFacts.entryReferences
+                            .add(new EntryReference(entryId, reference.replace(LOCAL_REFERENCE_PREFIX, "")));
+                }
+                extract(value, entryId, extractedFacts);
+            }
+        }
+    }
+
+    private static void addClinicalFact(Coding coding, String entryId, ExtractedFacts extractedFacts) {
+        if (!coding.hasCode() || !coding.hasSystem()) {
+            return;
+        }
+        final ClinicalFact clinicalFact = new ClinicalFact();
+        clinicalFact.setCode(coding.getCode());
+        clinicalFact.setDisplayName(Optional.ofNullable(coding.getDisplay()).orElse(""));
+        clinicalFact.setCodeSystem(coding.getSystem().replace(OID_PREFIX, ""));
+        clinicalFact.setEntry(entryId);
+        extractedFacts.clinicalFacts.add(clinicalFact);
+    }
+
+    /**
+     * The facts of a range of entries, in entry order.
+     */
+    private static final class ExtractedFacts {
+        private final List<ClinicalFact> clinicalFacts = new ArrayList<>();
+        private final List<EntryReference> entryReferences = new ArrayList<>();
+
+        private ExtractedFacts append(ExtractedFacts following) {
+            clinicalFacts.addAll(following.clinicalFacts);
+            entryReferences.addAll(following.entryReferences);
+            return this;
+        }
+    }
+
+    /**
+     * Extracts a range of entries, splitting it in halves until a range has at most {@link #ENTRIES_PER_TASK}
+     * entries.
+     */
+    private static final class ExtractionTask extends RecursiveTask<ExtractedFacts> {
+        private final List<Bundle.BundleEntryComponent> entries;
+        private final int from;
+        private final int to;
+
+        private ExtractionTask(List<Bundle.BundleEntryComponent> entries, int from, int to) {
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ExtractedFacts compute() {
+            if (to - from <= ENTRIES_PER_TASK) {
+                return extract(entries, from, to);
+            }
+            final int middle = (from + to) >>> 1;
+            final ExtractionTask first = new ExtractionTask(entries, from, middle);
+            first.fork();
+            final ExtractedFacts second = new ExtractionTask(entries, middle, to).compute();
+            return first.join().append(second);
+        }
+    }
+}
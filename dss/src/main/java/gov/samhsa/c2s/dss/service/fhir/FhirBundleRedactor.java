@@ -1,10 +1,20 @@
 package gov.samhsa.c2s.dss.service.fhir;
 
-import gov.samhsa.c2s.dss.service.Redactor;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import org.hl7.fhir.dstu3.model.Bundle;
 
-public interface FhirBundleRedactor extends Redactor {
+/**
+ * Redacts the entries of a tagged FHIR bundle by their security labels.
+ */
+public interface FhirBundleRedactor {
 
-    String cleanUpEmbeddedFhirBundleFromFactModel(String factModelXml);
-
-    String cleanUpGeneratedEntryIds(String fhirBundleXml);
+    /**
+     * Removes the entries whose resource is labelled with at least one sensitive category, and none of whose
+     * sensitive categories is shared by the PDP obligations. The order of the remaining entries is kept.
+     *
+     * @param fhirBundle  the tagged bundle, redacted in place
+     * @param xacmlResult the xacml result with the PDP obligations
+     * @return the redacted bundle
+     */
+    Bundle redactFhirBundle(Bundle fhirBundle, XacmlResult xacmlResult);
 }
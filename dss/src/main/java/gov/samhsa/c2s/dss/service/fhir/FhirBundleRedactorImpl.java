@@ -1,40 +1,92 @@
 package gov.samhsa.c2s.dss.service.fhir;
 
-import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
-import gov.samhsa.c2s.common.document.converter.DocumentXmlConverter;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Resource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Looks up the sensitive categories and the shared obligations in hash sets that are built once per bundle, and
+ * rebuilds the entry list in a single pass, so that the redaction is linear in the number of security labels.
+ */
 @Service
 public class FhirBundleRedactorImpl implements FhirBundleRedactor {
 
-    private static final String XPATH_EMBEDDED_FHIR_BUNDLE = "//fhir:EmbeddedFHIRBundle";
-    private static final String XPATH_GENERATED_ENTRY_ID = "//fhir:generatedEntryId";
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
 
-    @Autowired
-    private DocumentAccessor documentAccessor;
+    private final ValueSetService valueSetService;
 
     @Autowired
-    private DocumentXmlConverter documentXmlConverter;
-
-    @Override
-    public String cleanUpEmbeddedFhirBundleFromFactModel(String factModelXml) {
-        return cleanUpElements(factModelXml, XPATH_EMBEDDED_FHIR_BUNDLE);
+    public FhirBundleRedactorImpl(ValueSetService valueSetService) {
+        this.valueSetService = valueSetService;
     }
 
     @Override
-    public String cleanUpGeneratedEntryIds(String fhirBundleXml) {
-        // Remove all generatedEntryId elements to clean up the FHIR Bundle XML
-        return cleanUpElements(fhirBundleXml, XPATH_GENERATED_ENTRY_ID);
+    public Bundle redactFhirBundle(Bundle fhirBundle, XacmlResult xacmlResult) {
+        final Map<String, Set<String>> sensitiveCodesBySystem = sensitiveCodesBySystem();
+        final Set<String> sharedCodes = new HashSet<>(Optional.ofNullable(xacmlResult.getPdpObligations())
+                .orElse(Collections.emptyList()));
+
+        final List<Bundle.BundleEntryComponent> entries = fhirBundle.getEntry();
+        logger.debug(() -> "Entry Size before redaction: " + entries.size());
+        final List<Bundle.BundleEntryComponent> sharedEntries = new ArrayList<>(entries.size());
+        for (Bundle.BundleEntryComponent entry : entries) {
+            if (!isRedacted(entry.getResource(), sensitiveCodesBySystem, sharedCodes)) {
+                sharedEntries.add(entry);
+            }
+        }
+        fhirBundle.setEntry(sharedEntries);
+        logger.debug(() -> "Entry Size after redaction: " + sharedEntries.size());
+        return fhirBundle;
     }
 
-    @Override
-    public DocumentXmlConverter getDocumentXmlConverter() {
-        return this.documentXmlConverter;
+    private Map<String, Set<String>> sensitiveCodesBySystem() {
+        final Map<String, Set<String>> sensitiveCodesBySystem = new HashMap<>();
+        for (ValueSetCategoryResponseDto valueSetCategory : valueSetService.getAllValueSetCategories()) {
+            sensitiveCodesBySystem.computeIfAbsent(valueSetCategory.getSystem(), system -> new HashSet<>())
+                    .add(valueSetCategory.getCode());
+        }
+        return sensitiveCodesBySystem;
     }
 
-    @Override
-    public DocumentAccessor getDocumentAccessor() {
-        return this.documentAccessor;
+    /**
+     * An entry is redacted if its resource has a sensitive security label, and none of its sensitive security labels
+     * is shared.
+     */
+    private static boolean isRedacted(Resource resource, Map<String, Set<String>> sensitiveCodesBySystem,
+                                      Set<String> sharedCodes) {
+        if (resource == null || !resource.hasMeta()) {
+            return false;
+        }
+        boolean sensitive = false;
+        for (Coding securityLabel : resource.getMeta().getSecurity()) {
+            final Set<String> sensitiveCodes = sensitiveCodesBySystem.get(securityLabel.getSystem());
+            if (sensitiveCodes != null && sensitiveCodes.contains(securityLabel.getCode())) {
+                if (sharedCodes.contains(securityLabel.getCode())) {
+                    return false;
+                }
+                sensitive = true;
+            }
+        }
+        return sensitive;
     }
 }
@@ -0,0 +1,42 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.Confidentiality;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
+import org.hl7.fhir.dstu3.model.Bundle;
+
+/**
+ * Tags a FHIR bundle with security labels in place.
+ */
+public interface FhirBundleTagger {
+
+    /**
+     * Adds the value set categories of the clinical facts and the rule execution responses of each entry to the
+     * security labels of the entry resource, and the most restrictive confidentiality of the entries that are not
+     * redacted to the security labels of the bundle.
+     *
+     * @param fhirBundle             the bundle the fact model was extracted from
+     * @param factModel              the categorized fact model
+     * @param ruleExecutionContainer the rule execution container
+     */
+    void tagFhirBundle(Bundle fhirBundle, FactModel factModel, RuleExecutionContainer ruleExecutionContainer);
+
+    /**
+     * Adds the value set categories of the clinical facts and the rule execution responses of each entry to the
+     * security labels of the entry resource, without labelling the bundle itself.
+     *
+     * @param fhirBundle             the bundle the fact model was extracted from
+     * @param factModel              the categorized fact model
+     * @param ruleExecutionContainer the rule execution container
+     * @return the most restrictive confidentiality of the entries that are not redacted, normal if there is none
+     */
+    Confidentiality tagEntries(Bundle fhirBundle, FactModel factModel, RuleExecutionContainer ruleExecutionContainer);
+
+    /**
+     * Adds the confidentiality to the security labels of the bundle.
+     *
+     * @param fhirBundle      the bundle
+     * @param confidentiality the most restrictive confidentiality of the entries that are not redacted
+     */
+    void tagBundleConfidentiality(Bundle fhirBundle, Confidentiality confidentiality);
+}
@@ -0,0 +1,113 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.Confidentiality;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
+import gov.samhsa.c2s.brms.domain.RuleExecutionResponse;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Meta;
+import org.hl7.fhir.dstu3.model.Resource;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Implements FHIR bundle tagging per FHIR Security Labels and HCS on the HAPI object model. Only the bundle and the
+ * entry resources that already have a <code>meta</code> element are labelled.
+ */
+@Service
+public class FhirBundleTaggerImpl implements FhirBundleTagger {
+
+    // BRMS and PCM only return the codes of the security labels, so the HL7 v3 code systems they belong to are fixed
+    // here: confidentiality codes for the implied confidentiality, act codes for the sensitivity categories, the
+    // obligation and refrain policies and the privacy law
+    static final String SYSTEM_CONFIDENTIALITY = "http://hl7.org/fhir/v3/Confidentiality";
+    static final String SYSTEM_ACT_CODE = "http://hl7.org/fhir/v3/ActCode";
+
+    @Override
+    public void tagFhirBundle(Bundle fhirBundle, FactModel factModel, RuleExecutionContainer ruleExecutionContainer) {
+        tagBundleConfidentiality(fhirBundle, tagEntries(fhirBundle, factModel, ruleExecutionContainer));
+    }
+
+    @Override
+    public Confidentiality tagEntries(Bundle fhirBundle, FactModel factModel,
+                                      RuleExecutionContainer ruleExecutionContainer) {
+        final Map<String, List<ClinicalFact>> clinicalFactsByEntry = factModel.getClinicalFactList().stream()
+                .filter(clinicalFact -> clinicalFact.getEntry() != null)
+                .collect(groupingBy(ClinicalFact::getEntry));
+        final List<RuleExecutionResponse> executionResponses = ruleExecutionContainer.getExecutionResponseList();
+        final Map<String, List<RuleExecutionResponse>> executionResponsesByEntry = executionResponses.stream()
+                .filter(executionResponse -> executionResponse.getEntry() != null)
+                .collect(groupingBy(RuleExecutionResponse::getEntry));
+
+        // Bundle entry (single resource) level security labels
+        final List<Bundle.BundleEntryComponent> entries = fhirBundle.getEntry();
+        for (int i = 0; i < entries.size(); i++) {
+            final Resource resource = entries.get(i).getResource();
+            if (resource == null || !resource.hasMeta()) {
+                continue;
+            }
+            final String entryId = FhirBundleFactModelExtractor.entryId(i);
+            final Meta meta = resource.getMeta();
+
+            // HCS: Sensitivity Category
+            clinicalFactsByEntry.getOrDefault(entryId, Collections.emptyList())
+                    .forEach(clinicalFact -> clinicalFact.getValueSetCategories()
+                            .forEach(valueSetCategory -> addSecurity(meta, SYSTEM_ACT_CODE, valueSetCategory)));
+
+            for (RuleExecutionResponse executionResponse
+                    : executionResponsesByEntry.getOrDefault(entryId, Collections.emptyList())) {
+                // HCS: Confidentiality Classification
+                if (executionResponse.getImpliedConfSection() != null) {
+                    addSecurity(meta, SYSTEM_CONFIDENTIALITY, executionResponse.getImpliedConfSection().name());
+                }
+                // HCS: Handling Caveat, Document Obligation Policy
+                if (executionResponse.getDocumentObligationPolicy() != null) {
+                    addSecurity(meta, SYSTEM_ACT_CODE, executionResponse.getDocumentObligationPolicy().name());
+                }
+                // Document Refrain Policy
+                if (executionResponse.getDocumentRefrainPolicy() != null) {
+                    addSecurity(meta, SYSTEM_ACT_CODE, executionResponse.getDocumentRefrainPolicy().name());
+                }
+                // HCS: US Privacy Law
+                if (executionResponse.getUSPrivacyLaw() != null) {
+                    addSecurity(meta, SYSTEM_ACT_CODE, executionResponse.getUSPrivacyLaw().getPrivacy());
+                }
+            }
+        }
+        return bundleConfidentiality(executionResponses);
+    }
+
+    @Override
+    public void tagBundleConfidentiality(Bundle fhirBundle, Confidentiality confidentiality) {
+        // Bundle level security labels
+        if (fhirBundle.hasMeta()) {
+            addSecurity(fhirBundle.getMeta(), SYSTEM_CONFIDENTIALITY, confidentiality.name());
+        }
+    }
+
+    /**
+     * Gets the most restrictive confidentiality of the entries that are not redacted, normal if there is none.
+     */
+    private Confidentiality bundleConfidentiality(List<RuleExecutionResponse> executionResponses) {
+        return executionResponses.stream()
+                .filter(executionResponse -> !RuleExecutionResponse.ITEM_ACTION_REDACT
+                        .equals(executionResponse.getItemAction()))
+                .map(RuleExecutionResponse::getImpliedConfSection)
+                .filter(Objects::nonNull)
+                .max(Comparator.comparingInt(Confidentiality::getPriority))
+                .orElse(Confidentiality.N);
+    }
+
+    private void addSecurity(Meta meta, String system, String code) {
+        meta.addSecurity(new Coding().setSystem(system).setCode(code));
+    }
+}
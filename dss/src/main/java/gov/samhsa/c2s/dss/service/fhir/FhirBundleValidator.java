@@ -0,0 +1,28 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import org.hl7.fhir.dstu3.model.Bundle;
+
+/**
+ * Validates FHIR bundles with the schema and schematron validator, once as a whole and then only the entry resources
+ * that are changed by the segmentation.
+ */
+public interface FhirBundleValidator {
+
+    /**
+     * Validates the bundle with all of its entry resources, including the bundle level rules.
+     *
+     * @param fhirBundle the bundle
+     * @return the validated bundle, to validate the resources that change afterwards
+     * @throws IllegalArgumentException if the bundle is not valid
+     */
+    ValidatedFhirBundle validateBundle(Bundle fhirBundle);
+
+    /**
+     * Validates the entry resources of a validated bundle whose security labels changed since it was validated. The
+     * resources that did not change are not validated again.
+     *
+     * @param validatedFhirBundle the validated bundle
+     * @throws IllegalArgumentException if a changed resource is not valid
+     */
+    void validateChangedResources(ValidatedFhirBundle validatedFhirBundle);
+}
@@ -0,0 +1,149 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.FhirValidator;
+import ca.uhn.fhir.validation.ValidationResult;
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the tagged resources that passed the validation in an LRU set of the SHA-256 hashes of their JSON
+ * encoding, bounded by <code>c2s.dss.fhir-validation.resource-cache-size</code>. A resource with the same content and
+ * security labels is not validated again by later requests.
+ */
+@Service
+public class FhirBundleValidatorImpl implements FhirBundleValidator, InfoContributor {
+
+    static final String METRIC_HIT = "dss.fhir-validation.resource-cache.hit";
+    static final String METRIC_MISS = "dss.fhir-validation.resource-cache.miss";
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final FhirValidator fhirValidator;
+
+    private final FhirContext fhirContext;
+
+    private final CounterService counterService;
+
+    private final int resourceCacheSize;
+
+    private final Map<String, Boolean> validResources;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public FhirBundleValidatorImpl(FhirValidator fhirValidator,
+                                   FhirContext fhirContext,
+                                   DssProperties dssProperties,
+                                   CounterService counterService) {
+        this.fhirValidator = fhirValidator;
+        this.fhirContext = fhirContext;
+        this.counterService = counterService;
+        this.resourceCacheSize = dssProperties.getFhirValidation().getResourceCacheSize();
+        this.validResources = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > resourceCacheSize;
+            }
+        };
+    }
+
+    @Override
+    public ValidatedFhirBundle validateBundle(Bundle fhirBundle) {
+        assertIsValid(fhirValidator.validateWithResult(fhirBundle));
+        return new ValidatedFhirBundle(fhirBundle);
+    }
+
+    @Override
+    public void validateChangedResources(ValidatedFhirBundle validatedFhirBundle) {
+        for (Bundle.BundleEntryComponent entry : validatedFhirBundle.getFhirBundle().getEntry()) {
+            final Resource resource = entry.getResource();
+            if (resource != null && validatedFhirBundle.isChanged(resource)) {
+                validateResource(resource);
+            }
+        }
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        final long hitCount = hits.get();
+        final long total = hitCount + misses.get();
+        final Map<String, Object> details = new HashMap<>();
+        synchronized (validResources) {
+            details.put("size", validResources.size());
+        }
+        details.put("hits", hitCount);
+        details.put("misses", total - hitCount);
+        details.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        builder.withDetail("fhirValidationResourceCache", details);
+    }
+
+    private void validateResource(Resource resource) {
+        if (resourceCacheSize == 0) {
+            assertIsValid(fhirValidator.validateWithResult(resource));
+            return;
+        }
+        final String contentHash = contentHash(resource);
+        synchronized (validResources) {
+            if (validResources.get(contentHash) != null) {
+                hits.incrementAndGet();
+                counterService.increment(METRIC_HIT);
+                return;
+            }
+        }
+        misses.incrementAndGet();
+        counterService.increment(METRIC_MISS);
+        assertIsValid(fhirValidator.validateWithResult(resource));
+        synchronized (validResources) {
+            validResources.put(contentHash, Boolean.TRUE);
+        }
+    }
+
+    private void assertIsValid(ValidationResult validationResult) {
+        validationResult.getMessages().forEach(error -> logger.debug(() -> "Error: " + error.getMessage()));
+        Assert.isTrue(validationResult.isSuccessful(), "FHIR validation is failed for the segmented bundle with "
+                + validationResult.getMessages().size() + " messages");
+    }
+
+    private String contentHash(Resource resource) {
+        final byte[] json = fhirContext.newJsonParser().encodeResourceToString(resource)
+                .getBytes(StandardCharsets.UTF_8);
+        final byte[] digest = sha256().digest(json);
+        final StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (final byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Resource;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A bundle that passed the validation, with the security labels its entry resources had when it was validated.
+ */
+public final class ValidatedFhirBundle {
+
+    private final Bundle fhirBundle;
+
+    private final Map<Resource, List<String>> securityLabels = new IdentityHashMap<>();
+
+    ValidatedFhirBundle(Bundle fhirBundle) {
+        this.fhirBundle = fhirBundle;
+        for (Bundle.BundleEntryComponent entry : fhirBundle.getEntry()) {
+            if (entry.getResource() != null) {
+                securityLabels.put(entry.getResource(), securityLabelsOf(entry.getResource()));
+            }
+        }
+    }
+
+    /**
+     * Gets the validated bundle.
+     *
+     * @return the bundle, which may have been tagged or redacted since it was validated
+     */
+    public Bundle getFhirBundle() {
+        return fhirBundle;
+    }
+
+    /**
+     * Checks if the security labels of a resource changed since the bundle was validated.
+     *
+     * @param resource the entry resource
+     * @return true if the resource was not an entry resource of the validated bundle or its security labels changed
+     */
+    boolean isChanged(Resource resource) {
+        final List<String> validatedSecurityLabels = securityLabels.get(resource);
+        return validatedSecurityLabels == null || !validatedSecurityLabels.equals(securityLabelsOf(resource));
+    }
+
+    private static List<String> securityLabelsOf(Resource resource) {
+        if (!resource.hasMeta()) {
+            return Collections.emptyList();
+        }
+        return resource.getMeta().getSecurity().stream()
+                .map(coding -> coding.getSystem() + "|" + coding.getCode())
+                .collect(toList());
+    }
+}
@@ -25,18 +25,19 @@
  ******************************************************************************/
 package gov.samhsa.c2s.dss.service.metadata;
 
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
-import gov.samhsa.c2s.common.param.Params;
-import gov.samhsa.c2s.common.param.ParamsBuilder;
 import gov.samhsa.c2s.common.util.StringURIResolver;
 import gov.samhsa.c2s.dss.service.exception.AdditionalMetadataGeneratorException;
+import gov.samhsa.c2s.dss.service.xslt.Stylesheet;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 
 import javax.xml.transform.URIResolver;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -76,11 +77,6 @@
      */
     private static final String PARAM_NAME_AUTHOR_TELECOMMUNICATION = "authorTelecommunication";
 
-    /**
-     * The Additonal metadata stylesheet for processed c32_ xsl_ file_ name.
-     */
-    private static String AdditonalMetadataStylesheetForProcessedC32_Xsl_File_Name = "AdditonalMetadataStylesheetForProcessedC32.xsl";
-
     /**
      * The logger.
      */
@@ -88,10 +84,10 @@
             .getLogger(this.getClass());
 
     /**
-     * The xml trasformer.
+     * The xsl templates registry.
      */
     @Autowired
-    private XmlTransformer xmlTrasformer;
+    private XslTemplatesRegistry xslTemplatesRegistry;
 
     public AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl() {
     }
@@ -100,14 +96,14 @@ public AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl() {
      * Instantiates a new additional metadata generator for segmented clinical
      * document impl.
      *
-     * @param xmlTrasformer
-     *            the xml trasformer
+     * @param xslTemplatesRegistry
+     *            the xsl templates registry
      */
     @Autowired
     public AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl(
-            XmlTransformer xmlTrasformer) {
+            XslTemplatesRegistry xslTemplatesRegistry) {
         super();
-        this.xmlTrasformer = xmlTrasformer;
+        this.xslTemplatesRegistry = xslTemplatesRegistry;
     }
 
     /*
@@ -123,27 +119,22 @@ public String generateMetadataXml(String messageId, String document,
                                       String xdsDocumentEntryUniqueId) {
 
         try {
-            final Params params = ParamsBuilder
-                    .withParam(PARAM_NAME_AUTHOR_TELECOMMUNICATION,
-                            senderEmailAddress)
-                    .and(PARAM_NAME_INTENDED_RECIPIENT, recipientEmailAddress)
-                    .and(PARAM_NAME_PURPOSE_OF_USE, purposeOfUse)
-                    .and(PARAM_NAME_PRIVACY_POLICIES_EXTERNAL_DOC_URL,
-                            messageId)
-                    .and(PARAM_NAME_XDS_DOCUMENT_ENTRY_UNIQUE_ID,
-                            xdsDocumentEntryUniqueId);
-            final String xslUrl = Thread
-                    .currentThread()
-                    .getContextClassLoader()
-                    .getResource(
-                            AdditonalMetadataStylesheetForProcessedC32_Xsl_File_Name)
-                    .toString();
+            final Map<String, String> params = new HashMap<>();
+            params.put(PARAM_NAME_AUTHOR_TELECOMMUNICATION,
+                    senderEmailAddress);
+            params.put(PARAM_NAME_INTENDED_RECIPIENT, recipientEmailAddress);
+            params.put(PARAM_NAME_PURPOSE_OF_USE, purposeOfUse);
+            params.put(PARAM_NAME_PRIVACY_POLICIES_EXTERNAL_DOC_URL,
+                    messageId);
+            params.put(PARAM_NAME_XDS_DOCUMENT_ENTRY_UNIQUE_ID,
+                    xdsDocumentEntryUniqueId);
             final Optional<URIResolver> uriResolver = Optional
                     .of(new StringURIResolver()
                             .put(URI_RESOLVER_HREF_RULE_EXECUTION_RESPONSE_CONTAINER,
                                     ruleExecutionResponseContainer));
-            final String output = xmlTrasformer.transform(document, xslUrl,
-                    Optional.of(params), uriResolver);
+            final String output = xslTemplatesRegistry.transform(
+                    Stylesheet.ADDITIONAL_METADATA_FOR_PROCESSED_C32, document,
+                    params, uriResolver);
             Assert.hasText(output, "Cannot generate additional metadata!");
             logger.debug("AdditionalMetadata:");
             logger.debug(output);
@@ -25,17 +25,18 @@
  ******************************************************************************/
 package gov.samhsa.c2s.dss.service.metadata;
 
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
 import gov.samhsa.c2s.common.log.Logger;
 import gov.samhsa.c2s.common.log.LoggerFactory;
-import gov.samhsa.c2s.common.param.Params;
-import gov.samhsa.c2s.common.param.ParamsBuilder;
 import gov.samhsa.c2s.common.util.StringURIResolver;
 import gov.samhsa.c2s.dss.service.exception.MetadataGeneratorException;
+import gov.samhsa.c2s.dss.service.xslt.Stylesheet;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.xml.transform.URIResolver;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -64,11 +65,6 @@ public class MetadataGeneratorImpl implements MetadataGenerator {
      */
     private static final String URI_RESOLVER_HREF_RULE_EXECUTION_RESPONSE_CONTAINER = "ruleExecutionResponseContainer";
 
-    /**
-     * The Constant METADATA_XSL.
-     */
-    private static final String METADATA_XSL = "metadata.xsl";
-
     /**
      * The logger.
      */
@@ -76,10 +72,10 @@ public class MetadataGeneratorImpl implements MetadataGenerator {
             .getLogger(this.getClass());
 
     /**
-     * The xml transformer.
+     * The xsl templates registry.
      */
     @Autowired
-    private XmlTransformer xmlTransformer;
+    private XslTemplatesRegistry xslTemplatesRegistry;
 
     public MetadataGeneratorImpl() {
     }
@@ -87,13 +83,13 @@ public MetadataGeneratorImpl() {
     /**
      * Instantiates a new metadata generator impl.
      *
-     * @param xmlTransformer
-     *            the xml transformer
+     * @param xslTemplatesRegistry
+     *            the xsl templates registry
      */
     @Autowired
-    public MetadataGeneratorImpl(XmlTransformer xmlTransformer) {
+    public MetadataGeneratorImpl(XslTemplatesRegistry xslTemplatesRegistry) {
         super();
-        this.xmlTransformer = xmlTransformer;
+        this.xslTemplatesRegistry = xslTemplatesRegistry;
     }
 
     /*
@@ -108,12 +104,10 @@ public String generateMetadataXml(String document,
                                       String executionResponseContainer, String homeCommunityId,
                                       String senderEmailAddress, String recipientEmailAddress) {
         try {
-            final Params params = ParamsBuilder
-                    .withParam(PARAM_NAME_HOME_COMMUNITY_ID, homeCommunityId)
-                    .and(PARAM_NAME_AUTHOR_TELECOMMUNICATION, senderEmailAddress)
-                    .and(PARAM_NAME_INTENDED_RECIPIENT, recipientEmailAddress);
-            final String xslUrl = Thread.currentThread().getContextClassLoader()
-                    .getResource(METADATA_XSL).toString();
+            final Map<String, String> params = new HashMap<>();
+            params.put(PARAM_NAME_HOME_COMMUNITY_ID, homeCommunityId);
+            params.put(PARAM_NAME_AUTHOR_TELECOMMUNICATION, senderEmailAddress);
+            params.put(PARAM_NAME_INTENDED_RECIPIENT, recipientEmailAddress);
             // add namespace execution response container for transformation
             executionResponseContainer = executionResponseContainer.replace(
                     "<ruleExecutionContainer>",
@@ -122,8 +116,8 @@ public String generateMetadataXml(String document,
                     .of(new StringURIResolver().put(
                             URI_RESOLVER_HREF_RULE_EXECUTION_RESPONSE_CONTAINER,
                             executionResponseContainer));
-            final String metadataXml = xmlTransformer.transform(document, xslUrl,
-                    Optional.of(params), uriResolver);
+            final String metadataXml = xslTemplatesRegistry.transform(Stylesheet.METADATA,
+                    document, params, uriResolver);
             logger.debug("Metadata:");
             logger.debug(metadataXml);
             return metadataXml;
@@ -0,0 +1,63 @@
+package gov.samhsa.c2s.dss.service.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Submits the latency of the segmentation stages to the actuator metrics. The actuator metrics have no tags, so the
+ * pipeline, stage, document type and outcome are part of the metric name. For every request
+ * <code>timer.dss.segmentation.&lt;pipeline&gt;.&lt;stage&gt;.&lt;document type&gt;.&lt;outcome&gt;</code> is
+ * submitted with the time spent in each stage that ran and
+ * <code>dss.segmentation.&lt;pipeline&gt;.&lt;stage&gt;.&lt;document type&gt;.&lt;outcome&gt;</code> is incremented,
+ * along with the same metrics without the stage for the whole request.
+ */
+@Component
+public class SegmentationMetrics {
+
+    public static final String DOCUMENT_PIPELINE = "document";
+    public static final String FHIR_BUNDLE_PIPELINE = "fhir-bundle";
+
+    static final String METRIC_PREFIX = "dss.segmentation.";
+    static final String TIMER_PREFIX = "timer." + METRIC_PREFIX;
+
+    private final CounterService counterService;
+
+    private final GaugeService gaugeService;
+
+    @Autowired
+    public SegmentationMetrics(CounterService counterService, GaugeService gaugeService) {
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+    }
+
+    /**
+     * Starts timing a segmentation request.
+     *
+     * @param pipeline the segmentation pipeline
+     * @return the timer of the request
+     */
+    public SegmentationTimer startTimer(String pipeline) {
+        return new SegmentationTimer(this, pipeline);
+    }
+
+    void submit(String pipeline, String documentType, SegmentationOutcome outcome,
+                Map<SegmentationStage, Long> stageMillis, long totalMillis) {
+        final String suffix = "." + sanitize(documentType) + "." + outcome.getMetricName();
+        stageMillis.forEach((stage, millis) -> {
+            final String name = pipeline + "." + stage.getMetricName() + suffix;
+            gaugeService.submit(TIMER_PREFIX + name, millis);
+            counterService.increment(METRIC_PREFIX + name);
+        });
+        gaugeService.submit(TIMER_PREFIX + pipeline + suffix, totalMillis);
+        counterService.increment(METRIC_PREFIX + pipeline + suffix);
+    }
+
+    private static String sanitize(String documentType) {
+        // the document type becomes one segment of the metric name
+        return documentType.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+}
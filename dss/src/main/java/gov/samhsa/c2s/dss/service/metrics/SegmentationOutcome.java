@@ -0,0 +1,44 @@
+package gov.samhsa.c2s.dss.service.metrics;
+
+import gov.samhsa.c2s.dss.service.exception.InvalidOriginalClinicalDocumentException;
+import gov.samhsa.c2s.dss.service.exception.InvalidSegmentedClinicalDocumentException;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * The outcome of a segmentation request.
+ */
+public enum SegmentationOutcome {
+
+    SUCCESS("success"),
+    INVALID_ORIGINAL("invalid-original"),
+    INVALID_SEGMENTED("invalid-segmented"),
+    FAILURE("failure");
+
+    private final String metricName;
+
+    SegmentationOutcome(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    /**
+     * Gets the outcome of a request that failed with the exception.
+     *
+     * @param e the exception the request failed with
+     * @return the outcome
+     */
+    public static SegmentationOutcome of(Throwable e) {
+        final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof InvalidOriginalClinicalDocumentException) {
+            return INVALID_ORIGINAL;
+        }
+        if (cause instanceof InvalidSegmentedClinicalDocumentException) {
+            return INVALID_SEGMENTED;
+        }
+        return FAILURE;
+    }
+}
@@ -0,0 +1,31 @@
+package gov.samhsa.c2s.dss.service.metrics;
+
+/**
+ * The stages of the document and FHIR bundle segmentation pipelines.
+ */
+public enum SegmentationStage {
+
+    RESULT_CACHE("result-cache"),
+    ORIGINAL_VALIDATION("original-validation"),
+    PARSING("parsing"),
+    CREATION_DATE_EDIT("creation-date-edit"),
+    FACT_EXTRACTION("fact-extraction"),
+    VALUE_SET_LOOKUP("value-set-lookup"),
+    RULE_EXECUTION("rule-execution"),
+    REDACTION("redaction"),
+    TAGGING("tagging"),
+    CLEANUP("cleanup"),
+    SERIALIZATION("serialization"),
+    SEGMENTED_VALIDATION("segmented-validation"),
+    AUDIT("audit");
+
+    private final String metricName;
+
+    SegmentationStage(String metricName) {
+        this.metricName = metricName;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+}
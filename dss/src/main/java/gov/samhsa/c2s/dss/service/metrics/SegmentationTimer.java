@@ -0,0 +1,115 @@
+package gov.samhsa.c2s.dss.service.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Times the stages of one segmentation request. The stages may run on different threads, the durations are only
+ * submitted once the request is stopped, when its document type and outcome are known.
+ */
+public class SegmentationTimer {
+
+    static final String UNKNOWN_DOCUMENT_TYPE = "unknown";
+
+    private final SegmentationMetrics segmentationMetrics;
+
+    private final String pipeline;
+
+    private final long start = System.currentTimeMillis();
+
+    private final Map<SegmentationStage, Long> stageMillis = new ConcurrentHashMap<>();
+
+    private volatile String documentType = UNKNOWN_DOCUMENT_TYPE;
+
+    SegmentationTimer(SegmentationMetrics segmentationMetrics, String pipeline) {
+        this.segmentationMetrics = segmentationMetrics;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Runs and times a stage.
+     *
+     * @param stage the stage
+     * @param call  the work of the stage
+     * @param <T>   the type of the stage result
+     * @param <E>   the type of the exception the stage may throw
+     * @return the stage result
+     * @throws E if the stage fails
+     */
+    public <T, E extends Exception> T time(SegmentationStage stage, StageCall<T, E> call) throws E {
+        final long stageStart = System.currentTimeMillis();
+        try {
+            return call.call();
+        } finally {
+            record(stage, System.currentTimeMillis() - stageStart);
+        }
+    }
+
+    /**
+     * Runs and times a stage without a result.
+     *
+     * @param stage the stage
+     * @param run   the work of the stage
+     * @param <E>   the type of the exception the stage may throw
+     * @throws E if the stage fails
+     */
+    public <E extends Exception> void run(SegmentationStage stage, StageRun<E> run) throws E {
+        final long stageStart = System.currentTimeMillis();
+        try {
+            run.run();
+        } finally {
+            record(stage, System.currentTimeMillis() - stageStart);
+        }
+    }
+
+    /**
+     * Adds the duration to the time spent in the stage.
+     *
+     * @param stage  the stage
+     * @param millis the duration in milliseconds
+     */
+    public void record(SegmentationStage stage, long millis) {
+        stageMillis.merge(stage, millis, Long::sum);
+    }
+
+    public void setDocumentType(String documentType) {
+        if (documentType != null) {
+            this.documentType = documentType;
+        }
+    }
+
+    /**
+     * Runs the request and stops the timer with the outcome of the request.
+     *
+     * @param request the request
+     * @param <T>     the type of the response
+     * @return the response
+     */
+    public <T> T stopAfter(Supplier<T> request) {
+        final T response;
+        try {
+            response = request.get();
+        } catch (final RuntimeException e) {
+            stop(SegmentationOutcome.of(e));
+            throw e;
+        }
+        stop(SegmentationOutcome.SUCCESS);
+        return response;
+    }
+
+    public void stop(SegmentationOutcome outcome) {
+        segmentationMetrics.submit(pipeline, documentType, outcome, stageMillis,
+                System.currentTimeMillis() - start);
+    }
+
+    @FunctionalInterface
+    public interface StageCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    @FunctionalInterface
+    public interface StageRun<E extends Exception> {
+        void run() throws E;
+    }
+}
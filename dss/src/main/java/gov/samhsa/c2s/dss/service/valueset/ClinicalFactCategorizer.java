@@ -0,0 +1,19 @@
+package gov.samhsa.c2s.dss.service.valueset;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+
+import java.util.List;
+
+/**
+ * Assigns the value set categories of the value set service to clinical facts.
+ */
+public interface ClinicalFactCategorizer {
+
+    /**
+     * Looks up the value set categories of the clinical facts in one value set service request and sets them on the
+     * facts that have categories.
+     *
+     * @param clinicalFacts the clinical facts
+     */
+    void categorize(List<ClinicalFact> clinicalFacts);
+}
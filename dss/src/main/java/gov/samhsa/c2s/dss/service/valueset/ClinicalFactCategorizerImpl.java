@@ -0,0 +1,67 @@
+package gov.samhsa.c2s.dss.service.valueset;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Joins the value set service response onto the clinical facts through a hash index keyed by code and code system
+ * OID, so categorizing takes time linear in the number of facts and responses.
+ */
+@Service
+public class ClinicalFactCategorizerImpl implements ClinicalFactCategorizer {
+
+    private final ValueSetService valueSetService;
+
+    @Autowired
+    public ClinicalFactCategorizerImpl(ValueSetService valueSetService) {
+        this.valueSetService = valueSetService;
+    }
+
+    @Override
+    public void categorize(List<ClinicalFact> clinicalFacts) {
+        // facts with the same concept are looked up once
+        final Set<ConceptCodeAndCodeSystemOidDto> concepts = new LinkedHashSet<>();
+        clinicalFacts.forEach(fact -> concepts.add(toConcept(fact)));
+
+        final List<ValueSetCategoryMapResponseDto> valueSetCategories = valueSetService
+                .lookupValueSetCategories(new ArrayList<>(concepts));
+        assignValueSetCategories(clinicalFacts, valueSetCategories);
+    }
+
+    /**
+     * Sets the categories of the first response with categories for the concept of a fact on that fact.
+     *
+     * @param clinicalFacts      the clinical facts
+     * @param valueSetCategories the value set service response
+     */
+    static void assignValueSetCategories(List<ClinicalFact> clinicalFacts,
+                                         List<ValueSetCategoryMapResponseDto> valueSetCategories) {
+        final Map<ConceptCodeAndCodeSystemOidDto, Set<String>> categoriesByConcept = new HashMap<>();
+        valueSetCategories.stream()
+                .filter(dto -> dto.getValueSetCategoryCodes() != null)
+                .forEach(dto -> categoriesByConcept.putIfAbsent(
+                        new ConceptCodeAndCodeSystemOidDto(dto.getCodedConceptCode(), dto.getCodeSystemOid()),
+                        dto.getValueSetCategoryCodes()));
+        clinicalFacts.forEach(fact -> {
+            final Set<String> categories = categoriesByConcept.get(toConcept(fact));
+            if (categories != null) {
+                fact.setValueSetCategories(categories);
+            }
+        });
+    }
+
+    private static ConceptCodeAndCodeSystemOidDto toConcept(ClinicalFact fact) {
+        return new ConceptCodeAndCodeSystemOidDto(fact.getCode(), fact.getCodeSystem());
+    }
+}
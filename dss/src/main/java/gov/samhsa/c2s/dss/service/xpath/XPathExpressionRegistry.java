@@ -0,0 +1,24 @@
+package gov.samhsa.c2s.dss.service.xpath;
+
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates XPath expressions that are compiled only once and shared across threads.
+ */
+public interface XPathExpressionRegistry {
+
+    /**
+     * Evaluates the XPath expression against the node. The <code>%1</code>, <code>%2</code>, ... placeholders of the
+     * expression are bound to the given values in order.
+     *
+     * @param node      the context node
+     * @param xPathExpr the XPath expression with optional placeholders
+     * @param values    the placeholder values
+     * @return the matching nodes
+     * @throws XPathExpressionException if the expression cannot be compiled or evaluated
+     */
+    Stream<Node> getNodeListAsStream(Node node, String xPathExpr, String... values) throws XPathExpressionException;
+}
@@ -0,0 +1,178 @@
+package gov.samhsa.c2s.dss.service.xpath;
+
+import net.sf.saxon.xpath.XPathFactoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Compiles each parameterized XPath expression once and binds the placeholder values as XPath variables at
+ * evaluation time, instead of substituting the values into the expression and compiling it for every call.
+ * <p>
+ * A placeholder that is a complete string literal, like <code>@code='%1'</code>, is rewritten to the variable
+ * reference <code>@code=$p1</code>. Placeholders that are part of a name or of a longer literal, like
+ * <code>hl7:%1</code>, cannot be bound; those expressions are substituted and kept in a bounded cache instead.
+ * <p>
+ * Saxon is used for the compilation, so the XPath 2.0 functions used by the redaction handlers are available.
+ * Compiled Saxon expressions create a new dynamic context for every evaluation and are safe to share across
+ * threads; the variable values are bound per thread.
+ */
+@Service
+public class XPathExpressionRegistryImpl implements XPathExpressionRegistry {
+
+    static final int MAX_SUBSTITUTED_EXPRESSIONS = 1024;
+
+    private static final Pattern QUOTED_PLACEHOLDER = Pattern.compile("'%(\\d+)'|\"%(\\d+)\"");
+    private static final Pattern PLACEHOLDER = Pattern.compile("%(\\d+)");
+    private static final String VARIABLE_PREFIX = "p";
+
+    private final XPathFactory xPathFactory = new XPathFactoryImpl();
+
+    private final NamespaceContext namespaceContext;
+
+    private final ThreadLocal<String[]> boundValues = new ThreadLocal<>();
+
+    private final ConcurrentMap<String, CompiledExpression> parameterizedExpressions = new ConcurrentHashMap<>();
+
+    private final Map<String, CompiledExpression> substitutedExpressions = Collections.synchronizedMap(
+            new LinkedHashMap<String, CompiledExpression>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+                    return size() > MAX_SUBSTITUTED_EXPRESSIONS;
+                }
+            });
+
+    @Autowired
+    public XPathExpressionRegistryImpl(NamespaceContext namespaceContext) {
+        this.namespaceContext = namespaceContext;
+    }
+
+    @Override
+    public Stream<Node> getNodeListAsStream(Node node, String xPathExpr, String... values)
+            throws XPathExpressionException {
+        final String[] parameters = values == null ? new String[0] : values;
+        final CompiledExpression compiledExpression = getCompiledExpression(xPathExpr, parameters);
+        if (compiledExpression.getParameterCount() > parameters.length) {
+            throw new XPathExpressionException("Expected " + compiledExpression.getParameterCount()
+                    + " values for the XPath expression '" + xPathExpr + "' but got " + parameters.length);
+        }
+        final NodeList nodeList;
+        boundValues.set(parameters);
+        try {
+            nodeList = (NodeList) compiledExpression.getExpression().evaluate(node, XPathConstants.NODESET);
+        } finally {
+            boundValues.remove();
+        }
+        return IntStream.range(0, nodeList.getLength()).mapToObj(nodeList::item);
+    }
+
+    int getCompiledExpressionCount() {
+        return parameterizedExpressions.size() + substitutedExpressions.size();
+    }
+
+    private CompiledExpression getCompiledExpression(String xPathExpr, String[] values)
+            throws XPathExpressionException {
+        CompiledExpression compiledExpression = parameterizedExpressions.get(xPathExpr);
+        if (compiledExpression != null) {
+            return compiledExpression;
+        }
+        final String bindableExpr = bindQuotedPlaceholders(xPathExpr);
+        if (!PLACEHOLDER.matcher(bindableExpr).find()) {
+            compiledExpression = compile(bindableExpr, countParameters(xPathExpr));
+            final CompiledExpression existing = parameterizedExpressions.putIfAbsent(xPathExpr, compiledExpression);
+            return existing == null ? compiledExpression : existing;
+        }
+        // Some placeholders cannot be bound as variables, so the values become part of the expression
+        final String substitutedExpr = substitutePlaceholders(bindableExpr, values);
+        compiledExpression = substitutedExpressions.get(substitutedExpr);
+        if (compiledExpression == null) {
+            compiledExpression = compile(substitutedExpr, countParameters(xPathExpr));
+            substitutedExpressions.put(substitutedExpr, compiledExpression);
+        }
+        return compiledExpression;
+    }
+
+    private CompiledExpression compile(String xPathExpr, int parameterCount) throws XPathExpressionException {
+        final XPath xPath = xPathFactory.newXPath();
+        xPath.setNamespaceContext(namespaceContext);
+        xPath.setXPathVariableResolver(this::resolveVariable);
+        return new CompiledExpression(xPath.compile(xPathExpr), parameterCount);
+    }
+
+    private Object resolveVariable(QName variableName) {
+        final String[] values = boundValues.get();
+        final int index = Integer.parseInt(variableName.getLocalPart().substring(VARIABLE_PREFIX.length())) - 1;
+        return values[index];
+    }
+
+    private static String bindQuotedPlaceholders(String xPathExpr) {
+        final Matcher matcher = QUOTED_PLACEHOLDER.matcher(xPathExpr);
+        final StringBuffer bindableExpr = new StringBuffer();
+        while (matcher.find()) {
+            final String index = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+            matcher.appendReplacement(bindableExpr, Matcher.quoteReplacement("$" + VARIABLE_PREFIX + index));
+        }
+        matcher.appendTail(bindableExpr);
+        return bindableExpr.toString();
+    }
+
+    private static String substitutePlaceholders(String xPathExpr, String[] values) throws XPathExpressionException {
+        final Matcher matcher = PLACEHOLDER.matcher(xPathExpr);
+        final StringBuffer substitutedExpr = new StringBuffer();
+        while (matcher.find()) {
+            final int index = Integer.parseInt(matcher.group(1)) - 1;
+            if (index >= values.length) {
+                throw new XPathExpressionException("No value for the placeholder " + matcher.group()
+                        + " of the XPath expression '" + xPathExpr + "'");
+            }
+            matcher.appendReplacement(substitutedExpr, Matcher.quoteReplacement(values[index]));
+        }
+        matcher.appendTail(substitutedExpr);
+        return substitutedExpr.toString();
+    }
+
+    private static int countParameters(String xPathExpr) {
+        final Matcher matcher = PLACEHOLDER.matcher(xPathExpr);
+        int parameterCount = 0;
+        while (matcher.find()) {
+            parameterCount = Math.max(parameterCount, Integer.parseInt(matcher.group(1)));
+        }
+        return parameterCount;
+    }
+
+    private static final class CompiledExpression {
+        private final XPathExpression expression;
+        private final int parameterCount;
+
+        private CompiledExpression(XPathExpression expression, int parameterCount) {
+            this.expression = expression;
+            this.parameterCount = parameterCount;
+        }
+
+        private XPathExpression getExpression() {
+            return expression;
+        }
+
+        private int getParameterCount() {
+            return parameterCount;
+        }
+    }
+}
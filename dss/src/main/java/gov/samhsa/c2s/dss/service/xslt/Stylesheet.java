@@ -0,0 +1,26 @@
+package gov.samhsa.c2s.dss.service.xslt;
+
+/**
+ * The stylesheets that are compiled once at startup by the {@link XslTemplatesRegistry}.
+ */
+public enum Stylesheet {
+    EXTRACT_CLINICAL_FACTS("extractClinicalFacts.xsl"),
+    TAG("tag.xsl"),
+    METADATA("metadata.xsl"),
+    ADDITIONAL_METADATA_FOR_PROCESSED_C32("AdditonalMetadataStylesheetForProcessedC32.xsl");
+
+    private final String fileName;
+
+    Stylesheet(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Gets the classpath location of the stylesheet.
+     *
+     * @return the file name
+     */
+    public String getFileName() {
+        return fileName;
+    }
+}
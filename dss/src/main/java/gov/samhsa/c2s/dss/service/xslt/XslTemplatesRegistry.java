@@ -0,0 +1,35 @@
+package gov.samhsa.c2s.dss.service.xslt;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.URIResolver;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Provides transformations with stylesheets that are compiled only once and shared across threads.
+ */
+public interface XslTemplatesRegistry {
+
+    /**
+     * Transforms the xml with the given stylesheet.
+     *
+     * @param stylesheet  the stylesheet
+     * @param xml         the xml
+     * @param params      the stylesheet parameters
+     * @param uriResolver the URI resolver for the <code>document()</code> calls of the stylesheet
+     * @return the transformation output
+     */
+    String transform(Stylesheet stylesheet, String xml, Map<String, String> params, Optional<URIResolver> uriResolver);
+
+    /**
+     * Transforms the source into the result with the given stylesheet.
+     *
+     * @param stylesheet  the stylesheet
+     * @param source      the source
+     * @param result      the result
+     * @param params      the stylesheet parameters
+     * @param uriResolver the URI resolver for the <code>document()</code> calls of the stylesheet
+     */
+    void transform(Stylesheet stylesheet, Source source, Result result, Map<String, String> params, Optional<URIResolver> uriResolver);
+}
@@ -0,0 +1,101 @@
+package gov.samhsa.c2s.dss.service.xslt;
+
+import gov.samhsa.c2s.common.log.Logger;
+import gov.samhsa.c2s.common.log.LoggerFactory;
+import gov.samhsa.c2s.dss.service.exception.XslTransformationException;
+import net.sf.saxon.TransformerFactoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Compiles all {@link Stylesheet}s into thread-safe {@link Templates} when the application starts, instead of
+ * resolving and compiling the stylesheet from its classpath URL for every transformation.
+ * <p>
+ * The compile time of each stylesheet is submitted as the <code>xslt.&lt;stylesheet&gt;.compile</code> gauge and
+ * the latency of each transformation as the <code>timer.xslt.&lt;stylesheet&gt;.transform</code> gauge.
+ */
+@Service
+public class XslTemplatesRegistryImpl implements XslTemplatesRegistry {
+
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory
+            .getLogger(this.getClass());
+
+    private final CounterService counterService;
+
+    private final GaugeService gaugeService;
+
+    private final Map<Stylesheet, Templates> templates = new EnumMap<>(Stylesheet.class);
+
+    @Autowired
+    public XslTemplatesRegistryImpl(CounterService counterService, GaugeService gaugeService) {
+        this.counterService = counterService;
+        this.gaugeService = gaugeService;
+        final TransformerFactory transformerFactory = new TransformerFactoryImpl();
+        for (final Stylesheet stylesheet : Stylesheet.values()) {
+            templates.put(stylesheet, compile(transformerFactory, stylesheet));
+        }
+    }
+
+    @Override
+    public String transform(Stylesheet stylesheet, String xml, Map<String, String> params, Optional<URIResolver> uriResolver) {
+        final StringWriter writer = new StringWriter();
+        transform(stylesheet, new StreamSource(new StringReader(xml)), new StreamResult(writer), params, uriResolver);
+        return writer.toString();
+    }
+
+    @Override
+    public void transform(Stylesheet stylesheet, Source source, Result result, Map<String, String> params, Optional<URIResolver> uriResolver) {
+        final long start = System.currentTimeMillis();
+        try {
+            final Transformer transformer = templates.get(stylesheet).newTransformer();
+            params.forEach(transformer::setParameter);
+            uriResolver.ifPresent(transformer::setURIResolver);
+            transformer.transform(source, result);
+        } catch (final TransformerException e) {
+            counterService.increment(metricName(stylesheet, "failure"));
+            throw new XslTransformationException("Unable to transform with " + stylesheet.getFileName() + ": " + e.getMessage(), e);
+        } finally {
+            gaugeService.submit("timer." + metricName(stylesheet, "transform"), System.currentTimeMillis() - start);
+        }
+    }
+
+    private Templates compile(TransformerFactory transformerFactory, Stylesheet stylesheet) {
+        final long start = System.currentTimeMillis();
+        try {
+            final String systemId = new ClassPathResource(stylesheet.getFileName()).getURL().toString();
+            final Templates compiled = transformerFactory.newTemplates(new StreamSource(systemId));
+            final long elapsed = System.currentTimeMillis() - start;
+            gaugeService.submit(metricName(stylesheet, "compile"), elapsed);
+            logger.info(() -> "Compiled " + stylesheet.getFileName() + " in " + elapsed + " ms");
+            return compiled;
+        } catch (final IOException | TransformerException e) {
+            throw new XslTransformationException("Unable to compile " + stylesheet.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String metricName(Stylesheet stylesheet, String suffix) {
+        return "xslt." + stylesheet.getFileName().replace(".xsl", "") + "." + suffix;
+    }
+}
@@ -0,0 +1,30 @@
+package gov.samhsa.c2s.dss.web;
+
+import gov.samhsa.c2s.dss.service.exception.BatchTooLargeException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Responds to batches over <code>c2s.dss.batch.max-size</code> with <code>413 Payload Too Large</code>. The batch
+ * size is enforced while the request body is read, so the error arrives wrapped in the message conversion error. Any
+ * other message conversion error is rethrown to the default handling.
+ */
+@ControllerAdvice(assignableTypes = {DocumentSegmentationRestController.class,
+        FhirBundleSegmentationRestController.class})
+public class BatchRequestExceptionHandler {
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public void handleMessageNotReadable(HttpMessageNotReadableException e, HttpServletResponse response)
+            throws IOException {
+        final Throwable cause = e.getMostSpecificCause();
+        if (!(cause instanceof BatchTooLargeException)) {
+            throw e;
+        }
+        response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), cause.getMessage());
+    }
+}
@@ -3,17 +3,25 @@
 import ch.qos.logback.audit.AuditException;
 import gov.samhsa.c2s.common.validation.exception.XmlDocumentReadFailureException;
 import gov.samhsa.c2s.dss.service.DocumentSegmentation;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchRequest;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
 import gov.samhsa.c2s.dss.service.dto.DSSRequest;
 import gov.samhsa.c2s.dss.service.dto.DSSResponse;
+import gov.samhsa.c2s.dss.service.dto.DSSUploadRequest;
 import gov.samhsa.c2s.dss.service.exception.InvalidOriginalClinicalDocumentException;
 import gov.samhsa.c2s.dss.service.exception.InvalidSegmentedClinicalDocumentException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.validation.Valid;
+import java.io.DataInputStream;
+import java.io.IOException;
 
 @RestController
 public class DocumentSegmentationRestController {
@@ -25,4 +33,30 @@ public class DocumentSegmentationRestController {
     public DSSResponse segment(@Valid @RequestBody DSSRequest request)  {
         return documentSegmentation.segmentDocument(request);
     }
+
+    @RequestMapping(value = "/segmentedDocuments", method = RequestMethod.POST)
+    public DSSBatchResponse<DSSResponse> segmentDocuments(@RequestBody DSSBatchRequest request) {
+        return documentSegmentation.segmentDocuments(request.getRequests());
+    }
+
+    /**
+     * Segments a clinical document uploaded as the raw XML <code>document</code> part, with the xacml result and the
+     * flags as the JSON <code>request</code> part. Uploads larger than <code>spring.http.multipart.max-file-size</code>
+     * are rejected while the request is read.
+     */
+    @RequestMapping(value = "/segmentedDocument", method = RequestMethod.POST,
+            consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public DSSResponse segment(@Valid @RequestPart("request") DSSUploadRequest request,
+                               @RequestPart("document") MultipartFile document) throws IOException {
+        return documentSegmentation.segmentDocument(request.toDSSRequest(readDocument(document)));
+    }
+
+    private static byte[] readDocument(MultipartFile document) throws IOException {
+        // the part size is known, so the document is read into a single array without a growing buffer
+        final byte[] bytes = new byte[Math.toIntExact(document.getSize())];
+        try (DataInputStream inputStream = new DataInputStream(document.getInputStream())) {
+            inputStream.readFully(bytes);
+        }
+        return bytes;
+    }
 }
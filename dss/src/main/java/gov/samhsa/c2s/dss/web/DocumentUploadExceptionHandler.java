@@ -0,0 +1,23 @@
+package gov.samhsa.c2s.dss.web;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Responds to uploads over the multipart size limits with <code>413 Payload Too Large</code>. The multipart request
+ * is resolved before a controller is selected, so the exception can only be handled here.
+ */
+@ControllerAdvice
+public class DocumentUploadExceptionHandler {
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public void handleMaxUploadSizeExceeded(MaxUploadSizeExceededException e, HttpServletResponse response)
+            throws IOException {
+        response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), e.getMessage());
+    }
+}
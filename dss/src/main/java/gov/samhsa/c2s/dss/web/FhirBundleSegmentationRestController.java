@@ -3,6 +3,8 @@
 import ch.qos.logback.audit.AuditException;
 import gov.samhsa.c2s.common.validation.exception.XmlDocumentReadFailureException;
 import gov.samhsa.c2s.dss.service.FhirBundleSegmentation;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchRequestForFhir;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
 import gov.samhsa.c2s.dss.service.dto.DSSRequestForFhir;
 import gov.samhsa.c2s.dss.service.dto.DSSResponseForFhir;
 import gov.samhsa.c2s.dss.service.exception.InvalidOriginalClinicalDocumentException;
@@ -26,6 +28,11 @@ public DSSResponseForFhir segmentFhirBundle(@Valid @RequestBody DSSRequestForFhi
         return fhirBundleSegmentation.segmentFhirBundle(request);
     }
 
+    @RequestMapping(value = "/segmentedFhirBundles", method = RequestMethod.POST)
+    public DSSBatchResponse<DSSResponseForFhir> segmentFhirBundles(@RequestBody DSSBatchRequestForFhir request) {
+        return fhirBundleSegmentation.segmentFhirBundles(request.getRequests());
+    }
+
     @RequestMapping(value = "/redactedFhirBundle", method = RequestMethod.POST)
     public DSSResponseForFhir redactFhirBundle(@Valid @RequestBody DSSRequestForFhir request) throws InvalidSegmentedClinicalDocumentException, AuditException, XmlDocumentReadFailureException, InvalidOriginalClinicalDocumentException {
         return fhirBundleSegmentation.redactAndUpdateFhirBundle(request);
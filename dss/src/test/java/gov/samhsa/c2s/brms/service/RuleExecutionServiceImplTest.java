@@ -5,10 +5,11 @@
 import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
 import gov.samhsa.c2s.brms.domain.XacmlResult;
 import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
-import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.brms.service.dto.RuleExecutionResult;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeSessionPool;
+import gov.samhsa.c2s.brms.service.knowledgebase.PooledKnowledgeSession;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerException;
-import gov.samhsa.c2s.common.unit.io.ResourceFileReader;
 import org.drools.event.rule.DefaultAgendaEventListener;
 import org.drools.runtime.StatefulKnowledgeSession;
 import org.junit.Rule;
@@ -21,7 +22,6 @@
 import org.mockito.runners.MockitoJUnitRunner;
 
 import javax.xml.bind.JAXBException;
-import java.io.IOException;
 import java.util.LinkedList;
 
 import static org.junit.Assert.*;
@@ -34,7 +34,7 @@ public class RuleExecutionServiceImplTest {
     @Rule
     public ExpectedException thrown = ExpectedException.none();
     @Mock
-    private GuvnorService guvnorServiceMock;
+    private KnowledgeSessionPool knowledgeSessionPoolMock;
     @Mock
     private SimpleMarshaller marshallerMock;
     @Spy
@@ -45,7 +45,7 @@ public class RuleExecutionServiceImplTest {
     public void testAssertAndExecuteClinicalFacts() throws JAXBException {
         // Arrange
         StatefulKnowledgeSession sessionMock = mock(StatefulKnowledgeSession.class);
-        doReturn(sessionMock).when(sut).createStatefulKnowledgeSession();
+        when(knowledgeSessionPoolMock.borrowSession()).thenReturn(new PooledKnowledgeSession("version", sessionMock));
         String factModelStringMock = "factModelStringMock";
         FactModel factModelMock = mock(FactModel.class);
         when(
@@ -80,6 +80,7 @@ public void testAssertAndExecuteClinicalFacts() throws JAXBException {
         assertNotNull(response);
         assertEquals(executionResponseContainerXMLStringMock,
                 response.getRuleExecutionResponseContainer());
+        verify(knowledgeSessionPoolMock).returnSession(isA(PooledKnowledgeSession.class));
     }
 
     @SuppressWarnings("unchecked")
@@ -88,7 +89,7 @@ public void testAssertAndExecuteClinicalFacts_Marshaller_Throws_JAXBException()
             throws Throwable {
         // Arrange
         StatefulKnowledgeSession sessionMock = mock(StatefulKnowledgeSession.class);
-        doReturn(sessionMock).when(sut).createStatefulKnowledgeSession();
+        when(knowledgeSessionPoolMock.borrowSession()).thenReturn(new PooledKnowledgeSession("version", sessionMock));
         String factModelStringMock = "factModelStringMock";
 
         FactModel factModel=null;
@@ -112,7 +113,7 @@ public void testAssertAndExecuteClinicalFacts_Marshaller_Throws_JAXBException2()
             throws JAXBException {
         // Arrange
         StatefulKnowledgeSession sessionMock = mock(StatefulKnowledgeSession.class);
-        doReturn(sessionMock).when(sut).createStatefulKnowledgeSession();
+        when(knowledgeSessionPoolMock.borrowSession()).thenReturn(new PooledKnowledgeSession("version", sessionMock));
         String factModelStringMock = "factModelStringMock";
         FactModel factModelMock = mock(FactModel.class);
         when(
@@ -145,19 +146,47 @@ public void testAssertAndExecuteClinicalFacts_Marshaller_Throws_JAXBException2()
         // Assert
         assertNotNull(response);
         assertNull(response.getRuleExecutionResponseContainer());
+        verify(knowledgeSessionPoolMock).returnSession(isA(PooledKnowledgeSession.class));
     }
 
     @Test
-    public void testCreateStatefulKnowledgeSession() throws IOException {
+    public void testExecuteClinicalFacts_Does_Not_Marshal() throws Throwable {
         // Arrange
-        String rulesMock = ResourceFileReader.getStringFromResourceFile("unitTestRules.txt");
-        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(
-                rulesMock);
+        StatefulKnowledgeSession sessionMock = mock(StatefulKnowledgeSession.class);
+        when(knowledgeSessionPoolMock.borrowSession()).thenReturn(new PooledKnowledgeSession("version", sessionMock));
+        FactModel factModel = new FactModel();
+        factModel.setXacmlResult(mock(XacmlResult.class));
+        factModel.setClinicalFactList(new LinkedList<>());
+        RuleExecutionContainer ruleExecutionContainer = new RuleExecutionContainer();
+        when(sessionMock.getGlobal("ruleExecutionContainer")).thenReturn(ruleExecutionContainer);
 
         // Act
-        StatefulKnowledgeSession session = sut.createStatefulKnowledgeSession();
+        RuleExecutionResult result = sut.executeClinicalFacts(factModel);
 
         // Assert
-        assertNotNull(session);
+        assertSame(ruleExecutionContainer, result.getRuleExecutionContainer());
+        assertTrue(result.getFiredRuleNames().isEmpty());
+        assertNull(result.getRulesFired());
+        verifyZeroInteractions(marshallerMock);
+        verify(knowledgeSessionPoolMock).returnSession(isA(PooledKnowledgeSession.class));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteClinicalFacts_Invalidates_Session_On_Failure() {
+        // Arrange
+        StatefulKnowledgeSession sessionMock = mock(StatefulKnowledgeSession.class);
+        when(knowledgeSessionPoolMock.borrowSession()).thenReturn(new PooledKnowledgeSession("version", sessionMock));
+        FactModel factModel = new FactModel();
+        factModel.setXacmlResult(mock(XacmlResult.class));
+        factModel.setClinicalFactList(new LinkedList<>());
+        when(sessionMock.fireAllRules()).thenThrow(new IllegalStateException("rule failed"));
+
+        try {
+            // Act
+            sut.executeClinicalFacts(factModel);
+        } finally {
+            // Assert
+            verify(knowledgeSessionPoolMock).invalidateSession(isA(PooledKnowledgeSession.class));
+        }
     }
 }
@@ -0,0 +1,144 @@
+package gov.samhsa.c2s.brms.service.guvnor;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link GuvnorServiceImpl} against a local stub HTTP server standing in for Guvnor.
+ */
+public class GuvnorServiceImplStubServerTest {
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin";
+    private static final String ETAG = "\"rules-v1\"";
+    private static final String RULES = "package AnnotationRules\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String endpointAddress;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final AtomicReference<String> lastIfNoneMatch = new AtomicReference<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/guvnor/rest/packages/AnnotationRules/source", exchange -> {
+            final String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            lastIfNoneMatch.set(ifNoneMatch);
+            if (ETAG.equals(ifNoneMatch)) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                final byte[] body = RULES.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(200, body.length);
+                try (final OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        endpointAddress = "http://localhost:" + server.getAddress().getPort() + "/guvnor/rest/packages/AnnotationRules/source";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGetVersionedRulesFromPackage_Unchanged_Package_Answered_With_304() throws IOException {
+        // Arrange
+        final GuvnorServiceImpl sut = new GuvnorServiceImpl(endpointAddress, USERNAME, PASSWORD);
+
+        // Act
+        final String first = sut.getVersionedRulesFromPackage();
+        sut.rulesActivated(first);
+        final String second = sut.getVersionedRulesFromPackage();
+
+        // Assert
+        assertEquals(RULES, first);
+        assertEquals(RULES, second);
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+        assertEquals(ETAG, lastIfNoneMatch.get());
+    }
+
+    @Test
+    public void testGetVersionedRulesFromPackage_Writes_Snapshot_Loaded_At_Startup() throws IOException {
+        // Arrange
+        final Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("rules.drl");
+        final GuvnorServiceImpl first = new GuvnorServiceImpl(endpointAddress, USERNAME, PASSWORD, snapshotFile.toString());
+        assertFalse(first.getRulesSnapshot().isPresent());
+
+        // Act
+        first.rulesActivated(first.getVersionedRulesFromPackage());
+        final GuvnorServiceImpl restarted = new GuvnorServiceImpl(endpointAddress, USERNAME, PASSWORD, snapshotFile.toString());
+        final Optional<String> snapshot = restarted.getRulesSnapshot();
+        final String fetchedAfterRestart = restarted.getVersionedRulesFromPackage();
+
+        // Assert
+        assertTrue(Files.isRegularFile(snapshotFile));
+        assertEquals(Optional.of(RULES), snapshot);
+        assertEquals(RULES, fetchedAfterRestart);
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @Test
+    public void testGetRulesSnapshot_Available_When_Guvnor_Is_Down() throws IOException {
+        // Arrange
+        final Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("rules.drl");
+        final GuvnorServiceImpl first = new GuvnorServiceImpl(endpointAddress, USERNAME, PASSWORD, snapshotFile.toString());
+        first.rulesActivated(first.getVersionedRulesFromPackage());
+        server.stop(0);
+
+        // Act
+        final GuvnorServiceImpl restarted = new GuvnorServiceImpl(endpointAddress, USERNAME, PASSWORD, snapshotFile.toString());
+
+        // Assert
+        assertEquals(Optional.of(RULES), restarted.getRulesSnapshot());
+    }
+
+    @Test
+    public void testGetVersionedRulesFromPackage_Rules_Not_Activated_Are_Not_Kept() throws IOException {
+        // Arrange
+        final Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("rules.drl");
+        final GuvnorServiceImpl sut = new GuvnorServiceImpl(endpointAddress, USERNAME, PASSWORD, snapshotFile.toString());
+
+        // Act
+        final String first = sut.getVersionedRulesFromPackage();
+        final String second = sut.getVersionedRulesFromPackage();
+
+        // Assert
+        assertEquals(RULES, first);
+        assertEquals(RULES, second);
+        assertEquals(2, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+        assertFalse(Files.exists(snapshotFile));
+        assertFalse(sut.getRulesSnapshot().isPresent());
+    }
+}
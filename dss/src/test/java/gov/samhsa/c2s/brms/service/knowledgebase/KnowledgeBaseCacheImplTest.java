@@ -0,0 +1,199 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.common.unit.io.ResourceFileReader;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KnowledgeBaseCacheImplTest {
+
+    @Mock
+    private GuvnorService guvnorServiceMock;
+    @Mock
+    private CounterService counterServiceMock;
+    @Mock
+    private GaugeService gaugeServiceMock;
+
+    private KnowledgeBaseCacheImpl sut;
+
+    private String rules;
+
+    private String brokenRules;
+
+    @Before
+    public void setUp() throws IOException {
+        rules = ResourceFileReader.getStringFromResourceFile("unitTestRules.txt");
+        brokenRules = rules + "\nrule \"Broken\"\nwhen\n    UnknownFact()\nthen\nend\n";
+        sut = new KnowledgeBaseCacheImpl(guvnorServiceMock, counterServiceMock, gaugeServiceMock);
+    }
+
+    @Test
+    public void testGetKnowledgeBase_Builds_Once_And_Caches() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(rules);
+
+        // Act
+        final VersionedKnowledgeBase first = sut.getKnowledgeBase();
+        final VersionedKnowledgeBase second = sut.getKnowledgeBase();
+
+        // Assert
+        assertNotNull(first.getKnowledgeBase());
+        assertSame(first, second);
+        assertEquals(KnowledgeBaseCacheImpl.hash(rules), first.getVersion());
+        verify(guvnorServiceMock, times(1)).getVersionedRulesFromPackage();
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_MISS);
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_HIT);
+        verify(gaugeServiceMock, times(1)).submit(eq(KnowledgeBaseCacheImpl.METRIC_REBUILD_DURATION), anyDouble());
+    }
+
+    @Test
+    public void testRefresh_Unchanged_Rules_Keeps_Active_Knowledge_Base() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(rules);
+        final VersionedKnowledgeBase before = sut.getKnowledgeBase();
+
+        // Act
+        sut.refresh();
+
+        // Assert
+        assertSame(before, sut.getKnowledgeBase());
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_REBUILD);
+    }
+
+    @Test
+    public void testRefresh_Changed_Rules_Activates_New_Version() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(rules).thenReturn(rules + "\n");
+        final VersionedKnowledgeBase before = sut.getKnowledgeBase();
+
+        // Act
+        sut.refresh();
+
+        // Assert
+        final VersionedKnowledgeBase after = sut.getKnowledgeBase();
+        assertNotEquals(before.getVersion(), after.getVersion());
+        assertEquals(before.getSequence() + 1, after.getSequence());
+        verify(gaugeServiceMock).submit(KnowledgeBaseCacheImpl.METRIC_ACTIVE_VERSION, 2);
+    }
+
+    @Test
+    public void testRefresh_Guvnor_Unavailable_Keeps_Active_Knowledge_Base() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(rules).thenThrow(new IOException("down"));
+        final VersionedKnowledgeBase before = sut.getKnowledgeBase();
+
+        // Act
+        sut.refresh();
+
+        // Assert
+        assertSame(before, sut.getKnowledgeBase());
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_REBUILD_FAILURE);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetKnowledgeBase_Guvnor_Unavailable_Without_Active_Knowledge_Base() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenThrow(new IOException("down"));
+
+        // Act
+        sut.getKnowledgeBase();
+    }
+
+    @Test
+    public void testLoadSnapshot_Activates_Snapshot_Without_Contacting_Guvnor() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getRulesSnapshot()).thenReturn(Optional.of(rules));
+
+        // Act
+        sut.loadSnapshot();
+        final VersionedKnowledgeBase knowledgeBase = sut.getKnowledgeBase();
+
+        // Assert
+        assertEquals(KnowledgeBaseCacheImpl.hash(rules), knowledgeBase.getVersion());
+        verify(guvnorServiceMock, never()).getVersionedRulesFromPackage();
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_HIT);
+    }
+
+    @Test
+    public void testLoadSnapshot_Skips_Snapshot_With_Compile_Errors() {
+        // Arrange
+        when(guvnorServiceMock.getRulesSnapshot()).thenReturn(Optional.of(brokenRules));
+        final Info.Builder info = new Info.Builder();
+
+        // Act
+        sut.loadSnapshot();
+
+        // Assert
+        sut.contribute(info);
+        assertFalse(info.build().getDetails().containsKey("rules"));
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_REBUILD_FAILURE);
+        verify(counterServiceMock, never()).increment(KnowledgeBaseCacheImpl.METRIC_REBUILD);
+    }
+
+    @Test
+    public void testRefresh_Reports_Activated_Rules() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(rules);
+
+        // Act
+        sut.refresh();
+        sut.refresh();
+
+        // Assert
+        verify(guvnorServiceMock, times(2)).rulesActivated(rules);
+    }
+
+    @Test
+    public void testRefresh_Rules_With_Compile_Errors_Are_Not_Reported_As_Activated() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(rules).thenReturn(brokenRules);
+        final VersionedKnowledgeBase before = sut.getKnowledgeBase();
+
+        // Act
+        sut.refresh();
+        sut.refresh();
+
+        // Assert
+        assertSame(before, sut.getKnowledgeBase());
+        verify(guvnorServiceMock, times(1)).rulesActivated(rules);
+        verify(guvnorServiceMock, never()).rulesActivated(brokenRules);
+        verify(counterServiceMock, times(1)).increment(KnowledgeBaseCacheImpl.METRIC_REBUILD_FAILURE);
+    }
+
+    @Test
+    public void testGetKnowledgeBase_Rules_With_Compile_Errors_Fill_Empty_Cache_Without_Being_Reported() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(brokenRules);
+
+        // Act
+        final VersionedKnowledgeBase knowledgeBase = sut.getKnowledgeBase();
+        sut.refresh();
+
+        // Assert
+        assertEquals(KnowledgeBaseCacheImpl.hash(brokenRules), knowledgeBase.getVersion());
+        verify(guvnorServiceMock, never()).rulesActivated(anyString());
+    }
+}
@@ -0,0 +1,211 @@
+package gov.samhsa.c2s.brms.service.knowledgebase;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.SubjectPurposeOfUse;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.brms.service.guvnor.GuvnorService;
+import gov.samhsa.c2s.common.unit.io.ResourceFileReader;
+import org.drools.KnowledgeBase;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class KnowledgeSessionPoolImplTest {
+
+    private static final String NO_CLINICAL_FACTS_RULE = "\n"
+            + "rule \"No clinical facts\"\n"
+            + "\twhen\n"
+            + "\t\tXacmlResult( )\n"
+            + "\t\tnot ClinicalFact( )\n"
+            + "\tthen\n"
+            + "\t\tRuleExecutionResponse $ruleExecutionResponse = new RuleExecutionResponse();\n"
+            + "\t\t$ruleExecutionResponse.setSensitivity( Sensitivity.ETH );\n"
+            + "\t\truleExecutionContainer.addExecutionResponse( $ruleExecutionResponse );\n"
+            + "end\n";
+
+    private static final String WITHOUT_FACTS_RULE = "\n"
+            + "rule \"Without facts\"\n"
+            + "\twhen\n"
+            + "\t\tnot ClinicalFact( )\n"
+            + "\tthen\n"
+            + "\t\tRuleExecutionResponse $ruleExecutionResponse = new RuleExecutionResponse();\n"
+            + "\t\t$ruleExecutionResponse.setSensitivity( Sensitivity.PSY );\n"
+            + "\t\truleExecutionContainer.addExecutionResponse( $ruleExecutionResponse );\n"
+            + "end\n";
+
+    @Mock
+    private GuvnorService guvnorServiceMock;
+    @Mock
+    private CounterService counterServiceMock;
+
+    private KnowledgeBaseCacheImpl knowledgeBaseCache;
+
+    @Before
+    public void setUp() throws IOException {
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(
+                ResourceFileReader.getStringFromResourceFile("unitTestRules.txt"));
+        knowledgeBaseCache = new KnowledgeBaseCacheImpl(guvnorServiceMock, mock(CounterService.class),
+                mock(GaugeService.class));
+    }
+
+    @Test
+    public void testBorrowSession_Reuses_Returned_Session() {
+        // Arrange
+        final KnowledgeSessionPoolImpl sut = new KnowledgeSessionPoolImpl(knowledgeBaseCache, counterServiceMock, 16);
+        final PooledKnowledgeSession first = sut.borrowSession();
+        first.getSession().insert(xacmlResult());
+        first.getSession().insert(substanceAbuseFact());
+        first.getSession().fireAllRules();
+        assertEquals(Collections.singleton("Substance abuse (disorder)"), first.getFiredRuleNames());
+        assertEquals(1, first.getRuleExecutionContainer().getSize());
+
+        // Act
+        sut.returnSession(first);
+        final PooledKnowledgeSession second = sut.borrowSession();
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(0, second.getSession().getFactCount());
+        assertTrue(second.getFiredRuleNames().isEmpty());
+        assertEquals(0, second.getRuleExecutionContainer().getSize());
+        verify(counterServiceMock, times(1)).increment(KnowledgeSessionPoolImpl.METRIC_MISS);
+        verify(counterServiceMock, times(1)).increment(KnowledgeSessionPoolImpl.METRIC_HIT);
+    }
+
+    @Test
+    public void testBorrowSession_New_Rule_Version_Discards_Idle_Sessions() {
+        // Arrange
+        final KnowledgeBase knowledgeBase = knowledgeBaseCache.getKnowledgeBase().getKnowledgeBase();
+        final KnowledgeBaseCache knowledgeBaseCacheMock = mock(KnowledgeBaseCache.class);
+        when(knowledgeBaseCacheMock.getKnowledgeBase())
+                .thenReturn(new VersionedKnowledgeBase("1", 1, knowledgeBase))
+                .thenReturn(new VersionedKnowledgeBase("2", 2, knowledgeBase));
+        final KnowledgeSessionPoolImpl sut = new KnowledgeSessionPoolImpl(knowledgeBaseCacheMock, counterServiceMock,
+                16);
+        final PooledKnowledgeSession first = sut.borrowSession();
+        sut.returnSession(first);
+
+        // Act
+        final PooledKnowledgeSession second = sut.borrowSession();
+
+        // Assert
+        assertNotSame(first, second);
+        assertEquals("2", second.getVersion());
+        verify(counterServiceMock, times(2)).increment(KnowledgeSessionPoolImpl.METRIC_MISS);
+    }
+
+    @Test
+    public void testReturnSession_Without_Idle_Sessions_Disposes_Session() {
+        // Arrange
+        final KnowledgeSessionPoolImpl sut = new KnowledgeSessionPoolImpl(knowledgeBaseCache, counterServiceMock, 0);
+        final PooledKnowledgeSession first = sut.borrowSession();
+
+        // Act
+        sut.returnSession(first);
+        final PooledKnowledgeSession second = sut.borrowSession();
+
+        // Assert
+        assertNotSame(first, second);
+        verify(counterServiceMock, times(1)).increment(KnowledgeSessionPoolImpl.METRIC_DISCARD);
+        verify(counterServiceMock, times(2)).increment(KnowledgeSessionPoolImpl.METRIC_MISS);
+    }
+
+    @Test
+    public void testBorrowSession_Reused_Session_Executes_Like_A_New_Session() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(
+                ResourceFileReader.getStringFromResourceFile("unitTestRules.txt") + NO_CLINICAL_FACTS_RULE);
+        knowledgeBaseCache = new KnowledgeBaseCacheImpl(guvnorServiceMock, mock(CounterService.class),
+                mock(GaugeService.class));
+        final KnowledgeSessionPoolImpl sut = new KnowledgeSessionPoolImpl(knowledgeBaseCache, counterServiceMock, 16);
+        final PooledKnowledgeSession first = sut.borrowSession();
+        execute(first, xacmlResult(), substanceAbuseFact());
+        sut.returnSession(first);
+        final PooledKnowledgeSession newSession = newSession();
+
+        // Act
+        final PooledKnowledgeSession reused = sut.borrowSession();
+        execute(reused, xacmlResult());
+        execute(newSession, xacmlResult());
+
+        // Assert
+        assertSame(first, reused);
+        assertEquals(Collections.singleton("No clinical facts"), reused.getFiredRuleNames());
+        assertEquals(newSession.getFiredRuleNames(), reused.getFiredRuleNames());
+        assertEquals(newSession.getRuleExecutionContainer(), reused.getRuleExecutionContainer());
+        newSession.dispose();
+    }
+
+    @Test
+    public void testReturnSession_Rule_Firing_Without_Facts_Gets_A_New_Session() throws IOException {
+        // Arrange
+        when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(
+                ResourceFileReader.getStringFromResourceFile("unitTestRules.txt") + WITHOUT_FACTS_RULE);
+        knowledgeBaseCache = new KnowledgeBaseCacheImpl(guvnorServiceMock, mock(CounterService.class),
+                mock(GaugeService.class));
+        final KnowledgeSessionPoolImpl sut = new KnowledgeSessionPoolImpl(knowledgeBaseCache, counterServiceMock, 16);
+        final PooledKnowledgeSession first = sut.borrowSession();
+        execute(first, xacmlResult());
+        sut.returnSession(first);
+        final PooledKnowledgeSession newSession = newSession();
+
+        // Act
+        final PooledKnowledgeSession second = sut.borrowSession();
+        execute(second, xacmlResult());
+        execute(newSession, xacmlResult());
+
+        // Assert
+        assertNotSame(first, second);
+        assertEquals(Collections.singleton("Without facts"), second.getFiredRuleNames());
+        assertEquals(newSession.getFiredRuleNames(), second.getFiredRuleNames());
+        assertEquals(newSession.getRuleExecutionContainer(), second.getRuleExecutionContainer());
+        verify(counterServiceMock, times(1)).increment(KnowledgeSessionPoolImpl.METRIC_DISCARD);
+        newSession.dispose();
+    }
+
+    private PooledKnowledgeSession newSession() {
+        final VersionedKnowledgeBase knowledgeBase = knowledgeBaseCache.getKnowledgeBase();
+        final PooledKnowledgeSession session = new PooledKnowledgeSession(knowledgeBase.getVersion(),
+                knowledgeBase.getKnowledgeBase().newStatefulKnowledgeSession());
+        session.prepare();
+        return session;
+    }
+
+    private static void execute(PooledKnowledgeSession session, Object... facts) {
+        for (Object fact : facts) {
+            session.getSession().insert(fact);
+        }
+        session.getSession().fireAllRules();
+    }
+
+    private static XacmlResult xacmlResult() {
+        final XacmlResult xacmlResult = new XacmlResult();
+        xacmlResult.setSubjectPurposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT);
+        return xacmlResult;
+    }
+
+    private static ClinicalFact substanceAbuseFact() {
+        final ClinicalFact clinicalFact = new ClinicalFact();
+        clinicalFact.setCode("66214007");
+        clinicalFact.setCodeSystem("2.16.840.1.113883.6.96");
+        clinicalFact.setC32SectionLoincCode("11450-4");
+        return clinicalFact;
+    }
+}
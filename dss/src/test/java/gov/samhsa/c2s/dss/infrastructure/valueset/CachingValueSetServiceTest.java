@@ -0,0 +1,135 @@
+package gov.samhsa.c2s.dss.infrastructure.valueset;
+
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingValueSetServiceTest {
+
+    private static final String SNOMED_CT = "2.16.840.1.113883.6.96";
+
+    private ValueSetService valueSetServiceMock;
+
+    private DssProperties dssProperties;
+
+    private CachingValueSetService sut;
+
+    @Before
+    public void setUp() {
+        valueSetServiceMock = mock(ValueSetService.class);
+        dssProperties = new DssProperties();
+        sut = new CachingValueSetService(valueSetServiceMock, dssProperties, mock(CounterService.class),
+                mock(GaugeService.class));
+    }
+
+    @Test
+    public void testLookupValueSetCategories_Looks_Up_Misses_Only() {
+        // Arrange
+        final ConceptCodeAndCodeSystemOidDto hiv = new ConceptCodeAndCodeSystemOidDto("111880001", SNOMED_CT);
+        final ConceptCodeAndCodeSystemOidDto pneumonia = new ConceptCodeAndCodeSystemOidDto("233604007", SNOMED_CT);
+        when(valueSetServiceMock.lookupValueSetCategories(Collections.singletonList(hiv))).thenReturn(
+                Collections.singletonList(new ValueSetCategoryMapResponseDto("111880001", SNOMED_CT,
+                        new HashSet<>(Collections.singletonList("HIV")))));
+        when(valueSetServiceMock.lookupValueSetCategories(Collections.singletonList(pneumonia)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        sut.lookupValueSetCategories(Collections.singletonList(hiv));
+        final List<ValueSetCategoryMapResponseDto> responses = sut.lookupValueSetCategories(Arrays.asList(hiv, pneumonia));
+        final List<ValueSetCategoryMapResponseDto> cachedResponses = sut.lookupValueSetCategories(Arrays.asList(hiv, pneumonia));
+
+        // Assert
+        assertEquals(1, responses.size());
+        assertEquals(Collections.singleton("HIV"), responses.get(0).getValueSetCategoryCodes());
+        assertEquals(responses, cachedResponses);
+        verify(valueSetServiceMock, times(1)).lookupValueSetCategories(Collections.singletonList(hiv));
+        verify(valueSetServiceMock, times(1)).lookupValueSetCategories(Collections.singletonList(pneumonia));
+    }
+
+    @Test
+    public void testLookupValueSetCategories_Looks_Up_Expired_Entries_Again() {
+        // Arrange
+        dssProperties.getValueSetCache().setTtlMillis(0);
+        sut = new CachingValueSetService(valueSetServiceMock, dssProperties, mock(CounterService.class),
+                mock(GaugeService.class));
+        final ConceptCodeAndCodeSystemOidDto hiv = new ConceptCodeAndCodeSystemOidDto("111880001", SNOMED_CT);
+        when(valueSetServiceMock.lookupValueSetCategories(anyListOf(ConceptCodeAndCodeSystemOidDto.class)))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        sut.lookupValueSetCategories(Collections.singletonList(hiv));
+        sut.lookupValueSetCategories(Collections.singletonList(hiv));
+
+        // Assert
+        verify(valueSetServiceMock, times(2)).lookupValueSetCategories(Collections.singletonList(hiv));
+    }
+
+    @Test
+    public void testGetAllValueSetCategories_Returns_Snapshot() {
+        // Arrange
+        when(valueSetServiceMock.getAllValueSetCategories()).thenReturn(Collections.singletonList(
+                new ValueSetCategoryResponseDto("HIV", "HIV/AIDS", "", true, 1, "")));
+
+        // Act
+        sut.getAllValueSetCategories();
+        final List<ValueSetCategoryResponseDto> categories = sut.getAllValueSetCategories();
+
+        // Assert
+        assertEquals(1, categories.size());
+        verify(valueSetServiceMock, times(1)).getAllValueSetCategories();
+    }
+
+    @Test
+    public void testRefresh_Keeps_Snapshot_When_Value_Set_Service_Fails() {
+        // Arrange
+        when(valueSetServiceMock.getAllValueSetCategories())
+                .thenReturn(Collections.singletonList(new ValueSetCategoryResponseDto("HIV", "HIV/AIDS", "", true, 1, "")))
+                .thenThrow(new IllegalStateException("vss is down"));
+        sut.refresh();
+
+        // Act
+        sut.refresh();
+
+        // Assert
+        assertEquals(1, sut.getAllValueSetCategories().size());
+    }
+
+    @Test
+    public void testGetCategoriesVersion_Changes_Only_When_Categories_Change() {
+        // Arrange
+        final ValueSetCategoryResponseDto hiv = new ValueSetCategoryResponseDto("HIV", "HIV/AIDS", "", true, 1, "");
+        final ValueSetCategoryResponseDto eth = new ValueSetCategoryResponseDto("ETH", "Substance abuse", "", true, 2, "");
+        when(valueSetServiceMock.getAllValueSetCategories())
+                .thenReturn(Collections.singletonList(hiv))
+                .thenReturn(Collections.singletonList(hiv))
+                .thenReturn(Arrays.asList(hiv, eth));
+        final long version = sut.getCategoriesVersion();
+
+        // Act
+        sut.refresh();
+        final long unchangedVersion = sut.getCategoriesVersion();
+        sut.refresh();
+        final long changedVersion = sut.getCategoriesVersion();
+
+        // Assert
+        assertEquals(version, unchangedVersion);
+        assertEquals(version + 1, changedVersion);
+    }
+}
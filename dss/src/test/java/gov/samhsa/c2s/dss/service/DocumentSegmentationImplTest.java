@@ -13,25 +13,30 @@
 import gov.samhsa.c2s.brms.domain.XacmlResult;
 import gov.samhsa.c2s.brms.service.RuleExecutionService;
 import gov.samhsa.c2s.brms.service.dto.AssertAndExecuteClinicalFactsResponse;
+import gov.samhsa.c2s.brms.service.dto.RuleExecutionResult;
 import gov.samhsa.c2s.common.audit.AuditClientImpl;
 import gov.samhsa.c2s.common.audit.AuditVerb;
 import gov.samhsa.c2s.common.audit.PredicateKey;
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessorImpl;
 import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
 import gov.samhsa.c2s.common.filereader.FileReader;
 import gov.samhsa.c2s.common.filereader.FileReaderImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
 import gov.samhsa.c2s.common.validation.XmlValidationResult;
 import gov.samhsa.c2s.common.validation.exception.InvalidXmlDocumentException;
 import gov.samhsa.c2s.common.validation.exception.XmlDocumentReadFailureException;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.infrastructure.DocumentValidatorClient;
+import gov.samhsa.c2s.dss.infrastructure.dto.ValidationRequestDto;
+import gov.samhsa.c2s.dss.infrastructure.dto.ValidationResponseDto;
 import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetServiceImplMock;
+import gov.samhsa.c2s.dss.service.cache.CachedSegmentation;
+import gov.samhsa.c2s.dss.service.cache.SegmentationResultCache;
 import gov.samhsa.c2s.dss.service.document.DocumentEditorImpl;
 import gov.samhsa.c2s.dss.service.document.DocumentFactModelExtractorImpl;
 import gov.samhsa.c2s.dss.service.document.DocumentRedactor;
 import gov.samhsa.c2s.dss.service.document.DocumentRedactorImpl;
 import gov.samhsa.c2s.dss.service.document.DocumentTaggerImpl;
-import gov.samhsa.c2s.dss.service.document.EmbeddedClinicalDocumentExtractorImpl;
 import gov.samhsa.c2s.dss.service.document.dto.RedactedDocument;
 import gov.samhsa.c2s.dss.service.dto.DSSRequest;
 import gov.samhsa.c2s.dss.service.dto.DSSResponse;
@@ -39,11 +44,18 @@
 import gov.samhsa.c2s.dss.service.exception.InvalidSegmentedClinicalDocumentException;
 import gov.samhsa.c2s.dss.service.metadata.AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl;
 import gov.samhsa.c2s.dss.service.metadata.MetadataGeneratorImpl;
+import gov.samhsa.c2s.dss.service.metrics.SegmentationMetrics;
+import gov.samhsa.c2s.dss.service.valueset.ClinicalFactCategorizerImpl;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
 import org.apache.xml.security.encryption.XMLCipher;
 import org.apache.xml.security.utils.EncryptionConstants;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
@@ -54,12 +66,21 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyMapOf;
@@ -94,7 +115,6 @@ public class DocumentSegmentationImplTest {
     private static SimpleMarshallerImpl marshallerMock;
     private static DocumentRedactor documentRedactorMock;
     private static DocumentTaggerImpl documentTaggerMock;
-    private static EmbeddedClinicalDocumentExtractorImpl embeddedClinicalDocumentExtractorMock;
     private static AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock;
     private static RedactedDocument redactedDocumentMock;
     private static String testOriginal_C32_xml;
@@ -239,6 +259,8 @@ public void setUp() throws
                 .thenReturn(factModelObj);
         when(marshallerMock.marshal(ruleExecutionContainerObj)).thenReturn(
                 testExecutionResponseContainer_xml);
+        doReturn(new RuleExecutionResult(ruleExecutionContainerObj, Collections.emptySet()))
+                .when(ruleExecutionServiceClientMock).executeClinicalFacts(factModelObj);
 
         // Documnent redactor
         documentRedactorMock = mock(DocumentRedactorImpl.class);
@@ -288,11 +310,6 @@ public void setUp() throws
                                 senderEmailAddress, recipientEmailAddress,
                                 PURPOSE_OF_USE, XDS_ENTRY_ID)).thenReturn(
                 testAdditionalMetadata_xml);
-        embeddedClinicalDocumentExtractorMock = mock(EmbeddedClinicalDocumentExtractorImpl.class);
-        when(
-                embeddedClinicalDocumentExtractorMock
-                        .extractClinicalDocumentFromFactModel(testFactModel_xml))
-                .thenReturn(testOriginal_C32_xml);
 
         final XmlValidationResult xmlValidationResultMock = mock(XmlValidationResult.class);
         when(xmlValidationResultMock.isValid()).thenReturn(true);
@@ -304,9 +321,10 @@ public void setUp() throws
                 documentRedactorMock,
                 documentTaggerMock,
                 documentFactModelExtractorMock,
-                embeddedClinicalDocumentExtractorMock,
-                new ValueSetServiceImplMock(fileReader),
-                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock);
+                documentXmlConverter,
+                new ClinicalFactCategorizerImpl(new ValueSetServiceImplMock(fileReader)),
+                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock,
+                new SegmentationMetrics(mock(CounterService.class), mock(GaugeService.class)));
     }
 
     @Test
@@ -420,17 +438,18 @@ public void testSegmentDocument_Given_Real_DocumentEditor_Throws_DS4PException()
         final XmlValidationResult xmlValidationResultTrue = mock(XmlValidationResult.class);
         when(xmlValidationResultTrue.isValid()).thenReturn(true);
         final DocumentEditorImpl realDocumentEditorImpl = new DocumentEditorImpl(
-                new MetadataGeneratorImpl(new XmlTransformerImpl(
-                        new SimpleMarshallerImpl())), new FileReaderImpl(),
+                new MetadataGeneratorImpl(new XslTemplatesRegistryImpl(
+                        mock(CounterService.class), mock(GaugeService.class))), new FileReaderImpl(),
                 new DocumentXmlConverterImpl(), new DocumentAccessorImpl());
 
         final DocumentSegmentationImpl documentSegmentationWithRealDocumentEditor = new DocumentSegmentationImpl(
                 ruleExecutionServiceClientMock,
                 realDocumentEditorImpl, marshallerMock, documentRedactorMock,
                 documentTaggerMock, documentFactModelExtractorMock,
-                embeddedClinicalDocumentExtractorMock,
-                new ValueSetServiceImplMock(fileReader),
-                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock);
+                documentXmlConverter,
+                new ClinicalFactCategorizerImpl(new ValueSetServiceImplMock(fileReader)),
+                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock,
+                new SegmentationMetrics(mock(CounterService.class), mock(GaugeService.class)));
         DSSRequest dssRequest = new DSSRequest();
         dssRequest.setDocument("".getBytes(StandardCharsets.UTF_8));
         dssRequest.setAudited(audited);
@@ -460,9 +479,10 @@ public void testSegmentDocument_Given_Real_Marshaller_Throws_DS4PException()
                 documentEditorMock, new SimpleMarshallerImpl(),
                 documentRedactorMock, documentTaggerMock,
                 documentFactModelExtractorMock,
-                embeddedClinicalDocumentExtractorMock,
-                new ValueSetServiceImplMock(fileReader),
-                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock);
+                documentXmlConverter,
+                new ClinicalFactCategorizerImpl(new ValueSetServiceImplMock(fileReader)),
+                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock,
+                new SegmentationMetrics(mock(CounterService.class), mock(GaugeService.class)));
         DSSRequest dssRequest = new DSSRequest();
         dssRequest.setDocument("".getBytes(StandardCharsets.UTF_8));
         dssRequest.setAudited(audited);
@@ -476,6 +496,83 @@ public void testSegmentDocument_Given_Real_Marshaller_Throws_DS4PException()
         // expect DS4PException
     }
 
+    @Test(expected = InvalidOriginalClinicalDocumentException.class)
+    public void testSegmentDocument_Given_Invalid_Original_Document_Throws_InvalidOriginalClinicalDocumentException()
+            throws Exception {
+        // Arrange
+        final ValidationResponseDto validationResponseDto = new ValidationResponseDto();
+        validationResponseDto.setDocumentType(DOCUMENT_TYPE_CCDA_R_2_1_CCD_V_3);
+        validationResponseDto.setDocumentValid(false);
+        validationResponseDto.setValidationResultDetails(new LinkedList<>());
+        final DocumentValidatorClient documentValidatorClientMock = mock(DocumentValidatorClient.class);
+        when(documentValidatorClientMock.validateClinicalDocument(any(ValidationRequestDto.class)))
+                .thenReturn(validationResponseDto);
+        final ExecutorService documentValidationExecutor = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(documentSegmentation, "documentValidatorClient", documentValidatorClientMock);
+        ReflectionTestUtils.setField(documentSegmentation, "documentValidationExecutor", documentValidationExecutor);
+        when(marshallerMock.marshal(xacmlResultObj)).thenReturn(xacmlResult);
+        DSSRequest dssRequest = new DSSRequest();
+        dssRequest.setDocument(testOriginal_C32_xml.getBytes(StandardCharsets.UTF_8));
+        dssRequest.setXacmlResult(xacmlResultObj);
+
+        try {
+            // Act
+            documentSegmentation.segmentDocument(dssRequest);
+        } finally {
+            documentValidationExecutor.shutdown();
+        }
+
+        // Assert
+        // the validation failure is reported even though the segmentation stages fail on the mocked documents
+    }
+
+    @Test
+    public void testSegmentDocument_Cached_Result_Gets_New_Creation_Date() throws Exception {
+        // Arrange
+        final DocumentEditorImpl realDocumentEditorImpl = new DocumentEditorImpl(
+                new MetadataGeneratorImpl(new XslTemplatesRegistryImpl(
+                        mock(CounterService.class), mock(GaugeService.class))), new FileReaderImpl(),
+                new DocumentXmlConverterImpl(), new DocumentAccessorImpl());
+        final DocumentSegmentationImpl documentSegmentationWithResultCache = new DocumentSegmentationImpl(
+                ruleExecutionServiceClientMock,
+                realDocumentEditorImpl, marshallerMock, documentRedactorMock,
+                documentTaggerMock, documentFactModelExtractorMock,
+                documentXmlConverter,
+                new ClinicalFactCategorizerImpl(new ValueSetServiceImplMock(fileReader)),
+                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock,
+                new SegmentationMetrics(mock(CounterService.class), mock(GaugeService.class)));
+        final DssProperties dssProperties = new DssProperties();
+        dssProperties.getResultCache().setAuditHits(false);
+        final DSSResponse cachedDssResponse = new DSSResponse();
+        cachedDssResponse.setSegmentedDocument(testTagged_C32_xml.getBytes(StandardCharsets.UTF_8));
+        cachedDssResponse.setEncoding(StandardCharsets.UTF_8.toString());
+        cachedDssResponse.setCCDADocument(true);
+        final SegmentationResultCache segmentationResultCacheMock = mock(SegmentationResultCache.class);
+        when(segmentationResultCacheMock.keyOf(any(DSSRequest.class))).thenReturn("key");
+        when(segmentationResultCacheMock.get("key")).thenReturn(Optional.of(new CachedSegmentation(cachedDssResponse,
+                DOCUMENT_TYPE_CCDA_R_2_1_CCD_V_3, "", Collections.emptySet(), Collections.emptySet(),
+                Collections.emptyMap())));
+        ReflectionTestUtils.setField(documentSegmentationWithResultCache, "dssProperties", dssProperties);
+        ReflectionTestUtils.setField(documentSegmentationWithResultCache, "segmentationResultCache",
+                Optional.of(segmentationResultCacheMock));
+        final DSSRequest dssRequest = new DSSRequest();
+        dssRequest.setDocument(testOriginal_C32_xml.getBytes(StandardCharsets.UTF_8));
+        dssRequest.setXacmlResult(xacmlResultObj);
+        final String cachedCreationDate = creationDateOf(testTagged_C32_xml);
+        final String segmentationStart = new SimpleDateFormat("yyyyMMddHHmm").format(new Date());
+
+        // Act
+        final DSSResponse dssResponse = documentSegmentationWithResultCache.segmentDocument(dssRequest);
+
+        // Assert
+        final String creationDate = creationDateOf(new String(dssResponse.getSegmentedDocument(),
+                StandardCharsets.UTF_8));
+        assertNotEquals(cachedCreationDate, creationDate);
+        assertTrue(creationDate.compareTo(segmentationStart) >= 0);
+        assertTrue(dssResponse.isCCDADocument());
+        assertEquals(testTagged_C32_xml, new String(cachedDssResponse.getSegmentedDocument(), StandardCharsets.UTF_8));
+    }
+
     //Fixme
     @Ignore
     @Test(expected = XmlDocumentReadFailureException.class)
@@ -494,9 +591,10 @@ public void testSegmentDocument_Given_Real_Marshaller_Throws_XmlDocumentReadFail
                 documentEditorMock, new SimpleMarshallerImpl(),
                 documentRedactorMock, documentTaggerMock,
                 documentFactModelExtractorMock,
-                embeddedClinicalDocumentExtractorMock,
-                new ValueSetServiceImplMock(fileReader),
-                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock);
+                documentXmlConverter,
+                new ClinicalFactCategorizerImpl(new ValueSetServiceImplMock(fileReader)),
+                additionalMetadataGeneratorForSegmentedClinicalDocumentImplMock,
+                new SegmentationMetrics(mock(CounterService.class), mock(GaugeService.class)));
         ReflectionTestUtils.setField(documentSegmentationWithRealMarshaller,
                 "clinicalDocumentValidation", clinicalDocumentValidationMock);
         final String notxml = "<notxml";
@@ -546,4 +644,9 @@ private ByteArrayOutputStream streamToOutputByteStream(
         }
         return output;
     }
+
+    private String creationDateOf(String document) {
+        return ((Element) documentXmlConverter.loadDocument(document)
+                .getElementsByTagNameNS("urn:hl7-org:v3", "effectiveTime").item(0)).getAttribute("value");
+    }
 }
@@ -0,0 +1,110 @@
+package gov.samhsa.c2s.dss.service;
+
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.service.dto.BatchItemResponse;
+import gov.samhsa.c2s.dss.service.dto.DSSBatchResponse;
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+import gov.samhsa.c2s.dss.service.exception.BatchTooLargeException;
+import gov.samhsa.c2s.dss.service.exception.InvalidOriginalClinicalDocumentException;
+import gov.samhsa.c2s.dss.service.exception.InvalidSegmentationRequestException;
+import org.junit.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.stream.Collectors.toList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentationBatchTest {
+
+    @Test
+    public void testCollect_Reports_Failed_Items_Without_Failing_The_Batch() {
+        // Arrange
+        final CompletableFuture<String> invalid = new CompletableFuture<>();
+        invalid.completeExceptionally(new InvalidOriginalClinicalDocumentException("invalid"));
+        final CompletableFuture<String> failed = CompletableFuture.supplyAsync(() -> {
+            throw new IllegalStateException("failed");
+        });
+        final List<CompletableFuture<String>> items = Arrays.asList(
+                CompletableFuture.completedFuture("first"), invalid, failed);
+
+        // Act
+        final DSSBatchResponse<String> response = SegmentationBatch.collect(items);
+
+        // Assert
+        final List<BatchItemResponse<String>> responses = response.getItems();
+        assertEquals(3, responses.size());
+        assertEquals(200, responses.get(0).getStatus());
+        assertEquals("first", responses.get(0).getResponse());
+        assertNull(responses.get(0).getError());
+        assertEquals(1, responses.get(1).getIndex());
+        assertEquals(400, responses.get(1).getStatus());
+        assertEquals("invalid", responses.get(1).getError());
+        assertEquals(500, responses.get(2).getStatus());
+        assertEquals("failed", responses.get(2).getError());
+        assertNull(responses.get(2).getResponse());
+    }
+
+    @Test
+    public void testCompleted_Skips_Failed_Items() {
+        // Arrange
+        final CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("failed"));
+
+        // Act
+        final List<String> completed = SegmentationBatch.completed(Arrays.asList(
+                CompletableFuture.completedFuture("first"), failed, CompletableFuture.completedFuture("third")));
+
+        // Assert
+        assertEquals(Arrays.asList("first", "third"), completed);
+    }
+
+    @Test(expected = BatchTooLargeException.class)
+    public void testAssertBatchSize_Rejects_Oversized_Batch() {
+        SegmentationBatch.assertBatchSize(3, 2);
+    }
+
+    @Test
+    public void testCollect_Invalid_Request_Only_Fails_Its_Own_Item() {
+        // Arrange
+        final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        final DSSRequest withoutDocument = request();
+        withoutDocument.setDocument(null);
+        final List<DSSRequest> requests = Arrays.asList(request(), withoutDocument, request());
+
+        // Act
+        final DSSBatchResponse<String> response = SegmentationBatch.collect(requests.stream()
+                .map(request -> CompletableFuture.supplyAsync(() -> SegmentationBatch.validated(validator, request))
+                        .thenApply(valid -> new String(valid.getDocument(), StandardCharsets.UTF_8)))
+                .collect(toList()));
+
+        // Assert
+        final List<BatchItemResponse<String>> responses = response.getItems();
+        assertEquals(200, responses.get(0).getStatus());
+        assertEquals("<ClinicalDocument/>", responses.get(0).getResponse());
+        assertEquals(400, responses.get(1).getStatus());
+        assertTrue(responses.get(1).getError().contains("document"));
+        assertNull(responses.get(1).getResponse());
+        assertEquals(200, responses.get(2).getStatus());
+        assertEquals("<ClinicalDocument/>", responses.get(2).getResponse());
+    }
+
+    @Test(expected = InvalidSegmentationRequestException.class)
+    public void testValidated_Rejects_Missing_Request() {
+        SegmentationBatch.validated(Validation.buildDefaultValidatorFactory().getValidator(), null);
+    }
+
+    private static DSSRequest request() {
+        final DSSRequest request = new DSSRequest();
+        request.setXacmlResult(new XacmlResult());
+        request.setDocument("<ClinicalDocument/>".getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,139 @@
+package gov.samhsa.c2s.dss.service.audit;
+
+import ch.qos.logback.audit.AuditException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.common.audit.AuditClient;
+import gov.samhsa.c2s.common.audit.AuditVerb;
+import gov.samhsa.c2s.common.audit.PredicateKey;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class AuditQueueImplTest {
+
+    private static final String MESSAGE_ID = "cf8cace6-6331-4a45-8e79-5bf503925be4";
+    private static final String PATIENT_ID = "PUI100010060001";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private AuditQueueImpl sut;
+
+    @After
+    public void tearDown() {
+        if (sut != null) {
+            sut.stop();
+        }
+    }
+
+    @Test
+    public void testOffer_Submits_In_Background() throws Exception {
+        // Arrange
+        final AuditClient auditClient = mock(AuditClient.class);
+        sut = createAuditQueue(auditClient, 10, null);
+        sut.start();
+
+        // Act
+        sut.offer(auditEvent(), false);
+
+        // Assert
+        verify(auditClient, timeout(5000)).audit(eq(this), eq(MESSAGE_ID), eq(DssAuditVerb.SEGMENT_DOCUMENT),
+                eq(PATIENT_ID), anyMapOf(PredicateKey.class, String.class));
+    }
+
+    @Test
+    public void testOffer_Spills_When_Audit_Service_Fails() throws Exception {
+        // Arrange
+        final AuditClient auditClient = mock(AuditClient.class);
+        doThrow(new AuditException("down")).when(auditClient).audit(anyObject(), anyString(), any(AuditVerb.class),
+                anyString(), anyMapOf(PredicateKey.class, String.class));
+        final File spillFile = new File(temporaryFolder.getRoot(), "spill/audit-spill.log");
+        sut = createAuditQueue(auditClient, 10, spillFile.getPath());
+        sut.start();
+
+        // Act
+        sut.offer(auditEvent(), false);
+        sut.stop();
+
+        // Assert
+        final List<String> lines = Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains(MESSAGE_ID));
+        assertTrue(lines.get(0).contains("\"SEGMENTED_DOCUMENT\":\"<ClinicalDocument/>\""));
+    }
+
+    @Test
+    public void testOffer_Spills_When_Queue_Is_Full() throws Exception {
+        // Arrange
+        final File spillFile = new File(temporaryFolder.getRoot(), "audit-spill.log");
+        sut = createAuditQueue(mock(AuditClient.class), 1, spillFile.getPath());
+
+        // Act
+        // the workers are not started, so nothing is queued
+        sut.offer(auditEvent(), false);
+        sut.offer(auditEvent(), false);
+
+        // Assert
+        assertEquals(2, Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8).size());
+    }
+
+    @Test(expected = AuditException.class)
+    public void testOffer_Throws_AuditException_When_Event_Cannot_Be_Recorded() throws Exception {
+        // Arrange
+        sut = createAuditQueue(mock(AuditClient.class), 1, null);
+
+        // Act
+        sut.offer(auditEvent(), false);
+    }
+
+    @Test
+    public void testOffer_Bypasses_Failure_When_Event_Cannot_Be_Recorded() throws Exception {
+        // Arrange
+        sut = createAuditQueue(mock(AuditClient.class), 1, null);
+
+        // Act
+        sut.offer(auditEvent(), true);
+
+        // Assert
+        // no exception is thrown
+    }
+
+    private AuditQueueImpl createAuditQueue(AuditClient auditClient, int capacity, String spillFile) {
+        final DssProperties dssProperties = new DssProperties();
+        dssProperties.getAuditQueue().setCapacity(capacity);
+        dssProperties.getAuditQueue().setSpillFile(spillFile);
+        return new AuditQueueImpl(Optional.of(auditClient), dssProperties, new ObjectMapper(),
+                mock(CounterService.class), mock(GaugeService.class));
+    }
+
+    private AuditEvent auditEvent() {
+        final Map<PredicateKey, String> predicateMap = new HashMap<>();
+        predicateMap.put(DssPredicateKey.SEGMENTED_DOCUMENT, "<ClinicalDocument/>");
+        return new AuditEvent(this, MESSAGE_ID, DssAuditVerb.SEGMENT_DOCUMENT, PATIENT_ID, predicateMap,
+                System.currentTimeMillis());
+    }
+}
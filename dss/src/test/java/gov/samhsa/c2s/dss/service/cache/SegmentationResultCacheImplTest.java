@@ -0,0 +1,198 @@
+package gov.samhsa.c2s.dss.service.cache;
+
+import gov.samhsa.c2s.brms.domain.SubjectPurposeOfUse;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeBaseCache;
+import gov.samhsa.c2s.brms.service.knowledgebase.VersionedKnowledgeBase;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.infrastructure.valueset.CachingValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+import gov.samhsa.c2s.dss.service.dto.DSSResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SegmentationResultCacheImplTest {
+
+    private static final String DOCUMENT = "<ClinicalDocument/>";
+    private static final ConceptCodeAndCodeSystemOidDto HIV = new ConceptCodeAndCodeSystemOidDto("111880001",
+            "2.16.840.1.113883.6.96");
+
+    @Mock
+    private KnowledgeBaseCache knowledgeBaseCacheMock;
+    @Mock
+    private CachingValueSetService cachingValueSetServiceMock;
+    @Mock
+    private CounterService counterServiceMock;
+    @Mock
+    private GaugeService gaugeServiceMock;
+
+    private DssProperties dssProperties;
+
+    private SegmentationResultCacheImpl sut;
+
+    @Before
+    public void setUp() {
+        when(knowledgeBaseCacheMock.getKnowledgeBase()).thenReturn(new VersionedKnowledgeBase("v1", 1, null));
+        when(cachingValueSetServiceMock.getCategoriesVersion()).thenReturn(1L);
+        when(cachingValueSetServiceMock.lookupValueSetCategories(Collections.singletonList(HIV)))
+                .thenReturn(Collections.singletonList(hivCategories()));
+        dssProperties = new DssProperties();
+        sut = new SegmentationResultCacheImpl(knowledgeBaseCacheMock, cachingValueSetServiceMock, dssProperties,
+                counterServiceMock, gaugeServiceMock);
+    }
+
+    @Test
+    public void testGet_Returns_Put_Segmentation() {
+        // Arrange
+        final String key = sut.keyOf(dssRequest("ETH", "PSY"));
+        sut.put(key, cachedSegmentation("<segmented/>"));
+
+        // Act
+        final Optional<CachedSegmentation> cached = sut.get(key);
+
+        // Assert
+        assertTrue(cached.isPresent());
+        final DSSResponse dssResponse = cached.get().getDssResponse();
+        assertArrayEquals("<segmented/>".getBytes(StandardCharsets.UTF_8), dssResponse.getSegmentedDocument());
+        assertNull(dssResponse.getTryPolicyDocument());
+        assertEquals("UTF-8", dssResponse.getEncoding());
+        assertTrue(dssResponse.isCCDADocument());
+        assertEquals("CCDA_R2_1_CCD_V3", cached.get().getDocumentType());
+        assertEquals("rule1", cached.get().getRulesFired());
+        assertEquals(Collections.singleton("46240-8"), cached.get().getRedactedSectionSet());
+        assertEquals(new HashSet<>(Arrays.asList("ETH", "PSY")), cached.get().getRedactedCategorySet());
+        assertEquals(Collections.singletonMap(HIV, Collections.singleton("HIV")), cached.get().getConceptCategories());
+        verify(counterServiceMock).increment(SegmentationResultCacheImpl.METRIC_HIT);
+    }
+
+    @Test
+    public void testGet_Segmentation_Is_A_Miss_When_Concept_Categories_Change() {
+        // Arrange
+        when(cachingValueSetServiceMock.lookupValueSetCategories(Collections.singletonList(HIV)))
+                .thenReturn(Collections.singletonList(hivCategories()))
+                .thenReturn(Collections.emptyList());
+        sut.put("key", cachedSegmentation("<segmented/>"));
+
+        // Act
+        final Optional<CachedSegmentation> unchanged = sut.get("key");
+        final Optional<CachedSegmentation> changed = sut.get("key");
+
+        // Assert
+        assertTrue(unchanged.isPresent());
+        assertFalse(changed.isPresent());
+        assertFalse(sut.get("key").isPresent());
+        verify(counterServiceMock).increment(SegmentationResultCacheImpl.METRIC_HIT);
+    }
+
+    @Test
+    public void testKeyOf_Ignores_Obligation_Order() {
+        // Act
+        final String key = sut.keyOf(dssRequest("ETH", "PSY"));
+        final String reorderedKey = sut.keyOf(dssRequest("PSY", "ETH"));
+
+        // Assert
+        assertEquals(key, reorderedKey);
+        assertNotEquals(key, sut.keyOf(dssRequest("ETH")));
+    }
+
+    @Test
+    public void testKeyOf_Changes_With_Rule_And_Value_Set_Versions() {
+        // Arrange
+        final String key = sut.keyOf(dssRequest("ETH"));
+
+        // Act
+        when(knowledgeBaseCacheMock.getKnowledgeBase()).thenReturn(new VersionedKnowledgeBase("v2", 2, null));
+        final String newRulesKey = sut.keyOf(dssRequest("ETH"));
+        when(cachingValueSetServiceMock.getCategoriesVersion()).thenReturn(2L);
+        final String newValueSetsKey = sut.keyOf(dssRequest("ETH"));
+
+        // Assert
+        assertNotEquals(key, newRulesKey);
+        assertNotEquals(newRulesKey, newValueSetsKey);
+    }
+
+    @Test
+    public void testPut_Evicts_Least_Recently_Used_When_Max_Bytes_Exceeded() {
+        // Arrange
+        final int size = SegmentationResultCacheImpl.compress(cachedSegmentation("<first/>")).length;
+        dssProperties.getResultCache().setMaxBytes(size * 2);
+        sut = new SegmentationResultCacheImpl(knowledgeBaseCacheMock, cachingValueSetServiceMock, dssProperties,
+                counterServiceMock, gaugeServiceMock);
+        sut.put("first", cachedSegmentation("<first/>"));
+        sut.put("second", cachedSegmentation("<secnd/>"));
+        sut.get("first");
+
+        // Act
+        sut.put("third", cachedSegmentation("<third/>"));
+
+        // Assert
+        assertTrue(sut.get("first").isPresent());
+        assertFalse(sut.get("second").isPresent());
+        assertTrue(sut.get("third").isPresent());
+        verify(counterServiceMock).increment(SegmentationResultCacheImpl.METRIC_EVICTION);
+    }
+
+    @Test
+    public void testGet_Expired_Segmentation_Is_A_Miss() {
+        // Arrange
+        dssProperties.getResultCache().setTtlMillis(0);
+        sut = new SegmentationResultCacheImpl(knowledgeBaseCacheMock, cachingValueSetServiceMock, dssProperties,
+                counterServiceMock, gaugeServiceMock);
+        sut.put("key", cachedSegmentation("<segmented/>"));
+
+        // Act
+        final Optional<CachedSegmentation> cached = sut.get("key");
+
+        // Assert
+        assertFalse(cached.isPresent());
+        verify(counterServiceMock).increment(SegmentationResultCacheImpl.METRIC_MISS);
+    }
+
+    private static DSSRequest dssRequest(String... pdpObligations) {
+        final XacmlResult xacmlResult = new XacmlResult();
+        xacmlResult.setSubjectPurposeOfUse(SubjectPurposeOfUse.HEALTHCARE_TREATMENT);
+        xacmlResult.setPdpObligations(Arrays.asList(pdpObligations));
+        final DSSRequest dssRequest = new DSSRequest();
+        dssRequest.setDocument(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+        dssRequest.setXacmlResult(xacmlResult);
+        return dssRequest;
+    }
+
+    private static CachedSegmentation cachedSegmentation(String segmentedDocument) {
+        final DSSResponse dssResponse = new DSSResponse();
+        dssResponse.setSegmentedDocument(segmentedDocument.getBytes(StandardCharsets.UTF_8));
+        dssResponse.setEncoding("UTF-8");
+        dssResponse.setCCDADocument(true);
+        return new CachedSegmentation(dssResponse, "CCDA_R2_1_CCD_V3", "rule1", Collections.singleton("46240-8"),
+                new HashSet<>(Arrays.asList("ETH", "PSY")),
+                Collections.singletonMap(HIV, Collections.singleton("HIV")));
+    }
+
+    private static ValueSetCategoryMapResponseDto hivCategories() {
+        return new ValueSetCategoryMapResponseDto(HIV.getCodedConceptCode(), HIV.getCodeSystemOid(),
+                Collections.singleton("HIV"));
+    }
+}
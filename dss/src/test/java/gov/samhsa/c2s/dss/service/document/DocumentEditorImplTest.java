@@ -89,6 +89,19 @@ public void testSetDocumentCreationDate() {
         assertNotEquals(e1.getAttribute("value"), e2.getAttribute("value"));
     }
 
+    @Test
+    public void testSetDocumentCreationDate_Document() throws Exception {
+        // Arrange
+        final Document c32DocumentTemp = documentXmlConverter.loadDocument(c32);
+
+        // Act
+        documentEditor.setDocumentCreationDate(c32DocumentTemp);
+
+        // Assert
+        assertNotEquals(EXPECTED_DATE, documentAccessor.getElement(c32DocumentTemp, xPathDate).get()
+                .getAttribute("value"));
+    }
+
     @Test
     public void testSetDocumentPayloadRawData_PackageAsXdmFalse() {
         // Arrange
@@ -1,31 +1,59 @@
 package gov.samhsa.c2s.dss.service.document;
 
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
 import gov.samhsa.c2s.common.filereader.FileReaderImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
 import gov.samhsa.c2s.common.unit.xml.XmlComparator;
+import gov.samhsa.c2s.dss.service.document.dto.ExtractedFactModel;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 public class DocumentFactModelExtractorImplTest {
 
     private static final String SAMPLE_C32_LOCATION = "sampleC32/";
     private static final String SAMPLE_OUTPUT_LOCATION = "sampleC32/output/";
+    private static final String HL7_NAMESPACE = "urn:hl7-org:v3";
+    private static final String[] EQUIVALENCE_SAMPLES = {
+            "sampleC32/c32.xml",
+            "sampleC32/CCD_HITSP_C32_ALL_TemplateIdsAtRoot.xml",
+            "sampleC32/CCD_HITSP_C32_HistoryAndMedications_WithAllR2Elements.xml",
+            "sampleC32/CCD_HITSP_C32_Medications_Template_Robust.xml",
+            "sampleC32/CCD_HITSP_C32_Minimal_NoSections_Valid.xml",
+            "sampleC32/CCD_HITSP_C32_v2.1_Examples.xml",
+            "sampleC32/HITSP_C32v2.5_Rev6_16Sections_Entries_MinimalErrors.xml",
+            "sampleC32/JohnHalamkaCCDDocument_C32.xml",
+            "sampleC32/SegmentedDocumentContentProfileSample.xml",
+            "c-cda-r2-0/C-CDA_R2_CCD.XML",
+            "c-cda-r2-0/C-CDA_R2_Care_Plan.xml",
+            "c-cda-r2-0/C-CDA_R2_Discharge_Summary.xml",
+            "c-cda-r2-1/C-CDA_R2-1_CCD.xml"};
     private static FileReaderImpl fileReader;
     private static String xacmlResult;
     private static DocumentFactModelExtractorImpl documentFactModelExtractor;
-    private static XmlTransformer xmlTransformer;
+    private static XslTemplatesRegistry xslTemplatesRegistry;
 
     @BeforeClass
     public static void setUp() throws Exception {
@@ -35,9 +63,9 @@ public static void setUp() throws Exception {
         XMLUnit.setIgnoreComments(true);
         fileReader = new FileReaderImpl();
         xacmlResult = "<xacmlResult><pdpDecision>Permit</pdpDecision><purposeOfUse>TREATMENT</purposeOfUse><messageId>4617a579-1881-4e40-9f98-f85bd81d6502</messageId><homeCommunityId>2.16.840.1.113883.3.467</homeCommunityId><pdpObligation>urn:oasis:names:tc:xspa:2.0:resource:org:us-privacy-law:42CFRPart2</pdpObligation><pdpObligation>urn:oasis:names:tc:xspa:2.0:resource:org:refrain-policy:NORDSLCD</pdpObligation><pdpObligation>urn:oasis:names:tc:xspa:2.0:resource:patient:redact:ETH</pdpObligation><pdpObligation>urn:oasis:names:tc:xspa:2.0:resource:patient:redact:PSY</pdpObligation><pdpObligation>urn:oasis:names:tc:xspa:2.0:resource:patient:mask:HIV</pdpObligation></xacmlResult>";
-        xmlTransformer = new XmlTransformerImpl(new SimpleMarshallerImpl());
+        xslTemplatesRegistry = new XslTemplatesRegistryImpl(mock(CounterService.class), mock(GaugeService.class));
         documentFactModelExtractor = new DocumentFactModelExtractorImpl(
-                xmlTransformer);
+                xslTemplatesRegistry);
     }
 
     @Test
@@ -265,6 +293,51 @@ public void testExtractFactModel_SegmentedDocumentContentProfileSample_Xml()
         testFactModelExtraction(c32FileName, ignoreList);
     }
 
+    @Test
+    public void testExtractFactModel_Single_Pass_Is_Equivalent_To_Stylesheet() throws Exception {
+        final DocumentXmlConverterImpl documentXmlConverter = new DocumentXmlConverterImpl();
+        final SimpleMarshallerImpl marshaller = new SimpleMarshallerImpl();
+        for (String sample : EQUIVALENCE_SAMPLES) {
+            // Arrange
+            final String cd = fileReader.readFile(sample);
+            final Document stylesheetDocument = documentXmlConverter.loadDocument(cd);
+            final Document singlePassDocument = documentXmlConverter.loadDocument(cd);
+
+            // Act
+            final Document stylesheetFactModelDocument = documentFactModelExtractor.extractFactModel(
+                    stylesheetDocument, xacmlResult);
+            final ExtractedFactModel extractedFactModel = documentFactModelExtractor.extractFactModel(
+                    singlePassDocument, new XacmlResult());
+
+            // Assert
+            final Element embeddedClinicalDocument = (Element) stylesheetFactModelDocument
+                    .getElementsByTagNameNS(HL7_NAMESPACE, "EmbeddedClinicalDocument").item(0);
+            final Element stylesheetClinicalDocument = (Element) embeddedClinicalDocument
+                    .getElementsByTagNameNS(HL7_NAMESPACE, "ClinicalDocument").item(0);
+            final Map<String, String> stylesheetIds = normalizeGeneratedIds(stylesheetClinicalDocument);
+            final Map<String, String> singlePassIds = normalizeGeneratedIds(singlePassDocument.getDocumentElement());
+            assertEquals(sample, stylesheetIds.size(), singlePassIds.size());
+
+            embeddedClinicalDocument.getParentNode().removeChild(embeddedClinicalDocument);
+            final FactModel stylesheetFactModel = marshaller.unmarshalFromXml(FactModel.class,
+                    documentXmlConverter.convertXmlDocToString(stylesheetFactModelDocument));
+            final FactModel singlePassFactModel = extractedFactModel.getFactModel();
+            stylesheetFactModel.getClinicalFactList().forEach(fact -> fact.setEntry(stylesheetIds.get(fact.getEntry())));
+            singlePassFactModel.getClinicalFactList().forEach(fact -> fact.setEntry(singlePassIds.get(fact.getEntry())));
+            stylesheetFactModel.getEntryReferences().forEach(reference -> reference.setEntry(
+                    stylesheetIds.get(reference.getEntry())));
+            singlePassFactModel.getEntryReferences().forEach(reference -> reference.setEntry(
+                    singlePassIds.get(reference.getEntry())));
+            assertEquals(sample, stylesheetFactModel.getClinicalFactList(), singlePassFactModel.getClinicalFactList());
+            assertEquals(sample, stylesheetFactModel.getEntryReferences(), singlePassFactModel.getEntryReferences());
+            assertEquals(sample, singlePassFactModel.getEntryReferences().size(), extractedFactModel
+                    .getFactModelDocument().getElementsByTagName("EntryReference").getLength());
+
+            assertXMLEqual(sample, documentOf(documentXmlConverter, stylesheetClinicalDocument),
+                    documentOf(documentXmlConverter, singlePassDocument.getDocumentElement()));
+        }
+    }
+
     @Test(expected = DocumentSegmentationException.class)
     public void testExtractFactModel_Throws_DocumentSegmentationException() {
         // Empty xml file
@@ -273,6 +346,34 @@ public void testExtractFactModel_Throws_DocumentSegmentationException() {
                 "", xacmlResult);
     }
 
+    /**
+     * Replaces the generated ids, which differ between the stylesheet and the single pass extraction, with their
+     * position in the document.
+     *
+     * @return the normalized ids by generated id, the empty id is kept
+     */
+    private static Map<String, String> normalizeGeneratedIds(Element clinicalDocument) {
+        final Map<String, String> normalizedIds = new HashMap<>();
+        normalizedIds.put("", "");
+        for (String generatedIdElementName : new String[]{"generatedEntryId", "generatedServiceEventId"}) {
+            final NodeList generatedIds = clinicalDocument.getElementsByTagNameNS(HL7_NAMESPACE,
+                    generatedIdElementName);
+            for (int i = 0; i < generatedIds.getLength(); i++) {
+                final String normalizedId = generatedIdElementName + i;
+                normalizedIds.put(generatedIds.item(i).getTextContent(), normalizedId);
+                generatedIds.item(i).setTextContent(normalizedId);
+            }
+        }
+        return normalizedIds;
+    }
+
+    private static Document documentOf(DocumentXmlConverterImpl documentXmlConverter, Element element)
+            throws Exception {
+        final Document document = documentXmlConverter.loadDocument("<root/>");
+        document.replaceChild(document.importNode(element, true), document.getDocumentElement());
+        return document;
+    }
+
     private void testFactModelExtraction(String c32FileName)
             throws IOException, SAXException {
         final String cd = fileReader
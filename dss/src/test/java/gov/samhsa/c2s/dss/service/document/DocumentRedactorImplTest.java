@@ -13,8 +13,6 @@
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessor;
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessorImpl;
 import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
 import gov.samhsa.c2s.common.filereader.FileReaderImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
 import gov.samhsa.c2s.dss.config.DssProperties;
@@ -35,10 +33,14 @@
 import gov.samhsa.c2s.dss.service.document.redact.impl.postredactionlevel.RuleExecutionResponseMarkerForRedactedEntries;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
 import gov.samhsa.c2s.dss.service.metadata.MetadataGeneratorImpl;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -116,7 +118,7 @@ public class DocumentRedactorImplTest {
     private static XacmlResult xacmlResultMock;
     private static DocumentRedactor documentRedactor;
 
-    private XmlTransformer xmlTransformer;
+    private XslTemplatesRegistry xslTemplatesRegistry;
     private String c32;
     private String robustC32;
     private String xacmlResult;
@@ -241,12 +243,12 @@ public void setUp() throws Exception {
         // Arrange
         fileReader = new FileReaderImpl();
         marshaller = new SimpleMarshallerImpl();
-        xmlTransformer = new XmlTransformerImpl(marshaller);
-        factModelExtractor = new DocumentFactModelExtractorImpl(xmlTransformer);
+        xslTemplatesRegistry = new XslTemplatesRegistryImpl(mock(CounterService.class), mock(GaugeService.class));
+        factModelExtractor = new DocumentFactModelExtractorImpl(xslTemplatesRegistry);
         documentXmlConverter = new DocumentXmlConverterImpl();
         documentAccessor = new DocumentAccessorImpl();
         documentEditor = new DocumentEditorImpl(new MetadataGeneratorImpl(
-                xmlTransformer), fileReader, documentXmlConverter,
+                xslTemplatesRegistry), fileReader, documentXmlConverter,
                 documentAccessor);
         documentAccessorMock = mock(DocumentAccessorImpl.class);
         valueSetService = new ValueSetServiceImplMock(fileReader);
@@ -327,6 +329,24 @@ public void testCleanUpGeneratedEntryIds() throws Exception {
         assertTrue(foundGeneratedEntryIds.getLength() == 0);
     }
 
+    @Test
+    public void testCleanUpGeneratedEntryIds_Document() throws Exception {
+        // Arrange
+        initDocumentRedactorWithActualServices();
+        final Document c32WithGeneratedEntryIds = documentXmlConverter
+                .loadDocument(fileReader.readFile("testC32WithGeneratedEntryIds.xml"));
+        final String xPathExpr = "//hl7:generatedEntryId";
+        // original document must have entry ids
+        assertTrue(documentAccessor.getNodeList(c32WithGeneratedEntryIds, xPathExpr).getLength() > 0);
+
+        // Act
+        documentRedactor.cleanUpGeneratedEntryIds(c32WithGeneratedEntryIds);
+
+        // Assert
+        // the same document must not have any entry id elements left
+        assertTrue(documentAccessor.getNodeList(c32WithGeneratedEntryIds, xPathExpr).getLength() == 0);
+    }
+
     @SuppressWarnings("unchecked")
     @Test(expected = DocumentSegmentationException.class)
     public void testCleanUpGeneratedEntryIds_Throws_Exception()
@@ -3,19 +3,22 @@
 import gov.samhsa.c2s.brms.domain.FactModel;
 import gov.samhsa.c2s.brms.service.RuleExecutionServiceImpl;
 import gov.samhsa.c2s.brms.service.guvnor.GuvnorServiceImpl;
+import gov.samhsa.c2s.brms.service.knowledgebase.KnowledgeBaseCacheImpl;
 import gov.samhsa.c2s.common.document.accessor.DocumentAccessorImpl;
 import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
 import gov.samhsa.c2s.common.filereader.FileReaderImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
 import gov.samhsa.c2s.common.namespace.DefaultNamespaceContext;
 import gov.samhsa.c2s.dss.config.CustomSection;
 import gov.samhsa.c2s.dss.config.DocumentTaggerConfig;
 import gov.samhsa.c2s.dss.service.exception.DocumentSegmentationException;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
 import org.apache.xml.security.encryption.XMLEncryptionException;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -81,7 +84,7 @@ public class DocumentTaggerImplTest {
     private static DocumentXmlConverterImpl documentXmlConverter;
     private static DocumentTaggerImpl documentTagger;
 
-    private XmlTransformer xmlTransformer;
+    private XslTemplatesRegistry xslTemplatesRegistry;
 
     @Before
     public void setUp() throws Exception {
@@ -89,9 +92,9 @@ public void setUp() throws Exception {
         fileReader = new FileReaderImpl();
         documentAccessor = new DocumentAccessorImpl();
         marshaller = new SimpleMarshallerImpl();
-        xmlTransformer = new XmlTransformerImpl(marshaller);
+        xslTemplatesRegistry = new XslTemplatesRegistryImpl(mock(CounterService.class), mock(GaugeService.class));
         documentFactModelExtractor = new DocumentFactModelExtractorImpl(
-                xmlTransformer);
+                xslTemplatesRegistry);
         documentXmlConverter = new DocumentXmlConverterImpl();
         embeddedClinicalDocumentExtractor = new EmbeddedClinicalDocumentExtractorImpl();
         ReflectionTestUtils.setField(embeddedClinicalDocumentExtractor, "documentXmlConverter", documentXmlConverter);
@@ -101,8 +104,8 @@ public void setUp() throws Exception {
                 .readFile("testAnnotationRules.txt");
         when(guvnorServiceMock.getVersionedRulesFromPackage()).thenReturn(
                 ruleSource);
-        ruleExecutionService = new RuleExecutionServiceImpl(guvnorServiceMock,
-                marshaller);
+        ruleExecutionService = new RuleExecutionServiceImpl(new KnowledgeBaseCacheImpl(guvnorServiceMock,
+                mock(CounterService.class), mock(GaugeService.class)), marshaller);
         c32 = fileReader.readFile("sampleC32/c32.xml");
         remC32 = fileReader.readFile("testRemC32.xml");
         robustC32 = fileReader
@@ -117,7 +120,7 @@ public void setUp() throws Exception {
         documentXmlConverter = new DocumentXmlConverterImpl();
 
         documentTagger = new DocumentTaggerImpl();
-        ReflectionTestUtils.setField(documentTagger, "xmlTransformer", xmlTransformer);
+        ReflectionTestUtils.setField(documentTagger, "xslTemplatesRegistry", xslTemplatesRegistry);
         CustomSection customSection1 = new CustomSection();
         customSection1.setCode("DISCLAIMER");
         customSection1.setCodeSystem("2.25.85119437033116720353817881047915448747");
@@ -163,6 +166,23 @@ public void testTagDocument() throws Exception {
         assertTrue(!c32.contains("codeSystem=\"2.16.840.1.113883.5.25\""));
     }
 
+    @Test
+    public void testTagDocument_Document() throws Exception {
+        // Arrange
+        final Document c32Document = documentXmlConverter.loadDocument(c32);
+
+        // Act
+        final Document taggedDocument = documentTagger.tagDocument(c32Document,
+                executionResponseContainer);
+
+        // Assert
+        final String taggedXml = documentXmlConverter.convertXmlDocToString(taggedDocument);
+        assertTrue(taggedXml.contains(ADDITIONAL_SECTION_TEXT_1));
+        assertTrue(taggedXml.contains(ADDITIONAL_SECTION_TEXT_2));
+        assertTrue(taggedXml.contains("codeSystem=\"2.16.840.1.113883.5.25\""));
+        assertTrue(taggedXml.contains("code=\"R\""));
+    }
+
     @Test
     public void testTagDocument_Confidentiality_N() throws Exception {
         // Arrange
@@ -0,0 +1,114 @@
+package gov.samhsa.c2s.dss.service.document.redact.base;
+
+import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentNodeIndexTest {
+
+    private static final String DOCUMENT = "<ClinicalDocument xmlns=\"urn:hl7-org:v3\">" +
+            "<documentationOf><serviceEvent><generatedServiceEventId>s1</generatedServiceEventId></serviceEvent></documentationOf>" +
+            "<component><structuredBody>" +
+            "<component><section><code code=\"11450-4\"/>" +
+            "<text><content ID=\"c1\">HIV</content>, <table><tbody><tr><td ID=\"r1\">HIV</td></tr></tbody></table></text>" +
+            "<entry><generatedEntryId>e1</generatedEntryId></entry>" +
+            "<entry><generatedEntryId>e2</generatedEntryId></entry>" +
+            "</section></component>" +
+            "<component><section><code code=\"10160-0\"/>" +
+            "<entry><generatedEntryId>e3</generatedEntryId></entry>" +
+            "</section></component>" +
+            "</structuredBody></component>" +
+            "</ClinicalDocument>";
+
+    private Document document;
+
+    @Before
+    public void setUp() throws Exception {
+        document = new DocumentXmlConverterImpl().loadDocument(DOCUMENT);
+    }
+
+    @Test
+    public void testAttachTo_And_DetachFrom() {
+        // Act
+        final DocumentNodeIndex index = DocumentNodeIndex.attachTo(document);
+
+        // Assert
+        assertSame(index, DocumentNodeIndex.of(document).get());
+        DocumentNodeIndex.detachFrom(document);
+        assertFalse(DocumentNodeIndex.of(document).isPresent());
+    }
+
+    @Test
+    public void testGetEntries_And_GetSections() {
+        // Arrange
+        final DocumentNodeIndex index = DocumentNodeIndex.attachTo(document);
+
+        // Act
+        final List<Element> entries = index.getEntries("e2");
+        final List<Element> sections = index.getSections("e1");
+
+        // Assert
+        assertEquals(1, entries.size());
+        assertEquals("e2", entries.get(0).getTextContent());
+        assertEquals(1, sections.size());
+        assertSame(sections.get(0), index.getSections("e2").get(0));
+        assertTrue(DocumentNodeIndex.isStructuredBodySection(sections.get(0)));
+        assertTrue(index.isStructuredBodySectionOf(sections.get(0), "e1"));
+        assertFalse(index.isStructuredBodySectionOf(sections.get(0), "e3"));
+        assertTrue(index.getEntries("e4").isEmpty());
+    }
+
+    @Test
+    public void testGetElementsById() {
+        // Arrange
+        final DocumentNodeIndex index = DocumentNodeIndex.attachTo(document);
+
+        // Act
+        final List<Element> contents = index.getElementsById("c1");
+        final List<Element> cells = index.getElementsById("r1");
+
+        // Assert
+        assertEquals(1, contents.size());
+        assertTrue(DocumentNodeIndex.isHl7Element(contents.get(0), "content"));
+        assertEquals(1, cells.size());
+        assertTrue(DocumentNodeIndex.isHl7Element(cells.get(0), "td"));
+    }
+
+    @Test
+    public void testGetSectionComponents_And_GetSectionCodes() {
+        // Arrange
+        final DocumentNodeIndex index = DocumentNodeIndex.attachTo(document);
+
+        // Act
+        final List<Element> components = index.getSectionComponents("10160-0");
+
+        // Assert
+        assertEquals(2, index.getSectionCodes().size());
+        assertTrue(index.getSectionCodes().contains("11450-4"));
+        assertEquals(1, components.size());
+        assertTrue(DocumentNodeIndex.isHl7Element(components.get(0), "component"));
+        assertSame(index.getSections("e3").get(0), components.get(0).getElementsByTagNameNS(DocumentNodeIndex.HL7_NAMESPACE, "section").item(0));
+    }
+
+    @Test
+    public void testGetServiceEvents() {
+        // Arrange
+        final DocumentNodeIndex index = DocumentNodeIndex.attachTo(document);
+
+        // Act
+        final List<Element> serviceEvents = index.getServiceEvents("s1");
+
+        // Assert
+        assertEquals(1, serviceEvents.size());
+        assertTrue(DocumentNodeIndex.isHl7Element(serviceEvents.get(0), "serviceEvent"));
+    }
+}
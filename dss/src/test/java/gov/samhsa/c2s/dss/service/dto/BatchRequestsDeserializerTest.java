@@ -0,0 +1,62 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.service.exception.BatchTooLargeException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.SpringHandlerInstantiator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchRequestsDeserializerTest {
+
+    private static final int MAX_SIZE = 2;
+
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        final DssProperties dssProperties = new DssProperties();
+        dssProperties.getBatch().setMaxSize(MAX_SIZE);
+        final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("dssProperties", dssProperties);
+        final AutowiredAnnotationBeanPostProcessor autowiring = new AutowiredAnnotationBeanPostProcessor();
+        autowiring.setBeanFactory(beanFactory);
+        beanFactory.addBeanPostProcessor(autowiring);
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .handlerInstantiator(new SpringHandlerInstantiator(beanFactory))
+                .build();
+    }
+
+    @Test
+    public void testDeserialize_Reads_Batch_Up_To_Max_Size() throws Exception {
+        // Act
+        final DSSBatchRequest batch = objectMapper.readValue(
+                "{\"requests\":[{\"document\":\"PENsaW5pY2FsRG9jdW1lbnQvPg==\"},null]}", DSSBatchRequest.class);
+
+        // Assert
+        assertEquals(MAX_SIZE, batch.getRequests().size());
+        assertEquals("<ClinicalDocument/>", new String(batch.getRequests().get(0).getDocument(), "UTF-8"));
+        assertNull(batch.getRequests().get(1));
+    }
+
+    @Test
+    public void testDeserialize_Stops_Reading_Oversized_Batch() throws Exception {
+        try {
+            // Act
+            objectMapper.readValue("{\"requests\":[{},{},{},{\"document\":\"not read\"}]}", DSSBatchRequest.class);
+            fail("The oversized batch was read");
+        } catch (final JsonMappingException e) {
+            // Assert
+            assertTrue(e.getCause() instanceof BatchTooLargeException);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FhirStu3BundleDeserializerTest {
+
+    private static final int ENTRY_COUNT = 200;
+
+    private ca.uhn.fhir.parser.JsonParser fhirJsonParser;
+
+    private FhirStu3BundleDeserializer sut;
+
+    @Before
+    public void setUp() {
+        fhirJsonParser = (ca.uhn.fhir.parser.JsonParser) FhirContext.forDstu3().newJsonParser();
+        sut = new FhirStu3BundleDeserializer();
+        ReflectionTestUtils.setField(sut, "fhirJsonParser", fhirJsonParser);
+    }
+
+    @Test
+    public void testDeserialize_Reads_Bundle_From_Request() throws Exception {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            final Observation observation = new Observation();
+            observation.setId("Observation/" + i);
+            observation.getCode().setText("Observation \"" + i + "\"");
+            bundle.addEntry().setFullUrl("urn:uuid:observation-" + i).setResource(observation);
+        }
+        final String bundleJson = fhirJsonParser.encodeResourceToString(bundle);
+        assertTrue("the bundle is read in more than one batch", bundleJson.length() > 16384);
+        final String requestJson = "{\"xacmlResult\":{\"pdpDecision\":\"PERMIT\"},\"fhirStu3Bundle\":" + bundleJson
+                + ",\"enableBundleValidation\":false}";
+        final JsonParser jsonParser = new JsonFactory().createParser(requestJson);
+        jsonParser.nextToken();
+        while (!"fhirStu3Bundle".equals(jsonParser.nextFieldName())) {
+            jsonParser.nextToken();
+            jsonParser.skipChildren();
+        }
+        jsonParser.nextToken();
+
+        // Act
+        final Bundle deserializedBundle = sut.deserialize(jsonParser, null);
+
+        // Assert
+        assertEquals(Bundle.BundleType.SEARCHSET, deserializedBundle.getType());
+        assertEquals(ENTRY_COUNT, deserializedBundle.getEntry().size());
+        assertEquals("Observation \"199\"",
+                ((Observation) deserializedBundle.getEntry().get(ENTRY_COUNT - 1).getResource()).getCode().getText());
+        assertEquals(JsonToken.END_OBJECT, jsonParser.getCurrentToken());
+        assertEquals("enableBundleValidation", jsonParser.nextFieldName());
+    }
+}
@@ -0,0 +1,52 @@
+package gov.samhsa.c2s.dss.service.dto;
+
+import ca.uhn.fhir.context.FhirContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class FhirStu3BundleSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FhirStu3BundleSerializer sut;
+
+    @Before
+    public void setUp() {
+        sut = new FhirStu3BundleSerializer();
+        ReflectionTestUtils.setField(sut, "fhirJsonParser", FhirContext.forDstu3().newJsonParser());
+    }
+
+    @Test
+    public void testSerialize_Writes_Bundle_To_Response() throws Exception {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET).setTotal(0);
+        final ByteArrayOutputStream response = new ByteArrayOutputStream();
+
+        // Act
+        try (JsonGenerator jsonGenerator = objectMapper.getFactory().createGenerator(response)) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeStringField("encoding", "UTF-8");
+            jsonGenerator.writeFieldName("fhirStu3Bundle");
+            sut.serialize(bundle, jsonGenerator, null);
+            jsonGenerator.writeBooleanField("ccdaDocument", false);
+            jsonGenerator.writeEndObject();
+        }
+
+        // Assert
+        final JsonNode json = objectMapper.readTree(new String(response.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals("UTF-8", json.get("encoding").asText());
+        assertEquals("Bundle", json.get("fhirStu3Bundle").get("resourceType").asText());
+        assertEquals("searchset", json.get("fhirStu3Bundle").get("type").asText());
+        assertEquals(false, json.get("ccdaDocument").asBoolean());
+    }
+}
@@ -0,0 +1,105 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.EntryReference;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.CodeableConcept;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Condition;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.hl7.fhir.dstu3.model.Reference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class FhirBundleFactModelExtractorImplTest {
+
+    private static final int PARALLEL_THRESHOLD = 100;
+
+    private ForkJoinPool fhirFactExtractionPool;
+
+    private FhirBundleFactModelExtractorImpl sut;
+
+    @Before
+    public void setUp() {
+        fhirFactExtractionPool = new ForkJoinPool(4);
+        final DssProperties dssProperties = new DssProperties();
+        dssProperties.getFhirFactExtraction().setParallelThreshold(PARALLEL_THRESHOLD);
+        sut = new FhirBundleFactModelExtractorImpl(fhirFactExtractionPool, dssProperties);
+    }
+
+    @After
+    public void tearDown() {
+        fhirFactExtractionPool.shutdown();
+    }
+
+    @Test
+    public void testExtractFactModel() {
+        // Arrange
+        final Condition condition = new Condition();
+        condition.getMeta().addSecurity(new Coding("http://hl7.org/fhir/v3/Confidentiality", "N", null));
+        condition.setCode(new CodeableConcept()
+                .addCoding(new Coding("urn:oid:2.16.840.1.113883.6.96", "111880001", "Acute HIV"))
+                .addCoding(new Coding("http://hl7.org/fhir/sid/icd-9-cm", "042", null))
+                .addCoding(new Coding(null, "no-system", null)));
+        condition.setSubject(new Reference("#patient"));
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        bundle.addEntry().setResource(new Patient());
+        bundle.addEntry().setResource(condition);
+        final XacmlResult xacmlResult = new XacmlResult();
+
+        // Act
+        final FactModel factModel = sut.extractFactModel(bundle, xacmlResult);
+
+        // Assert
+        assertSame(xacmlResult, factModel.getXacmlResult());
+        assertEquals(2, factModel.getClinicalFactList().size());
+        final ClinicalFact snomed = factModel.getClinicalFactList().get(0);
+        assertEquals("111880001", snomed.getCode());
+        assertEquals("Acute HIV", snomed.getDisplayName());
+        assertEquals("2.16.840.1.113883.6.96", snomed.getCodeSystem());
+        assertEquals("entry1", snomed.getEntry());
+        final ClinicalFact icd9 = factModel.getClinicalFactList().get(1);
+        assertEquals("042", icd9.getCode());
+        assertEquals("", icd9.getDisplayName());
+        assertEquals("http://hl7.org/fhir/sid/icd-9-cm", icd9.getCodeSystem());
+        assertEquals(1, factModel.getEntryReferences().size());
+        assertEquals(new EntryReference("entry1", "patient"), factModel.getEntryReferences().get(0));
+    }
+
+    @Test
+    public void testExtractFactModel_In_Parallel_Keeps_Entry_Order() {
+        // Arrange
+        final int entryCount = PARALLEL_THRESHOLD * 10 + 1;
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        for (int i = 0; i < entryCount; i++) {
+            final Observation observation = new Observation();
+            observation.setCode(new CodeableConcept()
+                    .addCoding(new Coding("http://loinc.org", "code" + i, null)));
+            observation.setSubject(new Reference("Patient/" + i));
+            bundle.addEntry().setResource(observation);
+        }
+
+        // Act
+        final FactModel factModel = sut.extractFactModel(bundle, new XacmlResult());
+
+        // Assert
+        assertEquals(entryCount, factModel.getClinicalFactList().size());
+        assertEquals(entryCount, factModel.getEntryReferences().size());
+        for (int i = 0; i < entryCount; i++) {
+            assertEquals("code" + i, factModel.getClinicalFactList().get(i).getCode());
+            assertEquals(FhirBundleFactModelExtractor.entryId(i), factModel.getClinicalFactList().get(i).getEntry());
+            assertEquals(new EntryReference(FhirBundleFactModelExtractor.entryId(i), "Patient/" + i),
+                    factModel.getEntryReferences().get(i));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.XacmlResult;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryResponseDto;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Observation;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FhirBundleRedactorImplTest {
+
+    private static final String SYSTEM_ACT_CODE = "http://hl7.org/fhir/v3/ActCode";
+    private static final String SYSTEM_CONFIDENTIALITY = "http://hl7.org/fhir/v3/Confidentiality";
+
+    @Mock
+    private ValueSetService valueSetServiceMock;
+
+    private FhirBundleRedactorImpl sut;
+
+    @Before
+    public void setUp() {
+        when(valueSetServiceMock.getAllValueSetCategories()).thenReturn(Arrays.asList(
+                new ValueSetCategoryResponseDto("HIV", "HIV/AIDS", null, true, 1, SYSTEM_ACT_CODE),
+                new ValueSetCategoryResponseDto("PSY", "Psychiatry", null, true, 2, SYSTEM_ACT_CODE),
+                new ValueSetCategoryResponseDto("ETH", "Substance abuse", null, true, 3, SYSTEM_ACT_CODE)));
+        sut = new FhirBundleRedactorImpl(valueSetServiceMock);
+    }
+
+    @Test
+    public void testRedactFhirBundle() {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        addEntry(bundle, "untagged");
+        addEntry(bundle, "normal", new Coding(SYSTEM_CONFIDENTIALITY, "N", null));
+        addEntry(bundle, "notShared", new Coding(SYSTEM_ACT_CODE, "HIV", null));
+        addEntry(bundle, "shared", new Coding(SYSTEM_ACT_CODE, "ETH", null));
+        addEntry(bundle, "oneShared", new Coding(SYSTEM_ACT_CODE, "HIV", null),
+                new Coding(SYSTEM_ACT_CODE, "ETH", null));
+        addEntry(bundle, "otherSystem", new Coding("http://example.org", "HIV", null));
+        addEntry(bundle, "notSharedPsy", new Coding(SYSTEM_CONFIDENTIALITY, "R", null),
+                new Coding(SYSTEM_ACT_CODE, "PSY", null));
+        final XacmlResult xacmlResult = new XacmlResult();
+        xacmlResult.setPdpObligations(Arrays.asList("ETH", "ALC"));
+
+        // Act
+        final Bundle redactedBundle = sut.redactFhirBundle(bundle, xacmlResult);
+
+        // Assert
+        assertSame(bundle, redactedBundle);
+        assertEquals(Arrays.asList("untagged", "normal", "shared", "oneShared", "otherSystem"),
+                fullUrls(redactedBundle));
+    }
+
+    @Test
+    public void testRedactFhirBundle_Without_Obligations() {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        addEntry(bundle, "normal", new Coding(SYSTEM_CONFIDENTIALITY, "N", null));
+        addEntry(bundle, "sensitive", new Coding(SYSTEM_ACT_CODE, "ETH", null));
+        final XacmlResult xacmlResult = new XacmlResult();
+        xacmlResult.setPdpObligations(null);
+
+        // Act
+        final Bundle redactedBundle = sut.redactFhirBundle(bundle, xacmlResult);
+
+        // Assert
+        assertEquals(Arrays.asList("normal"), fullUrls(redactedBundle));
+    }
+
+    private static void addEntry(Bundle bundle, String fullUrl, Coding... securityLabels) {
+        final Observation observation = new Observation();
+        Arrays.stream(securityLabels).forEach(observation.getMeta()::addSecurity);
+        bundle.addEntry().setFullUrl(fullUrl).setResource(observation);
+    }
+
+    private static List<String> fullUrls(Bundle bundle) {
+        return bundle.getEntry().stream().map(Bundle.BundleEntryComponent::getFullUrl).collect(toList());
+    }
+}
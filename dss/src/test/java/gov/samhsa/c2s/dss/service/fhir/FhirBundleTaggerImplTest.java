@@ -0,0 +1,124 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.brms.domain.Confidentiality;
+import gov.samhsa.c2s.brms.domain.FactModel;
+import gov.samhsa.c2s.brms.domain.ObligationPolicyDocument;
+import gov.samhsa.c2s.brms.domain.RefrainPolicy;
+import gov.samhsa.c2s.brms.domain.RuleExecutionContainer;
+import gov.samhsa.c2s.brms.domain.RuleExecutionResponse;
+import gov.samhsa.c2s.brms.domain.UsPrivacyLaw;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Condition;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class FhirBundleTaggerImplTest {
+
+    private FhirBundleTaggerImpl sut;
+
+    @Before
+    public void setUp() {
+        sut = new FhirBundleTaggerImpl();
+    }
+
+    @Test
+    public void testTagFhirBundle() {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        bundle.getMeta().setVersionId("1");
+        bundle.addEntry().setResource(new Patient());
+        final Condition condition = new Condition();
+        condition.getMeta().setVersionId("1");
+        bundle.addEntry().setResource(condition);
+
+        final ClinicalFact clinicalFact = new ClinicalFact();
+        clinicalFact.setEntry("entry1");
+        clinicalFact.getValueSetCategories().add("HIV");
+        final FactModel factModel = new FactModel();
+        factModel.getClinicalFactList().add(clinicalFact);
+
+        final RuleExecutionResponse executionResponse = new RuleExecutionResponse();
+        executionResponse.setEntry("entry1");
+        executionResponse.setImpliedConfSection(Confidentiality.R);
+        executionResponse.setDocumentObligationPolicy(ObligationPolicyDocument.ENCRYPT);
+        executionResponse.setDocumentRefrainPolicy(RefrainPolicy.NORDSCLCD);
+        executionResponse.setUSPrivacyLaw(UsPrivacyLaw._42CFRPart2);
+        final RuleExecutionContainer ruleExecutionContainer = new RuleExecutionContainer();
+        ruleExecutionContainer.setExecutionResponseList(Arrays.asList(executionResponse));
+
+        // Act
+        sut.tagFhirBundle(bundle, factModel, ruleExecutionContainer);
+
+        // Assert
+        assertEquals(Arrays.asList(FhirBundleTaggerImpl.SYSTEM_CONFIDENTIALITY + "|R"),
+                securityLabels(bundle.getMeta().getSecurity()));
+        assertFalse(bundle.getEntry().get(0).getResource().hasMeta());
+        assertEquals(Arrays.asList(
+                FhirBundleTaggerImpl.SYSTEM_ACT_CODE + "|HIV",
+                FhirBundleTaggerImpl.SYSTEM_CONFIDENTIALITY + "|R",
+                FhirBundleTaggerImpl.SYSTEM_ACT_CODE + "|ENCRYPT",
+                FhirBundleTaggerImpl.SYSTEM_ACT_CODE + "|NORDSCLCD",
+                FhirBundleTaggerImpl.SYSTEM_ACT_CODE + "|42CFRPart2"),
+                securityLabels(condition.getMeta().getSecurity()));
+    }
+
+    @Test
+    public void testTagFhirBundle_Redacted_Entry_Does_Not_Raise_Bundle_Confidentiality() {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        bundle.getMeta().setVersionId("1");
+        final RuleExecutionResponse executionResponse = new RuleExecutionResponse();
+        executionResponse.setEntry("entry0");
+        executionResponse.setImpliedConfSection(Confidentiality.V);
+        executionResponse.setItemAction(RuleExecutionResponse.ITEM_ACTION_REDACT);
+        final RuleExecutionContainer ruleExecutionContainer = new RuleExecutionContainer();
+        ruleExecutionContainer.setExecutionResponseList(Arrays.asList(executionResponse));
+
+        // Act
+        sut.tagFhirBundle(bundle, new FactModel(), ruleExecutionContainer);
+
+        // Assert
+        assertEquals(Arrays.asList(FhirBundleTaggerImpl.SYSTEM_CONFIDENTIALITY + "|N"),
+                securityLabels(bundle.getMeta().getSecurity()));
+    }
+
+    @Test
+    public void testTagEntries_Does_Not_Label_Bundle() {
+        // Arrange
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        bundle.getMeta().setVersionId("1");
+        final Condition condition = new Condition();
+        condition.getMeta().setVersionId("1");
+        bundle.addEntry().setResource(condition);
+        final RuleExecutionResponse executionResponse = new RuleExecutionResponse();
+        executionResponse.setEntry("entry0");
+        executionResponse.setImpliedConfSection(Confidentiality.R);
+        final RuleExecutionContainer ruleExecutionContainer = new RuleExecutionContainer();
+        ruleExecutionContainer.setExecutionResponseList(Arrays.asList(executionResponse));
+
+        // Act
+        final Confidentiality confidentiality = sut.tagEntries(bundle, new FactModel(), ruleExecutionContainer);
+        sut.tagBundleConfidentiality(bundle, Confidentiality.V);
+
+        // Assert
+        assertEquals(Confidentiality.R, confidentiality);
+        assertEquals(Arrays.asList(FhirBundleTaggerImpl.SYSTEM_CONFIDENTIALITY + "|R"),
+                securityLabels(condition.getMeta().getSecurity()));
+        assertEquals(Arrays.asList(FhirBundleTaggerImpl.SYSTEM_CONFIDENTIALITY + "|V"),
+                securityLabels(bundle.getMeta().getSecurity()));
+    }
+
+    private static List<String> securityLabels(List<Coding> security) {
+        return security.stream().map(coding -> coding.getSystem() + "|" + coding.getCode()).collect(toList());
+    }
+}
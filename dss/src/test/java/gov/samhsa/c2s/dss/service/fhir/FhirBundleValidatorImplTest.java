@@ -0,0 +1,107 @@
+package gov.samhsa.c2s.dss.service.fhir;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.validation.FhirValidator;
+import ca.uhn.fhir.validation.ResultSeverityEnum;
+import ca.uhn.fhir.validation.SingleValidationMessage;
+import ca.uhn.fhir.validation.ValidationResult;
+import gov.samhsa.c2s.dss.config.DssProperties;
+import org.hl7.fhir.dstu3.model.Bundle;
+import org.hl7.fhir.dstu3.model.Coding;
+import org.hl7.fhir.dstu3.model.Condition;
+import org.hl7.fhir.dstu3.model.Patient;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+
+import java.util.Collections;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FhirBundleValidatorImplTest {
+
+    private static final String SYSTEM_ACT_CODE = "http://hl7.org/fhir/v3/ActCode";
+
+    private final FhirContext fhirContext = FhirContext.forDstu3();
+
+    @Mock
+    private FhirValidator fhirValidatorMock;
+
+    @Mock
+    private CounterService counterServiceMock;
+
+    private FhirBundleValidatorImpl sut;
+
+    @Before
+    public void setUp() {
+        when(fhirValidatorMock.validateWithResult(any(IBaseResource.class)))
+                .thenReturn(new ValidationResult(fhirContext, Collections.emptyList()));
+        sut = new FhirBundleValidatorImpl(fhirValidatorMock, fhirContext, new DssProperties(), counterServiceMock);
+    }
+
+    @Test
+    public void testValidateChangedResources_Validates_Tagged_Resources_Once() {
+        // Arrange
+        final Bundle bundle = bundle();
+        final ValidatedFhirBundle validatedFhirBundle = sut.validateBundle(bundle);
+        final Bundle sameBundle = bundle();
+        final ValidatedFhirBundle validatedSameBundle = sut.validateBundle(sameBundle);
+
+        // Act
+        tag(bundle);
+        sut.validateChangedResources(validatedFhirBundle);
+        tag(sameBundle);
+        sut.validateChangedResources(validatedSameBundle);
+
+        // Assert
+        verify(fhirValidatorMock).validateWithResult(bundle);
+        verify(fhirValidatorMock).validateWithResult(sameBundle);
+        verify(fhirValidatorMock).validateWithResult(bundle.getEntry().get(1).getResource());
+        verify(fhirValidatorMock, never()).validateWithResult(bundle.getEntry().get(0).getResource());
+        verify(fhirValidatorMock, never()).validateWithResult(sameBundle.getEntry().get(1).getResource());
+        verify(fhirValidatorMock, times(3)).validateWithResult(any(IBaseResource.class));
+        verify(counterServiceMock).increment(FhirBundleValidatorImpl.METRIC_MISS);
+        verify(counterServiceMock).increment(FhirBundleValidatorImpl.METRIC_HIT);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValidateChangedResources_Invalid_Resource() {
+        // Arrange
+        final Bundle bundle = bundle();
+        final ValidatedFhirBundle validatedFhirBundle = sut.validateBundle(bundle);
+        tag(bundle);
+        final SingleValidationMessage error = new SingleValidationMessage();
+        error.setSeverity(ResultSeverityEnum.ERROR);
+        error.setMessage("Invalid security label");
+        when(fhirValidatorMock.validateWithResult(bundle.getEntry().get(1).getResource()))
+                .thenReturn(new ValidationResult(fhirContext, Collections.singletonList(error)));
+
+        // Act
+        sut.validateChangedResources(validatedFhirBundle);
+    }
+
+    private static Bundle bundle() {
+        final Bundle bundle = new Bundle().setType(Bundle.BundleType.SEARCHSET);
+        final Patient patient = new Patient();
+        patient.setId("Patient/1");
+        bundle.addEntry().setResource(patient);
+        final Condition condition = new Condition();
+        condition.setId("Condition/1");
+        condition.getMeta().setVersionId("1");
+        bundle.addEntry().setResource(condition);
+        return bundle;
+    }
+
+    private static void tag(Bundle bundle) {
+        bundle.getEntry().get(1).getResource().getMeta().addSecurity(new Coding(SYSTEM_ACT_CODE, "HIV", null));
+    }
+}
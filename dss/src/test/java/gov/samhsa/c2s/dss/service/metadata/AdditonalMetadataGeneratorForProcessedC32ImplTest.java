@@ -1,48 +1,40 @@
 package gov.samhsa.c2s.dss.service.metadata;
 
 import gov.samhsa.c2s.dss.service.metadata.AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
-import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
 import gov.samhsa.c2s.dss.service.exception.AdditionalMetadataGeneratorException;
-import org.junit.After;
+import gov.samhsa.c2s.dss.service.exception.XslTransformationException;
+import gov.samhsa.c2s.dss.service.xslt.Stylesheet;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.lang.reflect.Field;
 import java.util.UUID;
 
-public class AdditonalMetadataGeneratorForProcessedC32ImplTest {
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
-	@After
-	public void tearDown() throws SecurityException, NoSuchFieldException,
-			IllegalArgumentException, IllegalAccessException {
-		final XmlTransformer xmlTransformer = new XmlTransformerImpl(
-				new SimpleMarshallerImpl());
-		final AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl additionalMetadataGeneratorForProcessedC32Impl = new AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl(
-				xmlTransformer);
-		final Field field = additionalMetadataGeneratorForProcessedC32Impl
-				.getClass()
-				.getDeclaredField(
-						"AdditonalMetadataStylesheetForProcessedC32_Xsl_File_Name");
-		field.setAccessible(true);
-		field.set(additionalMetadataGeneratorForProcessedC32Impl,
-				"AdditonalMetadataStylesheetForProcessedC32.xsl");
-	}
+public class AdditonalMetadataGeneratorForProcessedC32ImplTest {
 
 	@Test
 	public void testGenerateMetadataXml() throws Exception {
 		// Arrange
-		final XmlTransformer xmlTransformer = new XmlTransformerImpl(
-				new SimpleMarshallerImpl());
+		final XslTemplatesRegistry xslTemplatesRegistry = new XslTemplatesRegistryImpl(
+				mock(CounterService.class), mock(GaugeService.class));
 		final String ruleExecutionResponseContainer = readStringFromFile("ruleExecutionResponseContainer.xml");
 		final String taggedC32Doc = readStringFromFile("tagged_C32.xml");
 		final AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl additionalMetadataGeneratorForProcessedC32Impl = new AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl(
-				xmlTransformer);
+				xslTemplatesRegistry);
 		final String senderEmailAddress = "sender@sender.com";
 		final String recipientEmailAddress = "receiver@receiver.com";
 		final String purposeOfUse = "TREAT";
@@ -62,33 +54,22 @@ public void testGenerateMetadataXml() throws Exception {
 	}
 
 	@Test(expected = AdditionalMetadataGeneratorException.class)
-	public void testGenerateMetadataXml_Throws_AdditionalMetadataGeneratorException_Having_TransformerConfigurationException()
+	public void testGenerateMetadataXml_Throws_AdditionalMetadataGeneratorException_Having_XslTransformationException()
 			throws Exception {
 		// Arrange
-		final XmlTransformer xmlTransformer = new XmlTransformerImpl(
-				new SimpleMarshallerImpl());
+		final XslTemplatesRegistry xslTemplatesRegistry = mock(XslTemplatesRegistry.class);
+		when(xslTemplatesRegistry.transform(eq(Stylesheet.ADDITIONAL_METADATA_FOR_PROCESSED_C32),
+				anyString(), anyMapOf(String.class, String.class), any()))
+				.thenThrow(new XslTransformationException("Unable to transform"));
 		final String ruleExecutionResponseContainer = readStringFromFile("ruleExecutionResponseContainer.xml");
 		final String taggedC32Doc = readStringFromFile("tagged_C32.xml");
 		final AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl additionalMetadataGeneratorForProcessedC32Impl = new AdditionalMetadataGeneratorForSegmentedClinicalDocumentImpl(
-				xmlTransformer);
+				xslTemplatesRegistry);
 		final String senderEmailAddress = "sender@sender.com";
 		final String recipientEmailAddress = "receiver@receiver.com";
 		final String purposeOfUse = "TREAT";
 		final String xdsDocumentEntryUniqueId = "123";
 
-		// Try to use a wrong xsl file
-		final Field field = additionalMetadataGeneratorForProcessedC32Impl
-				.getClass()
-				.getDeclaredField(
-						"AdditonalMetadataStylesheetForProcessedC32_Xsl_File_Name");
-		field.setAccessible(true);
-		// Field modifiersField = Field.class.getDeclaredField( "modifiers" );
-		// modifiersField.setAccessible( true );
-		// modifiersField.setInt( field, field.getModifiers() & ~Modifier.FINAL
-		// );
-		field.set(additionalMetadataGeneratorForProcessedC32Impl,
-				"WRONG_FILE_NAME.XSL");
-
 		// Act
 		@SuppressWarnings("unused")
 		final String result = additionalMetadataGeneratorForProcessedC32Impl
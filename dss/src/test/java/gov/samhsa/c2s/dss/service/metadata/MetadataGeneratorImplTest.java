@@ -1,22 +1,25 @@
 package gov.samhsa.c2s.dss.service.metadata;
 
 import gov.samhsa.c2s.dss.service.metadata.MetadataGeneratorImpl;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformer;
-import gov.samhsa.c2s.common.document.transformer.XmlTransformerImpl;
 import gov.samhsa.c2s.common.filereader.FileReaderImpl;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshaller;
 import gov.samhsa.c2s.common.marshaller.SimpleMarshallerImpl;
 import gov.samhsa.c2s.dss.service.exception.MetadataGeneratorException;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistry;
+import gov.samhsa.c2s.dss.service.xslt.XslTemplatesRegistryImpl;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
 
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 public class MetadataGeneratorImplTest {
     private static FileReaderImpl fileReader;
 
     private static SimpleMarshaller marshaller;
-    private static XmlTransformer xmlTransformer;
+    private static XslTemplatesRegistry xslTemplatesRegistry;
     private static String c32;
 
     private static String executionResponseContainer;
@@ -73,7 +76,7 @@ public static void setUp() throws Exception {
         senderEmailAddress = "leo.smith@direct.obhita-stage.org";
         recipientEmailAddress = "Duane_Decouteau@direct.healthvault-stage.com";
         marshaller = new SimpleMarshallerImpl();
-        xmlTransformer = new XmlTransformerImpl(marshaller);
-        metadataGenerator = new MetadataGeneratorImpl(xmlTransformer);
+        xslTemplatesRegistry = new XslTemplatesRegistryImpl(mock(CounterService.class), mock(GaugeService.class));
+        metadataGenerator = new MetadataGeneratorImpl(xslTemplatesRegistry);
     }
 }
@@ -0,0 +1,73 @@
+package gov.samhsa.c2s.dss.service.metrics;
+
+import gov.samhsa.c2s.dss.service.exception.InvalidOriginalClinicalDocumentException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SegmentationMetricsTest {
+
+    private CounterService counterServiceMock;
+
+    private GaugeService gaugeServiceMock;
+
+    private SegmentationMetrics sut;
+
+    @Before
+    public void setUp() {
+        counterServiceMock = mock(CounterService.class);
+        gaugeServiceMock = mock(GaugeService.class);
+        sut = new SegmentationMetrics(counterServiceMock, gaugeServiceMock);
+    }
+
+    @Test
+    public void testStopAfter_Submits_Stages_By_Document_Type_And_Outcome() {
+        // Arrange
+        final SegmentationTimer timer = sut.startTimer(SegmentationMetrics.DOCUMENT_PIPELINE);
+
+        // Act
+        final String response = timer.stopAfter(() -> {
+            timer.setDocumentType("CCDA_R2_1_CCD_V3");
+            timer.run(SegmentationStage.TAGGING, () -> {
+            });
+            return timer.time(SegmentationStage.RULE_EXECUTION, () -> "segmented");
+        });
+
+        // Assert
+        assertEquals("segmented", response);
+        verify(gaugeServiceMock).submit(
+                eq("timer.dss.segmentation.document.tagging.CCDA_R2_1_CCD_V3.success"), anyDouble());
+        verify(gaugeServiceMock).submit(
+                eq("timer.dss.segmentation.document.rule-execution.CCDA_R2_1_CCD_V3.success"), anyDouble());
+        verify(gaugeServiceMock).submit(eq("timer.dss.segmentation.document.CCDA_R2_1_CCD_V3.success"), anyDouble());
+        verify(counterServiceMock).increment("dss.segmentation.document.rule-execution.CCDA_R2_1_CCD_V3.success");
+        verify(counterServiceMock).increment("dss.segmentation.document.CCDA_R2_1_CCD_V3.success");
+    }
+
+    @Test
+    public void testStopAfter_Failed_Request_Submits_Outcome_Of_Exception() {
+        // Arrange
+        final SegmentationTimer timer = sut.startTimer(SegmentationMetrics.FHIR_BUNDLE_PIPELINE);
+
+        // Act
+        try {
+            timer.stopAfter(() -> {
+                throw new InvalidOriginalClinicalDocumentException("invalid");
+            });
+        } catch (final InvalidOriginalClinicalDocumentException e) {
+            // expected
+        }
+
+        // Assert
+        verify(counterServiceMock).increment("dss.segmentation.fhir-bundle.unknown.invalid-original");
+        verify(counterServiceMock, never()).increment("dss.segmentation.fhir-bundle.unknown.success");
+    }
+}
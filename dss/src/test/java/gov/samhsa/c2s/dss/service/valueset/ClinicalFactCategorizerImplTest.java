@@ -0,0 +1,111 @@
+package gov.samhsa.c2s.dss.service.valueset;
+
+import gov.samhsa.c2s.brms.domain.ClinicalFact;
+import gov.samhsa.c2s.dss.infrastructure.valueset.ValueSetService;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ConceptCodeAndCodeSystemOidDto;
+import gov.samhsa.c2s.dss.infrastructure.valueset.dto.ValueSetCategoryMapResponseDto;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClinicalFactCategorizerImplTest {
+
+    private static final String SNOMED_CT = "2.16.840.1.113883.6.96";
+    private static final String RXNORM = "2.16.840.1.113883.6.88";
+    private static final int FACTS = 1000;
+    private static final int CATEGORIZED_FACTS = 250;
+
+    private ValueSetService valueSetServiceMock;
+
+    private ClinicalFactCategorizerImpl sut;
+
+    @Before
+    public void setUp() {
+        valueSetServiceMock = mock(ValueSetService.class);
+        sut = new ClinicalFactCategorizerImpl(valueSetServiceMock);
+    }
+
+    @Test
+    public void testCategorize() {
+        // Arrange
+        final ClinicalFact hiv = clinicalFact("111880001", SNOMED_CT);
+        final ClinicalFact hivAgain = clinicalFact("111880001", SNOMED_CT);
+        final ClinicalFact aspirin = clinicalFact("1191", RXNORM);
+        final ClinicalFact sameCodeOtherSystem = clinicalFact("1191", SNOMED_CT);
+        final List<ConceptCodeAndCodeSystemOidDto> concepts = Arrays.asList(
+                new ConceptCodeAndCodeSystemOidDto("111880001", SNOMED_CT),
+                new ConceptCodeAndCodeSystemOidDto("1191", RXNORM),
+                new ConceptCodeAndCodeSystemOidDto("1191", SNOMED_CT));
+        when(valueSetServiceMock.lookupValueSetCategories(concepts)).thenReturn(Arrays.asList(
+                new ValueSetCategoryMapResponseDto("1191", RXNORM, null),
+                new ValueSetCategoryMapResponseDto("111880001", SNOMED_CT, categories("HIV")),
+                new ValueSetCategoryMapResponseDto("1191", RXNORM, categories("ETH"))));
+
+        // Act
+        sut.categorize(Arrays.asList(hiv, hivAgain, aspirin, sameCodeOtherSystem));
+
+        // Assert
+        verify(valueSetServiceMock).lookupValueSetCategories(concepts);
+        assertEquals(categories("HIV"), hiv.getValueSetCategories());
+        assertEquals(categories("HIV"), hivAgain.getValueSetCategories());
+        assertEquals(categories("ETH"), aspirin.getValueSetCategories());
+        assertTrue(sameCodeOtherSystem.getValueSetCategories().isEmpty());
+    }
+
+    @Test
+    public void testAssignValueSetCategories_Same_As_Nested_Scan() {
+        // Arrange
+        final List<ClinicalFact> nestedScanFacts = syntheticClinicalFacts();
+        final List<ClinicalFact> hashJoinFacts = syntheticClinicalFacts();
+        final List<ValueSetCategoryMapResponseDto> valueSetCategories = new ArrayList<>();
+        for (int i = 0; i < CATEGORIZED_FACTS; i++) {
+            valueSetCategories.add(new ValueSetCategoryMapResponseDto(String.valueOf(i * 4), SNOMED_CT,
+                    categories(i % 2 == 0 ? "HIV" : "PSY")));
+        }
+
+        // Act
+        nestedScanFacts.forEach(fact -> valueSetCategories.stream()
+                .filter(dto -> fact.getCode().equals(dto.getCodedConceptCode()) && fact.getCodeSystem()
+                        .equals(dto.getCodeSystemOid()))
+                .map(ValueSetCategoryMapResponseDto::getValueSetCategoryCodes)
+                .filter(Objects::nonNull)
+                .findAny().ifPresent(fact::setValueSetCategories));
+        ClinicalFactCategorizerImpl.assignValueSetCategories(hashJoinFacts, valueSetCategories);
+
+        // Assert
+        assertEquals(nestedScanFacts.stream().map(ClinicalFact::getValueSetCategories).collect(toList()),
+                hashJoinFacts.stream().map(ClinicalFact::getValueSetCategories).collect(toList()));
+    }
+
+    private static List<ClinicalFact> syntheticClinicalFacts() {
+        final List<ClinicalFact> clinicalFacts = new ArrayList<>(FACTS);
+        for (int i = 0; i < FACTS; i++) {
+            clinicalFacts.add(clinicalFact(String.valueOf(i), SNOMED_CT));
+        }
+        return clinicalFacts;
+    }
+
+    private static ClinicalFact clinicalFact(String code, String codeSystem) {
+        final ClinicalFact clinicalFact = new ClinicalFact();
+        clinicalFact.setCode(code);
+        clinicalFact.setCodeSystem(codeSystem);
+        return clinicalFact;
+    }
+
+    private static Set<String> categories(String... categories) {
+        return new HashSet<>(Arrays.asList(categories));
+    }
+}
@@ -0,0 +1,91 @@
+package gov.samhsa.c2s.dss.service.xpath;
+
+import gov.samhsa.c2s.common.document.converter.DocumentXmlConverterImpl;
+import gov.samhsa.c2s.common.namespace.DefaultNamespaceContext;
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+
+public class XPathExpressionRegistryImplTest {
+
+    private static final String XPATH_ENTRY = "//hl7:entry[child::hl7:generatedEntryId[text()='%1']]";
+    private static final String XPATH_TEXT_NODE = "//hl7:entry[child::hl7:generatedEntryId/text()='%1']/hl7:text/text()[contains(lower-case(.), '%2')]";
+    private static final String XPATH_HEADER = "/hl7:ClinicalDocument/hl7:%1";
+    private static final String DOCUMENT = "<ClinicalDocument xmlns=\"urn:hl7-org:v3\">" +
+            "<title>title</title><code code=\"34133-9\"/>" +
+            "<entry><generatedEntryId>1</generatedEntryId><text>Acute HIV</text></entry>" +
+            "<entry><generatedEntryId>2</generatedEntryId><text>Aspirin</text></entry>" +
+            "<entry><generatedEntryId>it's</generatedEntryId><text>Codeine</text></entry>" +
+            "</ClinicalDocument>";
+
+    private Document document;
+
+    private XPathExpressionRegistryImpl sut;
+
+    @Before
+    public void setUp() throws Exception {
+        document = new DocumentXmlConverterImpl().loadDocument(DOCUMENT);
+        sut = new XPathExpressionRegistryImpl(new DefaultNamespaceContext());
+    }
+
+    @Test
+    public void testGetNodeListAsStream_Compiles_Parameterized_Expression_Once() throws Exception {
+        // Act
+        final List<Node> first = sut.getNodeListAsStream(document, XPATH_ENTRY, "1").collect(toList());
+        final List<Node> second = sut.getNodeListAsStream(document, XPATH_ENTRY, "2").collect(toList());
+        final List<Node> none = sut.getNodeListAsStream(document, XPATH_ENTRY, "3").collect(toList());
+
+        // Assert
+        assertEquals(1, first.size());
+        assertEquals("1", first.get(0).getFirstChild().getTextContent());
+        assertEquals(1, second.size());
+        assertEquals("2", second.get(0).getFirstChild().getTextContent());
+        assertEquals(0, none.size());
+        assertEquals(1, sut.getCompiledExpressionCount());
+    }
+
+    @Test
+    public void testGetNodeListAsStream_Binds_Values_With_Quotes() throws Exception {
+        // Act
+        final List<Node> nodes = sut.getNodeListAsStream(document, XPATH_ENTRY, "it's").collect(toList());
+
+        // Assert
+        assertEquals(1, nodes.size());
+    }
+
+    @Test
+    public void testGetNodeListAsStream_Binds_Multiple_Values() throws Exception {
+        // Act
+        final List<Node> nodes = sut.getNodeListAsStream(document, XPATH_TEXT_NODE, "1", "hiv").collect(toList());
+
+        // Assert
+        assertEquals(1, nodes.size());
+        assertEquals("Acute HIV", nodes.get(0).getNodeValue());
+    }
+
+    @Test
+    public void testGetNodeListAsStream_Substitutes_Unquoted_Placeholder() throws Exception {
+        // Act
+        final List<Node> titles = sut.getNodeListAsStream(document, XPATH_HEADER, "title").collect(toList());
+        final List<Node> codes = sut.getNodeListAsStream(document, XPATH_HEADER, "code").collect(toList());
+
+        // Assert
+        assertEquals(1, titles.size());
+        assertEquals("title", titles.get(0).getLocalName());
+        assertEquals(1, codes.size());
+        assertEquals(2, sut.getCompiledExpressionCount());
+    }
+
+    @Test(expected = XPathExpressionException.class)
+    public void testGetNodeListAsStream_Throws_XPathExpressionException_When_Value_Is_Missing() throws Exception {
+        // Act
+        sut.getNodeListAsStream(document, XPATH_TEXT_NODE, "1");
+    }
+}
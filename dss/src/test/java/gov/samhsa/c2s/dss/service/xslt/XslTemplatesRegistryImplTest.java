@@ -0,0 +1,75 @@
+package gov.samhsa.c2s.dss.service.xslt;
+
+import gov.samhsa.c2s.common.filereader.FileReaderImpl;
+import gov.samhsa.c2s.common.util.StringURIResolver;
+import gov.samhsa.c2s.dss.service.exception.XslTransformationException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class XslTemplatesRegistryImplTest {
+
+    @Mock
+    private CounterService counterServiceMock;
+    @Mock
+    private GaugeService gaugeServiceMock;
+
+    private XslTemplatesRegistryImpl sut;
+
+    @Before
+    public void setUp() {
+        sut = new XslTemplatesRegistryImpl(counterServiceMock, gaugeServiceMock);
+    }
+
+    @Test
+    public void testCompilesAllStylesheetsAtStartup() {
+        // Assert
+        verify(gaugeServiceMock).submit(eq("xslt.extractClinicalFacts.compile"), anyDouble());
+        verify(gaugeServiceMock).submit(eq("xslt.tag.compile"), anyDouble());
+        verify(gaugeServiceMock).submit(eq("xslt.metadata.compile"), anyDouble());
+        verify(gaugeServiceMock).submit(eq("xslt.AdditonalMetadataStylesheetForProcessedC32.compile"), anyDouble());
+    }
+
+    @Test
+    public void testTransform_Reuses_Compiled_Stylesheet() throws Exception {
+        // Arrange
+        final String c32 = new FileReaderImpl().readFile("sampleC32/c32.xml");
+        final String xacmlResult = "<xacmlResult xmlns=\"urn:hl7-org:v3\"><pdpDecision>Permit</pdpDecision></xacmlResult>";
+
+        // Act
+        final String first = sut.transform(Stylesheet.EXTRACT_CLINICAL_FACTS, c32, Collections.emptyMap(),
+                Optional.of(new StringURIResolver().put("xacmlResult", xacmlResult)));
+        final String second = sut.transform(Stylesheet.EXTRACT_CLINICAL_FACTS, c32, Collections.emptyMap(),
+                Optional.of(new StringURIResolver().put("xacmlResult", xacmlResult)));
+
+        // Assert
+        assertTrue(first.contains("<FactModel"));
+        assertTrue(second.contains("<FactModel"));
+        verify(gaugeServiceMock, times(2)).submit(eq("timer.xslt.extractClinicalFacts.transform"), anyDouble());
+    }
+
+    @Test(expected = XslTransformationException.class)
+    public void testTransform_Throws_XslTransformationException() {
+        try {
+            // Act
+            sut.transform(Stylesheet.TAG, "<not-xml", Collections.emptyMap(), Optional.empty());
+        } finally {
+            // Assert
+            verify(counterServiceMock).increment("xslt.tag.failure");
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package gov.samhsa.c2s.dss.web;
+
+import gov.samhsa.c2s.dss.config.DssProperties;
+import gov.samhsa.c2s.dss.service.DocumentSegmentation;
+import gov.samhsa.c2s.dss.service.dto.DSSRequest;
+import gov.samhsa.c2s.dss.service.dto.DSSResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.fileUpload;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class DocumentSegmentationRestControllerTest {
+
+    private static final int MAX_UPLOAD_SIZE = 1024;
+    private static final int MAX_BATCH_SIZE = 1;
+    private static final String DOCUMENT = "<ClinicalDocument xmlns=\"urn:hl7-org:v3\"/>";
+    private static final String REQUEST = "{\"xacmlResult\":{\"pdpDecision\":\"PERMIT\"},\"audited\":false,\"documentEncoding\":\"UTF-8\"}";
+
+    private AnnotationConfigWebApplicationContext context;
+
+    private DocumentSegmentation documentSegmentationMock;
+
+    private MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.register(UploadConfig.class);
+        context.refresh();
+        documentSegmentationMock = context.getBean(DocumentSegmentation.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testSegment_Uploaded_Document() throws Exception {
+        // Arrange
+        final DSSResponse dssResponse = new DSSResponse();
+        dssResponse.setEncoding("UTF-8");
+        when(documentSegmentationMock.segmentDocument(any(DSSRequest.class))).thenReturn(dssResponse);
+        final ArgumentCaptor<DSSRequest> dssRequestCaptor = ArgumentCaptor.forClass(DSSRequest.class);
+
+        // Act
+        mockMvc.perform(fileUpload("/segmentedDocument")
+                .file(new MockMultipartFile("request", "", MediaType.APPLICATION_JSON_VALUE,
+                        REQUEST.getBytes(StandardCharsets.UTF_8)))
+                .file(new MockMultipartFile("document", "document.xml", MediaType.TEXT_XML_VALUE,
+                        DOCUMENT.getBytes(StandardCharsets.UTF_8))))
+
+                // Assert
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.encoding").value("UTF-8"));
+        verify(documentSegmentationMock).segmentDocument(dssRequestCaptor.capture());
+        final DSSRequest dssRequest = dssRequestCaptor.getValue();
+        assertArrayEquals(DOCUMENT.getBytes(StandardCharsets.UTF_8), dssRequest.getDocument());
+        assertEquals("PERMIT", dssRequest.getXacmlResult().getPdpDecision());
+        assertEquals(Boolean.FALSE, dssRequest.getAudited().get());
+        assertEquals("UTF-8", dssRequest.getDocumentEncoding().get());
+    }
+
+    @Test
+    public void testSegment_Oversized_Upload_Answered_With_413() throws Exception {
+        // Arrange
+        final byte[] body = new byte[MAX_UPLOAD_SIZE + 1];
+        Arrays.fill(body, (byte) 'x');
+
+        // Act
+        mockMvc.perform(post("/segmentedDocument")
+                .contentType("multipart/form-data; boundary=upload")
+                .content(body))
+
+                // Assert
+                .andExpect(status().isPayloadTooLarge());
+        verify(documentSegmentationMock, never()).segmentDocument(any(DSSRequest.class));
+    }
+
+    @Test
+    public void testSegment_Oversized_Batch_Answered_With_413() throws Exception {
+        // Act
+        mockMvc.perform(post("/segmentedDocuments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"requests\":[{},{}]}"))
+
+                // Assert
+                .andExpect(status().isPayloadTooLarge());
+        verify(documentSegmentationMock, never()).segmentDocuments(anyListOf(DSSRequest.class));
+    }
+
+    @Test
+    public void testSegment_Unreadable_Request_Answered_With_400() throws Exception {
+        // Act
+        mockMvc.perform(post("/segmentedDocument")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{"))
+
+                // Assert
+                .andExpect(status().isBadRequest());
+        verify(documentSegmentationMock, never()).segmentDocument(any(DSSRequest.class));
+    }
+
+    @Configuration
+    @EnableWebMvc
+    static class UploadConfig {
+
+        @Bean
+        public DssProperties dssProperties() {
+            final DssProperties dssProperties = new DssProperties();
+            dssProperties.getBatch().setMaxSize(MAX_BATCH_SIZE);
+            return dssProperties;
+        }
+
+        @Bean
+        public DocumentSegmentation documentSegmentation() {
+            return mock(DocumentSegmentation.class);
+        }
+
+        @Bean
+        public DocumentSegmentationRestController documentSegmentationRestController() {
+            return new DocumentSegmentationRestController();
+        }
+
+        @Bean
+        public DocumentUploadExceptionHandler documentUploadExceptionHandler() {
+            return new DocumentUploadExceptionHandler();
+        }
+
+        @Bean
+        public BatchRequestExceptionHandler batchRequestExceptionHandler() {
+            return new BatchRequestExceptionHandler();
+        }
+
+        @Bean
+        public MultipartResolver multipartResolver() {
+            return new SizeLimitedMultipartResolver();
+        }
+    }
+
+    /**
+     * Rejects uploads over the size limit the way the servlet container does. The uploads within the limit are
+     * already built as multipart requests by the tests, so they never reach the resolver.
+     */
+    private static final class SizeLimitedMultipartResolver implements MultipartResolver {
+
+        @Override
+        public boolean isMultipart(HttpServletRequest request) {
+            return request.getContentType() != null && request.getContentType().startsWith("multipart/");
+        }
+
+        @Override
+        public MultipartHttpServletRequest resolveMultipart(HttpServletRequest request) {
+            if (request.getContentLength() > MAX_UPLOAD_SIZE) {
+                throw new MaxUploadSizeExceededException(MAX_UPLOAD_SIZE);
+            }
+            throw new MultipartException("Only oversized uploads are resolved in this test");
+        }
+
+        @Override
+        public void cleanupMultipart(MultipartHttpServletRequest request) {
+        }
+    }
+}